@@ -61,6 +61,26 @@ tasks.shadowJar {
     mergeServiceFiles()
 }
 
+// Load tools in src/loadTest/java. They see the job's classes and dependencies.
+val loadTest by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+configurations[loadTest.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[loadTest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+// Throughput and latency of each processing-guarantee profile, e.g.
+// ./gradlew guaranteeBenchmark -PbenchArgs="--target=kafka --bootstrap=localhost:29092 --rate=5000"
+tasks.register<JavaExec>("guaranteeBenchmark") {
+    description = "Runs GuaranteeBenchmark and reports throughput and latency per processing guarantee"
+    group = "verification"
+    classpath = loadTest.runtimeClasspath
+    mainClass.set("org.lurence.load.GuaranteeBenchmark")
+    if (project.hasProperty("benchArgs")) {
+        args((project.property("benchArgs") as String).split(" "))
+    }
+}
+
 // Add task to analyze classpath for debugging serializer issues
 tasks.register("printClasspath") {
     doLast {
@@ -0,0 +1,411 @@
+package org.lurence.load;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.impl.JobExecutionRecord;
+import com.hazelcast.jet.impl.JobRepository;
+import com.hazelcast.jet.kafka.KafkaSources;
+import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.SinkBuilder;
+import com.hazelcast.jet.pipeline.SourceBuilder;
+import com.hazelcast.jet.pipeline.SourceBuilder.SourceBuffer;
+import com.hazelcast.jet.pipeline.StreamStage;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.lurence.GuaranteeProfile;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the same stateful streaming job under each {@link GuaranteeProfile} on an embedded member
+ * and reports throughput and end-to-end latency per profile. Use it to pick the cheapest
+ * guarantee each downstream consumer tolerates.
+ * <p>
+ * Items are due at a fixed rate. Latency runs from an item's due time until it is delivered, so
+ * stalls behind snapshot barriers and the wait for a transaction commit both count. The job keys
+ * the items and keeps a count per key (--keys), so every snapshot carries that state, as the
+ * aggregations of JetJob do. Targets:
+ * <ul>
+ *   <li>embedded: an in-process generator source and a sink that records the latency. This
+ *   measures the snapshot cost alone.</li>
+ *   <li>kafka: the harness produces to a fresh input topic on --bootstrap. The job reads it with the
+ *   profile's consumer settings and writes an output topic through the profile's Kafka sink, which
+ *   is transactional under EXACTLY_ONCE. The harness reads that topic back with read_committed. An
+ *   item then counts as delivered when a read_committed consumer can see it, so commit latency and
+ *   the transactional producer's overhead are included.</li>
+ * </ul>
+ * Options (all optional):
+ * <pre>
+ *   --target=embedded|kafka         where items come from and go to (default embedded)
+ *   --profiles=P,...                NONE, AT_LEAST_ONCE, EXACTLY_ONCE (default all three)
+ *   --snapshot-interval-ms=N,...    snapshot intervals to try with each guarantee (default 1000,10000)
+ *   --rate=N                        items/s, 0 for as fast as the job goes (default 20000)
+ *   --duration=S                    seconds to send per run (default 30)
+ *   --warmup=S                      leave items due in the first S seconds out (default 5)
+ *   --keys=N                        keys of the per-key state (default 10000)
+ *   --cooperative-threads=N         Jet cooperative threads (default 4, as in JetJob)
+ *   --drain-seconds=S               longest wait for stragglers after sending (default 30)
+ *   --bootstrap=HOST:PORT           kafka target: bootstrap servers (default localhost:29092)
+ * </pre>
+ * Run with ./gradlew guaranteeBenchmark -PbenchArgs="--target=kafka --rate=5000".
+ */
+public final class GuaranteeBenchmark {
+    // Sink processors find the current run's recorder here; the member runs in this JVM
+    private static volatile LatencyRecorder current;
+
+    private String target = "embedded";
+    private List<ProcessingGuarantee> guarantees = Arrays.asList(
+            ProcessingGuarantee.NONE, ProcessingGuarantee.AT_LEAST_ONCE, ProcessingGuarantee.EXACTLY_ONCE);
+    private long[] snapshotIntervals = {1_000, 10_000};
+    private double rate = 20_000;
+    private long durationMillis = 30_000;
+    private long warmupMillis = 5_000;
+    private int keys = 10_000;
+    private int cooperativeThreads = 4;
+    private long drainMillis = 30_000;
+    private String bootstrap = "localhost:29092";
+
+    private final List<String> results = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        // Only warnings from the member, so the per-profile results stay readable
+        System.setProperty("hazelcast.logging.type", "slf4j");
+        System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+        GuaranteeBenchmark benchmark = new GuaranteeBenchmark();
+        benchmark.parse(args);
+        benchmark.run();
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1).trim();
+            switch (name) {
+                case "target":
+                    target = value.toLowerCase(Locale.ROOT);
+                    if (!target.equals("embedded") && !target.equals("kafka")) {
+                        throw new IllegalArgumentException("--target must be embedded or kafka, got " + value);
+                    }
+                    break;
+                case "profiles":
+                    guarantees = new ArrayList<>();
+                    for (String profile : value.split(",")) {
+                        guarantees.add(ProcessingGuarantee.valueOf(profile.trim().toUpperCase(Locale.ROOT).replace('-', '_')));
+                    }
+                    break;
+                case "snapshot-interval-ms":
+                    snapshotIntervals = Arrays.stream(value.split(",")).mapToLong(v -> Long.parseLong(v.trim())).toArray();
+                    break;
+                case "rate":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "duration":
+                    durationMillis = (long) (Double.parseDouble(value) * 1000);
+                    break;
+                case "warmup":
+                    warmupMillis = (long) (Double.parseDouble(value) * 1000);
+                    break;
+                case "keys":
+                    keys = Integer.parseInt(value);
+                    break;
+                case "cooperative-threads":
+                    cooperativeThreads = Integer.parseInt(value);
+                    break;
+                case "drain-seconds":
+                    drainMillis = (long) (Double.parseDouble(value) * 1000);
+                    break;
+                case "bootstrap":
+                    bootstrap = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        Config config = new Config();
+        config.setClusterName("guarantee-benchmark");
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getJetConfig().setEnabled(true).setCooperativeThreadCount(cooperativeThreads);
+        HazelcastInstance hz = Hazelcast.newHazelcastInstance(config);
+        try {
+            System.out.printf("Target %s, %s items/s for %d s (%d s warmup), %d keys%n", target,
+                    rate > 0 ? String.format("%.0f", rate) : "unthrottled", durationMillis / 1000, warmupMillis / 1000, keys);
+            for (ProcessingGuarantee guarantee : guarantees) {
+                // Without snapshots the interval changes nothing, so NONE runs once
+                long[] intervals = guarantee == ProcessingGuarantee.NONE ? new long[]{0} : snapshotIntervals;
+                for (long interval : intervals) {
+                    runProfile(hz, GuaranteeProfile.of(guarantee, interval), interval);
+                }
+            }
+        } finally {
+            hz.shutdown();
+        }
+
+        System.out.println();
+        System.out.printf("%-14s %11s %12s %9s %9s %9s %9s %9s %11s %11s%n", "profile", "interval ms", "throughput/s",
+                "p50 ms", "p99 ms", "p99.9 ms", "max ms", "snapshots", "snap avg ms", "snap max ms");
+        for (String line : results) {
+            System.out.println(line);
+        }
+    }
+
+    private void runProfile(HazelcastInstance hz, GuaranteeProfile profile, long interval) throws Exception {
+        System.out.println();
+        System.out.println("Profile " + profile);
+        String runId = profile.guarantee().name().toLowerCase(Locale.ROOT) + "-" + interval + "-" + System.currentTimeMillis();
+        String inTopic = "guarantee-benchmark-" + runId + "-in";
+        String outTopic = "guarantee-benchmark-" + runId + "-out";
+        boolean kafka = target.equals("kafka");
+        if (kafka) {
+            createTopics(inTopic, outTopic);
+        }
+
+        long start = System.nanoTime();
+        long stop = start + durationMillis * 1_000_000L;
+        LatencyRecorder recorder = new LatencyRecorder(start, warmupMillis);
+        current = recorder;
+
+        Pipeline p = Pipeline.create();
+        StreamStage<long[]> items;
+        if (kafka) {
+            Properties consumerProps = profile.consumerProps(kafkaConsumerProps("guarantee-benchmark-" + runId));
+            items = p.readFrom(KafkaSources.<String, String, long[]>kafka(consumerProps,
+                            rec -> new long[]{Long.parseLong(rec.key()), Long.parseLong(rec.value())}, inTopic))
+                    .withoutTimestamps();
+        } else {
+            double nanosPerItem = rate > 0 ? 1e9 / rate : 0;
+            items = p.readFrom(SourceBuilder.stream("generator", ctx -> new Generator(start, stop, nanosPerItem))
+                            .<long[]>fillBufferFn(Generator::fill)
+                            .build())
+                    .withoutTimestamps();
+        }
+        int keyCount = keys;
+        StreamStage<long[]> counted = items
+                .groupingKey(item -> item[0] % keyCount)
+                .mapStateful(() -> new long[1], (long[] count, Long key, long[] item) -> {
+                    count[0]++;
+                    return item;
+                })
+                .setName("count-per-key");
+        if (kafka) {
+            counted.writeTo(profile.<long[]>kafkaSink(profile.producerProps(kafkaProducerProps()), outTopic,
+                    item -> String.valueOf(item[0]), item -> String.valueOf(item[1])));
+        } else {
+            counted.writeTo(SinkBuilder.sinkBuilder("latency", ctx -> current)
+                    .<long[]>receiveFn((r, item) -> r.record(item[1], System.nanoTime()))
+                    .preferredLocalParallelism(1)
+                    .build());
+        }
+
+        Job job = hz.getJet().newJob(p, profile.apply(new JobConfig().setName("guarantee-benchmark-" + runId)));
+        Thread sender = null;
+        OutputReader reader = null;
+        if (kafka) {
+            sender = new Thread(() -> send(inTopic, start, stop), "benchmark-sender");
+            sender.start();
+            reader = new OutputReader(outTopic, recorder);
+            reader.start();
+        }
+
+        // Sample the job's snapshot record while it runs; only the last snapshot is kept there. Snapshot
+        // durations are not in any public metric, so this benchmark reads Jet's internal job record
+        // and has to be checked on Hazelcast upgrades
+        TreeMap<Long, Long> snapshotMillis = new TreeMap<>();
+        JobRepository jobRepository = new JobRepository(hz);
+        long idleFor = Math.max(3_000, 2 * interval) * 1_000_000L;
+        long drainUntil = stop + drainMillis * 1_000_000L;
+        long lastCompleted = -1;
+        long lastProgress = System.nanoTime();
+        while (true) {
+            Thread.sleep(100);
+            JobExecutionRecord record = jobRepository.getJobExecutionRecord(job.getId());
+            if (record != null && record.snapshotId() >= 0 && record.snapshotStats() != null) {
+                snapshotMillis.put(record.snapshotId(), record.snapshotStats().duration());
+            }
+            long now = System.nanoTime();
+            long completed = recorder.completed();
+            if (completed != lastCompleted) {
+                lastCompleted = completed;
+                lastProgress = now;
+            }
+            if (now >= drainUntil || (now >= stop && now - lastProgress >= idleFor)) {
+                break;
+            }
+        }
+
+        if (sender != null) {
+            sender.join();
+        }
+        if (reader != null) {
+            reader.close();
+        }
+        job.cancel();
+        try {
+            job.join();
+        } catch (Exception expected) {
+            // CancellationException
+        }
+
+        long[] sorted = recorder.sorted();
+        long snapshotMax = 0;
+        long snapshotTotal = 0;
+        for (long millis : snapshotMillis.values()) {
+            snapshotMax = Math.max(snapshotMax, millis);
+            snapshotTotal += millis;
+        }
+        int snapshots = snapshotMillis.isEmpty() ? 0 : (int) (snapshotMillis.lastKey() + 1);
+        String line = String.format("%-14s %11s %12.0f %9.2f %9.2f %9.2f %9.2f %9d %11s %11s",
+                profile.guarantee(), interval > 0 ? String.valueOf(interval) : "-", recorder.throughput(),
+                LatencyRecorder.percentileMillis(sorted, 0.50), LatencyRecorder.percentileMillis(sorted, 0.99),
+                LatencyRecorder.percentileMillis(sorted, 0.999), LatencyRecorder.percentileMillis(sorted, 1.0),
+                snapshots,
+                snapshotMillis.isEmpty() ? "-" : String.format("%.1f", (double) snapshotTotal / snapshotMillis.size()),
+                snapshotMillis.isEmpty() ? "-" : String.valueOf(snapshotMax));
+        System.out.printf("Completed %d items, %d measured%n", recorder.completed(), sorted.length);
+        System.out.println(line);
+        results.add(line);
+    }
+
+    /** Items due at the configured rate until {@code stop}: {sequence, due nanos}. */
+    static final class Generator {
+        private final long start;
+        private final long stop;
+        private final double nanosPerItem;
+        private long sequence;
+
+        Generator(long start, long stop, double nanosPerItem) {
+            this.start = start;
+            this.stop = stop;
+            this.nanosPerItem = nanosPerItem;
+        }
+
+        void fill(SourceBuffer<long[]> buffer) {
+            long now = System.nanoTime();
+            for (int i = 0; i < 1024; i++) {
+                long due = nanosPerItem > 0 ? start + (long) (sequence * nanosPerItem) : now;
+                if (due > now || due >= stop) {
+                    return;
+                }
+                buffer.add(new long[]{sequence++, due});
+            }
+        }
+    }
+
+    private void send(String topic, long start, long stop) {
+        Properties props = new Properties();
+        props.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        props.setProperty(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        props.setProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        props.setProperty(ProducerConfig.ACKS_CONFIG, "1");
+        props.setProperty(ProducerConfig.LINGER_MS_CONFIG, "5");
+        double nanosPerItem = rate > 0 ? 1e9 / rate : 0;
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(props)) {
+            for (long sequence = 0; ; sequence++) {
+                long due = nanosPerItem > 0 ? start + (long) (sequence * nanosPerItem) : System.nanoTime();
+                if (due >= stop) {
+                    break;
+                }
+                while (System.nanoTime() < due) {
+                    LockSupport.parkNanos(Math.min(due - System.nanoTime(), 1_000_000L));
+                }
+                producer.send(new ProducerRecord<>(topic, String.valueOf(sequence), String.valueOf(due)));
+            }
+        }
+    }
+
+    /** Reads the job's output with read_committed and records each item's latency. */
+    private final class OutputReader extends Thread {
+        private final String topic;
+        private final LatencyRecorder recorder;
+        private volatile boolean running = true;
+
+        OutputReader(String topic, LatencyRecorder recorder) {
+            super("benchmark-reader");
+            this.topic = topic;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void run() {
+            Properties props = kafkaConsumerProps("guarantee-benchmark-reader-" + System.nanoTime());
+            props.setProperty(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+            try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(props)) {
+                consumer.subscribe(Collections.singletonList(topic));
+                while (running) {
+                    for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(100))) {
+                        recorder.record(Long.parseLong(record.value()), System.nanoTime());
+                    }
+                }
+            }
+        }
+
+        void close() throws InterruptedException {
+            running = false;
+            join();
+        }
+    }
+
+    private Properties kafkaConsumerProps(String groupId) {
+        Properties props = new Properties();
+        props.setProperty(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        props.setProperty(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.setProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "500");
+        return props;
+    }
+
+    /** The job's producer settings before the profile adds its own, as in JetJob. */
+    private Properties kafkaProducerProps() {
+        Properties props = new Properties();
+        props.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        props.setProperty(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        props.setProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        props.setProperty(ProducerConfig.RETRIES_CONFIG, "3");
+        props.setProperty(ProducerConfig.LINGER_MS_CONFIG, "5");
+        return props;
+    }
+
+    private void createTopics(String... topics) throws Exception {
+        Properties props = new Properties();
+        props.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        List<NewTopic> newTopics = new ArrayList<>();
+        for (String topic : topics) {
+            newTopics.add(new NewTopic(topic, 3, (short) 1));
+        }
+        try (AdminClient admin = AdminClient.create(props)) {
+            admin.createTopics(newTopics).all().get();
+        }
+    }
+}
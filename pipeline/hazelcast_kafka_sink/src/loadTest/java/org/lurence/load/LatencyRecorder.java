@@ -0,0 +1,66 @@
+package org.lurence.load;
+
+import java.util.Arrays;
+
+/**
+ * Completion latencies of one benchmark run, in nanoseconds from each item's due time. Items due
+ * before the end of the warmup count as completed but are left out of the latencies and the
+ * throughput.
+ * <p>
+ * Fed by the latency sink's processor or by the consuming thread; the methods are synchronized so
+ * the harness can read the results from its own thread.
+ */
+final class LatencyRecorder {
+    private final long measureFromNanos;
+
+    private long[] latencies = new long[64 * 1024];
+    private int count;
+    private long completed;
+    private long firstMeasured;
+    private long lastMeasured;
+
+    LatencyRecorder(long startNanos, long warmupMillis) {
+        this.measureFromNanos = startNanos + warmupMillis * 1_000_000L;
+    }
+
+    synchronized void record(long dueNanos, long now) {
+        completed++;
+        if (dueNanos < measureFromNanos) {
+            return;
+        }
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = now - dueNanos;
+        if (firstMeasured == 0) {
+            firstMeasured = now;
+        }
+        lastMeasured = now;
+    }
+
+    /** Items completed so far, warmup included. */
+    synchronized long completed() {
+        return completed;
+    }
+
+    /** Measured items per second, from the first to the last one completed after the warmup. */
+    synchronized double throughput() {
+        long nanos = lastMeasured - firstMeasured;
+        return nanos <= 0 ? Double.NaN : (count - 1) * 1e9 / nanos;
+    }
+
+    /** All recorded latencies, sorted. */
+    synchronized long[] sorted() {
+        long[] all = Arrays.copyOf(latencies, count);
+        Arrays.sort(all);
+        return all;
+    }
+
+    static double percentileMillis(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,85 @@
+package org.lurence;
+
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.datamodel.KeyedWindowResult;
+
+/**
+ * Running count, sum, min and max of transaction amounts; used as the accumulator of the
+ * windowed aggregations so each event costs a handful of field updates.
+ */
+public class AmountStats {
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public AmountStats() {
+    }
+
+    /** count/sum/min/max of {@link Transaction#getAmount()} in one accumulator. */
+    public static AggregateOperation1<Transaction, AmountStats, AmountStats> amountStats() {
+        return AggregateOperation
+                .withCreate(AmountStats::new)
+                .<Transaction>andAccumulate((stats, t) -> stats.add(t.getAmount()))
+                .andCombine(AmountStats::combine)
+                .andExportFinish(AmountStats::copy);
+    }
+
+    public void add(double amount) {
+        count++;
+        sum += amount;
+        if (amount < min) min = amount;
+        if (amount > max) max = amount;
+    }
+
+    public void combine(AmountStats other) {
+        count += other.count;
+        sum += other.sum;
+        if (other.min < min) min = other.min;
+        if (other.max > max) max = other.max;
+    }
+
+    public AmountStats copy() {
+        AmountStats copy = new AmountStats();
+        copy.combine(this);
+        return copy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    /** JSON record for the aggregates topic. */
+    public static String toJson(String dimension, KeyedWindowResult<?, AmountStats> result) {
+        AmountStats stats = result.result();
+        StringBuilder sb = new StringBuilder(192);
+        sb.append('{');
+        Json.field(sb, "dimension", dimension).append(',');
+        Json.field(sb, "key", String.valueOf(result.key())).append(',');
+        Json.field(sb, "window_start", result.start()).append(',');
+        Json.field(sb, "window_end", result.end()).append(',');
+        Json.field(sb, "count", stats.count).append(',');
+        Json.field(sb, "sum", stats.sum).append(',');
+        Json.field(sb, "min", stats.min).append(',');
+        Json.field(sb, "max", stats.max).append(',');
+        Json.field(sb, "mean", stats.getMean());
+        return sb.append('}').toString();
+    }
+}
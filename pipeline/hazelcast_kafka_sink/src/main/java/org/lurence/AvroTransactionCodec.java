@@ -0,0 +1,93 @@
+package org.lurence;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes {@link Transaction}s for powerbi-stream as Avro single-object messages
+ * (2-byte marker, 8-byte schema fingerprint, binary record) using avro/transaction.avsc.
+ * The fingerprint tells the bridge which version of the schema wrote a record; it keeps the
+ * earlier versions in its avro/history and resolves their records against the current one.
+ */
+public final class AvroTransactionCodec {
+    public static final Schema SCHEMA = loadSchema();
+
+    // Thread-safe; keeps a reusable buffer per thread
+    private static final BinaryMessageEncoder<GenericRecord> ENCODER =
+            new BinaryMessageEncoder<>(GenericData.get(), SCHEMA);
+
+    private static final int TRANSACTIONID = SCHEMA.getField("transactionid").pos();
+    private static final int ACCOUNTFROM = SCHEMA.getField("accountfrom").pos();
+    private static final int ACCOUNTTO = SCHEMA.getField("accountto").pos();
+    private static final int BANKIDFROM = SCHEMA.getField("bankidfrom").pos();
+    private static final int BANKIDTO = SCHEMA.getField("bankidto").pos();
+    private static final int TRANSACTIONAMOUNT = SCHEMA.getField("transactionamount").pos();
+    private static final int EXCHANGERATE = SCHEMA.getField("exchangerate").pos();
+    private static final int TRANSACTIONDATE = SCHEMA.getField("transactiondate").pos();
+    private static final int TRANSACTIONTYPE = SCHEMA.getField("transactiontype").pos();
+    private static final int INTERIMBALANCE = SCHEMA.getField("interimbalance").pos();
+    private static final int ACCOUNTTO_INTERIMBALANCE = SCHEMA.getField("accountto_interimbalance").pos();
+    private static final int CURRENCY = SCHEMA.getField("currency").pos();
+    private static final int QUOTECURRENCY = SCHEMA.getField("quotecurrency").pos();
+    private static final int PAYMENTMODE = SCHEMA.getField("paymentmode").pos();
+    private static final int OVERRIDEFLAG = SCHEMA.getField("overrideflag").pos();
+    private static final int NARRATIVE = SCHEMA.getField("narrative").pos();
+    private static final int OP = SCHEMA.getField("op").pos();
+    private static final int SOURCE_TS_MS = SCHEMA.getField("source_ts_ms").pos();
+    private static final int EVENT_TIME = SCHEMA.getField("event_time").pos();
+    private static final int JET_TS_MS = SCHEMA.getField("jet_ts_ms").pos();
+
+    private AvroTransactionCodec() {
+    }
+
+    public static byte[] encode(Transaction t) {
+        GenericData.Record record = new GenericData.Record(SCHEMA);
+        record.put(TRANSACTIONID, t.getTransactionId());
+        record.put(ACCOUNTFROM, t.getAccountFrom());
+        record.put(ACCOUNTTO, t.getAccountTo());
+        record.put(BANKIDFROM, t.getBankIdFrom());
+        record.put(BANKIDTO, t.getBankIdTo());
+        record.put(TRANSACTIONAMOUNT, t.getAmount());
+        record.put(EXCHANGERATE, t.getExchangeRate());
+        record.put(TRANSACTIONDATE, t.getTransactionDate());
+        record.put(TRANSACTIONTYPE, t.getTransactionType());
+        record.put(INTERIMBALANCE, t.getInterimBalance());
+        record.put(ACCOUNTTO_INTERIMBALANCE, t.getAccountToInterimBalance());
+        record.put(CURRENCY, t.getCurrency());
+        record.put(QUOTECURRENCY, t.getQuoteCurrency());
+        record.put(PAYMENTMODE, t.getPaymentMode());
+        record.put(OVERRIDEFLAG, t.isOverrideFlag());
+        record.put(NARRATIVE, t.getNarrative());
+        record.put(OP, t.getOp());
+        record.put(SOURCE_TS_MS, t.getSourceTsMs());
+        record.put(EVENT_TIME, t.getEventTime());
+        record.put(JET_TS_MS, t.getJetTsMs());
+        ByteBuffer buffer;
+        try {
+            buffer = ENCODER.encode(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Avro encoding failed for transaction " + t.getTransactionId(), e);
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Schema loadSchema() {
+        try (InputStream in = AvroTransactionCodec.class.getResourceAsStream("/avro/transaction.avsc")) {
+            if (in == null) {
+                throw new IllegalStateException("avro/transaction.avsc not found on the classpath");
+            }
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
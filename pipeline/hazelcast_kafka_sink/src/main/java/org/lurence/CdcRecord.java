@@ -0,0 +1,78 @@
+package org.lurence;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * A Debezium record as read from Kafka: the raw key/value for the pass-through sinks, the
+ * parsed row (null for deletes and schema events) and, for deletes and tombstones, the id of the
+ * removed row. Parsing happens in the source so the event
+ * time is known where Jet tracks watermarks per Kafka partition.
+ */
+public class CdcRecord {
+    /** Event time of records without a row; never advances a watermark. */
+    public static final long NO_EVENT_TIME = Long.MIN_VALUE;
+
+    private String key;
+    private String value;
+    private Transaction transaction;
+    private Long deletedTransactionId;
+    private int partition;
+    private long kafkaTimestamp;
+    private long eventTime;
+
+    public CdcRecord() {
+    }
+
+    /** Projection for the Kafka source: parse the row and stamp its event time. */
+    public static CdcRecord fromConsumerRecord(ConsumerRecord<String, String> record, EventTime eventTime) {
+        CdcRecord cdc = new CdcRecord();
+        cdc.key = record.key();
+        cdc.value = record.value();
+        cdc.partition = record.partition();
+        cdc.kafkaTimestamp = record.timestamp();
+        cdc.transaction = DebeziumParser.parse(record.value());
+        if (cdc.transaction != null) {
+            cdc.transaction.setJetTsMs(System.currentTimeMillis());
+            cdc.transaction.setEventTime(eventTime.of(cdc.transaction, cdc.kafkaTimestamp));
+            cdc.eventTime = cdc.transaction.getEventTime();
+        } else {
+            // Deletes, tombstones and schema events have no row. Broker time would move the
+            // partition's watermark to now and make every later (historical) row late; Jet's lag
+            // policy ignores timestamps this low, so these records never move it
+            cdc.deletedTransactionId = DebeziumParser.deletedTransactionId(record.key(), record.value());
+            cdc.eventTime = NO_EVENT_TIME;
+        }
+        return cdc;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    /** Kafka partition the record was read from; Jet keeps a watermark per source partition. */
+    public int getPartition() {
+        return partition;
+    }
+
+    /** TRANSACTIONID removed by this delete or tombstone; null for every other record. */
+    public Long getDeletedTransactionId() {
+        return deletedTransactionId;
+    }
+
+    public long getKafkaTimestamp() {
+        return kafkaTimestamp;
+    }
+
+    /** Event time the source stamped; {@link #NO_EVENT_TIME} for records without a row. */
+    public long getEventTime() {
+        return eventTime;
+    }
+}
@@ -0,0 +1,383 @@
+package org.lurence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses one Debezium change event for tbank_cleaned into a {@link Transaction}.
+ * <p>
+ * Accepts both shapes the connector can produce: Kafka Connect {@code Struct.toString()} text
+ * (StringConverter) and JSON, with or without the schema/payload wrapper (JsonConverter).
+ * Events without an {@code after} image (deletes, tombstones, schema changes) yield null;
+ * {@link #deletedTransactionId} picks out the row a delete or tombstone removes.
+ */
+public final class DebeziumParser {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String STRUCT_OPEN = "Struct{";
+    private static final DateTimeFormatter DATE_TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd[ ]['T']HH:mm:ss[.SSSSSS][.SSS]");
+    private static final Set<String> COLUMNS = new HashSet<>(Arrays.asList(
+            "transactionid", "accountfrom", "accountto", "bankidfrom", "bankidto", "transactionamount",
+            "exchangerate", "transactiondate", "transactiontype", "interimbalance", "accountto_interimbalance",
+            "currency", "quotecurrency", "paymentmode", "overrideflag", "narrative"));
+    // Epoch values at or above this are MicroTimestamps rather than millis
+    private static final long MICROS_THRESHOLD = 100_000_000_000_000L;
+
+    private DebeziumParser() {
+    }
+
+    /** @return the parsed row, or null if the event carries no row image */
+    public static Transaction parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (value.startsWith("Struct")) {
+            return parseStruct(value);
+        }
+        if (value.charAt(0) == '{') {
+            return parseJson(value);
+        }
+        return null;
+    }
+
+    /**
+     * TRANSACTIONID of the row removed by a delete event (op=d) or by the tombstone that follows it.
+     * Taken from the record key, which Debezium sets to the primary key, or else from the before
+     * image of the delete.
+     *
+     * @return the id, or null if the record is not a delete or carries no id
+     */
+    public static Long deletedTransactionId(String key, String value) {
+        boolean tombstone = value == null || value.isEmpty();
+        Transaction before = null;
+        if (!tombstone) {
+            if (value.startsWith("Struct")) {
+                before = parseStruct(value, "before");
+            } else if (value.charAt(0) == '{') {
+                before = parseJson(value, "before");
+            }
+            if (before == null || !"d".equals(before.getOp())) {
+                return null;
+            }
+        }
+        Long id = keyTransactionId(key);
+        if (id == null && before != null && before.getTransactionId() != 0) {
+            id = before.getTransactionId();
+        }
+        return id;
+    }
+
+    /** transactionid from a Struct{transactionid=...} or JSON key, with or without the schema wrapper. */
+    private static Long keyTransactionId(String key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        if (key.startsWith(STRUCT_OPEN)) {
+            int start = key.toLowerCase().indexOf("transactionid=");
+            if (start < 0) {
+                return null;
+            }
+            start += "transactionid=".length();
+            int end = start;
+            while (end < key.length() && key.charAt(end) != ',' && key.charAt(end) != '}') end++;
+            String raw = key.substring(start, end).trim();
+            return "null".equals(raw) ? null : parseLong(raw);
+        }
+        if (key.charAt(0) == '{') {
+            try {
+                JsonNode root = MAPPER.readTree(key);
+                JsonNode fields = root.has("payload") ? root.get("payload") : root;
+                Iterator<Map.Entry<String, JsonNode>> it = fields.fields();
+                while (it.hasNext()) {
+                    Map.Entry<String, JsonNode> field = it.next();
+                    if ("transactionid".equalsIgnoreCase(field.getKey()) && !field.getValue().isNull()) {
+                        return parseLong(field.getValue().asText());
+                    }
+                }
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // ---------------------------------------------------------------- Struct text
+
+    private static Transaction parseStruct(String text) {
+        return parseStruct(text, "after");
+    }
+
+    /** Columns of the {@code image} struct ("after" or "before") plus the envelope; null without that image. */
+    private static Transaction parseStruct(String text, String image) {
+        Transaction t = new Transaction();
+        boolean hasImage = false;
+
+        // Names of the structs enclosing the current position, outermost first
+        String[] sections = new String[8];
+        int depth = 0;
+        int pos = 0;
+        int end = text.length();
+
+        while (pos < end) {
+            char c = text.charAt(pos);
+            if (c == ',' || c == ' ') {
+                pos++;
+                continue;
+            }
+            if (c == '}') {
+                if (depth > 0) depth--;
+                pos++;
+                continue;
+            }
+            if (text.startsWith(STRUCT_OPEN, pos)) {
+                if (depth < sections.length) sections[depth] = "";
+                depth++;
+                pos += STRUCT_OPEN.length();
+                continue;
+            }
+
+            int eq = pos;
+            while (eq < end && text.charAt(eq) != '=' && text.charAt(eq) != ',' && text.charAt(eq) != '}') eq++;
+            if (eq >= end || text.charAt(eq) != '=') {
+                pos = eq;
+                continue;
+            }
+            String key = text.substring(pos, eq).trim();
+            pos = eq + 1;
+
+            if (text.startsWith(STRUCT_OPEN, pos)) {
+                if (depth < sections.length) sections[depth] = key;
+                depth++;
+                pos += STRUCT_OPEN.length();
+                continue;
+            }
+
+            int valueEnd = pos;
+            while (valueEnd < end && text.charAt(valueEnd) != ',' && text.charAt(valueEnd) != '}') valueEnd++;
+            String raw = text.substring(pos, valueEnd).trim();
+            pos = valueEnd;
+
+            String section = depth >= 2 && depth - 1 < sections.length ? sections[depth - 1] : "";
+            if (image.equals(section)) {
+                hasImage |= setColumn(t, key, raw);
+            } else if (depth == 1) {
+                setEnvelope(t, key, raw);
+            } else if ("source".equals(section) && "ts_ms".equals(key) && t.getSourceTsMs() == 0) {
+                t.setSourceTsMs(parseLong(raw));
+            }
+        }
+        return hasImage ? t : null;
+    }
+
+    private static void setEnvelope(Transaction t, String key, String raw) {
+        if ("op".equals(key)) {
+            t.setOp(raw);
+        } else if ("ts_ms".equals(key)) {
+            // Prefer source.ts_ms (commit time); the envelope ts_ms is when the connector processed it
+            if (t.getSourceTsMs() == 0) {
+                t.setSourceTsMs(parseLong(raw));
+            }
+        }
+    }
+
+    /** @return true if the key is a tbank_cleaned column */
+    private static boolean setColumn(Transaction t, String key, String raw) {
+        if ("null".equals(raw)) {
+            return isColumn(key);
+        }
+        switch (key.toLowerCase()) {
+            case "transactionid":
+                t.setTransactionId(parseLong(raw));
+                return true;
+            case "accountfrom":
+                t.setAccountFrom(parseLong(raw));
+                return true;
+            case "accountto":
+                t.setAccountTo(parseLong(raw));
+                return true;
+            case "bankidfrom":
+                t.setBankIdFrom(parseLong(raw));
+                return true;
+            case "bankidto":
+                t.setBankIdTo(parseLong(raw));
+                return true;
+            case "transactionamount":
+                t.setAmount(parseDouble(raw));
+                return true;
+            case "exchangerate":
+                t.setExchangeRate(parseDouble(raw));
+                return true;
+            case "transactiondate":
+                t.setTransactionDate(parseTimestamp(raw));
+                return true;
+            case "transactiontype":
+                t.setTransactionType((int) parseLong(raw));
+                return true;
+            case "interimbalance":
+                t.setInterimBalance(parseDouble(raw));
+                return true;
+            case "accountto_interimbalance":
+                t.setAccountToInterimBalance(parseDouble(raw));
+                return true;
+            case "currency":
+                t.setCurrency(raw);
+                return true;
+            case "quotecurrency":
+                t.setQuoteCurrency(raw);
+                return true;
+            case "paymentmode":
+                t.setPaymentMode(raw);
+                return true;
+            case "overrideflag":
+                t.setOverrideFlag(Boolean.parseBoolean(raw));
+                return true;
+            case "narrative":
+                t.setNarrative(raw);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isColumn(String key) {
+        return COLUMNS.contains(key.toLowerCase());
+    }
+
+    // ---------------------------------------------------------------- JSON
+
+    private static Transaction parseJson(String value) {
+        return parseJson(value, "after");
+    }
+
+    private static Transaction parseJson(String value, String image) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(value);
+        } catch (Exception e) {
+            return null;
+        }
+
+        // JsonConverter with schemas.enable wraps the envelope in {"schema":..., "payload":...}
+        JsonNode schema = root.get("schema");
+        JsonNode envelope = root.has("payload") ? root.get("payload") : root;
+        if (envelope == null || !envelope.isObject()) {
+            return null;
+        }
+        JsonNode row = envelope.get(image);
+        if (row == null || !row.isObject()) {
+            return null;
+        }
+
+        Map<String, Integer> decimalScales = decimalScales(schema, image);
+        Transaction t = new Transaction();
+        boolean hasColumn = false;
+        Iterator<Map.Entry<String, JsonNode>> fields = row.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode node = field.getValue();
+            String raw;
+            if (node.isNull()) {
+                raw = "null";
+            } else if (node.isTextual() && decimalScales.containsKey(field.getKey())) {
+                raw = decodeDecimal(node.textValue(), decimalScales.get(field.getKey()));
+            } else if (node.isTextual()) {
+                raw = node.textValue();
+            } else {
+                raw = node.asText();
+            }
+            hasColumn |= setColumn(t, field.getKey(), raw);
+        }
+
+        JsonNode op = envelope.get("op");
+        if (op != null && !op.isNull()) {
+            t.setOp(op.asText());
+        }
+        JsonNode source = envelope.get("source");
+        if (source != null && source.has("ts_ms")) {
+            t.setSourceTsMs(source.get("ts_ms").asLong());
+        } else if (envelope.has("ts_ms")) {
+            t.setSourceTsMs(envelope.get("ts_ms").asLong());
+        }
+        return hasColumn ? t : null;
+    }
+
+    /**
+     * With decimal.handling.mode=precise, DECIMAL columns arrive as base64 unscaled bytes; the
+     * scale is only in the schema. Collect it per field of the row image struct.
+     */
+    private static Map<String, Integer> decimalScales(JsonNode schema, String image) {
+        Map<String, Integer> scales = new HashMap<>();
+        if (schema == null || !schema.has("fields")) {
+            return scales;
+        }
+        for (JsonNode envelopeField : schema.get("fields")) {
+            if (!image.equals(envelopeField.path("field").asText()) || !envelopeField.has("fields")) {
+                continue;
+            }
+            for (JsonNode column : envelopeField.get("fields")) {
+                if ("org.apache.kafka.connect.data.Decimal".equals(column.path("name").asText())) {
+                    scales.put(column.path("field").asText(), column.path("parameters").path("scale").asInt(0));
+                }
+            }
+        }
+        return scales;
+    }
+
+    private static String decodeDecimal(String base64, int scale) {
+        try {
+            return new BigDecimal(new BigInteger(Base64.getDecoder().decode(base64)), scale).toPlainString();
+        } catch (IllegalArgumentException e) {
+            return base64; // already a plain number (decimal.handling.mode=string/double)
+        }
+    }
+
+    // ---------------------------------------------------------------- scalars
+
+    private static long parseLong(String raw) {
+        try {
+            return Long.parseLong(raw);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(raw);
+            } catch (NumberFormatException ignored) {
+                return 0L;
+            }
+        }
+    }
+
+    private static double parseDouble(String raw) {
+        try {
+            return Double.parseDouble(raw);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    /** Epoch millis from MicroTimestamp, millis, or a "yyyy-MM-dd HH:mm:ss" literal (taken as UTC). */
+    static long parseTimestamp(String raw) {
+        try {
+            long epoch = (long) Double.parseDouble(raw);
+            return Math.abs(epoch) >= MICROS_THRESHOLD ? epoch / 1000 : epoch;
+        } catch (NumberFormatException e) {
+            try {
+                return LocalDateTime.parse(raw, DATE_TIME).toInstant(ZoneOffset.UTC).toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                return 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.lurence;
+
+/**
+ * Typed environment variable lookups for the job's settings. Unset or empty variables take the
+ * default; invalid ones are reported on stderr and take the default too, so a typo never stops
+ * the job from starting.
+ */
+final class Env {
+    private Env() {
+    }
+
+    static long getLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ Ignoring invalid " + name + "=" + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    static int getInt(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("⚠️ Ignoring invalid " + name + "=" + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /** Enum constant by name in any case, with '-' for '_': "exactly-once" is EXACTLY_ONCE. */
+    static <E extends Enum<E>> E getEnum(String name, Class<E> type, E defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            System.err.println("⚠️ Unknown " + name + "=" + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
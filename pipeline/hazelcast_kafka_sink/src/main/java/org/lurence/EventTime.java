@@ -0,0 +1,48 @@
+package org.lurence;
+
+import com.hazelcast.jet.pipeline.StreamSourceStage;
+import com.hazelcast.jet.pipeline.StreamStage;
+
+/**
+ * Where the pipeline takes event time from, selected with JET_EVENT_TIME.
+ */
+public enum EventTime {
+    /** TRANSACTIONDATE of the row; falls back to the Debezium source ts_ms */
+    TRANSACTION_DATE,
+    /** Debezium source ts_ms: when the change was committed in Postgres */
+    SOURCE_TS,
+    /** Kafka record timestamp (native timestamps) */
+    KAFKA,
+    /** Arrival in Jet; no late events, but a catch-up burst lands in one window */
+    INGESTION;
+
+    /**
+     * Assign timestamps at the source, so Jet keeps a watermark per Kafka partition and a slow
+     * partition holds the others back instead of making their events late.
+     */
+    public StreamStage<CdcRecord> apply(StreamSourceStage<CdcRecord> source, long allowedLagMs) {
+        switch (this) {
+            case KAFKA:
+                return source.withNativeTimestamps(allowedLagMs);
+            case INGESTION:
+                return source.withIngestionTimestamps();
+            default:
+                return source.withTimestamps(CdcRecord::getEventTime, allowedLagMs);
+        }
+    }
+
+    /** Event time of a parsed transaction under this mode. */
+    public long of(Transaction t, long kafkaTimestamp) {
+        switch (this) {
+            case KAFKA:
+                return kafkaTimestamp;
+            case INGESTION:
+                return System.currentTimeMillis();
+            case SOURCE_TS:
+                return t.getSourceTsMs() > 0 ? t.getSourceTsMs() : kafkaTimestamp;
+            default:
+                if (t.getTransactionDate() > 0) return t.getTransactionDate();
+                return t.getSourceTsMs() > 0 ? t.getSourceTsMs() : kafkaTimestamp;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.lurence;
+
+import com.hazelcast.function.FunctionEx;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.kafka.KafkaSinks;
+import com.hazelcast.jet.pipeline.Sink;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Properties;
+
+/**
+ * Processing guarantee of the job and the Kafka settings that go with it, read from environment
+ * variables:
+ * <ul>
+ *   <li>JET_PROCESSING_GUARANTEE: NONE, AT_LEAST_ONCE or EXACTLY_ONCE (the default)</li>
+ *   <li>JET_SNAPSHOT_INTERVAL_MS: how often state and source offsets are snapshotted; shorter means
+ *   less to replay after a failure and, with EXACTLY_ONCE, output that becomes visible sooner</li>
+ *   <li>JET_KAFKA_AUTO_COMMIT: whether the source consumer also commits offsets to its group</li>
+ *   <li>JET_KAFKA_TRANSACTION_TIMEOUT_MS: transaction timeout of the EXACTLY_ONCE producers</li>
+ * </ul>
+ * What each profile does:
+ * <ul>
+ *   <li>NONE: no snapshots. The source resumes from offsets auto-committed to the consumer group, so a
+ *   failure loses what was polled but not yet written and may repeat a little. Producers wait for
+ *   the partition leader only (acks=1)</li>
+ *   <li>AT_LEAST_ONCE: source offsets and stage state are snapshotted without aligning the barriers;
+ *   after a failure the job replays from the last snapshot, so sinks may see duplicates. Producers
+ *   use acks=all and idempotence, which rules out duplicates from producer retries</li>
+ *   <li>EXACTLY_ONCE: aligned snapshots, and the Kafka sinks write in transactions that commit with
+ *   each snapshot. Consumers only get exactly-once output with isolation.level=read_committed
+ *   (bridge.kafka.isolation-level on the bridge), and then see it up to one snapshot interval later</li>
+ * </ul>
+ * With a guarantee, Jet restores source offsets from its snapshots and never commits them to Kafka.
+ * Auto-commit is therefore off by default: committed offsets would run ahead of the last snapshot. A
+ * newly submitted job then starts from auto.offset.reset. Set JET_KAFKA_AUTO_COMMIT=true to resume
+ * near the old group position instead, at the cost of the guarantee across resubmissions. IMap sinks
+ * overwrite by key, so they end up exactly-once under either guarantee.
+ */
+public final class GuaranteeProfile {
+    private final ProcessingGuarantee guarantee;
+    private final long snapshotIntervalMs;
+    private final boolean autoCommit;
+    private final int transactionTimeoutMs;
+
+    private GuaranteeProfile(ProcessingGuarantee guarantee, long snapshotIntervalMs, boolean autoCommit,
+                             int transactionTimeoutMs) {
+        this.guarantee = guarantee;
+        this.snapshotIntervalMs = snapshotIntervalMs;
+        this.autoCommit = autoCommit;
+        this.transactionTimeoutMs = transactionTimeoutMs;
+    }
+
+    /** The profile selected by the JET_* variables; EXACTLY_ONCE with 10 s snapshots when unset. */
+    public static GuaranteeProfile fromEnv() {
+        ProcessingGuarantee guarantee = Env.getEnum("JET_PROCESSING_GUARANTEE", ProcessingGuarantee.class,
+                ProcessingGuarantee.EXACTLY_ONCE);
+        long interval = Env.getLong("JET_SNAPSHOT_INTERVAL_MS", 10_000L);
+        String autoCommit = System.getenv("JET_KAFKA_AUTO_COMMIT");
+        GuaranteeProfile defaults = of(guarantee, interval);
+        return new GuaranteeProfile(guarantee, interval,
+                autoCommit == null || autoCommit.isEmpty() ? defaults.autoCommit : Boolean.parseBoolean(autoCommit.trim()),
+                Env.getInt("JET_KAFKA_TRANSACTION_TIMEOUT_MS", defaults.transactionTimeoutMs));
+    }
+
+    /** {@code guarantee} with the default Kafka settings. */
+    public static GuaranteeProfile of(ProcessingGuarantee guarantee, long snapshotIntervalMs) {
+        // A transaction stays open for a whole snapshot interval, plus however long the snapshot takes
+        long timeout = Math.max(60_000L, snapshotIntervalMs * 3);
+        return new GuaranteeProfile(guarantee, snapshotIntervalMs, guarantee == ProcessingGuarantee.NONE,
+                (int) Math.min(timeout, 900_000L));
+    }
+
+    public ProcessingGuarantee guarantee() {
+        return guarantee;
+    }
+
+    /** Set the guarantee and snapshot interval on {@code config}. */
+    public JobConfig apply(JobConfig config) {
+        config.setProcessingGuarantee(guarantee);
+        if (guarantee != ProcessingGuarantee.NONE) {
+            config.setSnapshotIntervalMillis(snapshotIntervalMs);
+        }
+        return config;
+    }
+
+    /** Offset committing for the source consumer. */
+    public Properties consumerProps(Properties properties) {
+        properties.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, String.valueOf(autoCommit));
+        return properties;
+    }
+
+    /** Acknowledgements, idempotence and transaction timeout for the sink producers. */
+    public Properties producerProps(Properties properties) {
+        boolean durable = guarantee != ProcessingGuarantee.NONE;
+        properties.setProperty(ProducerConfig.ACKS_CONFIG, durable ? "all" : "1");
+        properties.setProperty(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, String.valueOf(durable));
+        if (guarantee == ProcessingGuarantee.EXACTLY_ONCE) {
+            // Jet sets transactional.id itself and refuses producer properties that already have one
+            properties.setProperty(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG, String.valueOf(transactionTimeoutMs));
+        }
+        return properties;
+    }
+
+    /** Kafka sink that writes transactionally exactly when this profile is EXACTLY_ONCE. */
+    public <E> Sink<E> kafkaSink(Properties producerProps, String topic,
+                                 FunctionEx<? super E, ?> keyFn, FunctionEx<? super E, ?> valueFn) {
+        return KafkaSinks.<E>kafka(producerProps)
+                .topic(topic)
+                .extractKeyFn(keyFn)
+                .extractValueFn(valueFn)
+                .exactlyOnce(guarantee == ProcessingGuarantee.EXACTLY_ONCE)
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        if (guarantee == ProcessingGuarantee.NONE) {
+            return guarantee + ": no snapshots, auto-commit=" + autoCommit;
+        }
+        return guarantee + ": snapshots every " + snapshotIntervalMs + " ms, auto-commit=" + autoCommit
+                + (guarantee == ProcessingGuarantee.EXACTLY_ONCE
+                ? ", transactional sinks, transaction timeout " + transactionTimeoutMs + " ms" : "");
+    }
+}
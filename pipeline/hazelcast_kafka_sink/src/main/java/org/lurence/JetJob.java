@@ -1,16 +1,18 @@
 package org.lurence;
 
 import com.hazelcast.config.Config;
+import com.hazelcast.config.IndexConfig;
+import com.hazelcast.config.IndexType;
 import com.hazelcast.config.JoinConfig;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.jet.config.JobConfig;
-import com.hazelcast.jet.config.ProcessingGuarantee;
-import com.hazelcast.jet.kafka.KafkaSinks;
+import com.hazelcast.jet.datamodel.KeyedWindowResult;
 import com.hazelcast.jet.kafka.KafkaSources;
 import com.hazelcast.jet.pipeline.Pipeline;
 import com.hazelcast.jet.pipeline.Sinks;
 import com.hazelcast.jet.pipeline.StreamStage;
+import com.hazelcast.jet.pipeline.WindowDefinition;
 import com.hazelcast.sql.SqlResult;
 import com.hazelcast.sql.SqlService;
 import org.apache.kafka.clients.admin.AdminClient;
@@ -19,12 +21,16 @@ import org.apache.kafka.clients.admin.CreateTopicsResult;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 
+import java.io.IOException;
 import java.time.format.DateTimeFormatter;
 import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutionException;
@@ -33,19 +39,71 @@ public class JetJob {
     static final DateTimeFormatter TIME_FORMATTER =
             DateTimeFormatter.ofPattern("HH:mm:ss:SSS");
 
+    static final String POWERBI_TOPIC = "powerbi-stream";
+    // avro: typed single-object Avro records keyed by TRANSACTIONID; string: raw Debezium text as before
+    static final String POWERBI_FORMAT = System.getenv().getOrDefault("JET_POWERBI_FORMAT", "avro");
+    // Parsed, typed transactions as flat JSON, keyed by TRANSACTIONID
+    static final String ENRICHED_TOPIC = "transactions-enriched";
+    // Windowed amount statistics per account and per currency
+    static final String AGGREGATES_TOPIC = "transactions-aggregates";
+
+    // Aggregation window; a slide shorter than the window makes it sliding instead of tumbling
+    static final long AGG_WINDOW_MS = Env.getLong("JET_AGG_WINDOW_MS", 60_000L);
+    static final long AGG_SLIDE_MS = Env.getLong("JET_AGG_SLIDE_MS", AGG_WINDOW_MS);
+
+    static final String SOURCE_TOPIC = "is484.public.tbank_cleaned";
+    // Raw Debezium events keyed by the Kafka key
+    static final String ROLES_MAP = "roles_map";
+    // Typed transactions keyed by TRANSACTIONID, queried by the bridge through SQL
+    static final String TRANSACTIONS_MAP = "transactions";
+    // Transactions whose window frame had already closed on their source partition when they arrived
+    static final String LATE_TOPIC = "transactions-late";
+
+    // Event-time source and how far behind the newest event a record may arrive and still be windowed
+    static final EventTime EVENT_TIME = Env.getEnum("JET_EVENT_TIME", EventTime.class, EventTime.TRANSACTION_DATE);
+    static final long ALLOWED_LAG_MS = Env.getLong("JET_ALLOWED_LAG_MS", 10_000L);
+
+    // Size, expiry and in-memory format of the maps the job writes (see MapStorage for the variables)
+    static final MapStorage ROLES_MAP_STORAGE = MapStorage.fromEnv(ROLES_MAP, "JET_ROLES_MAP_", 100_000);
+    static final MapStorage TRANSACTIONS_MAP_STORAGE =
+            MapStorage.fromEnv(TRANSACTIONS_MAP, "JET_TRANSACTIONS_MAP_", 1_000_000);
+
+    // Per-event log: which events to print (all, off, 1/N or N/s) and how many may wait for the
+    // writer thread. The spec can be changed while the job runs, see SampledLogSink
+    static final String EVENT_LOG_SAMPLE = System.getenv().getOrDefault("JET_LOG_EVENTS", "10/s");
+    static final int EVENT_LOG_QUEUE_SIZE = Env.getInt("JET_LOG_QUEUE_SIZE", 8192);
+
+    // Processing guarantee, snapshot interval and the matching Kafka source/sink settings (see GuaranteeProfile)
+    static final GuaranteeProfile GUARANTEE = GuaranteeProfile.fromEnv();
+
+    // Port of the Prometheus /metrics endpoint for the member and job metrics; 0 turns it off
+    static final int PROMETHEUS_PORT = Env.getInt("JET_PROMETHEUS_PORT", 9404);
+
     public static void main(String[] args) {
         addKafkaTopic();
 
         // Hazelcast config
         Config config = new Config();
         config.setClusterName("analytics-cluster");
-        config.getMetricsConfig().setEnabled(true);
-        config.setProperty("hazelcast.memory.max.size", "1024");
+        // Member metrics, including the per-map size and eviction statistics, over JMX and to Management
+        // Center. The Prometheus exporter reads them from JMX, so keep JMX on while it is enabled
+        config.getMetricsConfig().setEnabled(true)
+                .setCollectionFrequencySeconds(Env.getInt("JET_METRICS_FREQUENCY_SECONDS", 5));
+        config.getMetricsConfig().getJmxConfig().setEnabled(true);
 
         config.getJetConfig().setEnabled(true);
         config.getJetConfig().setResourceUploadEnabled(true);
         config.getJetConfig().setCooperativeThreadCount(4);
 
+        ROLES_MAP_STORAGE.apply(config);
+        System.out.println("Map storage " + ROLES_MAP_STORAGE);
+        // Sorted index for time-range scans and ORDER BY, hash indexes for equality filters
+        TRANSACTIONS_MAP_STORAGE.apply(config)
+                .addIndexConfig(new IndexConfig(IndexType.SORTED, "transactionDate"))
+                .addIndexConfig(new IndexConfig(IndexType.HASH, "accountFrom"))
+                .addIndexConfig(new IndexConfig(IndexType.HASH, "currency"));
+        System.out.println("Map storage " + TRANSACTIONS_MAP_STORAGE);
+
         // Multicast join
         JoinConfig joinConfig = config.getNetworkConfig().getJoin();
         joinConfig.getMulticastConfig().setEnabled(true);
@@ -53,16 +111,41 @@ public class JetJob {
 
         HazelcastInstance hz = Hazelcast.newHazelcastInstance(config);
 
+        if (PROMETHEUS_PORT > 0) {
+            try {
+                PrometheusExporter.start(PROMETHEUS_PORT);
+                System.out.println("Prometheus metrics on :" + PROMETHEUS_PORT + "/metrics");
+            } catch (IOException e) {
+                System.err.println("⚠️ Failed to start the Prometheus exporter on port " + PROMETHEUS_PORT + ": " + e.getMessage());
+            }
+        }
+
         // Optional: simple IMap mapping
         SqlService sql = hz.getSql();
         try (SqlResult ignored = sql.execute(
-                "CREATE MAPPING roles_map TYPE IMap " +
+                "CREATE MAPPING " + ROLES_MAP + " TYPE IMap " +
                         "OPTIONS ('keyFormat'='varchar','valueFormat'='varchar')")) {
             System.out.println("Mapping created successfully");
         } catch (Exception e) {
             System.err.println("Error creating mapping: " + e.getMessage());
             e.printStackTrace();
         }
+        // Values are Transaction objects in zero-config Compact form; columns are its field names
+        try (SqlResult ignored = sql.execute(
+                "CREATE OR REPLACE MAPPING " + TRANSACTIONS_MAP + " (" +
+                        "__key BIGINT, transactionId BIGINT, accountFrom BIGINT, accountTo BIGINT, " +
+                        "bankIdFrom BIGINT, bankIdTo BIGINT, amount DOUBLE, exchangeRate DOUBLE, " +
+                        "transactionDate BIGINT, transactionType INT, interimBalance DOUBLE, " +
+                        "accountToInterimBalance DOUBLE, currency VARCHAR, quoteCurrency VARCHAR, " +
+                        "paymentMode VARCHAR, overrideFlag BOOLEAN, narrative VARCHAR, op VARCHAR, " +
+                        "sourceTsMs BIGINT, eventTime BIGINT, jetTsMs BIGINT) " +
+                        "TYPE IMap OPTIONS ('keyFormat'='bigint', 'valueFormat'='compact', " +
+                        "'valueCompactTypeName'='" + Transaction.class.getName() + "')")) {
+            System.out.println("Mapping '" + TRANSACTIONS_MAP + "' created successfully");
+        } catch (Exception e) {
+            System.err.println("Error creating mapping '" + TRANSACTIONS_MAP + "': " + e.getMessage());
+            e.printStackTrace();
+        }
 
         Pipeline p = Pipeline.create();
 
@@ -71,11 +154,16 @@ public class JetJob {
         System.out.println("Kafka Consumer Properties:");
         kafkaConsumerProps.forEach((k, v) -> System.out.println(k + "=" + v));
 
-        // ✅ PASS-THROUGH: read ALL Debezium events and forward as-is
-        StreamStage<Map.Entry<String, String>> stream = p.readFrom(
-                        KafkaSources.<String, String>kafka(kafkaProps(), "is484.public.tbank_cleaned")
-                )
-                .withoutTimestamps()
+        // Read ALL Debezium events. The envelope is parsed in the source, so event time can be
+        // assigned there and Jet keeps one watermark per Kafka partition.
+        EventTime eventTime = EVENT_TIME;
+        System.out.println("Event time: " + eventTime + ", allowed lag " + ALLOWED_LAG_MS + " ms");
+        StreamStage<CdcRecord> records = eventTime.apply(
+                p.readFrom(KafkaSources.<String, String, CdcRecord>kafka(kafkaProps(),
+                        rec -> CdcRecord.fromConsumerRecord(rec, eventTime), SOURCE_TOPIC)),
+                ALLOWED_LAG_MS);
+
+        StreamStage<Map.Entry<String, String>> stream = records
                 .map(rec -> new AbstractMap.SimpleEntry<>(rec.getKey(), rec.getValue()));
 
         // Log producer props
@@ -84,15 +172,87 @@ public class JetJob {
         kafkaProducerProps.forEach((k, v) -> System.out.println(k + "=" + v));
 
         // Sinks
-        stream.writeTo(Sinks.map("roles_map"));
-        stream.writeTo(Sinks.logger());
-        stream.writeTo(KafkaSinks.kafka(kafkaProducerProps, "powerbi-stream"));
+        stream.writeTo(Sinks.map(ROLES_MAP));
+        stream.writeTo(SampledLogSink.sink("events", EVENT_LOG_SAMPLE, EVENT_LOG_QUEUE_SIZE));
+        System.out.println("Event log sampling: " + EVENT_LOG_SAMPLE);
+
+        // Deletes and schema events carry no row and map to null, which drops them from the derived
+        // streams; the transactions IMap applies deletes separately below
+        StreamStage<Transaction> transactions = records
+                .map(CdcRecord::getTransaction)
+                .setName("transactions");
+
+        if ("string".equalsIgnoreCase(POWERBI_FORMAT)) {
+            stream.writeTo(GUARANTEE.<Map.Entry<String, String>>kafkaSink(kafkaProducerProps, POWERBI_TOPIC,
+                    Map.Entry::getKey, Map.Entry::getValue));
+        } else {
+            // The bridge decodes these straight into its columnar rows, no text parsing on its side
+            transactions.writeTo(GUARANTEE.<Transaction>kafkaSink(kafkaAvroSinkProps(), POWERBI_TOPIC,
+                    t -> String.valueOf(t.getTransactionId()), AvroTransactionCodec::encode));
+        }
+        System.out.println("powerbi-stream format: " + POWERBI_FORMAT);
+
+        // Upserts and deletes for the IMap in one sink, so a delete can't overtake the row it removes.
+        // A delete or tombstone becomes a Transaction with just the id and op "d", which removes the entry
+        records
+                .map(rec -> rec.getTransaction() != null ? rec.getTransaction()
+                        : rec.getDeletedTransactionId() != null ? Transaction.deleted(rec.getDeletedTransactionId()) : null)
+                .setName("transactions-map-changes")
+                .writeTo(Sinks.<Transaction, Long, Transaction>mapWithUpdating(TRANSACTIONS_MAP, Transaction::getTransactionId,
+                        (Transaction current, Transaction change) -> change.isDelete() ? null : change));
+
+        transactions.writeTo(GUARANTEE.<Transaction>kafkaSink(kafkaProducerProps, ENRICHED_TOPIC,
+                t -> String.valueOf(t.getTransactionId()), Transaction::toJson));
+
+        // Two-stage (local, then cluster-wide) keyed aggregations
+        WindowDefinition window = AGG_SLIDE_MS < AGG_WINDOW_MS
+                ? WindowDefinition.sliding(AGG_WINDOW_MS, AGG_SLIDE_MS)
+                : WindowDefinition.tumbling(AGG_WINDOW_MS);
+
+        // Side output: rows the window stage will drop. Jet tracks a watermark per source partition
+        // (the newest event time minus the allowed lag) and drops an event once its frame has closed,
+        // i.e. its frame end is at or before that watermark. The same rule is applied here per source
+        // partition, so this is an estimate of which rows missed their window; the exact count is the
+        // window stages' lateEventsDropped metric (hazelcast_jet_late_events_dropped in Prometheus).
+        // Records without a row are stamped with CdcRecord.NO_EVENT_TIME and never move a watermark.
+        long allowedLag = ALLOWED_LAG_MS;
+        long slide = Math.min(AGG_SLIDE_MS, AGG_WINDOW_MS);
+        records
+                .filter(rec -> rec.getTransaction() != null)
+                .groupingKey(CdcRecord::getPartition)
+                .mapStateful(() -> new long[]{Long.MIN_VALUE}, (long[] maxEventTime, Integer partition, CdcRecord rec) -> {
+                    Transaction t = rec.getTransaction();
+                    long watermark = maxEventTime[0] == Long.MIN_VALUE ? Long.MIN_VALUE : maxEventTime[0] - allowedLag;
+                    if (t.getEventTime() > maxEventTime[0]) {
+                        maxEventTime[0] = t.getEventTime();
+                    }
+                    long frameEnd = Math.floorDiv(t.getEventTime(), slide) * slide + slide;
+                    return frameEnd <= watermark ? lateJson(t, partition, maxEventTime[0] - t.getEventTime(), slide) : null;
+                })
+                .setName("late-events")
+                .writeTo(GUARANTEE.<Map.Entry<String, String>>kafkaSink(kafkaProducerProps, LATE_TOPIC,
+                        Map.Entry::getKey, Map.Entry::getValue));
 
-        JobConfig cfg = new JobConfig()
+        transactions.window(window)
+                .groupingKey(Transaction::getAccountFrom)
+                .aggregate(AmountStats.amountStats())
+                .setName("aggregate-by-account")
+                .writeTo(GUARANTEE.<KeyedWindowResult<Long, AmountStats>>kafkaSink(kafkaProducerProps, AGGREGATES_TOPIC,
+                        r -> "account:" + r.key(), r -> AmountStats.toJson("account", r)));
+
+        transactions.window(window)
+                .groupingKey(t -> t.getCurrency() == null ? "UNKNOWN" : t.getCurrency())
+                .aggregate(AmountStats.amountStats())
+                .setName("aggregate-by-currency")
+                .writeTo(GUARANTEE.<KeyedWindowResult<String, AmountStats>>kafkaSink(kafkaProducerProps, AGGREGATES_TOPIC,
+                        r -> "currency:" + r.key(), r -> AmountStats.toJson("currency", r)));
+
+        System.out.println("Processing guarantee " + GUARANTEE);
+        JobConfig cfg = GUARANTEE.apply(new JobConfig()
                 .setName("kafka-traffic-monitor")
-                .addClass(JetJob.class)
-                .setProcessingGuarantee(ProcessingGuarantee.EXACTLY_ONCE)
-                .setSnapshotIntervalMillis(10_000);
+                .addClass(JetJob.class, Transaction.class, CdcRecord.class, DebeziumParser.class,
+                        EventTime.class, AmountStats.class, Json.class, AvroTransactionCodec.class, MapStorage.class,
+                        LogSampler.class, SampledLogSink.class, SampledLogSink.Writer.class, SampledLogSink.Line.class));
 
         try {
             hz.getJet().newJobIfAbsent(p, cfg);
@@ -108,9 +268,14 @@ public class JetJob {
         properties.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "kafka:9092");
         properties.setProperty(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getCanonicalName());
         properties.setProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getCanonicalName());
-        properties.setProperty(ProducerConfig.ACKS_CONFIG, "all");
         properties.setProperty(ProducerConfig.RETRIES_CONFIG, "3");
         properties.setProperty(ProducerConfig.LINGER_MS_CONFIG, "5");
+        return GUARANTEE.producerProps(properties);
+    }
+
+    private static Properties kafkaAvroSinkProps() {
+        Properties properties = kafkaSinkProps();
+        properties.setProperty(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getCanonicalName());
         return properties;
     }
 
@@ -118,17 +283,22 @@ public class JetJob {
         Properties properties = new Properties();
         properties.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, "kafka:9092");
 
+        List<String> topicNames = Arrays.asList(POWERBI_TOPIC, ENRICHED_TOPIC, AGGREGATES_TOPIC, LATE_TOPIC);
+        int partitions = 3;
+        short replicationFactor = 1;
+
         try (AdminClient adminClient = AdminClient.create(properties)) {
-            String topicName = "powerbi-stream";
-            int partitions = 3;
-            short replicationFactor = 1;
-
-            NewTopic newTopic = new NewTopic(topicName, partitions, replicationFactor);
-            CreateTopicsResult result = adminClient.createTopics(Collections.singleton(newTopic));
-            result.all().get();
-            System.out.println("✅ Topic '" + topicName + "' created successfully!");
-        } catch (ExecutionException | InterruptedException e) {
-            System.err.println("⚠️ Failed to create topic: " + e.getMessage());
+            // One request per topic, so an existing topic doesn't stop the others from being created
+            for (String topicName : topicNames) {
+                try {
+                    NewTopic newTopic = new NewTopic(topicName, partitions, replicationFactor);
+                    CreateTopicsResult result = adminClient.createTopics(Collections.singleton(newTopic));
+                    result.all().get();
+                    System.out.println("✅ Topic '" + topicName + "' created successfully!");
+                } catch (ExecutionException | InterruptedException e) {
+                    System.err.println("⚠️ Failed to create topic '" + topicName + "': " + e.getMessage());
+                }
+            }
         }
     }
 
@@ -140,7 +310,20 @@ public class JetJob {
         props.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.setProperty(ConsumerConfig.GROUP_ID_CONFIG, "hazelcast-jet-consumer");
         props.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "500");
-        props.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true");
-        return props;
+        return GUARANTEE.consumerProps(props);
+    }
+
+    /** Late row keyed by the start of the window frame it missed, so consumers can apply corrections. */
+    private static Map.Entry<String, String> lateJson(Transaction t, int partition, long lateByMs, long frameMs) {
+        long frameStart = Math.floorDiv(t.getEventTime(), frameMs) * frameMs;
+        StringBuilder sb = new StringBuilder(512);
+        sb.append('{');
+        Json.field(sb, "partition", partition).append(',');
+        Json.field(sb, "late_by_ms", lateByMs).append(',');
+        Json.field(sb, "frame_start", frameStart).append(',');
+        Json.field(sb, "frame_end", frameStart + frameMs).append(',');
+        sb.append("\"transaction\":").append(t.toJson());
+        sb.append('}');
+        return new AbstractMap.SimpleEntry<>(String.valueOf(frameStart), sb.toString());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package org.lurence;
+
+/**
+ * Minimal JSON field writers for the flat records this job publishes.
+ */
+final class Json {
+    private Json() {
+    }
+
+    static StringBuilder field(StringBuilder sb, String name, long value) {
+        return name(sb, name).append(value);
+    }
+
+    static StringBuilder field(StringBuilder sb, String name, double value) {
+        name(sb, name);
+        // JSON has no NaN/Infinity
+        return Double.isFinite(value) ? sb.append(value) : sb.append("null");
+    }
+
+    static StringBuilder field(StringBuilder sb, String name, boolean value) {
+        return name(sb, name).append(value);
+    }
+
+    static StringBuilder field(StringBuilder sb, String name, String value) {
+        name(sb, name);
+        if (value == null) {
+            return sb.append("null");
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"');
+    }
+
+    private static StringBuilder name(StringBuilder sb, String name) {
+        return sb.append('"').append(name).append("\":");
+    }
+}
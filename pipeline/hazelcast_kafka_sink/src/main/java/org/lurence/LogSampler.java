@@ -0,0 +1,86 @@
+package org.lurence;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which events get logged by {@link SampledLogSink}. Specs, as in the bridge's
+ * bridge.logging.sample.* properties:
+ * <ul>
+ *   <li>{@code all}: every event</li>
+ *   <li>{@code off}: none</li>
+ *   <li>{@code 1/N}: one in every N events</li>
+ *   <li>{@code N/s}: the first N events of each wall-clock second</li>
+ * </ul>
+ * Safe for concurrent callers; under contention a per-second budget may be overshot by a few events.
+ */
+public final class LogSampler {
+    private static final int ALL = 0;
+    private static final int OFF = 1;
+    private static final int ONE_IN = 2;
+    private static final int PER_SECOND = 3;
+
+    private final String spec;
+    private final int mode;
+    private final long n;
+
+    private final AtomicLong seen = new AtomicLong();
+    private final AtomicInteger inSecond = new AtomicInteger();
+    private volatile long second;
+
+    private LogSampler(String spec, int mode, long n) {
+        this.spec = spec;
+        this.mode = mode;
+        this.n = n;
+    }
+
+    /** Parse a spec, throwing IllegalArgumentException for anything else. */
+    public static LogSampler parse(String spec) {
+        String s = spec == null ? "" : spec.trim().toLowerCase();
+        if (s.equals("all")) {
+            return new LogSampler(s, ALL, 0);
+        }
+        if (s.equals("off")) {
+            return new LogSampler(s, OFF, 0);
+        }
+        try {
+            if (s.endsWith("/s")) {
+                long n = Long.parseLong(s.substring(0, s.length() - 2));
+                if (n >= 0) {
+                    return n == 0 ? new LogSampler("off", OFF, 0) : new LogSampler(s, PER_SECOND, n);
+                }
+            } else if (s.startsWith("1/")) {
+                long n = Long.parseLong(s.substring(2));
+                if (n >= 1) {
+                    return n == 1 ? new LogSampler("all", ALL, 0) : new LogSampler(s, ONE_IN, n);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        throw new IllegalArgumentException("Expected all, off, 1/N or N/s, got '" + spec + "'");
+    }
+
+    public boolean sample() {
+        switch (mode) {
+            case ALL:
+                return true;
+            case ONE_IN:
+                return seen.getAndIncrement() % n == 0;
+            case PER_SECOND:
+                long now = System.currentTimeMillis() / 1000;
+                if (now != second) {
+                    second = now;
+                    inSecond.set(0);
+                }
+                return inSecond.incrementAndGet() <= n;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
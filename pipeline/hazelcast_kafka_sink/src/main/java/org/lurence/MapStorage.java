@@ -0,0 +1,98 @@
+package org.lurence;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.config.NativeMemoryConfig;
+import com.hazelcast.instance.BuildInfoProvider;
+import com.hazelcast.memory.Capacity;
+import com.hazelcast.memory.MemoryUnit;
+
+/**
+ * Storage limits for one IMap the job writes, read from environment variables with a per-map
+ * prefix (for example JET_ROLES_MAP_):
+ * <ul>
+ *   <li>FORMAT: BINARY (serialized, cheapest for get/put), OBJECT (deserialized, cheapest for
+ *   queries and entry processors) or NATIVE (off-heap; Hazelcast Enterprise only)</li>
+ *   <li>TTL_SECONDS / MAX_IDLE_SECONDS: expire entries after a fixed time or after going unread;
+ *   0 keeps them</li>
+ *   <li>EVICTION: LRU, LFU, RANDOM or NONE, applied once MAX_SIZE is reached</li>
+ *   <li>MAX_SIZE and MAX_SIZE_POLICY: entries per member (PER_NODE), MB of heap (USED_HEAP_SIZE),
+ *   or any other MaxSizePolicy</li>
+ * </ul>
+ * NATIVE also needs JET_NATIVE_MEMORY_MB; on the open-source build it falls back to BINARY,
+ * since the member would otherwise refuse to start.
+ */
+public final class MapStorage {
+    private final String mapName;
+    private final InMemoryFormat format;
+    private final int ttlSeconds;
+    private final int maxIdleSeconds;
+    private final EvictionPolicy evictionPolicy;
+    private final MaxSizePolicy maxSizePolicy;
+    private final int maxSize;
+
+    private MapStorage(String mapName, InMemoryFormat format, int ttlSeconds, int maxIdleSeconds,
+                       EvictionPolicy evictionPolicy, MaxSizePolicy maxSizePolicy, int maxSize) {
+        this.mapName = mapName;
+        this.format = format;
+        this.ttlSeconds = ttlSeconds;
+        this.maxIdleSeconds = maxIdleSeconds;
+        this.evictionPolicy = evictionPolicy;
+        this.maxSizePolicy = maxSizePolicy;
+        this.maxSize = maxSize;
+    }
+
+    /** Settings for {@code mapName} from the {@code prefix}* variables, with the given size default. */
+    public static MapStorage fromEnv(String mapName, String prefix, int defaultMaxSize) {
+        InMemoryFormat format = Env.getEnum(prefix + "FORMAT", InMemoryFormat.class, InMemoryFormat.BINARY);
+        if (format == InMemoryFormat.NATIVE && !BuildInfoProvider.getBuildInfo().isEnterprise()) {
+            System.err.println("⚠️ " + prefix + "FORMAT=NATIVE needs Hazelcast Enterprise, using BINARY for " + mapName);
+            format = InMemoryFormat.BINARY;
+        }
+        // Native maps are bounded by off-heap usage; entry counts and heap policies do not apply to them
+        MaxSizePolicy defaultPolicy = format == InMemoryFormat.NATIVE
+                ? MaxSizePolicy.USED_NATIVE_MEMORY_PERCENTAGE : MaxSizePolicy.PER_NODE;
+        int defaultSize = format == InMemoryFormat.NATIVE ? 90 : defaultMaxSize;
+
+        return new MapStorage(mapName, format,
+                Env.getInt(prefix + "TTL_SECONDS", 0),
+                Env.getInt(prefix + "MAX_IDLE_SECONDS", 0),
+                Env.getEnum(prefix + "EVICTION", EvictionPolicy.class, EvictionPolicy.LRU),
+                Env.getEnum(prefix + "MAX_SIZE_POLICY", MaxSizePolicy.class, defaultPolicy),
+                Env.getInt(prefix + "MAX_SIZE", defaultSize));
+    }
+
+    /** Apply to the map's config, enabling native memory on the member if this map uses it. */
+    public MapConfig apply(Config config) {
+        if (format == InMemoryFormat.NATIVE) {
+            NativeMemoryConfig nativeMemory = config.getNativeMemoryConfig();
+            if (!nativeMemory.isEnabled()) {
+                int megabytes = Env.getInt("JET_NATIVE_MEMORY_MB", 512);
+                nativeMemory.setEnabled(true)
+                        .setAllocatorType(NativeMemoryConfig.MemoryAllocatorType.POOLED)
+                        .setCapacity(new Capacity(megabytes, MemoryUnit.MEGABYTES));
+            }
+        }
+
+        return config.getMapConfig(mapName)
+                .setInMemoryFormat(format)
+                .setTimeToLiveSeconds(ttlSeconds)
+                .setMaxIdleSeconds(maxIdleSeconds)
+                // ownedEntryCount, heapCost, evictionCount and expirationCount go out with the member metrics
+                .setStatisticsEnabled(true)
+                .setEvictionConfig(new EvictionConfig()
+                        .setEvictionPolicy(evictionPolicy)
+                        .setMaxSizePolicy(maxSizePolicy)
+                        .setSize(maxSize));
+    }
+
+    @Override
+    public String toString() {
+        return mapName + ": format=" + format + ", ttl=" + ttlSeconds + "s, maxIdle=" + maxIdleSeconds
+                + "s, eviction=" + evictionPolicy + " at " + maxSize + " " + maxSizePolicy;
+    }
+}
@@ -0,0 +1,202 @@
+package org.lurence;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.Attribute;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the embedded member's metrics on {@code /metrics} in the Prometheus text format, so the
+ * Jet job can be scraped next to the bridge and Kafka without Management Center.
+ * <p>
+ * Hazelcast publishes every metric it collects as a {@code type=Metrics} MBean (JMX has to be enabled
+ * in the metrics config); each scrape translates them as they are:
+ * <ul>
+ *   <li>{@code com.hazelcast.jet} MBeans become {@code hazelcast_jet_<metric>}: per-vertex
+ *   emitted/received counts and queue sizes, per-vertex snapshot bytes and keys, watermarks, and
+ *   the iteration and tasklet counts of each cooperative worker</li>
+ *   <li>{@code com.hazelcast} MBeans become {@code hazelcast_<prefix>_<metric>}: member metrics such as
+ *   memory, GC, operations and partitions, and the per-IMap statistics labelled with the map name</li>
+ * </ul>
+ * Metric tags become labels, camelCase names become snake_case, the member name is the
+ * {@code member} label and the per-execution id is left out so series survive job restarts.
+ * Watermarks that have no value yet (Long.MIN_VALUE / MAX_VALUE) are skipped.
+ * <p>
+ * Only public metrics are served: snapshot size is covered per vertex by
+ * {@code hazelcast_jet_snapshot_bytes} and {@code hazelcast_jet_snapshot_keys}, and snapshot
+ * progress by {@code hazelcast_jet_emitted_count{ordinal="snapshot"}}. Snapshot durations and
+ * completion times are only kept in Jet's internal job records and are not exported.
+ */
+public final class PrometheusExporter {
+    private static final String JET_DOMAIN = "com.hazelcast.jet";
+    private static final String MEMBER_DOMAIN = "com.hazelcast";
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    private PrometheusExporter() {
+    }
+
+    /** Serve the embedded member's metrics on {@code port}, from one daemon thread. */
+    public static PrometheusExporter start(int port) throws IOException {
+        PrometheusExporter exporter = new PrometheusExporter();
+        HttpServer http = HttpServer.create(new InetSocketAddress(port), 0);
+        http.createContext("/metrics", exporter::handle);
+        http.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "prometheus-exporter");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        http.start();
+        return exporter;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body;
+        int status = 200;
+        try {
+            body = scrape().getBytes(StandardCharsets.UTF_8);
+        } catch (RuntimeException e) {
+            body = ("# scrape failed: " + e + "\n").getBytes(StandardCharsets.UTF_8);
+            status = 500;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /** All metrics in the Prometheus text format, each metric's samples grouped under its TYPE line. */
+    String scrape() {
+        Map<String, StringBuilder> metrics = new TreeMap<>();
+        collectMBeans(JET_DOMAIN, "hazelcast_jet_", metrics);
+        collectMBeans(MEMBER_DOMAIN, "hazelcast_", metrics);
+
+        StringBuilder sb = new StringBuilder(64 * 1024);
+        for (Map.Entry<String, StringBuilder> metric : metrics.entrySet()) {
+            sb.append("# TYPE ").append(metric.getKey()).append(" untyped\n");
+            sb.append(metric.getValue());
+        }
+        return sb.toString();
+    }
+
+    private void collectMBeans(String domain, String namePrefix, Map<String, StringBuilder> metrics) {
+        ObjectName pattern;
+        try {
+            pattern = new ObjectName(domain + ":type=Metrics,*");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        for (ObjectName name : server.queryNames(pattern, null)) {
+            String prefix = name.getKeyProperty("prefix");
+            String metricPrefix = prefix == null ? namePrefix : namePrefix + sanitize(prefix) + "_";
+            String labels = labels(name);
+            try {
+                MBeanAttributeInfo[] attributes = server.getMBeanInfo(name).getAttributes();
+                String[] attributeNames = new String[attributes.length];
+                for (int i = 0; i < attributes.length; i++) {
+                    attributeNames[i] = attributes[i].getName();
+                }
+                for (Attribute attribute : server.getAttributes(name, attributeNames).asList()) {
+                    if (attribute.getValue() instanceof Number) {
+                        sample(metrics, metricPrefix + sanitize(attribute.getName()), labels,
+                                (Number) attribute.getValue());
+                    }
+                }
+            } catch (Exception e) {
+                // The MBean went away between the query and the read, e.g. a job execution ended
+            }
+        }
+    }
+
+    private static void sample(Map<String, StringBuilder> metrics, String metric, String labels, Number value) {
+        if (value instanceof Long && (value.longValue() == Long.MIN_VALUE || value.longValue() == Long.MAX_VALUE)) {
+            return;
+        }
+        StringBuilder sb = metrics.computeIfAbsent(metric, m -> new StringBuilder());
+        sb.append(metric);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value instanceof Double || value instanceof Float
+                ? Double.toString(value.doubleValue()) : Long.toString(value.longValue())).append('\n');
+    }
+
+    /** Labels from the member name and the {@code tagN="key=value"} properties of a metrics MBean. */
+    private static String labels(ObjectName name) {
+        StringBuilder sb = new StringBuilder();
+        String member = name.getKeyProperty("instance");
+        if (member != null) {
+            label(sb, "member", unquote(member));
+        }
+        for (int i = 0; ; i++) {
+            String tag = name.getKeyProperty("tag" + i);
+            if (tag == null) {
+                break;
+            }
+            String pair = unquote(tag);
+            int eq = pair.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            String key = pair.substring(0, eq);
+            if (key.equals("exec")) {
+                continue;
+            }
+            label(sb, sanitize(key), pair.substring(eq + 1));
+        }
+        return sb.toString();
+    }
+
+    private static void label(StringBuilder sb, String key, String value) {
+        if (sb.length() > 0) {
+            sb.append(',');
+        }
+        sb.append(key).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static String unquote(String value) {
+        return value.startsWith("\"") ? ObjectName.unquote(value) : value;
+    }
+
+    /** snake_case with only [a-z0-9_]: "cooperativeWorker" becomes cooperative_worker, "tcp.connection" tcp_connection. */
+    static String sanitize(String name) {
+        StringBuilder sb = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0 && !Character.isUpperCase(name.charAt(i - 1))) {
+                    sb.append('_');
+                }
+                sb.append(Character.toLowerCase(c));
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            } else {
+                sb.append('_');
+            }
+        }
+        return sb.toString();
+    }
+}
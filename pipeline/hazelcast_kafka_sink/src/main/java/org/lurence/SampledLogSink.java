@@ -0,0 +1,159 @@
+package org.lurence;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.metrics.Metric;
+import com.hazelcast.jet.core.metrics.Metrics;
+import com.hazelcast.jet.pipeline.Sink;
+import com.hazelcast.jet.pipeline.SinkBuilder;
+import com.hazelcast.replicatedmap.ReplicatedMap;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for {@code Sinks.logger()} on per-event stages. Sinks.logger() writes every item on
+ * the processor thread, so under load console I/O sets the pipeline's pace; this sink keeps only
+ * the items its {@link LogSampler} picks, hands them to a bounded queue and lets a daemon thread
+ * print them in batches. A full queue drops the line instead of stalling the job.
+ * <p>
+ * The sampling spec starts from the job's default and can be changed while the job runs by
+ * putting a spec under the sink's name in the {@value #SETTINGS_MAP} ReplicatedMap (for example
+ * {@code events -> off} from Management Center or any client); removing the key restores the
+ * default. Each member checks the map about once a second.
+ * <p>
+ * Counts go out as the job's user metrics loggedLines, sampledOutLines and droppedLines.
+ */
+public final class SampledLogSink {
+    public static final String SETTINGS_MAP = "jet-log-settings";
+
+    private SampledLogSink() {
+    }
+
+    /** A sink that logs items as {@code <time> [name] <item>}, sampled by {@code defaultSpec} until changed. */
+    public static <T> Sink<T> sink(String name, String defaultSpec, int queueSize) {
+        LogSampler.parse(defaultSpec); // fail at job build time, not on the members
+        return SinkBuilder.sinkBuilder(name + "-log", ctx -> new Writer(ctx, name, defaultSpec, queueSize))
+                .<T>receiveFn(Writer::receive)
+                .destroyFn(Writer::close)
+                .preferredLocalParallelism(1)
+                .build();
+    }
+
+    /** One per sink processor: the sampler, the queue and the thread that prints it. */
+    static final class Writer {
+        private static final long SETTINGS_CHECK_MS = 1000;
+        private static final int WRITE_BATCH = 1024;
+
+        private final String name;
+        private final String defaultSpec;
+        private final ReplicatedMap<String, String> settings;
+        private final ArrayBlockingQueue<Line> queue;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private final Metric logged = Metrics.metric("loggedLines");
+        private final Metric sampledOut = Metrics.metric("sampledOutLines");
+        private final Metric dropped = Metrics.metric("droppedLines");
+
+        private LogSampler sampler;
+        private String spec;
+        private long nextSettingsCheck;
+        private long droppedSinceReport;
+
+        Writer(Processor.Context ctx, String name, String defaultSpec, int queueSize) {
+            this.name = name;
+            this.defaultSpec = defaultSpec;
+            this.settings = ctx.hazelcastInstance().getReplicatedMap(SETTINGS_MAP);
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.spec = defaultSpec;
+            this.sampler = LogSampler.parse(defaultSpec);
+            this.thread = new Thread(this::writeLoop, name + "-log-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void receive(Object item) {
+            long now = System.currentTimeMillis();
+            if (now >= nextSettingsCheck) {
+                refreshSpec();
+                nextSettingsCheck = now + SETTINGS_CHECK_MS;
+            }
+            if (!sampler.sample()) {
+                sampledOut.increment();
+                return;
+            }
+            // toString runs on the writer thread; the items logged here are not modified downstream
+            if (queue.offer(new Line(now, item))) {
+                logged.increment();
+            } else {
+                dropped.increment();
+                droppedSinceReport++;
+            }
+        }
+
+        private void refreshSpec() {
+            String configured = settings.get(name);
+            String wanted = configured == null ? defaultSpec : configured;
+            if (wanted.equals(spec)) {
+                return;
+            }
+            try {
+                sampler = LogSampler.parse(wanted);
+                System.out.println("Log sampling for '" + name + "' is now " + sampler);
+            } catch (IllegalArgumentException e) {
+                System.err.println("⚠️ Ignoring " + SETTINGS_MAP + "[" + name + "]: " + e.getMessage());
+            }
+            spec = wanted;
+        }
+
+        private void writeLoop() {
+            List<Line> batch = new ArrayList<>(WRITE_BATCH);
+            StringBuilder out = new StringBuilder(64 * 1024);
+            while (running || !queue.isEmpty()) {
+                try {
+                    Line first = queue.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, WRITE_BATCH - 1);
+                } catch (InterruptedException e) {
+                    queue.drainTo(batch);
+                    running = false;
+                }
+                for (Line line : batch) {
+                    out.append(Instant.ofEpochMilli(line.timestamp)).append(" [").append(name).append("] ")
+                            .append(line.item).append('\n');
+                }
+                // One write per batch instead of one per item
+                if (out.length() > 0) {
+                    System.out.print(out);
+                    out.setLength(0);
+                }
+                batch.clear();
+            }
+        }
+
+        void close() throws InterruptedException {
+            running = false;
+            thread.interrupt();
+            thread.join(5000);
+            if (droppedSinceReport > 0) {
+                System.err.println("⚠️ " + droppedSinceReport + " '" + name + "' log lines were dropped on a full queue");
+            }
+        }
+    }
+
+    static final class Line {
+        final long timestamp;
+        final Object item;
+
+        Line(long timestamp, Object item) {
+            this.timestamp = timestamp;
+            this.item = item;
+        }
+    }
+}
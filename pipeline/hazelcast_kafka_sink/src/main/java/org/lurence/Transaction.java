@@ -0,0 +1,257 @@
+package org.lurence;
+
+/**
+ * One tbank_cleaned row as parsed from a Debezium change event, plus the envelope fields the
+ * pipeline needs. Plain fields and a no-arg constructor so Hazelcast serializes it with
+ * zero-config Compact serialization when it crosses members.
+ * <p>
+ * It is also the value type of the transactions IMap. The field names are the Compact field names,
+ * which the SQL mapping in {@link JetJob} and the bridge's ClusterTransactionSerializer rely on, so
+ * renaming a field is a schema change.
+ */
+public class Transaction {
+    private long transactionId;
+    private long accountFrom;
+    private long accountTo;
+    private long bankIdFrom;
+    private long bankIdTo;
+    private double amount;
+    private double exchangeRate;
+    // Epoch millis; Debezium sends TIMESTAMP columns as microseconds, normalized on parse
+    private long transactionDate;
+    private int transactionType;
+    private double interimBalance;
+    private double accountToInterimBalance;
+    private String currency;
+    private String quoteCurrency;
+    private String paymentMode;
+    private boolean overrideFlag;
+    private String narrative;
+
+    // Debezium envelope: operation (c/u/r; d only on a delete marker) and when the connector emitted the event
+    private String op;
+    private long sourceTsMs;
+
+    // Timestamp the pipeline windows on, chosen by JET_EVENT_TIME
+    private long eventTime;
+
+    // Wall clock when the Jet source read the change event; the bridge measures freshness from it
+    private long jetTsMs;
+
+    public Transaction() {
+    }
+
+    /** Marker for a deleted row: only the id and op "d" are set. */
+    public static Transaction deleted(long transactionId) {
+        Transaction t = new Transaction();
+        t.transactionId = transactionId;
+        t.op = "d";
+        return t;
+    }
+
+    public boolean isDelete() {
+        return "d".equals(op);
+    }
+
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public long getAccountFrom() {
+        return accountFrom;
+    }
+
+    public void setAccountFrom(long accountFrom) {
+        this.accountFrom = accountFrom;
+    }
+
+    public long getAccountTo() {
+        return accountTo;
+    }
+
+    public void setAccountTo(long accountTo) {
+        this.accountTo = accountTo;
+    }
+
+    public long getBankIdFrom() {
+        return bankIdFrom;
+    }
+
+    public void setBankIdFrom(long bankIdFrom) {
+        this.bankIdFrom = bankIdFrom;
+    }
+
+    public long getBankIdTo() {
+        return bankIdTo;
+    }
+
+    public void setBankIdTo(long bankIdTo) {
+        this.bankIdTo = bankIdTo;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public double getExchangeRate() {
+        return exchangeRate;
+    }
+
+    public void setExchangeRate(double exchangeRate) {
+        this.exchangeRate = exchangeRate;
+    }
+
+    public long getTransactionDate() {
+        return transactionDate;
+    }
+
+    public void setTransactionDate(long transactionDate) {
+        this.transactionDate = transactionDate;
+    }
+
+    public int getTransactionType() {
+        return transactionType;
+    }
+
+    public void setTransactionType(int transactionType) {
+        this.transactionType = transactionType;
+    }
+
+    public double getInterimBalance() {
+        return interimBalance;
+    }
+
+    public void setInterimBalance(double interimBalance) {
+        this.interimBalance = interimBalance;
+    }
+
+    public double getAccountToInterimBalance() {
+        return accountToInterimBalance;
+    }
+
+    public void setAccountToInterimBalance(double accountToInterimBalance) {
+        this.accountToInterimBalance = accountToInterimBalance;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public String getQuoteCurrency() {
+        return quoteCurrency;
+    }
+
+    public void setQuoteCurrency(String quoteCurrency) {
+        this.quoteCurrency = quoteCurrency;
+    }
+
+    public String getPaymentMode() {
+        return paymentMode;
+    }
+
+    public void setPaymentMode(String paymentMode) {
+        this.paymentMode = paymentMode;
+    }
+
+    public boolean isOverrideFlag() {
+        return overrideFlag;
+    }
+
+    public void setOverrideFlag(boolean overrideFlag) {
+        this.overrideFlag = overrideFlag;
+    }
+
+    public String getNarrative() {
+        return narrative;
+    }
+
+    public void setNarrative(String narrative) {
+        this.narrative = narrative;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public long getSourceTsMs() {
+        return sourceTsMs;
+    }
+
+    public void setSourceTsMs(long sourceTsMs) {
+        this.sourceTsMs = sourceTsMs;
+    }
+
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    public void setEventTime(long eventTime) {
+        this.eventTime = eventTime;
+    }
+
+    public long getJetTsMs() {
+        return jetTsMs;
+    }
+
+    public void setJetTsMs(long jetTsMs) {
+        this.jetTsMs = jetTsMs;
+    }
+
+    /** Same threshold the Power BI bridge uses for transactions_high_value_total. */
+    public boolean isHighValue() {
+        return amount > 1000.0;
+    }
+
+    /**
+     * Flat JSON for the enriched topic. Column keys are the lower-case tbank_cleaned names, so the
+     * bridge's plain-JSON path maps them straight onto its schema.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(384);
+        sb.append('{');
+        Json.field(sb, "transactionid", transactionId).append(',');
+        Json.field(sb, "accountfrom", accountFrom).append(',');
+        Json.field(sb, "accountto", accountTo).append(',');
+        Json.field(sb, "bankidfrom", bankIdFrom).append(',');
+        Json.field(sb, "bankidto", bankIdTo).append(',');
+        Json.field(sb, "transactionamount", amount).append(',');
+        Json.field(sb, "exchangerate", exchangeRate).append(',');
+        Json.field(sb, "transactiondate", transactionDate).append(',');
+        Json.field(sb, "transactiontype", transactionType).append(',');
+        Json.field(sb, "interimbalance", interimBalance).append(',');
+        Json.field(sb, "accountto_interimbalance", accountToInterimBalance).append(',');
+        Json.field(sb, "currency", currency).append(',');
+        Json.field(sb, "quotecurrency", quoteCurrency).append(',');
+        Json.field(sb, "paymentmode", paymentMode).append(',');
+        Json.field(sb, "overrideflag", overrideFlag).append(',');
+        Json.field(sb, "narrative", narrative).append(',');
+        Json.field(sb, "op", op).append(',');
+        Json.field(sb, "source_ts_ms", sourceTsMs).append(',');
+        Json.field(sb, "event_time", eventTime).append(',');
+        Json.field(sb, "jet_ts_ms", jetTsMs).append(',');
+        Json.field(sb, "high_value", isHighValue());
+        return sb.append('}').toString();
+    }
+
+    @Override
+    public String toString() {
+        return "Transaction{id=" + transactionId + ", accountFrom=" + accountFrom + ", amount=" + amount
+                + ", currency=" + currency + ", date=" + transactionDate + ", op=" + op + "}";
+    }
+}
@@ -0,0 +1,123 @@
+package org.lurence;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.aggregate.AggregateOperations;
+import com.hazelcast.jet.core.WatermarkPolicy;
+import com.hazelcast.jet.datamodel.WindowResult;
+import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.SinkBuilder;
+import com.hazelcast.jet.pipeline.SourceBuilder;
+import com.hazelcast.jet.pipeline.StreamSource;
+import com.hazelcast.jet.pipeline.WindowDefinition;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CdcRecordTest {
+    // 2024-09-11T00:00:00Z, the day the tbank_cleaned rows are from
+    private static final long ROW_DATE = 1_726_012_800_000L;
+    private static final long LAG_MS = 10_000L;
+    private static final long WINDOW_MS = 60_000L;
+
+    // Window results of the running pipeline test; the sink runs in the same JVM
+    private static final List<WindowResult<Long>> RESULTS = new CopyOnWriteArrayList<>();
+
+    @Test
+    void rowlessRecordsDoNotMoveTheWatermark() {
+        CdcRecord delete = record(1, deleteEvent(1), System.currentTimeMillis());
+        CdcRecord tombstone = record(1, null, System.currentTimeMillis());
+        CdcRecord insert = record(2, insertEvent(2, ROW_DATE), System.currentTimeMillis());
+
+        assertEquals(Long.valueOf(1), delete.getDeletedTransactionId());
+        assertNull(delete.getTransaction());
+        assertNull(tombstone.getTransaction());
+
+        // The policy Jet applies per partition when the source assigns timestamps
+        WatermarkPolicy policy = WatermarkPolicy.limitingLag(LAG_MS).get();
+        policy.reportEvent(delete.getEventTime());
+        policy.reportEvent(tombstone.getEventTime());
+        assertEquals(Long.MIN_VALUE, policy.getCurrentWatermark());
+
+        policy.reportEvent(insert.getEventTime());
+        assertEquals(ROW_DATE - LAG_MS, policy.getCurrentWatermark());
+    }
+
+    @Test
+    void insertAfterADeleteIsWindowed() throws Exception {
+        RESULTS.clear();
+        Config config = new Config();
+        config.setClusterName("cdc-record-test");
+        config.getJetConfig().setEnabled(true);
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getAutoDetectionConfig().setEnabled(false);
+        HazelcastInstance hz = Hazelcast.newHazelcastInstance(config);
+        try {
+            // A delete read now, a row from 2024, then a later row that closes the first row's window
+            StreamSource<CdcRecord> source = SourceBuilder
+                    .stream("cdc", ctx -> new ArrayDeque<>(List.of(
+                            record(1, deleteEvent(1), System.currentTimeMillis()),
+                            record(2, insertEvent(2, ROW_DATE), System.currentTimeMillis()),
+                            record(3, insertEvent(3, ROW_DATE + 5 * WINDOW_MS), System.currentTimeMillis()))))
+                    .<CdcRecord>fillBufferFn((queue, buffer) -> {
+                        CdcRecord rec = queue.poll();
+                        if (rec != null) {
+                            buffer.add(rec);
+                        }
+                    })
+                    .build();
+
+            Pipeline p = Pipeline.create();
+            EventTime.TRANSACTION_DATE.apply(p.readFrom(source), LAG_MS)
+                    .map(CdcRecord::getTransaction)
+                    .window(WindowDefinition.tumbling(WINDOW_MS))
+                    .aggregate(AggregateOperations.counting())
+                    .writeTo(SinkBuilder.sinkBuilder("results", ctx -> RESULTS)
+                            .<WindowResult<Long>>receiveFn(List::add)
+                            .build());
+            Job job = hz.getJet().newJob(p);
+
+            long deadline = System.currentTimeMillis() + 60_000L;
+            while (RESULTS.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            job.cancel();
+
+            assertTrue(!RESULTS.isEmpty(), "the 2024 row was dropped as late");
+            assertEquals(ROW_DATE, RESULTS.get(0).start());
+            assertEquals(Long.valueOf(1), RESULTS.get(0).result());
+        } finally {
+            hz.shutdown();
+        }
+    }
+
+    /** A record on partition 0 keyed by {@code id}, as Debezium keys tbank_cleaned. */
+    private static CdcRecord record(long id, String value, long kafkaTimestamp) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(JetJob.SOURCE_TOPIC, 0, id, kafkaTimestamp,
+                TimestampType.CREATE_TIME, 0, 0, "{\"transactionid\":" + id + "}", value, new RecordHeaders(),
+                Optional.empty());
+        return CdcRecord.fromConsumerRecord(record, EventTime.TRANSACTION_DATE);
+    }
+
+    private static String insertEvent(long id, long transactionDate) {
+        return "{\"before\":null,\"after\":{\"transactionid\":" + id + ",\"accountfrom\":7,\"transactionamount\":12.5,"
+                + "\"transactiondate\":" + transactionDate + "},\"source\":{\"ts_ms\":" + transactionDate + "},\"op\":\"c\"}";
+    }
+
+    private static String deleteEvent(long id) {
+        return "{\"before\":{\"transactionid\":" + id + ",\"accountfrom\":7},\"after\":null,"
+                + "\"source\":{\"ts_ms\":" + System.currentTimeMillis() + "},\"op\":\"d\"}";
+    }
+}
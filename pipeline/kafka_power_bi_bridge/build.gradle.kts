@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.4.3"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "org.lurence"
@@ -29,13 +30,72 @@ dependencies {
     // Kafka
     implementation("org.springframework.kafka:spring-kafka:3.3.3")
     implementation("org.apache.kafka:connect-json:3.9.0")
+    // powerbi-stream values are Avro single-object records (src/main/resources/avro/transaction.avsc)
+    implementation("org.apache.avro:avro:1.12.0")
+
+    // Client for the Jet cluster's transactions IMap (/api/v1/cluster/transactions)
+    implementation("com.hazelcast:hazelcast:5.5.0")
 
     // Testing
     testImplementation("org.springframework.boot:spring-boot-starter-test:3.4.3")
-    testRuntimeOnly("org.junit.platform:junit-platform-launcher:1.12.0")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 // ✅ Kotlin DSL style for JUnit 5
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// JMH benchmarks live in src/jmh/java; run with ./gradlew jmh (filter with -PjmhInclude=<regex>).
+// The gc profiler adds gc.alloc.rate.norm (bytes allocated per op) next to ops/s, and the JSON
+// results in build/results/jmh/results.json can be diffed between runs to spot regressions.
+jmh {
+    warmupIterations.set(2)
+    iterations.set(3)
+    fork.set(1)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    if (project.hasProperty("jmhInclude")) {
+        includes.add(project.property("jmhInclude") as String)
+    }
+}
+
+// Load tools in src/loadTest/java. They see the bridge's classes and dependencies, and the rows the
+// transactions database is seeded with (tbank_cleaned.csv) as a classpath resource.
+val loadTest by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+    resources.srcDir("../databases/transactions")
+    resources.include("tbank_cleaned.csv")
+}
+configurations[loadTest.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[loadTest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+// Benchmark fixtures are generated from the same CSV (load.TransactionCsv)
+dependencies {
+    "jmhImplementation"(loadTest.output)
+}
+
+// HTTP load test against a running bridge, e.g.
+// ./gradlew loadTest -PloadArgs="--url=http://localhost:8080/api/v1/data/powerbi --clients=50,200,800"
+tasks.register<JavaExec>("loadTest") {
+    description = "Runs HttpLoadTest against a running bridge"
+    group = "verification"
+    classpath = loadTest.runtimeClasspath
+    mainClass.set("org.lurence.kafka_power_bi_bridge.load.HttpLoadTest")
+    if (project.hasProperty("loadArgs")) {
+        args((project.property("loadArgs") as String).split(" "))
+    }
+}
+
+// Replays tbank_cleaned.csv as Debezium events into MessageConsumer, in process or through Kafka, e.g.
+// ./gradlew replay -PreplayArgs="--profile=ramp --rate=1000 --peak-rate=50000 --amplify=20 --duration=60"
+tasks.register<JavaExec>("replay") {
+    description = "Replays tbank_cleaned.csv through MessageConsumer and reports throughput and latency"
+    group = "verification"
+    classpath = loadTest.runtimeClasspath
+    mainClass.set("org.lurence.kafka_power_bi_bridge.load.ReplayLoadGenerator")
+    if (project.hasProperty("replayArgs")) {
+        args((project.property("replayArgs") as String).split(" "))
+    }
+}
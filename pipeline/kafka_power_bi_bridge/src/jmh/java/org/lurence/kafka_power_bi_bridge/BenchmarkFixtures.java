@@ -0,0 +1,155 @@
+package org.lurence.kafka_power_bi_bridge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.lurence.kafka_power_bi_bridge.kafka.AvroTransactionCodec;
+import org.lurence.kafka_power_bi_bridge.load.TransactionCsv;
+import org.lurence.kafka_power_bi_bridge.logging.HotPathLog;
+import org.lurence.kafka_power_bi_bridge.metrics.FreshnessMetrics;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Debezium-shaped sample messages shared by the benchmarks.
+ * <p>
+ * The csv* fixtures are built from databases/transactions/tbank_cleaned.csv by the replay
+ * harness's {@link TransactionCsv}, the same rows the Postgres container is seeded with, so
+ * benchmarks see the real mix of currencies, payment modes, amounts and narratives.
+ */
+public final class BenchmarkFixtures {
+    private static final BinaryMessageEncoder<GenericRecord> AVRO_ENCODER =
+            new BinaryMessageEncoder<>(GenericData.get(), AvroTransactionCodec.SCHEMA);
+
+    private BenchmarkFixtures() {
+    }
+
+    /** The listeners' logging before sampling: every line printed on the calling thread. */
+    public static HotPathLog consoleLog(MeterRegistry registry) {
+        return new HotPathLog(registry, true, false, 1, "all", "all", "all", "all");
+    }
+
+    /** The bridge's default logging: sampled, with a background writer. Close it in the teardown. */
+    public static HotPathLog sampledLog(MeterRegistry registry) {
+        return new HotPathLog(registry, true, true, 8192, "10/s", "10/s", "1/s", "100/s");
+    }
+
+    /** Freshness timers with the bridge's default SLO buckets. */
+    public static FreshnessMetrics freshness(MeterRegistry registry, TransactionStore store) {
+        return new FreshnessMetrics(registry, store, true, new Duration[]{Duration.ofMillis(100), Duration.ofMillis(250),
+                Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5),
+                Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofSeconds(60)});
+    }
+
+    /** A Struct.toString() envelope as it arrives on powerbi-stream. */
+    public static String structMessage(long transactionId) {
+        return "Struct{after=Struct{transactionid=" + transactionId
+                + ",accountfrom=4913,accountto=4908,bankidfrom=29,bankidto=29"
+                + ",transactionamount=" + (transactionId % 7 == 0 ? "1523.75" : "1.23")
+                + ",exchangerate=1.0,transactiondate=1726070773000,transactiontype=301"
+                + ",interimbalance=9747.29,accountto_interimbalance=252.46,currency=SGD,quotecurrency=SGD"
+                + ",paymentmode=Cash,overrideflag=false,narrative=testing}"
+                + ",source=Struct{version=2.5.4.Final,connector=postgresql,name=is484,ts_ms=1726070773120"
+                + ",snapshot=false,db=transactions,schema=public,table=tbank_cleaned,txId=755,lsn=24023128}"
+                + ",op=c,ts_ms=1726070773456}";
+    }
+
+    public static List<ConsumerRecord<String, byte[]>> structRecords(int count) {
+        return structRecords(0, count);
+    }
+
+    public static List<ConsumerRecord<String, byte[]>> structRecords(int partition, int count) {
+        List<ConsumerRecord<String, byte[]>> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] value = structMessage(415_000L + i).getBytes(StandardCharsets.UTF_8);
+            records.add(new ConsumerRecord<>("powerbi-stream", partition, i, null, value));
+        }
+        return records;
+    }
+
+    /** The same row as {@link #structMessage} in the Avro single-object encoding the Jet job publishes. */
+    public static byte[] avroMessage(long transactionId) {
+        GenericData.Record record = new GenericData.Record(AvroTransactionCodec.SCHEMA);
+        record.put("transactionid", transactionId);
+        record.put("accountfrom", 4913L);
+        record.put("accountto", 4908L);
+        record.put("bankidfrom", 29L);
+        record.put("bankidto", 29L);
+        record.put("transactionamount", transactionId % 7 == 0 ? 1523.75 : 1.23);
+        record.put("exchangerate", 1.0);
+        record.put("transactiondate", 1726070773000L);
+        record.put("transactiontype", 301);
+        record.put("interimbalance", 9747.29);
+        record.put("accountto_interimbalance", 252.46);
+        record.put("currency", "SGD");
+        record.put("quotecurrency", "SGD");
+        record.put("paymentmode", "Cash");
+        record.put("overrideflag", false);
+        record.put("narrative", "testing");
+        record.put("op", "c");
+        record.put("source_ts_ms", 1726070773120L);
+        record.put("event_time", 1726070773000L);
+        record.put("jet_ts_ms", 1726070773250L);
+        try {
+            ByteBuffer buffer = AVRO_ENCODER.encode(record);
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<ConsumerRecord<String, byte[]>> avroRecords(int count) {
+        return avroRecords(0, count);
+    }
+
+    public static List<ConsumerRecord<String, byte[]>> avroRecords(int partition, int count) {
+        List<ConsumerRecord<String, byte[]>> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            records.add(new ConsumerRecord<>("powerbi-stream", partition, i, null, avroMessage(415_000L + i)));
+        }
+        return records;
+    }
+
+    /** Every CSV row as the Struct.toString() envelope the connector produces with StringConverter. */
+    public static List<String> csvStructMessages() {
+        return csvMessages(TransactionCsv.Format.STRUCT);
+    }
+
+    /** Every CSV row as a Debezium JsonConverter envelope (schemas disabled). */
+    public static List<String> csvJsonMessages() {
+        return csvMessages(TransactionCsv.Format.JSON);
+    }
+
+    /** Every CSV row as a parsed {@link TransactionRow}, ready to append to a store. */
+    public static List<TransactionRow> csvTransactionRows() {
+        TransactionCsv csv = TransactionCsv.load();
+        List<TransactionRow> rows = new ArrayList<>(csv.size());
+        for (int row = 0; row < csv.size(); row++) {
+            rows.add(csv.transactionRow(row));
+        }
+        return rows;
+    }
+
+    // Committed just after the transaction time, emitted by the connector 300 ms later
+    private static List<String> csvMessages(TransactionCsv.Format format) {
+        TransactionCsv csv = TransactionCsv.load();
+        List<String> messages = new ArrayList<>(csv.size());
+        for (int row = 0; row < csv.size(); row++) {
+            long commitMillis = csv.transactionDateMillis(row) + 120;
+            messages.add(csv.template(row, format).render(csv.syntheticId(row, 0), commitMillis, commitMillis + 300));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,74 @@
+package org.lurence.kafka_power_bi_bridge.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.lurence.kafka_power_bi_bridge.BenchmarkFixtures;
+import org.lurence.kafka_power_bi_bridge.aggregate.WindowedAggregator;
+import org.lurence.kafka_power_bi_bridge.metrics.KafkaMetricsConfig;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The three ways the bridge turns a powerbi-stream text message into fields, over every row of
+ * tbank_cleaned.csv in turn: {@link MessageConsumer#parseStructAfterFields} for Struct text,
+ * {@link StructMessageParser#parseStructMessage} (the map-building variant), and
+ * {@link ObjectMapper#readTree} for Debezium JSON. One operation is one message; run with the gc
+ * profiler (on by default in build.gradle.kts) to get bytes allocated per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvParseBenchmark {
+
+    private final String[] structMessages = BenchmarkFixtures.csvStructMessages().toArray(new String[0]);
+    private final String[] jsonMessages = BenchmarkFixtures.csvJsonMessages().toArray(new String[0]);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MessageConsumer consumer;
+    private int next;
+
+    public CsvParseBenchmark() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionStore store = TransactionStore.ofCapacity(16);
+        consumer = new MessageConsumer(new KafkaMetricsConfig(registry), registry, store,
+                new WindowedAggregator(registry, true, 1000), BenchmarkFixtures.consoleLog(registry),
+                BenchmarkFixtures.freshness(registry, store));
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = i + 1 == structMessages.length ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public TransactionRow structAfterFields() {
+        return consumer.parseStructAfterFields(structMessages[nextIndex()]);
+    }
+
+    @Benchmark
+    public Map<String, Object> structMessageParser() {
+        return StructMessageParser.parseStructMessage(structMessages[nextIndex()]);
+    }
+
+    @Benchmark
+    public JsonNode debeziumJsonReadTree() throws IOException {
+        return objectMapper.readTree(jsonMessages[nextIndex()]);
+    }
+
+    /** readTree plus picking the after image out of the envelope, as the JSON listener path does. */
+    @Benchmark
+    public JsonNode debeziumJsonAfter() throws IOException {
+        return objectMapper.readTree(jsonMessages[nextIndex()]).get("after");
+    }
+}
@@ -0,0 +1,87 @@
+package org.lurence.kafka_power_bi_bridge.kafka;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The Struct parsing code that {@link StructTokenizer} replaced, kept only as a benchmark baseline
+ */
+final class LegacyStructParser {
+
+    private LegacyStructParser() {
+    }
+
+    /** Former MessageConsumer.parseStructAfterFields: indexOf + substring + toCharArray + split. */
+    static Map<String, Object> parseStructAfterFields(String structMessage) {
+        Map<String, Object> result = new HashMap<>();
+        int afterStart = structMessage.indexOf("after=Struct{");
+        if (afterStart == -1) {
+            return result;
+        }
+        int start = afterStart + "after=Struct{".length();
+        int end = structMessage.indexOf("},source=", start);
+        if (end == -1) {
+            end = structMessage.lastIndexOf('}');
+        }
+        if (end > start) {
+            result.putAll(parseKeyValues(structMessage.substring(start, end)));
+        }
+        return result;
+    }
+
+    private static Map<String, Object> parseKeyValues(String content) {
+        Map<String, Object> result = new HashMap<>();
+        boolean inQuotes = false;
+        StringBuilder current = new StringBuilder();
+        List<String> parts = new ArrayList<>();
+
+        for (char c : content.toCharArray()) {
+            if (c == '"') inQuotes = !inQuotes;
+            if (c == ',' && !inQuotes) {
+                parts.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) parts.add(current.toString());
+
+        for (String part : parts) {
+            String[] kv = part.split("=", 2);
+            if (kv.length == 2) {
+                String key = kv[0].trim();
+                String val = kv[1].trim();
+                if (val.startsWith("\"") && val.endsWith("\"") && val.length() >= 2) {
+                    val = val.substring(1, val.length() - 1);
+                }
+                result.put(key.toLowerCase(), val);
+            }
+        }
+        return result;
+    }
+
+    /** Former DataController/PowerBIController field extraction: one Pattern.compile per field. */
+    static Map<String, Object> extractFields(String structString) {
+        Map<String, Object> result = new HashMap<>();
+        String[] fields = {
+                "accountfrom", "accountto", "bankidfrom", "bankidto",
+                "currency", "narrative", "paymentmode", "transactionamount"
+        };
+        Matcher matcher = Pattern.compile("transactionid=(\\d+)").matcher(structString);
+        if (matcher.find()) {
+            result.put("TRANSACTIONID", matcher.group(1));
+        }
+        for (String field : fields) {
+            Pattern pattern = Pattern.compile(field + "=([^,}]+)");
+            matcher = pattern.matcher(structString.toLowerCase());
+            if (matcher.find()) {
+                result.put(field.toUpperCase(), matcher.group(1).trim());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package org.lurence.kafka_power_bi_bridge.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.lurence.kafka_power_bi_bridge.BenchmarkFixtures;
+import org.lurence.kafka_power_bi_bridge.aggregate.WindowedAggregator;
+import org.lurence.kafka_power_bi_bridge.logging.HotPathLog;
+import org.lurence.kafka_power_bi_bridge.metrics.KafkaMetricsConfig;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record {@link MessageConsumer#listen} versus batch {@link MessageConsumer#listenBatch}.
+ * One operation is one poll worth of records. Console output is discarded so the numbers
+ * show the cost of building the log lines, not of the terminal.
+ * <p>
+ * logging=console prints every line on the listener thread, as the listeners used to; sampled is
+ * the default {@link HotPathLog} setup. The replay harness (--logging) shows the same comparison
+ * with a real console.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ListenerModeBenchmark {
+
+    @Param({"100", "500"})
+    int pollSize;
+
+    @Param({"console", "sampled"})
+    String logging;
+
+    private HotPathLog hotPathLog;
+    private MessageConsumer consumer;
+    private List<ConsumerRecord<String, byte[]>> poll;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        hotPathLog = "sampled".equals(logging)
+                ? BenchmarkFixtures.sampledLog(registry) : BenchmarkFixtures.consoleLog(registry);
+        TransactionStore store = TransactionStore.ofCapacity(10_000);
+        consumer = new MessageConsumer(new KafkaMetricsConfig(registry), registry, store,
+                new WindowedAggregator(registry, true, 1000), hotPathLog,
+                BenchmarkFixtures.freshness(registry, store));
+        poll = BenchmarkFixtures.structRecords(pollSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        hotPathLog.close();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void perRecord() {
+        for (ConsumerRecord<String, byte[]> record : poll) {
+            consumer.listen(record);
+        }
+    }
+
+    @Benchmark
+    public void batch() {
+        consumer.listenBatch(poll);
+    }
+}
@@ -0,0 +1,129 @@
+package org.lurence.kafka_power_bi_bridge.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.lurence.kafka_power_bi_bridge.BenchmarkFixtures;
+import org.lurence.kafka_power_bi_bridge.aggregate.WindowedAggregator;
+import org.lurence.kafka_power_bi_bridge.metrics.KafkaMetricsConfig;
+import org.lurence.kafka_power_bi_bridge.store.TransactionIndex;
+import org.lurence.kafka_power_bi_bridge.store.TransactionLog;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ingest throughput with one listener thread per partition, as with
+ * bridge.kafka.listener.concurrency=N. Every invocation pushes the same number of records through
+ * {@link MessageConsumer#listenBatch}, split evenly over the partitions, into one shared store and
+ * aggregator. The score is records per second and should grow with the listener count up to the
+ * number of available cores. With {@code journaled=true} the store also feeds a transaction log in
+ * a temporary directory and the secondary indexes, as in the running bridge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PartitionScalingBenchmark {
+    // Divisible by every listener count below
+    private static final int RECORDS_PER_INVOCATION = 3000;
+    private static final int POLL_SIZE = 500;
+
+    @Param({"1", "2", "3"})
+    int listeners;
+
+    @Param({"avro", "struct"})
+    String format;
+
+    @Param({"false", "true"})
+    boolean journaled;
+
+    private MessageConsumer consumer;
+    private ExecutorService pool;
+    private List<List<List<ConsumerRecord<String, byte[]>>>> pollsByPartition;
+    private PrintStream originalOut;
+    private TransactionLog log;
+    private Path logDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionStore store = TransactionStore.ofCapacity(10_000);
+        if (journaled) {
+            logDir = Files.createTempDirectory("transaction-log-bench");
+            log = new TransactionLog(store, registry, true, logDir.toString(), 64 << 20, 2);
+            new TransactionIndex(store, registry, true);
+        }
+        consumer = new MessageConsumer(new KafkaMetricsConfig(registry), registry, store,
+                new WindowedAggregator(registry, true, 1000), BenchmarkFixtures.consoleLog(registry),
+                BenchmarkFixtures.freshness(registry, store));
+        pool = Executors.newFixedThreadPool(listeners);
+
+        pollsByPartition = new ArrayList<>(listeners);
+        int perPartition = RECORDS_PER_INVOCATION / listeners;
+        for (int partition = 0; partition < listeners; partition++) {
+            List<ConsumerRecord<String, byte[]>> records = "avro".equals(format)
+                    ? BenchmarkFixtures.avroRecords(partition, perPartition)
+                    : BenchmarkFixtures.structRecords(partition, perPartition);
+            List<List<ConsumerRecord<String, byte[]>>> polls = new ArrayList<>();
+            for (int from = 0; from < records.size(); from += POLL_SIZE) {
+                polls.add(records.subList(from, Math.min(records.size(), from + POLL_SIZE)));
+            }
+            pollsByPartition.add(polls);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdownNow();
+        System.setOut(originalOut);
+        if (log != null) {
+            log.close();
+            try (Stream<Path> files = Files.list(logDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(logDir);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public void ingest() throws Exception {
+        List<Future<?>> running = new ArrayList<>(listeners);
+        for (List<List<ConsumerRecord<String, byte[]>>> polls : pollsByPartition) {
+            running.add(pool.submit(() -> {
+                for (List<ConsumerRecord<String, byte[]>> poll : polls) {
+                    consumer.listenBatch(poll);
+                }
+            }));
+        }
+        for (Future<?> future : running) {
+            future.get();
+        }
+    }
+}
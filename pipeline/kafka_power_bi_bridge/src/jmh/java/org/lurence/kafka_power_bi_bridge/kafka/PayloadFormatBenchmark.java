@@ -0,0 +1,57 @@
+package org.lurence.kafka_power_bi_bridge.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.lurence.kafka_power_bi_bridge.BenchmarkFixtures;
+import org.lurence.kafka_power_bi_bridge.aggregate.WindowedAggregator;
+import org.lurence.kafka_power_bi_bridge.metrics.KafkaMetricsConfig;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one powerbi-stream value into a {@link TransactionRow}: the Struct.toString()
+ * text Jet used to forward against the Avro single-object record it publishes now. Both start
+ * from the bytes the consumer hands over, so the text case includes its UTF-8 decode.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PayloadFormatBenchmark {
+
+    private final byte[] structBytes = BenchmarkFixtures.structMessage(415_062L).getBytes(StandardCharsets.UTF_8);
+    private final byte[] avroBytes = BenchmarkFixtures.avroMessage(415_062L);
+    private final MessageConsumer consumer;
+
+    public PayloadFormatBenchmark() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionStore store = TransactionStore.ofCapacity(16);
+        consumer = new MessageConsumer(new KafkaMetricsConfig(registry), registry, store,
+                new WindowedAggregator(registry, true, 1000), BenchmarkFixtures.consoleLog(registry),
+                BenchmarkFixtures.freshness(registry, store));
+    }
+
+    @Benchmark
+    public TransactionRow structText() {
+        return consumer.parseStructAfterFields(new String(structBytes, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public TransactionRow avroBinary() throws IOException {
+        return AvroTransactionCodec.decode(avroBytes);
+    }
+
+    /** Producer side, as the Jet job pays it per transaction. */
+    @Benchmark
+    public byte[] avroEncode() {
+        return BenchmarkFixtures.avroMessage(415_062L);
+    }
+}
@@ -0,0 +1,68 @@
+package org.lurence.kafka_power_bi_bridge.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.lurence.kafka_power_bi_bridge.BenchmarkFixtures;
+import org.lurence.kafka_power_bi_bridge.aggregate.WindowedAggregator;
+import org.lurence.kafka_power_bi_bridge.metrics.KafkaMetricsConfig;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StructTokenizer} against the split/regex parsers it replaced, on one Debezium envelope
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StructParserBenchmark {
+
+    private final String message = BenchmarkFixtures.structMessage(415_062L);
+    private final StructTokenizer tokenizer = new StructTokenizer();
+    private final MessageConsumer consumer;
+
+    public StructParserBenchmark() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionStore store = TransactionStore.ofCapacity(16);
+        consumer = new MessageConsumer(new KafkaMetricsConfig(registry), registry, store,
+                new WindowedAggregator(registry, true, 1000), BenchmarkFixtures.consoleLog(registry),
+                BenchmarkFixtures.freshness(registry, store));
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyAfterFields() {
+        return LegacyStructParser.parseStructAfterFields(message);
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyRegexExtract() {
+        return LegacyStructParser.extractFields(message);
+    }
+
+    @Benchmark
+    public Object tokenizerAfterFields() {
+        return consumer.parseStructAfterFields(message);
+    }
+
+    /** Tokenize only, reading every value as its natural type without building a map. */
+    @Benchmark
+    public void tokenizerScan(Blackhole bh) {
+        tokenizer.reset(message);
+        while (tokenizer.next()) {
+            if (tokenizer.isLong()) {
+                bh.consume(tokenizer.longValue());
+            } else if (tokenizer.isDouble()) {
+                bh.consume(tokenizer.doubleValue());
+            } else {
+                bh.consume(tokenizer.keyEquals("currency"));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.lurence.kafka_power_bi_bridge.power_bi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.lurence.kafka_power_bi_bridge.BenchmarkFixtures;
+import org.lurence.kafka_power_bi_bridge.metrics.FreshnessMetrics;
+import org.lurence.kafka_power_bi_bridge.store.TransactionIndex;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/v1/data/powerbi end to end with the response cache off: scan the store and write every row
+ * through {@link PowerBIRowFormatter}, over a store filled with tbank_cleaned rows. One operation
+ * is one full response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PowerBITransformBenchmark {
+
+    @Param({"1000", "10000"})
+    int rows;
+
+    private DataController controller;
+    private TransactionExporter exporter;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        objectMapper = new ObjectMapper();
+        TransactionStore store = TransactionStore.ofCapacity(rows);
+        List<TransactionRow> csv = BenchmarkFixtures.csvTransactionRows();
+        while (store.writeSequence() < rows) {
+            store.appendAll(csv.subList(0, (int) Math.min(csv.size(), rows - store.writeSequence())));
+        }
+
+        FreshnessMetrics freshness = BenchmarkFixtures.freshness(registry, store);
+        exporter = new TransactionExporter(store, objectMapper, new PowerBIRowFormatter(), registry, 500);
+        controller = new DataController(new ResponseCache(store, objectMapper, registry, freshness, false), store,
+                exporter, new TransactionIndex(store, registry, false), freshness);
+    }
+
+    @Benchmark
+    public byte[] powerBIResponse() {
+        return controller.getPowerBITransactions(null).getBody();
+    }
+
+    /** The rendering alone, into a discarding stream instead of the response byte array. */
+    @Benchmark
+    public void formatRows() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            exporter.writePowerBIArray(generator);
+        }
+    }
+}
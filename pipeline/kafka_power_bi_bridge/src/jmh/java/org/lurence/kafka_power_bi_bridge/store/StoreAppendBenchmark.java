@@ -0,0 +1,66 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.lurence.kafka_power_bi_bridge.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The buffer's append path with tbank_cleaned rows: one poll of 500 rows per operation into a
+ * ring that is already full, so every append also evicts (the old list's trim), with and without
+ * the secondary indexes attached.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StoreAppendBenchmark {
+    private static final int BATCH = 500;
+
+    @Param({"10000"})
+    int capacity;
+
+    @Param({"false", "true"})
+    boolean indexed;
+
+    private TransactionStore store;
+    private List<TransactionRow> rows;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = TransactionStore.ofCapacity(capacity);
+        if (indexed) {
+            new TransactionIndex(store, new SimpleMeterRegistry(), true);
+        }
+        rows = BenchmarkFixtures.csvTransactionRows();
+        while (store.writeSequence() < capacity) {
+            appendBatch();
+        }
+    }
+
+    @Benchmark
+    public long appendBatch() {
+        int from = next;
+        int to = Math.min(from + BATCH, rows.size());
+        store.appendAll(rows.subList(from, to));
+        next = to == rows.size() ? 0 : to;
+        return store.writeSequence();
+    }
+
+    @Benchmark
+    public long appendOne() {
+        store.append(rows.get(next));
+        next = next + 1 == rows.size() ? 0 : next + 1;
+        return store.writeSequence();
+    }
+}
@@ -0,0 +1,211 @@
+package org.lurence.kafka_power_bi_bridge.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop HTTP load test for the bridge: N clients each request the target URLs back to back
+ * for a fixed time, like Power BI and Grafana polling together. Runs one step per client count and
+ * prints throughput and latency percentiles per step.
+ * <p>
+ * "Max clients" is the largest step whose p99 stays within the SLO with under 1% errors. Run it
+ * once against a bridge started with spring.threads.virtual.enabled=false and once with true.
+ * <p>
+ * Options (all optional):
+ * <pre>
+ *   --url=URL[,URL...]      endpoints, cycled per request (default /api/v1/data/powerbi on localhost:8080)
+ *   --clients=N[,N...]      concurrent clients per step (default 10,50,100,200,400,800)
+ *   --duration=SECONDS      length of each step (default 20)
+ *   --slo-ms=MILLIS         p99 target for "max clients" (default 1000)
+ *   --timeout-ms=MILLIS     per-request timeout, counted as an error (default 10000)
+ * </pre>
+ */
+public final class HttpLoadTest {
+    private static final double MAX_ERROR_RATE = 0.01;
+
+    private final List<URI> urls = new ArrayList<>();
+    private int[] clientSteps = {10, 50, 100, 200, 400, 800};
+    private long durationMillis = 20_000;
+    private long sloMillis = 1_000;
+    private long timeoutMillis = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        HttpLoadTest test = new HttpLoadTest();
+        test.parse(args);
+        test.run();
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (name) {
+                case "url":
+                    for (String url : value.split(",")) {
+                        urls.add(URI.create(url.trim()));
+                    }
+                    break;
+                case "clients":
+                    clientSteps = Arrays.stream(value.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                    break;
+                case "duration":
+                    durationMillis = Long.parseLong(value) * 1000;
+                    break;
+                case "slo-ms":
+                    sloMillis = Long.parseLong(value);
+                    break;
+                case "timeout-ms":
+                    timeoutMillis = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (urls.isEmpty()) {
+            urls.add(URI.create("http://localhost:8080/api/v1/data/powerbi"));
+        }
+    }
+
+    private void run() throws Exception {
+        System.out.println("Targets: " + urls + ", " + durationMillis / 1000 + " s per step, p99 SLO " + sloMillis + " ms");
+        System.out.printf("%8s %10s %10s %9s %9s %9s %9s %8s %12s%n",
+                "clients", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors", "MB/s");
+
+        int maxClients = 0;
+        for (int clients : clientSteps) {
+            StepResult result = runStep(clients);
+            result.print(clients, durationMillis);
+            if (result.percentileMillis(0.99) <= sloMillis && result.errorRate() < MAX_ERROR_RATE) {
+                maxClients = clients;
+            }
+        }
+        System.out.println("Max clients within p99 <= " + sloMillis + " ms and < 1% errors: "
+                + (maxClients == 0 ? "none" : maxClients));
+    }
+
+    /** One step: {@code clients} virtual threads looping until the deadline, so the client side never queues. */
+    private StepResult runStep(int clients) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(timeoutMillis))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long deadline = System.nanoTime() + durationMillis * 1_000_000L;
+
+        List<Future<ClientResult>> futures = new ArrayList<>(clients);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int offset = c;
+                futures.add(pool.submit(() -> runClient(http, offset, deadline)));
+            }
+            StepResult step = new StepResult();
+            for (Future<ClientResult> future : futures) {
+                step.add(future.get());
+            }
+            return step;
+        }
+    }
+
+    private ClientResult runClient(HttpClient http, int offset, long deadline) {
+        ClientResult result = new ClientResult();
+        byte[] buffer = new byte[64 * 1024];
+        int i = offset;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(urls.get(i++ % urls.size()))
+                    .timeout(Duration.ofMillis(timeoutMillis))
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                long bytes = 0;
+                try (InputStream body = response.body()) {
+                    int n;
+                    while ((n = body.read(buffer)) > 0) {
+                        bytes += n;
+                    }
+                }
+                if (response.statusCode() >= 400) {
+                    result.errors++;
+                } else {
+                    result.bytes += bytes;
+                }
+            } catch (IOException e) {
+                result.errors++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return result;
+            }
+            result.record(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /** Latencies of one client, in nanoseconds. */
+    private static final class ClientResult {
+        long[] latencies = new long[1024];
+        int count;
+        long errors;
+        long bytes;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private static final class StepResult {
+        long[] latencies = new long[0];
+        long errors;
+        long bytes;
+
+        void add(ClientResult client) {
+            int from = latencies.length;
+            latencies = Arrays.copyOf(latencies, from + client.count);
+            System.arraycopy(client.latencies, 0, latencies, from, client.count);
+            errors += client.errors;
+            bytes += client.bytes;
+        }
+
+        double percentileMillis(double quantile) {
+            if (latencies.length == 0) {
+                return Double.MAX_VALUE;
+            }
+            Arrays.sort(latencies);
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(quantile * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        double errorRate() {
+            return latencies.length == 0 ? 1.0 : (double) errors / latencies.length;
+        }
+
+        void print(int clients, long durationMillis) {
+            double seconds = durationMillis / 1000.0;
+            System.out.printf("%8d %10d %10.0f %9.1f %9.1f %9.1f %9.1f %8d %12.2f%n",
+                    clients, latencies.length, latencies.length / seconds,
+                    percentileMillis(0.50), percentileMillis(0.90), percentileMillis(0.99), percentileMillis(1.0),
+                    errors, bytes / seconds / (1024 * 1024));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.lurence.kafka_power_bi_bridge.load;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Completion latencies of one replay run, in nanoseconds from each message's due time, with a
+ * progress line every interval. Messages due before the end of the warmup count as completed but
+ * are left out of the latencies.
+ * <p>
+ * Written by a single thread (the sender, the producer's I/O thread or the consuming thread,
+ * depending on the target); {@link #completed()} may be read from others.
+ */
+final class LatencyRecorder {
+    private final LongSupplier sent;
+    private final long startNanos;
+    private final long measureFromNanos;
+    private final long intervalNanos;
+
+    private long[] latencies = new long[64 * 1024];
+    private int count;
+    private volatile long completed;
+    private long lastReport;
+    private long nextReport;
+    private int reported;
+    private long sentAtReport;
+    private long completedAtReport;
+
+    LatencyRecorder(LongSupplier sent, long startNanos, long warmupMillis, long intervalMillis) {
+        this.sent = sent;
+        this.startNanos = startNanos;
+        this.measureFromNanos = startNanos + warmupMillis * 1_000_000L;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.lastReport = startNanos;
+        this.nextReport = startNanos + intervalNanos;
+    }
+
+    static void printHeader() {
+        System.out.printf("%7s %10s %10s %9s %9s %9s %10s%n",
+                "t s", "sent/s", "done/s", "p50 ms", "p99 ms", "max ms", "in flight");
+    }
+
+    void record(long dueNanos, long now) {
+        completed++;
+        if (dueNanos >= measureFromNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = now - dueNanos;
+        }
+        if (intervalNanos > 0 && now >= nextReport) {
+            report(now);
+        }
+    }
+
+    /** Messages completed so far, warmup included. */
+    long completed() {
+        return completed;
+    }
+
+    private void report(long now) {
+        long sentNow = sent.getAsLong();
+        double seconds = (now - lastReport) / 1e9;
+        long[] interval = Arrays.copyOfRange(latencies, reported, count);
+        Arrays.sort(interval);
+        System.out.printf("%7.1f %10.0f %10.0f %9.2f %9.2f %9.2f %10d%n",
+                (now - startNanos) / 1e9, (sentNow - sentAtReport) / seconds, (completed - completedAtReport) / seconds,
+                percentileMillis(interval, 0.50), percentileMillis(interval, 0.99), percentileMillis(interval, 1.0),
+                sentNow - completed);
+        reported = count;
+        sentAtReport = sentNow;
+        completedAtReport = completed;
+        lastReport = now;
+        while (nextReport <= now) {
+            nextReport += intervalNanos;
+        }
+    }
+
+    /** All recorded latencies, sorted. Call once the writer has stopped. */
+    long[] sorted() {
+        long[] all = Arrays.copyOf(latencies, count);
+        Arrays.sort(all);
+        return all;
+    }
+
+    static double percentileMillis(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,57 @@
+package org.lurence.kafka_power_bi_bridge.load;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A pre-rendered envelope with three open slots: the transaction id, source.ts_ms (commit time)
+ * and the envelope's ts_ms (connector time). Rendering only concatenates the fixed text around
+ * them, so the replay sender can produce millions of distinct messages without re-serializing rows.
+ */
+public final class MessageTemplate {
+    // Placeholders written into the text by TransactionCsv, then cut out; no real value looks like these
+    static final long ID = -1111111111111111111L;
+    static final long SOURCE_TS = -2222222222222222222L;
+    static final long TS = -3333333333333333333L;
+
+    private final String[] parts;
+    private final int length;
+
+    private MessageTemplate(String[] parts) {
+        this.parts = parts;
+        int n = 0;
+        for (String part : parts) {
+            n += part.length();
+        }
+        this.length = n;
+    }
+
+    static MessageTemplate of(String text) {
+        String[] parts = new String[4];
+        int from = 0;
+        long[] slots = {ID, SOURCE_TS, TS};
+        for (int i = 0; i < slots.length; i++) {
+            String token = Long.toString(slots[i]);
+            int at = text.indexOf(token, from);
+            if (at < 0) {
+                throw new IllegalArgumentException("Placeholder " + token + " missing from " + text);
+            }
+            parts[i] = text.substring(from, at);
+            from = at + token.length();
+        }
+        parts[3] = text.substring(from);
+        return new MessageTemplate(parts);
+    }
+
+    public String render(long transactionId, long sourceTsMs, long tsMs) {
+        return new StringBuilder(length + 60)
+                .append(parts[0]).append(transactionId)
+                .append(parts[1]).append(sourceTsMs)
+                .append(parts[2]).append(tsMs)
+                .append(parts[3])
+                .toString();
+    }
+
+    public byte[] renderBytes(long transactionId, long sourceTsMs, long tsMs) {
+        return render(transactionId, sourceTsMs, tsMs).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,98 @@
+package org.lurence.kafka_power_bi_bridge.load;
+
+/**
+ * When each replayed message is due, as seconds from the start of the run. The schedule is fixed
+ * up front (open loop), so a slow pipeline shows up as latency measured from the due time rather
+ * than as a lower send rate, which would hide the queueing it causes.
+ */
+public abstract class RateProfile {
+
+    /** Seconds after the start at which message {@code index} (0-based) is due. */
+    public abstract double dueSeconds(long index);
+
+    /** Constant {@code rate} messages per second. */
+    public static RateProfile fixed(double rate) {
+        requirePositive(rate, "rate");
+        return new RateProfile() {
+            @Override
+            public double dueSeconds(long index) {
+                return index / rate;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed " + format(rate) + " msg/s";
+            }
+        };
+    }
+
+    /**
+     * {@code baseRate} messages per second, except for {@code burstSeconds} at the start of every
+     * {@code periodSeconds} where it runs at {@code burstRate}: a backlog draining after a
+     * connector restart, or a batch job writing to the table.
+     */
+    public static RateProfile burst(double baseRate, double burstRate, double burstSeconds, double periodSeconds) {
+        requirePositive(baseRate, "rate");
+        requirePositive(burstRate, "peak rate");
+        if (burstSeconds <= 0 || burstSeconds >= periodSeconds) {
+            throw new IllegalArgumentException("Burst length must be positive and shorter than the burst period");
+        }
+        double inBurst = burstRate * burstSeconds;
+        double perPeriod = inBurst + baseRate * (periodSeconds - burstSeconds);
+        return new RateProfile() {
+            @Override
+            public double dueSeconds(long index) {
+                long period = (long) (index / perPeriod);
+                double rest = index - period * perPeriod;
+                double offset = rest < inBurst ? rest / burstRate : burstSeconds + (rest - inBurst) / baseRate;
+                return period * periodSeconds + offset;
+            }
+
+            @Override
+            public String toString() {
+                return "burst " + format(baseRate) + " msg/s with " + format(burstRate) + " msg/s for "
+                        + format(burstSeconds) + " s every " + format(periodSeconds) + " s";
+            }
+        };
+    }
+
+    /**
+     * Rate rising linearly from {@code fromRate} to {@code toRate} over {@code rampSeconds}, then
+     * held. Read the interval report for the rate at which latency starts climbing.
+     */
+    public static RateProfile ramp(double fromRate, double toRate, double rampSeconds) {
+        requirePositive(fromRate, "rate");
+        requirePositive(toRate, "peak rate");
+        requirePositive(rampSeconds, "ramp length");
+        double slope = (toRate - fromRate) / rampSeconds;
+        double rampMessages = (fromRate + toRate) / 2 * rampSeconds;
+        return new RateProfile() {
+            @Override
+            public double dueSeconds(long index) {
+                if (index >= rampMessages) {
+                    return rampSeconds + (index - rampMessages) / toRate;
+                }
+                if (slope == 0) {
+                    return index / fromRate;
+                }
+                // Solve fromRate*t + slope*t^2/2 = index for t
+                return (Math.sqrt(fromRate * fromRate + 2 * slope * index) - fromRate) / slope;
+            }
+
+            @Override
+            public String toString() {
+                return "ramp " + format(fromRate) + " to " + format(toRate) + " msg/s over " + format(rampSeconds) + " s";
+            }
+        };
+    }
+
+    private static void requirePositive(double value, String name) {
+        if (!(value > 0)) {
+            throw new IllegalArgumentException("The " + name + " must be positive, got " + value);
+        }
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+}
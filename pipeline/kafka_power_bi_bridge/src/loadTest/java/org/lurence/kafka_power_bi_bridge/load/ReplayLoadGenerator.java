@@ -0,0 +1,528 @@
+package org.lurence.kafka_power_bi_bridge.load;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.lurence.kafka_power_bi_bridge.aggregate.WindowedAggregator;
+import org.lurence.kafka_power_bi_bridge.kafka.MessageConsumer;
+import org.lurence.kafka_power_bi_bridge.logging.HotPathLog;
+import org.lurence.kafka_power_bi_bridge.metrics.FreshnessMetrics;
+import org.lurence.kafka_power_bi_bridge.metrics.KafkaMetricsConfig;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays tbank_cleaned.csv as Debezium change events at a scheduled rate and measures how fast
+ * the bridge's {@link MessageConsumer} takes them in, without Postgres or the connector.
+ * <p>
+ * Each message is due at a time set by the rate profile; latency runs from that due time to the
+ * moment the listener has buffered the row, so queueing behind a slow consumer is counted rather
+ * than hidden. Targets:
+ * <ul>
+ *   <li>direct: calls listenBatch (or listen) on an in-process MessageConsumer; whatever is due is
+ *   handed over as one poll of up to --max-batch records. Measures parsing and buffering alone.</li>
+ *   <li>kafka: produces to --topic on a running broker (the compose stack's is localhost:29092) and
+ *   consumes it again in process with a fresh consumer group, so latency includes the broker. With
+ *   --consume=false it only produces, for a bridge running elsewhere, and latency is the ack time.</li>
+ * </ul>
+ * Options (all optional):
+ * <pre>
+ *   --target=direct|kafka      where messages go (default direct)
+ *   --format=struct|json       Struct.toString() text or JsonConverter JSON (default struct)
+ *   --profile=fixed|burst|ramp rate profile (default fixed)
+ *   --rate=N                   msg/s; the base rate for burst, the start rate for ramp (default 1000)
+ *   --peak-rate=N              burst rate, or the rate a ramp ends at (default 10 x rate)
+ *   --burst-seconds=S          length of each burst (default 2)
+ *   --burst-every=S            time from one burst to the next (default 10)
+ *   --ramp-seconds=S           ramp length (default --duration, or 60)
+ *   --amplify=N                copies of each row per pass, with synthetic ids (default 1)
+ *   --messages=N               messages to send, cycling through the passes (default amplify x rows)
+ *   --duration=S               stop sending after S seconds even if messages remain (default none)
+ *   --listener=batch|record    listener to call (default batch, like bridge.kafka.batch.enabled)
+ *   --max-batch=N              records per listenBatch call (default 500, max.poll.records)
+ *   --buffer=N                 TransactionStore capacity (default 10000)
+ *   --logging=sampled|console  listener logging: the bridge's sampled background writer, or every
+ *                              line printed on the listener thread as before (default sampled)
+ *   --bootstrap=HOST:PORT      kafka target: bootstrap servers (default localhost:29092)
+ *   --topic=NAME               kafka target: topic (default powerbi-stream)
+ *   --consume=true|false       kafka target: consume in process (default true)
+ *   --drain-seconds=S          kafka target: wait for stragglers after sending (default 30)
+ *   --warmup=S                 leave messages due in the first S seconds out of the latencies (default 0)
+ *   --report-every=S           progress line interval, 0 for none (default 5)
+ *   --csv=PATH                 CSV to replay instead of the bundled tbank_cleaned.csv
+ * </pre>
+ * Log lines go to the real console, so its cost is part of what is measured, as it is in the
+ * bridge; compare --logging=console with the default under the same profile.
+ */
+public final class ReplayLoadGenerator {
+    private static final String DUE_HEADER = "replay-due-nanos";
+
+    private String target = "direct";
+    private TransactionCsv.Format format = TransactionCsv.Format.STRUCT;
+    private String profileName = "fixed";
+    private double rate = 1000;
+    private double peakRate;
+    private double burstSeconds = 2;
+    private double burstEvery = 10;
+    private double rampSeconds;
+    private int amplify = 1;
+    private long messages = -1;
+    private long durationMillis;
+    private boolean batchListener = true;
+    private int maxBatch = 500;
+    private int bufferCapacity = 10_000;
+    private boolean consoleLogging;
+    private String bootstrap = "localhost:29092";
+    private String topic = "powerbi-stream";
+    private boolean consume = true;
+    private long drainMillis = 30_000;
+    private long warmupMillis;
+    private long reportMillis = 5_000;
+    private Path csvPath;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong sendErrors = new AtomicLong();
+    private long sentBytes;
+    private long maxSendLagNanos;
+
+    public static void main(String[] args) throws Exception {
+        ReplayLoadGenerator generator = new ReplayLoadGenerator();
+        generator.parse(args);
+        generator.run();
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1).trim();
+            switch (name) {
+                case "target":
+                    target = oneOf(name, value, "direct", "kafka");
+                    break;
+                case "format":
+                    format = TransactionCsv.Format.valueOf(oneOf(name, value, "struct", "json").toUpperCase(Locale.ROOT));
+                    break;
+                case "profile":
+                    profileName = oneOf(name, value, "fixed", "burst", "ramp");
+                    break;
+                case "rate":
+                    rate = Double.parseDouble(value);
+                    break;
+                case "peak-rate":
+                    peakRate = Double.parseDouble(value);
+                    break;
+                case "burst-seconds":
+                    burstSeconds = Double.parseDouble(value);
+                    break;
+                case "burst-every":
+                    burstEvery = Double.parseDouble(value);
+                    break;
+                case "ramp-seconds":
+                    rampSeconds = Double.parseDouble(value);
+                    break;
+                case "amplify":
+                    amplify = Integer.parseInt(value);
+                    if (amplify < 1) {
+                        throw new IllegalArgumentException("--amplify must be at least 1");
+                    }
+                    break;
+                case "messages":
+                    messages = Long.parseLong(value);
+                    break;
+                case "duration":
+                    durationMillis = (long) (Double.parseDouble(value) * 1000);
+                    break;
+                case "listener":
+                    batchListener = "batch".equals(oneOf(name, value, "batch", "record"));
+                    break;
+                case "max-batch":
+                    maxBatch = Integer.parseInt(value);
+                    break;
+                case "buffer":
+                    bufferCapacity = Integer.parseInt(value);
+                    break;
+                case "logging":
+                    consoleLogging = "console".equals(oneOf(name, value, "sampled", "console"));
+                    break;
+                case "bootstrap":
+                    bootstrap = value;
+                    break;
+                case "topic":
+                    topic = value;
+                    break;
+                case "consume":
+                    consume = Boolean.parseBoolean(value);
+                    break;
+                case "drain-seconds":
+                    drainMillis = (long) (Double.parseDouble(value) * 1000);
+                    break;
+                case "warmup":
+                    warmupMillis = (long) (Double.parseDouble(value) * 1000);
+                    break;
+                case "report-every":
+                    reportMillis = (long) (Double.parseDouble(value) * 1000);
+                    break;
+                case "csv":
+                    csvPath = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+    }
+
+    private static String oneOf(String name, String value, String... allowed) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        for (String candidate : allowed) {
+            if (candidate.equals(lower)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("--" + name + " must be one of " + String.join(", ", allowed) + ", got " + value);
+    }
+
+    private RateProfile profile() {
+        double peak = peakRate > 0 ? peakRate : rate * 10;
+        switch (profileName) {
+            case "burst":
+                return RateProfile.burst(rate, peak, burstSeconds, burstEvery);
+            case "ramp":
+                double length = rampSeconds > 0 ? rampSeconds : durationMillis > 0 ? durationMillis / 1000.0 : 60;
+                return RateProfile.ramp(rate, peak, length);
+            default:
+                return RateProfile.fixed(rate);
+        }
+    }
+
+    private void run() throws Exception {
+        TransactionCsv csv = csvPath == null ? TransactionCsv.load() : TransactionCsv.load(csvPath);
+        MessageTemplate[] templates = new MessageTemplate[csv.size()];
+        for (int row = 0; row < templates.length; row++) {
+            templates[row] = csv.template(row, format);
+        }
+        long total = messages >= 0 ? messages : (long) amplify * csv.size();
+        RateProfile profile = profile();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionStore store = TransactionStore.ofCapacity(bufferCapacity);
+        HotPathLog hotPathLog = consoleLogging
+                ? new HotPathLog(registry, true, false, 1, "all", "all", "all", "all")
+                : new HotPathLog(registry, true, true, 8192, "10/s", "10/s", "1/s", "100/s");
+        FreshnessMetrics freshness = new FreshnessMetrics(registry, store, true, new Duration[]{
+                Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofSeconds(1)});
+        MessageConsumer consumer = new MessageConsumer(new KafkaMetricsConfig(registry), registry, store,
+                new WindowedAggregator(registry, true, 1000), hotPathLog, freshness);
+
+        System.out.println("Replaying " + total + " " + format.name().toLowerCase(Locale.ROOT) + " messages from "
+                + csv.size() + " rows x " + amplify + " to " + describeTarget() + ", " + profile
+                + (durationMillis > 0 ? ", for at most " + durationMillis / 1000.0 + " s" : ""));
+        LatencyRecorder.printHeader();
+
+        long start = System.nanoTime();
+        LatencyRecorder recorder = new LatencyRecorder(sent::get, start, warmupMillis, reportMillis);
+        Sink sink = "kafka".equals(target) ? new KafkaSink(consumer, recorder) : new DirectSink(consumer, recorder);
+
+        long deadline = durationMillis > 0 ? start + durationMillis * 1_000_000L : Long.MAX_VALUE;
+        int rows = csv.size();
+        for (long i = 0; i < total; i++) {
+            long due = start + (long) (profile.dueSeconds(i) * 1e9);
+            if (due > deadline) {
+                break;
+            }
+            if (System.nanoTime() < due) {
+                sink.idle();
+                waitUntil(due);
+            }
+            int row = (int) (i % rows);
+            int copy = (int) (i / rows % amplify);
+            long id = csv.syntheticId(row, copy);
+            long commitMillis = System.currentTimeMillis();
+            byte[] value = templates[row].renderBytes(id, commitMillis, commitMillis);
+
+            maxSendLagNanos = Math.max(maxSendLagNanos, System.nanoTime() - due);
+            sentBytes += value.length;
+            sent.incrementAndGet();
+            sink.send(id, value, due);
+        }
+        long sendNanos = System.nanoTime() - start;
+        sink.finish();
+        long totalNanos = System.nanoTime() - start;
+        hotPathLog.close();
+
+        printSummary(profile, recorder, registry, store, sendNanos, totalNanos);
+    }
+
+    private String describeTarget() {
+        String listener = batchListener ? "listenBatch (max " + maxBatch + ")" : "listen";
+        if ("direct".equals(target)) {
+            return "MessageConsumer." + listener + " in process with " + (consoleLogging ? "console" : "sampled")
+                    + " logging";
+        }
+        return topic + " on " + bootstrap + (consume ? ", consumed in process by " + listener : ", produce only");
+    }
+
+    private static void waitUntil(long due) {
+        long remaining;
+        while ((remaining = due - System.nanoTime()) > 0) {
+            if (remaining > 200_000) {
+                LockSupport.parkNanos(remaining - 100_000);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void printSummary(RateProfile profile, LatencyRecorder recorder, SimpleMeterRegistry registry,
+                              TransactionStore store, long sendNanos, long totalNanos) {
+        long count = sent.get();
+        long completed = recorder.completed();
+        long[] latencies = recorder.sorted();
+        double sendSeconds = sendNanos / 1e9;
+        double totalSeconds = totalNanos / 1e9;
+
+        System.out.println();
+        System.out.printf("Sent      %d messages (%.1f MB) in %.2f s: %.0f msg/s, %.2f MB/s%n",
+                count, sentBytes / (1024.0 * 1024), sendSeconds, count / sendSeconds,
+                sentBytes / sendSeconds / (1024 * 1024));
+        System.out.printf("Completed %d in %.2f s: %.0f msg/s end to end%n",
+                completed, totalSeconds, completed / totalSeconds);
+        System.out.printf("Latency from due time (ms%s): p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                warmupMillis > 0 ? ", after " + warmupMillis / 1000.0 + " s warmup" : "",
+                LatencyRecorder.percentileMillis(latencies, 0.50), LatencyRecorder.percentileMillis(latencies, 0.90),
+                LatencyRecorder.percentileMillis(latencies, 0.99), LatencyRecorder.percentileMillis(latencies, 0.999),
+                LatencyRecorder.percentileMillis(latencies, 1.0));
+        // Direct: the listener runs on the sending thread, so this is the listener falling behind too
+        System.out.printf("Sending ran up to %.2f ms behind the %s schedule%n", maxSendLagNanos / 1e6, profile);
+        if (!"kafka".equals(target) || consume) {
+            System.out.printf("Bridge: transactions_total success=%.0f failure=%.0f, %d rows buffered%n",
+                    counter(registry, "success"), counter(registry, "failure"), store.size());
+            Timer commitToBridge = registry.find("pipeline_freshness").tag("stage", "commit_to_bridge").timer();
+            if (commitToBridge != null && commitToBridge.count() > 0) {
+                System.out.printf("Freshness commit_to_bridge: %d rows, mean %.2f ms, max %.2f ms%n",
+                        commitToBridge.count(), commitToBridge.mean(TimeUnit.MILLISECONDS),
+                        commitToBridge.max(TimeUnit.MILLISECONDS));
+            }
+        }
+        if (sendErrors.get() > 0 || completed < count) {
+            System.out.println("Errors: " + sendErrors.get() + " failed sends, " + (count - completed)
+                    + " messages not completed");
+        }
+    }
+
+    private static double counter(SimpleMeterRegistry registry, String status) {
+        Counter counter = registry.find("transactions_total").tag("status", status).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    /** Where the sender's messages go. All methods are called from the sending thread. */
+    private interface Sink {
+        void send(long transactionId, byte[] value, long dueNanos);
+
+        /** Nothing else is due yet: hand over anything held back. */
+        void idle();
+
+        /** Sending is over: deliver the rest and wait for it to complete. */
+        void finish() throws InterruptedException;
+    }
+
+    /** Calls the listener on the sending thread, like a consumer thread whose polls return what is due. */
+    private final class DirectSink implements Sink {
+        private final MessageConsumer consumer;
+        private final LatencyRecorder recorder;
+        private final List<ConsumerRecord<String, byte[]>> pending = new ArrayList<>();
+        private long[] pendingDue = new long[64];
+        private long offset;
+
+        DirectSink(MessageConsumer consumer, LatencyRecorder recorder) {
+            this.consumer = consumer;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void send(long transactionId, byte[] value, long dueNanos) {
+            ConsumerRecord<String, byte[]> record =
+                    new ConsumerRecord<>(topic, 0, offset++, Long.toString(transactionId), value);
+            if (!batchListener) {
+                consumer.listen(record);
+                long now = System.nanoTime();
+                recorder.record(dueNanos, now);
+                return;
+            }
+            if (pending.size() == pendingDue.length) {
+                pendingDue = Arrays.copyOf(pendingDue, pendingDue.length * 2);
+            }
+            pendingDue[pending.size()] = dueNanos;
+            pending.add(record);
+            if (pending.size() >= maxBatch) {
+                idle();
+            }
+        }
+
+        @Override
+        public void idle() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            consumer.listenBatch(pending);
+            long now = System.nanoTime();
+            for (int i = 0; i < pending.size(); i++) {
+                recorder.record(pendingDue[i], now);
+            }
+            pending.clear();
+        }
+
+        @Override
+        public void finish() {
+            idle();
+        }
+    }
+
+    /**
+     * Produces to Kafka; a second thread consumes the topic from the end it had when the run
+     * started and feeds the listener. Each record carries its due time in a header.
+     */
+    private final class KafkaSink implements Sink {
+        private final MessageConsumer consumer;
+        private final LatencyRecorder recorder;
+        private final KafkaProducer<String, byte[]> producer;
+        private final KafkaConsumer<String, byte[]> kafkaConsumer;
+        private final Thread consumerThread;
+        private volatile boolean running = true;
+
+        KafkaSink(MessageConsumer consumer, LatencyRecorder recorder) {
+            this.consumer = consumer;
+            this.recorder = recorder;
+
+            Properties producerProps = new Properties();
+            producerProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+            producerProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+            producerProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+            producer = new KafkaProducer<>(producerProps, new StringSerializer(), new ByteArraySerializer());
+            // Also creates the topic if the broker auto-creates topics
+            List<PartitionInfo> partitions = producer.partitionsFor(topic);
+
+            if (!consume) {
+                kafkaConsumer = null;
+                consumerThread = null;
+                return;
+            }
+            Properties consumerProps = new Properties();
+            consumerProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+            consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, "replay-" + UUID.randomUUID());
+            consumerProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+            consumerProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchListener ? maxBatch : 1);
+            kafkaConsumer = new KafkaConsumer<>(consumerProps, new StringDeserializer(), new ByteArrayDeserializer());
+            List<TopicPartition> assignment = new ArrayList<>(partitions.size());
+            for (PartitionInfo partition : partitions) {
+                assignment.add(new TopicPartition(topic, partition.partition()));
+            }
+            kafkaConsumer.assign(assignment);
+            kafkaConsumer.seekToEnd(assignment);
+            for (TopicPartition partition : assignment) {
+                kafkaConsumer.position(partition); // resolve the end offsets before anything is produced
+            }
+            consumerThread = new Thread(this::consumeLoop, "replay-consumer");
+            consumerThread.start();
+        }
+
+        @Override
+        public void send(long transactionId, byte[] value, long dueNanos) {
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, Long.toString(transactionId), value);
+            record.headers().add(DUE_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(dueNanos).array());
+            producer.send(record, (metadata, e) -> {
+                if (e != null) {
+                    sendErrors.incrementAndGet();
+                } else if (!consume) {
+                    // Runs on the producer's single I/O thread
+                    long now = System.nanoTime();
+                    recorder.record(dueNanos, now);
+                }
+            });
+        }
+
+        @Override
+        public void idle() {
+            // The producer batches on its own (linger.ms)
+        }
+
+        @Override
+        public void finish() throws InterruptedException {
+            producer.flush();
+            long drainDeadline = System.nanoTime() + drainMillis * 1_000_000L;
+            while (recorder.completed() + sendErrors.get() < sent.get() && System.nanoTime() < drainDeadline) {
+                Thread.sleep(50);
+            }
+            producer.close();
+            if (consumerThread != null) {
+                running = false;
+                kafkaConsumer.wakeup();
+                consumerThread.join();
+            }
+        }
+
+        private void consumeLoop() {
+            try {
+                while (running) {
+                    ConsumerRecords<String, byte[]> records = kafkaConsumer.poll(Duration.ofMillis(100));
+                    if (records.isEmpty()) {
+                        continue;
+                    }
+                    List<ConsumerRecord<String, byte[]>> batch = new ArrayList<>(records.count());
+                    records.forEach(batch::add);
+                    if (batchListener) {
+                        consumer.listenBatch(batch);
+                    } else {
+                        for (ConsumerRecord<String, byte[]> record : batch) {
+                            consumer.listen(record);
+                        }
+                    }
+                    long now = System.nanoTime();
+                    for (ConsumerRecord<String, byte[]> record : batch) {
+                        Header due = record.headers().lastHeader(DUE_HEADER);
+                        if (due != null) {
+                            recorder.record(ByteBuffer.wrap(due.value()).getLong(), now);
+                        }
+                    }
+                }
+            } catch (WakeupException e) {
+                // finish() stops the loop
+            } finally {
+                kafkaConsumer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.lurence.kafka_power_bi_bridge.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The rows of databases/transactions/tbank_cleaned.csv (the seed data of the transactions
+ * database) and the Debezium envelopes the connector would publish for them, for the replay
+ * harness and the JMH fixtures.
+ * <p>
+ * Values are typed the way Debezium emits them: BIGINT/INT columns as longs, NUMERIC as doubles,
+ * transactiondate as MicroTimestamp (epoch microseconds, the CSV's times read as UTC), overrideflag
+ * as a boolean and the rest as text.
+ */
+public final class TransactionCsv {
+    /** Classpath location; the build copies the CSV into the loadTest resources. */
+    public static final String RESOURCE = "/tbank_cleaned.csv";
+
+    // tbank_cleaned columns, lower-case as Debezium names them
+    static final String[] COLUMNS = {"transactionid", "accountfrom", "accountto", "bankidfrom",
+            "bankidto", "transactionamount", "exchangerate", "transactiondate", "transactiontype", "interimbalance",
+            "accountto_interimbalance", "currency", "quotecurrency", "paymentmode", "overrideflag", "narrative"};
+
+    private static final int ID = 0;
+    private static final int DATE = 7;
+    private static final DateTimeFormatter CSV_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static TransactionCsv classpath;
+
+    private final List<String[]> rows;
+    private final long[] ids;
+    private final long idStride;
+
+    /** Wire formats of the powerbi-stream topic the harness can produce. */
+    public enum Format {
+        /** Struct.toString() text, as the connector writes it with StringConverter. */
+        STRUCT,
+        /** JsonConverter envelope with schemas disabled. */
+        JSON
+    }
+
+    private TransactionCsv(List<String[]> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("No rows in " + RESOURCE);
+        }
+        this.rows = Collections.unmodifiableList(rows);
+        this.ids = new long[rows.size()];
+        long maxId = 0;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Long.parseLong(rows.get(i)[ID]);
+            maxId = Math.max(maxId, ids[i]);
+        }
+        long stride = 10;
+        while (stride <= maxId) {
+            stride *= 10;
+        }
+        this.idStride = stride;
+    }
+
+    /** The CSV from the classpath, read once. */
+    public static synchronized TransactionCsv load() {
+        if (classpath == null) {
+            try (InputStream in = TransactionCsv.class.getResourceAsStream(RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException(RESOURCE + " not found on the classpath");
+                }
+                classpath = new TransactionCsv(read(in));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return classpath;
+    }
+
+    public static TransactionCsv load(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            return new TransactionCsv(read(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Data rows, header excluded, in file order. */
+    public List<String[]> rows() {
+        return rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Id of synthetic copy {@code copy} of row {@code row}: the original id plus a multiple of the
+     * next power of ten above the largest id, so copies never collide with each other or the CSV.
+     */
+    public long syntheticId(int row, int copy) {
+        return ids[row] + copy * idStride;
+    }
+
+    /** The row's transactiondate as epoch millis. */
+    public long transactionDateMillis(int row) {
+        return LocalDateTime.parse(rows.get(row)[DATE], CSV_DATE).toEpochSecond(ZoneOffset.UTC) * 1000L;
+    }
+
+    /** The row's envelope in {@code format}, with the id and commit timestamps left open. */
+    public MessageTemplate template(int row, Format format) {
+        String[] fields = rows.get(row);
+        switch (format) {
+            case STRUCT:
+                return MessageTemplate.of(structText(fields));
+            case JSON:
+                return MessageTemplate.of(jsonText(fields));
+            default:
+                throw new IllegalArgumentException("Unsupported format " + format);
+        }
+    }
+
+    /** The row as the bridge stores it after parsing. */
+    public TransactionRow transactionRow(int row) {
+        String[] fields = rows.get(row);
+        TransactionRow transaction = new TransactionRow();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            transaction.set(COLUMNS[i], debeziumValue(i, fields[i]));
+        }
+        return transaction;
+    }
+
+    private static String structText(String[] fields) {
+        StringBuilder sb = new StringBuilder(512).append("Struct{after=Struct{");
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) sb.append(',');
+            Object value = i == ID ? MessageTemplate.ID : debeziumValue(i, fields[i]);
+            sb.append(COLUMNS[i]).append('=').append(value);
+        }
+        return sb.append("},source=Struct{version=2.5.4.Final,connector=postgresql,name=is484,ts_ms=")
+                .append(MessageTemplate.SOURCE_TS)
+                .append(",snapshot=false,db=transactions,schema=public,table=tbank_cleaned,txId=755,lsn=24023128}")
+                .append(",op=c,ts_ms=").append(MessageTemplate.TS).append('}')
+                .toString();
+    }
+
+    private static String jsonText(String[] fields) {
+        ObjectNode envelope = MAPPER.createObjectNode();
+        envelope.putNull("before");
+        ObjectNode after = envelope.putObject("after");
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Object value = i == ID ? MessageTemplate.ID : debeziumValue(i, fields[i]);
+            if (value instanceof Long) {
+                after.put(COLUMNS[i], (Long) value);
+            } else if (value instanceof Double) {
+                after.put(COLUMNS[i], (Double) value);
+            } else if (value instanceof Boolean) {
+                after.put(COLUMNS[i], (Boolean) value);
+            } else {
+                after.put(COLUMNS[i], (String) value);
+            }
+        }
+        ObjectNode source = envelope.putObject("source");
+        source.put("connector", "postgresql");
+        source.put("table", "tbank_cleaned");
+        source.put("ts_ms", MessageTemplate.SOURCE_TS);
+        envelope.put("op", "c");
+        envelope.put("ts_ms", MessageTemplate.TS);
+        return envelope.toString();
+    }
+
+    private static Object debeziumValue(int column, String raw) {
+        switch (COLUMNS[column]) {
+            case "transactionid":
+            case "accountfrom":
+            case "accountto":
+            case "bankidfrom":
+            case "bankidto":
+            case "transactiontype":
+                return Long.parseLong(raw);
+            case "transactionamount":
+            case "exchangerate":
+            case "interimbalance":
+            case "accountto_interimbalance":
+                return Double.parseDouble(raw);
+            case "transactiondate":
+                return LocalDateTime.parse(raw, CSV_DATE).toEpochSecond(ZoneOffset.UTC) * 1_000_000L;
+            case "overrideflag":
+                return Boolean.parseBoolean(raw);
+            default:
+                return raw;
+        }
+    }
+
+    private static List<String[]> read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String[]> rows = new ArrayList<>(4096);
+        reader.readLine(); // header
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                rows.add(splitLine(line));
+            }
+        }
+        return rows;
+    }
+
+    /** Comma-separated fields; double quotes enclose fields containing commas ("" is a literal quote). */
+    private static String[] splitLine(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS.length);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        if (fields.size() != COLUMNS.length) {
+            throw new IllegalStateException("Expected " + COLUMNS.length + " columns, got " + fields.size() + ": " + line);
+        }
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,48 @@
+package org.lurence.kafka_power_bi_bridge.aggregate;
+
+/**
+ * Window lengths served by {@link WindowedAggregator}. Each window is kept as a ring of
+ * fixed-size buckets; a sliding query merges the last {@link #buckets()} of them, so its
+ * range is accurate to one bucket.
+ */
+public enum AggregateWindow {
+    ONE_MINUTE("1m", 60_000L, 1_000L),
+    FIVE_MINUTES("5m", 300_000L, 10_000L),
+    ONE_HOUR("1h", 3_600_000L, 60_000L);
+
+    private final String label;
+    private final long sizeMillis;
+    private final long bucketMillis;
+
+    AggregateWindow(String label, long sizeMillis, long bucketMillis) {
+        this.label = label;
+        this.sizeMillis = sizeMillis;
+        this.bucketMillis = bucketMillis;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public long sizeMillis() {
+        return sizeMillis;
+    }
+
+    public long bucketMillis() {
+        return bucketMillis;
+    }
+
+    public int buckets() {
+        return (int) (sizeMillis / bucketMillis);
+    }
+
+    /** Look up a window by its label (1m, 5m, 1h); null if unknown. */
+    public static AggregateWindow forLabel(String label) {
+        for (AggregateWindow window : values()) {
+            if (window.label.equalsIgnoreCase(label)) {
+                return window;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,60 @@
+package org.lurence.kafka_power_bi_bridge.aggregate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Count, sum, min and max of TRANSACTIONAMOUNT; the mean is derived on output.
+ */
+public final class AmountStats {
+    long count;
+    double sum;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+
+    void add(double amount) {
+        count++;
+        sum += amount;
+        if (amount < min) min = amount;
+        if (amount > max) max = amount;
+    }
+
+    void merge(long count, double sum, double min, double max) {
+        this.count += count;
+        this.sum += sum;
+        if (min < this.min) this.min = min;
+        if (max > this.max) this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public Double getMin() {
+        return count == 0 ? null : min;
+    }
+
+    public Double getMax() {
+        return count == 0 ? null : max;
+    }
+
+    public Double getMean() {
+        return count == 0 ? null : sum / count;
+    }
+
+    /** JSON-friendly view, keyed like the /api/v1/aggregates response. */
+    public Map<String, Object> toMap(String key) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("key", key);
+        out.put("count", count);
+        out.put("sum", sum);
+        out.put("min", getMin());
+        out.put("max", getMax());
+        out.put("mean", getMean());
+        return out;
+    }
+}
@@ -0,0 +1,87 @@
+package org.lurence.kafka_power_bi_bridge.aggregate;
+
+import java.util.Arrays;
+
+/**
+ * Bucket rings for one group value (e.g. CURRENCY=SGD), one ring per {@link AggregateWindow}.
+ * Adding an amount touches exactly one bucket per window; buckets are reset lazily when their
+ * slot is reused for a newer time range. Rings hold two windows' worth of buckets so the last
+ * completed tumbling window stays readable while the current one fills up.
+ */
+final class GroupWindows {
+    private static final AggregateWindow[] WINDOWS = AggregateWindow.values();
+
+    private final long[][] bucketIds = new long[WINDOWS.length][];
+    private final long[][] counts = new long[WINDOWS.length][];
+    private final double[][] sums = new double[WINDOWS.length][];
+    private final double[][] mins = new double[WINDOWS.length][];
+    private final double[][] maxs = new double[WINDOWS.length][];
+
+    private long lastUpdateMillis;
+    // Set once the group has been dropped from its dimension; writers then create a fresh one
+    private boolean retired;
+
+    GroupWindows(long nowMillis) {
+        lastUpdateMillis = nowMillis;
+        for (AggregateWindow window : WINDOWS) {
+            int w = window.ordinal();
+            int n = 2 * window.buckets();
+            bucketIds[w] = new long[n];
+            Arrays.fill(bucketIds[w], -1L);
+            counts[w] = new long[n];
+            sums[w] = new double[n];
+            mins[w] = new double[n];
+            maxs[w] = new double[n];
+        }
+    }
+
+    /** @return false if the group was retired and the amount was not recorded */
+    synchronized boolean add(long nowMillis, double amount) {
+        if (retired) {
+            return false;
+        }
+        for (AggregateWindow window : WINDOWS) {
+            int w = window.ordinal();
+            long id = nowMillis / window.bucketMillis();
+            int slot = (int) (id % bucketIds[w].length);
+            if (bucketIds[w][slot] != id) {
+                bucketIds[w][slot] = id;
+                counts[w][slot] = 0;
+                sums[w][slot] = 0.0;
+                mins[w][slot] = Double.POSITIVE_INFINITY;
+                maxs[w][slot] = Double.NEGATIVE_INFINITY;
+            }
+            counts[w][slot]++;
+            sums[w][slot] += amount;
+            if (amount < mins[w][slot]) mins[w][slot] = amount;
+            if (amount > maxs[w][slot]) maxs[w][slot] = amount;
+        }
+        lastUpdateMillis = nowMillis;
+        return true;
+    }
+
+    /** Merge the buckets whose start lies in [fromMillis, toMillis] into {@code out}. */
+    synchronized void collect(AggregateWindow window, long fromMillis, long toMillis, AmountStats out) {
+        int w = window.ordinal();
+        long fromId = Math.floorDiv(fromMillis, window.bucketMillis());
+        long toId = Math.floorDiv(toMillis, window.bucketMillis());
+        long[] ids = bucketIds[w];
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] >= fromId && ids[slot] <= toId && counts[w][slot] > 0) {
+                out.merge(counts[w][slot], sums[w][slot], mins[w][slot], maxs[w][slot]);
+            }
+        }
+    }
+
+    synchronized boolean isRetired() {
+        return retired;
+    }
+
+    /** Retire the group if nothing was added for {@code idleMillis}. */
+    synchronized boolean retireIfIdle(long nowMillis, long idleMillis) {
+        if (nowMillis - lastUpdateMillis > idleMillis) {
+            retired = true;
+        }
+        return retired;
+    }
+}
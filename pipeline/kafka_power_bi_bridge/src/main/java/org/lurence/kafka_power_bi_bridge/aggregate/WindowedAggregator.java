@@ -0,0 +1,264 @@
+package org.lurence.kafka_power_bi_bridge.aggregate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.lurence.kafka_power_bi_bridge.store.TransactionColumn;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incremental TRANSACTIONAMOUNT statistics per CURRENCY, PAYMENTMODE, BANKIDFROM and
+ * TRANSACTIONTYPE over 1m/5m/1h windows.
+ * <p>
+ * Windows run on ingest (processing) time, so replayed historical data still shows up as
+ * "the last five minutes". Each event updates one bucket per window and dimension, O(1);
+ * queries merge at most two windows' worth of buckets per group.
+ * <p>
+ * Groups are sharded by Kafka partition, so listener threads working on different partitions
+ * never contend on the same bucket ring; queries merge the shards per group value. Which values
+ * get a group of their own is decided once per dimension, across shards, so a value is either a
+ * group in every shard or folded into OTHER in every shard.
+ */
+@Component
+public class WindowedAggregator {
+    /** Group-by columns. */
+    public enum Dimension {
+        CURRENCY(TransactionColumn.CURRENCY),
+        PAYMENTMODE(TransactionColumn.PAYMENTMODE),
+        BANKIDFROM(TransactionColumn.BANKIDFROM),
+        TRANSACTIONTYPE(TransactionColumn.TRANSACTIONTYPE);
+
+        final TransactionColumn column;
+
+        Dimension(TransactionColumn column) {
+            this.column = column;
+        }
+
+        public String key() {
+            return column.key();
+        }
+
+        /** Look up a dimension by column name in any case; null if unknown. */
+        public static Dimension forKey(String key) {
+            for (Dimension dimension : values()) {
+                if (dimension.name().equalsIgnoreCase(key)) {
+                    return dimension;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Key used once a dimension holds max-groups distinct values
+    static final String OTHER = "__other__";
+
+    // Partition shards; more than the topic's partition count would stay empty
+    static final int SHARDS = 8;
+
+    // How often a record() call also sweeps idle groups
+    static final long SWEEP_INTERVAL_MILLIS = 60_000L;
+
+    private static final Dimension[] DIMENSIONS = Dimension.values();
+    private static final long IDLE_MILLIS = 2 * AggregateWindow.ONE_HOUR.sizeMillis();
+
+    private final boolean enabled;
+    private final int maxGroups;
+
+    // By shard, then dimension
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<Object, GroupWindows>[][] groups = new ConcurrentHashMap[SHARDS][DIMENSIONS.length];
+
+    // Values admitted as groups, per dimension and shared by all shards; at most maxGroups each
+    @SuppressWarnings("unchecked")
+    private final ConcurrentHashMap<Object, Boolean>[] admitted = new ConcurrentHashMap[DIMENSIONS.length];
+
+    private final AtomicLong lastSweepMillis = new AtomicLong(System.currentTimeMillis());
+
+    @Autowired
+    public WindowedAggregator(MeterRegistry registry,
+                              @Value("${bridge.aggregates.enabled:true}") boolean enabled,
+                              @Value("${bridge.aggregates.max-groups:1000}") int maxGroups) {
+        this.enabled = enabled;
+        this.maxGroups = maxGroups;
+        for (ConcurrentHashMap<Object, GroupWindows>[] shard : groups) {
+            for (Dimension dimension : DIMENSIONS) {
+                shard[dimension.ordinal()] = new ConcurrentHashMap<>();
+            }
+        }
+        for (Dimension dimension : DIMENSIONS) {
+            admitted[dimension.ordinal()] = new ConcurrentHashMap<>();
+        }
+
+        Gauge.builder("transactions_aggregate_groups", this, WindowedAggregator::groupCount)
+                .description("Group windows currently tracked by the windowed aggregator, per value and partition shard")
+                .register(registry);
+    }
+
+    /**
+     * Add one transaction. Rows without an amount are ignored. Once a dimension has max-groups
+     * values, new values count towards OTHER.
+     */
+    public void record(TransactionRow row, long nowMillis) {
+        if (!enabled || !row.has(TransactionColumn.TRANSACTIONAMOUNT)) {
+            return;
+        }
+        double amount = row.getDouble(TransactionColumn.TRANSACTIONAMOUNT);
+        ConcurrentHashMap<Object, GroupWindows>[] shard = groups[Math.floorMod(row.partition(), SHARDS)];
+
+        for (Dimension dimension : DIMENSIONS) {
+            Object key = groupKey(row, dimension.column);
+            if (key == null) {
+                continue;
+            }
+            ConcurrentHashMap<Object, GroupWindows> byKey = shard[dimension.ordinal()];
+            GroupWindows group = byKey.get(key);
+            ConcurrentHashMap<Object, Boolean> values = admitted[dimension.ordinal()];
+            if (group == null && values.size() >= maxGroups && !values.containsKey(key)) {
+                // Full dimension: skip the admission lock for values that go to OTHER anyway
+                group = byKey.get(OTHER);
+            }
+            // No group yet, or a retired one that was just swept away
+            while (group == null || !group.add(nowMillis, amount)) {
+                group = open(dimension, byKey, key, nowMillis);
+            }
+        }
+
+        long lastSweep = lastSweepMillis.get();
+        if (nowMillis - lastSweep > SWEEP_INTERVAL_MILLIS && lastSweepMillis.compareAndSet(lastSweep, nowMillis)) {
+            sweep(nowMillis);
+        }
+    }
+
+    /**
+     * The live group for {@code value} in one shard, admitting the value if the dimension has room,
+     * or the shard's OTHER group if it has not. Admission and group creation happen under the same
+     * lock the sweep holds while it releases admissions, so every group of a value is covered by
+     * its admission.
+     */
+    private GroupWindows open(Dimension dimension, ConcurrentHashMap<Object, GroupWindows> byKey, Object value,
+                              long nowMillis) {
+        ConcurrentHashMap<Object, Boolean> values = admitted[dimension.ordinal()];
+        synchronized (values) {
+            Object key = OTHER;
+            if (values.containsKey(value) || values.size() < maxGroups) {
+                values.put(value, Boolean.TRUE);
+                key = value;
+            }
+            GroupWindows group = byKey.get(key);
+            if (group == null || group.isRetired()) {
+                group = new GroupWindows(nowMillis);
+                byKey.put(key, group);
+            }
+            return group;
+        }
+    }
+
+    private static Object groupKey(TransactionRow row, TransactionColumn column) {
+        if (!row.has(column)) {
+            return null;
+        }
+        switch (column.type()) {
+            case DICTIONARY:
+            case TEXT:
+                return row.getString(column);
+            default:
+                return row.getLong(column);
+        }
+    }
+
+    /**
+     * Drop groups that have not seen an event for longer than any window can reach back, and give
+     * up the admission of values no shard holds a group for any more.
+     */
+    private void sweep(long nowMillis) {
+        for (ConcurrentHashMap<Object, GroupWindows>[] shard : groups) {
+            for (ConcurrentHashMap<Object, GroupWindows> byKey : shard) {
+                for (Map.Entry<Object, GroupWindows> entry : byKey.entrySet()) {
+                    if (entry.getValue().retireIfIdle(nowMillis, IDLE_MILLIS)) {
+                        byKey.remove(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+        for (Dimension dimension : DIMENSIONS) {
+            ConcurrentHashMap<Object, Boolean> values = admitted[dimension.ordinal()];
+            // Under the admission lock, so no group is being created for a value while it is released
+            synchronized (values) {
+                Set<Object> live = new HashSet<>();
+                for (ConcurrentHashMap<Object, GroupWindows>[] shard : groups) {
+                    live.addAll(shard[dimension.ordinal()].keySet());
+                }
+                values.keySet().retainAll(live);
+            }
+        }
+    }
+
+    /**
+     * Statistics per group value, largest count first. A tumbling query covers the last
+     * completed, epoch-aligned window; a sliding query covers the window ending now.
+     */
+    public List<Map<String, Object>> query(Dimension dimension, AggregateWindow window, boolean sliding,
+                                           long nowMillis) {
+        long from = windowStart(window, sliding, nowMillis);
+        long to = windowEnd(window, sliding, nowMillis);
+
+        Map<Object, AmountStats> merged = new HashMap<>();
+        for (ConcurrentHashMap<Object, GroupWindows>[] shard : groups) {
+            for (Map.Entry<Object, GroupWindows> entry : shard[dimension.ordinal()].entrySet()) {
+                AmountStats out = merged.computeIfAbsent(entry.getKey(), k -> new AmountStats());
+                entry.getValue().collect(window, from, to, out);
+            }
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>(merged.size());
+        for (Map.Entry<Object, AmountStats> entry : merged.entrySet()) {
+            if (entry.getValue().count > 0) {
+                rows.add(entry.getValue().toMap(String.valueOf(entry.getKey())));
+            }
+        }
+        rows.sort((a, b) -> Long.compare((Long) b.get("count"), (Long) a.get("count")));
+        return rows;
+    }
+
+    /** First millisecond covered by a query. Sliding windows start on a bucket boundary. */
+    public static long windowStart(AggregateWindow window, boolean sliding, long nowMillis) {
+        if (sliding) {
+            long currentBucket = Math.floorDiv(nowMillis, window.bucketMillis()) * window.bucketMillis();
+            return currentBucket - window.sizeMillis() + window.bucketMillis();
+        }
+        return Math.floorDiv(nowMillis, window.sizeMillis()) * window.sizeMillis() - window.sizeMillis();
+    }
+
+    /** Last millisecond covered by a query. */
+    public static long windowEnd(AggregateWindow window, boolean sliding, long nowMillis) {
+        if (sliding) {
+            return nowMillis;
+        }
+        return Math.floorDiv(nowMillis, window.sizeMillis()) * window.sizeMillis() - 1;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private double groupCount() {
+        long total = 0;
+        for (ConcurrentHashMap<Object, GroupWindows>[] shard : groups) {
+            for (ConcurrentHashMap<Object, GroupWindows> byKey : shard) {
+                total += byKey.size();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,209 @@
+package org.lurence.kafka_power_bi_bridge.hazelcast;
+
+import org.lurence.kafka_power_bi_bridge.store.TransactionColumn;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Value of the Jet cluster's transactions IMap, keyed by TRANSACTIONID. Mirrors the Jet job's
+ * org.lurence.Transaction field for field; see {@link ClusterTransactionSerializer}.
+ */
+public class ClusterTransaction {
+    private long transactionId;
+    private long accountFrom;
+    private long accountTo;
+    private long bankIdFrom;
+    private long bankIdTo;
+    private double amount;
+    private double exchangeRate;
+    // Epoch millis
+    private long transactionDate;
+    private int transactionType;
+    private double interimBalance;
+    private double accountToInterimBalance;
+    private String currency;
+    private String quoteCurrency;
+    private String paymentMode;
+    private boolean overrideFlag;
+    private String narrative;
+
+    // Debezium envelope and the event time the Jet job windowed on
+    private String op;
+    private long sourceTsMs;
+    private long eventTime;
+
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public long getAccountFrom() {
+        return accountFrom;
+    }
+
+    public void setAccountFrom(long accountFrom) {
+        this.accountFrom = accountFrom;
+    }
+
+    public long getAccountTo() {
+        return accountTo;
+    }
+
+    public void setAccountTo(long accountTo) {
+        this.accountTo = accountTo;
+    }
+
+    public long getBankIdFrom() {
+        return bankIdFrom;
+    }
+
+    public void setBankIdFrom(long bankIdFrom) {
+        this.bankIdFrom = bankIdFrom;
+    }
+
+    public long getBankIdTo() {
+        return bankIdTo;
+    }
+
+    public void setBankIdTo(long bankIdTo) {
+        this.bankIdTo = bankIdTo;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public double getExchangeRate() {
+        return exchangeRate;
+    }
+
+    public void setExchangeRate(double exchangeRate) {
+        this.exchangeRate = exchangeRate;
+    }
+
+    public long getTransactionDate() {
+        return transactionDate;
+    }
+
+    public void setTransactionDate(long transactionDate) {
+        this.transactionDate = transactionDate;
+    }
+
+    public int getTransactionType() {
+        return transactionType;
+    }
+
+    public void setTransactionType(int transactionType) {
+        this.transactionType = transactionType;
+    }
+
+    public double getInterimBalance() {
+        return interimBalance;
+    }
+
+    public void setInterimBalance(double interimBalance) {
+        this.interimBalance = interimBalance;
+    }
+
+    public double getAccountToInterimBalance() {
+        return accountToInterimBalance;
+    }
+
+    public void setAccountToInterimBalance(double accountToInterimBalance) {
+        this.accountToInterimBalance = accountToInterimBalance;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public String getQuoteCurrency() {
+        return quoteCurrency;
+    }
+
+    public void setQuoteCurrency(String quoteCurrency) {
+        this.quoteCurrency = quoteCurrency;
+    }
+
+    public String getPaymentMode() {
+        return paymentMode;
+    }
+
+    public void setPaymentMode(String paymentMode) {
+        this.paymentMode = paymentMode;
+    }
+
+    public boolean isOverrideFlag() {
+        return overrideFlag;
+    }
+
+    public void setOverrideFlag(boolean overrideFlag) {
+        this.overrideFlag = overrideFlag;
+    }
+
+    public String getNarrative() {
+        return narrative;
+    }
+
+    public void setNarrative(String narrative) {
+        this.narrative = narrative;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public long getSourceTsMs() {
+        return sourceTsMs;
+    }
+
+    public void setSourceTsMs(long sourceTsMs) {
+        this.sourceTsMs = sourceTsMs;
+    }
+
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    public void setEventTime(long eventTime) {
+        this.eventTime = eventTime;
+    }
+
+    /** Same shape as the local store's rows: lower-case tbank_cleaned keys, dates as epoch millis. */
+    public Map<String, Object> toMap() {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put(TransactionColumn.TRANSACTIONID.key(), transactionId);
+        row.put(TransactionColumn.ACCOUNTFROM.key(), accountFrom);
+        row.put(TransactionColumn.ACCOUNTTO.key(), accountTo);
+        row.put(TransactionColumn.BANKIDFROM.key(), bankIdFrom);
+        row.put(TransactionColumn.BANKIDTO.key(), bankIdTo);
+        row.put(TransactionColumn.TRANSACTIONAMOUNT.key(), amount);
+        row.put(TransactionColumn.EXCHANGERATE.key(), exchangeRate);
+        row.put(TransactionColumn.TRANSACTIONDATE.key(), transactionDate);
+        row.put(TransactionColumn.TRANSACTIONTYPE.key(), transactionType);
+        row.put(TransactionColumn.INTERIMBALANCE.key(), interimBalance);
+        row.put(TransactionColumn.ACCOUNTTO_INTERIMBALANCE.key(), accountToInterimBalance);
+        row.put(TransactionColumn.CURRENCY.key(), currency);
+        row.put(TransactionColumn.QUOTECURRENCY.key(), quoteCurrency);
+        row.put(TransactionColumn.PAYMENTMODE.key(), paymentMode);
+        row.put(TransactionColumn.OVERRIDEFLAG.key(), overrideFlag);
+        row.put(TransactionColumn.NARRATIVE.key(), narrative);
+        return row;
+    }
+}
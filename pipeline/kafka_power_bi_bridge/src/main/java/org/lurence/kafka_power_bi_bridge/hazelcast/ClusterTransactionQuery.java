@@ -0,0 +1,132 @@
+package org.lurence.kafka_power_bi_bridge.hazelcast;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.sql.SqlResult;
+import com.hazelcast.sql.SqlRow;
+import com.hazelcast.sql.SqlRowMetadata;
+import com.hazelcast.sql.SqlStatement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtered range queries over the cluster's transactions IMap through Hazelcast SQL.
+ * <p>
+ * The Jet job keeps a sorted index on transactionDate and hash indexes on accountFrom and currency,
+ * so the filters here are index lookups on each member rather than full scans, and the result is
+ * merged and limited by the cluster. Column aliases are the lower-case keys the local store uses.
+ */
+@Service
+@ConditionalOnProperty(name = "bridge.hazelcast.enabled", havingValue = "true")
+public class ClusterTransactionQuery {
+    public static final int MAX_LIMIT = 10_000;
+
+    private static final String SELECT = "SELECT "
+            + "transactionId AS \"transactionid\", accountFrom AS \"accountfrom\", accountTo AS \"accountto\", "
+            + "bankIdFrom AS \"bankidfrom\", bankIdTo AS \"bankidto\", amount AS \"transactionamount\", "
+            + "exchangeRate AS \"exchangerate\", transactionDate AS \"transactiondate\", "
+            + "transactionType AS \"transactiontype\", interimBalance AS \"interimbalance\", "
+            + "accountToInterimBalance AS \"accountto_interimbalance\", currency AS \"currency\", "
+            + "quoteCurrency AS \"quotecurrency\", paymentMode AS \"paymentmode\", "
+            + "overrideFlag AS \"overrideflag\", narrative AS \"narrative\" "
+            + "FROM " + HazelcastClientConfig.TRANSACTIONS_MAP;
+
+    private final HazelcastInstance hazelcast;
+    private final long timeoutMillis;
+
+    private final Counter queriesOk;
+    private final Counter queriesFailed;
+    private final Counter lookups;
+
+    @Autowired
+    public ClusterTransactionQuery(HazelcastInstance hazelcast, MeterRegistry meterRegistry,
+                                   @Value("${bridge.hazelcast.query-timeout-ms:5000}") long timeoutMillis) {
+        this.hazelcast = hazelcast;
+        this.timeoutMillis = timeoutMillis;
+
+        this.queriesOk = Counter.builder("cluster_transaction_queries_total")
+                .description("Hazelcast SQL queries against the transactions IMap")
+                .tag("result", "ok")
+                .register(meterRegistry);
+        this.queriesFailed = Counter.builder("cluster_transaction_queries_total")
+                .description("Hazelcast SQL queries against the transactions IMap")
+                .tag("result", "error")
+                .register(meterRegistry);
+        this.lookups = Counter.builder("cluster_transaction_lookups_total")
+                .description("Transaction lookups by id (served from the near cache when possible)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Newest transactions first, optionally restricted to a TRANSACTIONDATE range (epoch millis,
+     * from inclusive, to exclusive), one ACCOUNTFROM and one CURRENCY.
+     *
+     * @throws com.hazelcast.client.HazelcastClientOfflineException if the cluster is not reachable
+     */
+    public List<Map<String, Object>> find(Long from, Long to, Long accountFrom, String currency, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> parameters = new ArrayList<>(4);
+        String glue = " WHERE ";
+        if (from != null) {
+            sql.append(glue).append("transactionDate >= ?");
+            parameters.add(from);
+            glue = " AND ";
+        }
+        if (to != null) {
+            sql.append(glue).append("transactionDate < ?");
+            parameters.add(to);
+            glue = " AND ";
+        }
+        if (accountFrom != null) {
+            sql.append(glue).append("accountFrom = ?");
+            parameters.add(accountFrom);
+            glue = " AND ";
+        }
+        if (currency != null) {
+            sql.append(glue).append("currency = ?");
+            parameters.add(currency);
+        }
+        // limit is a validated int, inlined so the plan can push it down with the sort
+        sql.append(" ORDER BY transactionDate DESC LIMIT ").append(limit);
+
+        SqlStatement statement = new SqlStatement(sql.toString())
+                .setParameters(parameters)
+                .setTimeoutMillis(timeoutMillis)
+                .setCursorBufferSize(Math.min(limit, SqlStatement.DEFAULT_CURSOR_BUFFER_SIZE));
+
+        try (SqlResult result = hazelcast.getSql().execute(statement)) {
+            SqlRowMetadata metadata = result.getRowMetadata();
+            int columns = metadata.getColumnCount();
+            List<Map<String, Object>> rows = new ArrayList<>(Math.min(limit, 1024));
+            for (SqlRow sqlRow : result) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 0; i < columns; i++) {
+                    row.put(metadata.getColumn(i).getName(), sqlRow.getObject(i));
+                }
+                rows.add(row);
+            }
+            queriesOk.increment();
+            return rows;
+        } catch (RuntimeException e) {
+            queriesFailed.increment();
+            throw e;
+        }
+    }
+
+    /** One transaction by TRANSACTIONID, or null. Repeated lookups are served by the near cache. */
+    public Map<String, Object> get(long transactionId) {
+        lookups.increment();
+        IMap<Long, ClusterTransaction> map = hazelcast.getMap(HazelcastClientConfig.TRANSACTIONS_MAP);
+        ClusterTransaction transaction = map.get(transactionId);
+        return transaction == null ? null : transaction.toMap();
+    }
+}
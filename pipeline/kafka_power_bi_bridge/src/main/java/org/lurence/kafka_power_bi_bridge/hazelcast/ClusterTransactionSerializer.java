@@ -0,0 +1,73 @@
+package org.lurence.kafka_power_bi_bridge.hazelcast;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * Reads the Compact records the Jet job writes for org.lurence.Transaction with zero-config
+ * serialization. The type name and the field names and kinds (INT64 for long, FLOAT64 for double,
+ * INT32 for int, BOOLEAN, nullable STRING) must stay in step with that class, which is why the
+ * bridge does not need the Jet job on its classpath.
+ */
+public class ClusterTransactionSerializer implements CompactSerializer<ClusterTransaction> {
+    public static final String TYPE_NAME = "org.lurence.Transaction";
+
+    @Override
+    public ClusterTransaction read(CompactReader reader) {
+        ClusterTransaction t = new ClusterTransaction();
+        t.setTransactionId(reader.readInt64("transactionId"));
+        t.setAccountFrom(reader.readInt64("accountFrom"));
+        t.setAccountTo(reader.readInt64("accountTo"));
+        t.setBankIdFrom(reader.readInt64("bankIdFrom"));
+        t.setBankIdTo(reader.readInt64("bankIdTo"));
+        t.setAmount(reader.readFloat64("amount"));
+        t.setExchangeRate(reader.readFloat64("exchangeRate"));
+        t.setTransactionDate(reader.readInt64("transactionDate"));
+        t.setTransactionType(reader.readInt32("transactionType"));
+        t.setInterimBalance(reader.readFloat64("interimBalance"));
+        t.setAccountToInterimBalance(reader.readFloat64("accountToInterimBalance"));
+        t.setCurrency(reader.readString("currency"));
+        t.setQuoteCurrency(reader.readString("quoteCurrency"));
+        t.setPaymentMode(reader.readString("paymentMode"));
+        t.setOverrideFlag(reader.readBoolean("overrideFlag"));
+        t.setNarrative(reader.readString("narrative"));
+        t.setOp(reader.readString("op"));
+        t.setSourceTsMs(reader.readInt64("sourceTsMs"));
+        t.setEventTime(reader.readInt64("eventTime"));
+        return t;
+    }
+
+    @Override
+    public void write(CompactWriter writer, ClusterTransaction t) {
+        writer.writeInt64("transactionId", t.getTransactionId());
+        writer.writeInt64("accountFrom", t.getAccountFrom());
+        writer.writeInt64("accountTo", t.getAccountTo());
+        writer.writeInt64("bankIdFrom", t.getBankIdFrom());
+        writer.writeInt64("bankIdTo", t.getBankIdTo());
+        writer.writeFloat64("amount", t.getAmount());
+        writer.writeFloat64("exchangeRate", t.getExchangeRate());
+        writer.writeInt64("transactionDate", t.getTransactionDate());
+        writer.writeInt32("transactionType", t.getTransactionType());
+        writer.writeFloat64("interimBalance", t.getInterimBalance());
+        writer.writeFloat64("accountToInterimBalance", t.getAccountToInterimBalance());
+        writer.writeString("currency", t.getCurrency());
+        writer.writeString("quoteCurrency", t.getQuoteCurrency());
+        writer.writeString("paymentMode", t.getPaymentMode());
+        writer.writeBoolean("overrideFlag", t.isOverrideFlag());
+        writer.writeString("narrative", t.getNarrative());
+        writer.writeString("op", t.getOp());
+        writer.writeInt64("sourceTsMs", t.getSourceTsMs());
+        writer.writeInt64("eventTime", t.getEventTime());
+    }
+
+    @Override
+    public String getTypeName() {
+        return TYPE_NAME;
+    }
+
+    @Override
+    public Class<ClusterTransaction> getCompactClass() {
+        return ClusterTransaction.class;
+    }
+}
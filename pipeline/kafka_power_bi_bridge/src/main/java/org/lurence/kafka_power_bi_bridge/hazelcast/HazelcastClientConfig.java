@@ -0,0 +1,58 @@
+package org.lurence.kafka_power_bi_bridge.hazelcast;
+
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.config.ClientConnectionStrategyConfig;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hazelcast client for the Jet cluster, used to query the transactions IMap the Jet job fills.
+ * <p>
+ * The client starts asynchronously and reconnects in the background, so the bridge comes up (and
+ * keeps serving its local store) while the cluster is down; queries fail fast until it connects.
+ * Point lookups go through a near cache that the cluster invalidates when an entry changes.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bridge.hazelcast.enabled", havingValue = "true")
+public class HazelcastClientConfig {
+    public static final String TRANSACTIONS_MAP = "transactions";
+
+    @Bean(destroyMethod = "shutdown")
+    public HazelcastInstance hazelcastClient(
+            @Value("${bridge.hazelcast.cluster-name:analytics-cluster}") String clusterName,
+            @Value("${bridge.hazelcast.addresses:hazelcast-kafka:5701}") String[] addresses,
+            @Value("${bridge.hazelcast.near-cache.max-size:100000}") int nearCacheMaxSize,
+            @Value("${bridge.hazelcast.near-cache.ttl-seconds:300}") int nearCacheTtlSeconds) {
+        ClientConfig config = new ClientConfig();
+        config.setClusterName(clusterName);
+        config.getNetworkConfig().addAddress(addresses);
+        config.getConnectionStrategyConfig()
+                .setAsyncStart(true)
+                .setReconnectMode(ClientConnectionStrategyConfig.ReconnectMode.ASYNC);
+        config.getSerializationConfig().getCompactSerializationConfig()
+                .addSerializer(new ClusterTransactionSerializer());
+
+        // OBJECT keeps deserialized values, so a near-cache hit costs no Compact decode
+        NearCacheConfig nearCache = new NearCacheConfig(TRANSACTIONS_MAP)
+                .setInMemoryFormat(InMemoryFormat.OBJECT)
+                .setInvalidateOnChange(true)
+                .setTimeToLiveSeconds(nearCacheTtlSeconds)
+                .setEvictionConfig(new EvictionConfig()
+                        .setEvictionPolicy(EvictionPolicy.LRU)
+                        .setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+                        .setSize(nearCacheMaxSize));
+        config.addNearCacheConfig(nearCache);
+
+        System.out.println("Hazelcast client for cluster " + clusterName + " at " + String.join(",", addresses));
+        return HazelcastClient.newHazelcastClient(config);
+    }
+}
@@ -0,0 +1,172 @@
+package org.lurence.kafka_power_bi_bridge.kafka;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.message.BinaryMessageDecoder;
+import org.apache.avro.util.Utf8;
+import org.lurence.kafka_power_bi_bridge.store.TransactionColumn;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Decodes the Avro single-object messages the Jet job publishes on powerbi-stream
+ * (marker C3 01, 8-byte little-endian CRC-64-AVRO fingerprint, binary record) straight into a
+ * {@link TransactionRow}, without building an intermediate GenericRecord.
+ * <p>
+ * Messages written with avro/transaction.avsc are read field by field in its order. Messages
+ * written with an earlier version of the schema, kept in avro/history/*.avsc, are resolved against
+ * the current one (fields the old writer lacked take their defaults), so a schema change does not
+ * break the records already on the topic. When changing transaction.avsc, add new fields with a
+ * default and copy the previous version into avro/history first.
+ */
+public final class AvroTransactionCodec {
+    public static final Schema SCHEMA = loadSchema();
+    public static final long FINGERPRINT = SchemaNormalization.parsingFingerprint64(SCHEMA);
+
+    private static final byte MAGIC_0 = (byte) 0xC3;
+    private static final byte MAGIC_1 = (byte) 0x01;
+    private static final int HEADER_LENGTH = 10;
+
+    // Resolves messages written with a schema from avro/history; thread-safe
+    private static final BinaryMessageDecoder<GenericRecord> RESOLVER = resolver();
+
+    // Decoders and string buffers are reused per listener thread
+    private static final ThreadLocal<BinaryDecoder> DECODER = new ThreadLocal<>();
+    private static final ThreadLocal<Utf8> UTF8 = ThreadLocal.withInitial(Utf8::new);
+
+    private AvroTransactionCodec() {
+    }
+
+    /** True if the payload starts with the Avro single-object marker. */
+    public static boolean isAvro(byte[] value) {
+        return value != null && value.length >= HEADER_LENGTH && value[0] == MAGIC_0 && value[1] == MAGIC_1;
+    }
+
+    /**
+     * Decode one message.
+     *
+     * @throws IllegalArgumentException if the message was written with a schema that is neither the
+     *                                  current one nor in avro/history
+     */
+    public static TransactionRow decode(byte[] value) throws IOException {
+        long fingerprint = 0;
+        for (int i = HEADER_LENGTH - 1; i >= 2; i--) {
+            fingerprint = (fingerprint << 8) | (value[i] & 0xFF);
+        }
+        if (fingerprint != FINGERPRINT) {
+            return decodeResolved(value, fingerprint);
+        }
+
+        BinaryDecoder in = DecoderFactory.get().binaryDecoder(value, HEADER_LENGTH, value.length - HEADER_LENGTH,
+                DECODER.get());
+        DECODER.set(in);
+        Utf8 scratch = UTF8.get();
+
+        TransactionRow row = new TransactionRow();
+        row.setLong(TransactionColumn.TRANSACTIONID, in.readLong());
+        row.setLong(TransactionColumn.ACCOUNTFROM, in.readLong());
+        row.setLong(TransactionColumn.ACCOUNTTO, in.readLong());
+        row.setLong(TransactionColumn.BANKIDFROM, in.readLong());
+        row.setLong(TransactionColumn.BANKIDTO, in.readLong());
+        row.setDouble(TransactionColumn.TRANSACTIONAMOUNT, in.readDouble());
+        row.setDouble(TransactionColumn.EXCHANGERATE, in.readDouble());
+        row.setLong(TransactionColumn.TRANSACTIONDATE, in.readLong());
+        row.setLong(TransactionColumn.TRANSACTIONTYPE, in.readInt());
+        row.setDouble(TransactionColumn.INTERIMBALANCE, in.readDouble());
+        row.setDouble(TransactionColumn.ACCOUNTTO_INTERIMBALANCE, in.readDouble());
+        readOptionalString(in, scratch, row, TransactionColumn.CURRENCY);
+        readOptionalString(in, scratch, row, TransactionColumn.QUOTECURRENCY);
+        readOptionalString(in, scratch, row, TransactionColumn.PAYMENTMODE);
+        row.setLong(TransactionColumn.OVERRIDEFLAG, in.readBoolean() ? 1 : 0);
+        readOptionalString(in, scratch, row, TransactionColumn.NARRATIVE);
+        if (in.readIndex() == 1) {
+            in.skipString(); // op
+        }
+        long committedAt = in.readLong(); // source_ts_ms
+        in.readLong(); // event_time
+        row.setPipelineTimes(committedAt, in.readLong());
+        return row;
+    }
+
+    /** ["null","string"] union: branch 0 leaves the column unset, like a null in the Struct text. */
+    private static void readOptionalString(BinaryDecoder in, Utf8 scratch, TransactionRow row, TransactionColumn column)
+            throws IOException {
+        if (in.readIndex() == 1) {
+            row.setString(column, in.readString(scratch).toString());
+        }
+    }
+
+    private static TransactionRow decodeResolved(byte[] value, long fingerprint) throws IOException {
+        GenericRecord record;
+        try {
+            record = RESOLVER.decode(value);
+        } catch (AvroRuntimeException e) {
+            // MissingSchemaException, or a history schema that cannot be resolved to the current one
+            throw new IllegalArgumentException("Unknown Avro schema fingerprint " + Long.toHexString(fingerprint), e);
+        }
+
+        TransactionRow row = new TransactionRow();
+        row.setLong(TransactionColumn.TRANSACTIONID, (Long) record.get("transactionid"));
+        row.setLong(TransactionColumn.ACCOUNTFROM, (Long) record.get("accountfrom"));
+        row.setLong(TransactionColumn.ACCOUNTTO, (Long) record.get("accountto"));
+        row.setLong(TransactionColumn.BANKIDFROM, (Long) record.get("bankidfrom"));
+        row.setLong(TransactionColumn.BANKIDTO, (Long) record.get("bankidto"));
+        row.setDouble(TransactionColumn.TRANSACTIONAMOUNT, (Double) record.get("transactionamount"));
+        row.setDouble(TransactionColumn.EXCHANGERATE, (Double) record.get("exchangerate"));
+        row.setLong(TransactionColumn.TRANSACTIONDATE, (Long) record.get("transactiondate"));
+        row.setLong(TransactionColumn.TRANSACTIONTYPE, (Integer) record.get("transactiontype"));
+        row.setDouble(TransactionColumn.INTERIMBALANCE, (Double) record.get("interimbalance"));
+        row.setDouble(TransactionColumn.ACCOUNTTO_INTERIMBALANCE, (Double) record.get("accountto_interimbalance"));
+        setOptionalString(record, "currency", row, TransactionColumn.CURRENCY);
+        setOptionalString(record, "quotecurrency", row, TransactionColumn.QUOTECURRENCY);
+        setOptionalString(record, "paymentmode", row, TransactionColumn.PAYMENTMODE);
+        row.setLong(TransactionColumn.OVERRIDEFLAG, (Boolean) record.get("overrideflag") ? 1 : 0);
+        setOptionalString(record, "narrative", row, TransactionColumn.NARRATIVE);
+        row.setPipelineTimes((Long) record.get("source_ts_ms"), (Long) record.get("jet_ts_ms"));
+        return row;
+    }
+
+    private static void setOptionalString(GenericRecord record, String field, TransactionRow row,
+                                          TransactionColumn column) {
+        Object value = record.get(field);
+        if (value != null) {
+            row.setString(column, value.toString());
+        }
+    }
+
+    private static BinaryMessageDecoder<GenericRecord> resolver() {
+        BinaryMessageDecoder<GenericRecord> decoder = new BinaryMessageDecoder<>(GenericData.get(), SCHEMA);
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver(AvroTransactionCodec.class.getClassLoader())
+                    .getResources("classpath*:avro/history/*.avsc")) {
+                try (InputStream in = resource.getInputStream()) {
+                    decoder.addSchema(new Schema.Parser().parse(in));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return decoder;
+    }
+
+    private static Schema loadSchema() {
+        try (InputStream in = AvroTransactionCodec.class.getResourceAsStream("/avro/transaction.avsc")) {
+            if (in == null) {
+                throw new IllegalStateException("avro/transaction.avsc not found on the classpath");
+            }
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
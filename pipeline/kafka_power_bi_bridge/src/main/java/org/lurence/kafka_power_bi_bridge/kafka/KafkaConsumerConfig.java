@@ -1,7 +1,13 @@
 package org.lurence.kafka_power_bi_bridge.kafka;
 
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.lurence.kafka_power_bi_bridge.metrics.ConsumerPartitionMetrics;
+import org.lurence.kafka_power_bi_bridge.store.TransactionLog;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
@@ -9,34 +15,158 @@ import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 public class KafkaConsumerConfig {
+    // Upper bound on records handed to the batch listener per poll
+    @Value("${bridge.kafka.batch.max-records:500}")
+    private int batchMaxRecords;
+
+    // How long the broker may hold a fetch while waiting for batch.min-bytes to accumulate
+    @Value("${bridge.kafka.batch.max-wait-ms:100}")
+    private int batchMaxWaitMs;
+
+    @Value("${bridge.kafka.batch.min-bytes:1}")
+    private int batchMinBytes;
+
+    // Consumer threads per listener; powerbi-stream has 3 partitions, extra threads sit idle
+    @Value("${bridge.kafka.listener.concurrency:3}")
+    private int listenerConcurrency;
+
+    // Same switch Spring Boot uses for Tomcat and the MVC async executor; our factories are not
+    // auto-configured, so the listener containers pick it up here
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // How often a container with nothing to consume publishes an idle event; refreshes the lag gauges
+    @Value("${bridge.kafka.idle-event-interval-ms:30000}")
+    private long idleEventIntervalMs;
+
+    // read_committed hides records of Kafka transactions that are open or aborted, which makes Jet's
+    // EXACTLY_ONCE profile exactly-once here too, but delays each record until Jet's next snapshot
+    @Value("${bridge.kafka.isolation-level:read_uncommitted}")
+    private String isolationLevel;
+
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(baseConsumerProps());
+    }
+
+    @Bean
+    public ConsumerFactory<String, Object> batchConsumerFactory() {
+        Map<String, Object> configProps = baseConsumerProps();
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxRecords);
+        configProps.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, batchMaxWaitMs);
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, batchMinBytes);
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    private Map<String, Object> baseConsumerProps() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "kafka:9092");
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "power_bi_consumer_group");
 
-        // Use String deserializer for the key and value
+        // String keys; values stay raw bytes so Avro records skip the UTF-8 decode and text messages
+        // are decoded only once MessageConsumer knows they are not Avro
         configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
 
         // Error handling and other properties
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true");
+        configProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, isolationLevel);
 
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        return configProps;
     }
 
     @Bean
-    ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+    ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
+            TransactionLog transactionLog, ConsumerPartitionMetrics partitionMetrics) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(listenerConcurrency);
+        applyListenerExecutor(factory, "powerbi-record-");
+        factory.setRecordInterceptor(partitionMetrics.recordInterceptor());
+        factory.getContainerProperties().setIdleEventInterval(idleEventIntervalMs);
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener(transactionLog, partitionMetrics));
+        return factory;
+    }
+
+    /**
+     * Container factory for {@link MessageConsumer#listenBatch}: delivers each poll as one list
+     */
+    @Bean
+    ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            TransactionLog transactionLog, ConsumerPartitionMetrics partitionMetrics) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(listenerConcurrency);
+        applyListenerExecutor(factory, "powerbi-batch-");
+        factory.setBatchInterceptor(partitionMetrics.batchInterceptor());
+        factory.getContainerProperties().setIdleEventInterval(idleEventIntervalMs);
+        factory.getContainerProperties().setConsumerRebalanceListener(rebalanceListener(transactionLog, partitionMetrics));
         return factory;
     }
-}
\ No newline at end of file
+
+    /**
+     * The first time a partition is assigned after startup, seek it to just after the last offset in
+     * the transaction log if that is ahead of the consumer's position, so a restarted bridge continues
+     * from its restored window instead of re-reading rows it restored. Later assignments keep the
+     * committed position: the log is written behind the store, so its offset can trail rows the
+     * store already holds. Revoked partitions stop reporting lag from this consumer.
+     */
+    private static ConsumerAwareRebalanceListener rebalanceListener(TransactionLog transactionLog,
+                                                                    ConsumerPartitionMetrics partitionMetrics) {
+        // Partitions already assigned once since startup
+        Set<Integer> resumed = ConcurrentHashMap.newKeySet();
+        return new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                partitionMetrics.revoked(partitions);
+            }
+
+            @Override
+            public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                partitionMetrics.revoked(partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                for (TopicPartition partition : partitions) {
+                    if (!resumed.add(partition.partition())) {
+                        continue;
+                    }
+                    long next = transactionLog.nextOffset(partition.partition());
+                    if (next >= 0 && next > consumer.position(partition)) {
+                        consumer.seek(partition, next);
+                        System.out.println("Resuming " + partition + " from logged offset " + next);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * With virtual threads enabled, run each consumer (one per concurrency slot) on its own virtual
+     * thread instead of a platform thread.
+     */
+    private void applyListenerExecutor(ConcurrentKafkaListenerContainerFactory<String, Object> factory,
+                                       String threadNamePrefix) {
+        if (!virtualThreads) {
+            return;
+        }
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        factory.getContainerProperties().setListenerTaskExecutor(executor);
+    }
+}
@@ -1,24 +1,33 @@
 package org.lurence.kafka_power_bi_bridge.kafka;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.lurence.kafka_power_bi_bridge.aggregate.WindowedAggregator;
+import org.lurence.kafka_power_bi_bridge.logging.HotPathLog;
+import org.lurence.kafka_power_bi_bridge.logging.HotPathLog.Category;
+import org.lurence.kafka_power_bi_bridge.metrics.FreshnessMetrics;
 import org.lurence.kafka_power_bi_bridge.metrics.KafkaMetricsConfig;
+import org.lurence.kafka_power_bi_bridge.store.TransactionColumn;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Metrics;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @Service
 public class MessageConsumer {
@@ -27,11 +36,12 @@ public class MessageConsumer {
             .description("Number of high-value transactions (>1000)")
             .register(Metrics.globalRegistry);
 
-    private final CopyOnWriteArrayList<Map<String, Object>> recentMessages = new CopyOnWriteArrayList<>();
+    private final TransactionStore transactionStore;
+    private final WindowedAggregator aggregator;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final KafkaMetricsConfig metricsConfig;
-
-    private static final int MAX_TRANSACTIONS = 1000;
+    private final HotPathLog hotPathLog;
+    private final FreshnessMetrics freshness;
 
     // Existing counters
     private final Counter successCounter;
@@ -39,8 +49,13 @@ public class MessageConsumer {
     private final Counter amountCounter;
 
     @Autowired
-    public MessageConsumer(KafkaMetricsConfig metricsConfig, MeterRegistry registry) {
+    public MessageConsumer(KafkaMetricsConfig metricsConfig, MeterRegistry registry, TransactionStore transactionStore,
+                           WindowedAggregator aggregator, HotPathLog hotPathLog, FreshnessMetrics freshness) {
         this.metricsConfig = metricsConfig;
+        this.hotPathLog = hotPathLog;
+        this.freshness = freshness;
+        this.transactionStore = transactionStore;
+        this.aggregator = aggregator;
 
         this.successCounter = Counter.builder("transactions_total")
                 .tag("status", "success")
@@ -55,93 +70,237 @@ public class MessageConsumer {
         this.amountCounter = Counter.builder("transactions_amount_sum_total")
                 .description("Sum of transaction amounts")
                 .register(registry);
+
+        // Buffer health
+        Gauge.builder("transactions_buffer_size", transactionStore, TransactionStore::size)
+                .description("Transactions currently held in the recent-transactions store")
+                .register(registry);
+
+        Gauge.builder("transactions_buffer_heap_bytes", transactionStore, TransactionStore::estimatedBytes)
+                .description("Approximate heap used by the columnar transaction store")
+                .register(registry);
+
+        FunctionCounter.builder("transactions_buffer_overwrites_total", transactionStore, TransactionStore::overwrites)
+                .description("Buffered transactions evicted by newer ones")
+                .register(registry);
+
+        FunctionCounter.builder("transactions_buffer_snapshot_drops_total", transactionStore, TransactionStore::snapshotDrops)
+                .description("Transactions left out of a snapshot because they were overwritten during the copy")
+                .register(registry);
     }
 
-    @KafkaListener(topics = "powerbi-stream", groupId = "power_bi_consumer_group")
-    public void listen(ConsumerRecord<String, String> record) {
+    /**
+     * Per-record listener, one callback per Kafka record.
+     * Only started when bridge.kafka.batch.enabled=false.
+     */
+    @KafkaListener(id = "powerbi-record-listener", topics = "powerbi-stream", groupId = "power_bi_consumer_group",
+            autoStartup = "#{!${bridge.kafka.batch.enabled:true}}")
+    public void listen(ConsumerRecord<String, byte[]> record) {
+        long received = System.currentTimeMillis();
+        BatchStats stats = new BatchStats();
         try {
-            String value = record.value();
-            System.out.println("Received raw message: " + value);
-
-            // Case 1: Debezium/Hazelcast Struct string
-            if (value.startsWith("Struct")) {
-                Map<String, Object> data = parseStructAfterFields(value); // flatten AFTER fields
-                recentMessages.add(data);
-                System.out.println("Processed Struct 'after' message: " + data);
-
-                recordMetrics(data);
-                metricsConfig.incrementMessagesProcessed();
-                trimBuffer();
-                return;
+            byte[] value = record.value();
+            if (!AvroTransactionCodec.isAvro(value) && hotPathLog.isSampled(Category.RAW)) {
+                hotPathLog.log(Category.RAW, "Received raw message at " + record.partition() + "@" + record.offset()
+                        + ": " + new String(value, StandardCharsets.UTF_8));
             }
 
-            // Case 2: JSON (either Debezium-style with before/after/op, or plain JSON)
+            TransactionRow data = process(value, stats, true);
+            if (data != null) {
+                data.setPosition(record.partition(), record.offset());
+                freshness.ingested(data, received);
+                transactionStore.append(data);
+                aggregator.record(data, System.currentTimeMillis());
+            }
+        } catch (Exception e) {
+            if (hotPathLog.isSampled(Category.ERROR)) {
+                hotPathLog.log(Category.ERROR, "Error processing message at " + record.partition() + "@"
+                        + record.offset() + ": " + e.getMessage(), e);
+            }
+            stats.errors++;
+            stats.failure++;
+        }
+        flushMetrics(stats);
+    }
+
+    /**
+     * Batch listener: receives everything returned by one poll, appends it to the buffer in one step
+     * and updates the counters once for the whole batch.
+     * Called from up to bridge.kafka.listener.concurrency consumer threads at once, each with its own
+     * partitions; the store, aggregator and meters all take concurrent writers.
+     */
+    @KafkaListener(id = "powerbi-batch-listener", topics = "powerbi-stream", groupId = "power_bi_consumer_group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${bridge.kafka.batch.enabled:true}")
+    public void listenBatch(List<ConsumerRecord<String, byte[]>> records) {
+        long received = System.currentTimeMillis();
+        BatchStats stats = new BatchStats();
+        List<TransactionRow> rows = new ArrayList<>(records.size());
+
+        for (ConsumerRecord<String, byte[]> record : records) {
             try {
-                JsonNode root = objectMapper.readTree(value);
-
-                if (root.has("op")) {
-                    // Debezium JSON
-                    JsonNode after = root.get("after");
-                    if (after != null && !after.isNull()) {
-                        Map<String, Object> data = jsonNodeToMap(after);
-                        recentMessages.add(data);
-                        System.out.println("Processed Debezium JSON message: " + data);
-
-                        recordMetrics(data);
-                    } else {
-                        // message without 'after' – count as failure but still track
-                        failureCounter.increment();
+                TransactionRow data = process(record.value(), stats, false);
+                if (data != null) {
+                    data.setPosition(record.partition(), record.offset());
+                    rows.add(data);
+                }
+            } catch (Exception e) {
+                if (hotPathLog.isSampled(Category.ERROR)) {
+                    hotPathLog.log(Category.ERROR, "Error processing message at " + record.partition() + "@"
+                            + record.offset() + ": " + e.getMessage());
+                }
+                stats.errors++;
+                stats.failure++;
+            }
+        }
+
+        freshness.ingested(rows, received);
+        transactionStore.appendAll(rows);
+
+        long now = System.currentTimeMillis();
+        for (TransactionRow row : rows) {
+            aggregator.record(row, now);
+        }
+        flushMetrics(stats);
+        if (hotPathLog.isSampled(Category.BATCH)) {
+            hotPathLog.log(Category.BATCH, "Processed batch of " + records.size() + " messages (" + rows.size() + " buffered)");
+        }
+    }
+
+    /**
+     * Parse one raw message and tally its outcome into {@code stats}.
+     * Returns the row to buffer, or null if there is nothing to keep.
+     */
+    private TransactionRow process(byte[] value, BatchStats stats, boolean verbose) throws IOException {
+        // Case 0: Avro single-object record from the Jet job, decoded without going through text
+        if (AvroTransactionCodec.isAvro(value)) {
+            TransactionRow data = AvroTransactionCodec.decode(value);
+            if (verbose && hotPathLog.isSampled(Category.PARSED)) {
+                hotPathLog.log(Category.PARSED, "Processed Avro message: " + data);
+            }
+
+            tally(data, stats);
+            stats.processed++;
+            return data;
+        }
+        return process(new String(value, StandardCharsets.UTF_8), stats, verbose);
+    }
+
+    private TransactionRow process(String value, BatchStats stats, boolean verbose) {
+        // Case 1: Debezium/Hazelcast Struct string
+        if (value.startsWith("Struct")) {
+            TransactionRow data = parseStructAfterFields(value); // flatten AFTER fields
+            if (verbose && hotPathLog.isSampled(Category.PARSED)) {
+                hotPathLog.log(Category.PARSED, "Processed Struct 'after' message: " + data);
+            }
+
+            tally(data, stats);
+            stats.processed++;
+            return data;
+        }
+
+        // Case 2: JSON (either Debezium-style with before/after/op, or plain JSON)
+        try {
+            JsonNode root = objectMapper.readTree(value);
+            if (!root.isObject()) {
+                return textMessage(value, "not a JSON object", stats);
+            }
+
+            TransactionRow data = null;
+            if (root.has("op")) {
+                // Debezium JSON
+                JsonNode after = root.get("after");
+                if (after != null && !after.isNull()) {
+                    data = jsonNodeToRow(after);
+                    // Prefer source.ts_ms (commit time); the envelope ts_ms is when the connector processed it
+                    JsonNode committedAt = root.path("source").path("ts_ms");
+                    data.setPipelineTimes((committedAt.isMissingNode() ? root.path("ts_ms") : committedAt).asLong(0), 0);
+                    if (verbose && hotPathLog.isSampled(Category.PARSED)) {
+                        hotPathLog.log(Category.PARSED, "Processed Debezium JSON message: " + data);
                     }
-                } else {
-                    // Plain JSON object
-                    Map<String, Object> data = objectMapper.readValue(value, new TypeReference<Map<String, Object>>() {});
-                    recentMessages.add(data);
-                    System.out.println("Processed JSON message: " + data);
 
-                    recordMetrics(data);
+                    tally(data, stats);
+                } else {
+                    // message without 'after' – count as failure but still track
+                    stats.failure++;
+                }
+            } else {
+                // Plain JSON object; the Jet job's enriched rows carry source_ts_ms and jet_ts_ms
+                data = jsonNodeToRow(root);
+                data.setPipelineTimes(root.path("source_ts_ms").asLong(0), root.path("jet_ts_ms").asLong(0));
+                if (verbose && hotPathLog.isSampled(Category.PARSED)) {
+                    hotPathLog.log(Category.PARSED, "Processed JSON message: " + data);
                 }
 
-                metricsConfig.incrementMessagesProcessed();
-            } catch (JsonProcessingException e) {
-                // Case 3: treat as plain text
-                System.err.println("Failed to parse as JSON, storing as text: " + e.getMessage());
-                Map<String, Object> data = new HashMap<>();
-                data.put("message", value);
-                recentMessages.add(data);
-
-                // failures are still "processed" from the consumer’s perspective
-                failureCounter.increment();
-                metricsConfig.incrementMessagesProcessed();
+                tally(data, stats);
             }
 
-            trimBuffer();
-        } catch (Exception e) {
-            System.err.println("Error processing message: " + e.getMessage());
-            e.printStackTrace();
-            metricsConfig.incrementErrors();
-            failureCounter.increment();
+            stats.processed++;
+            return data;
+        } catch (JsonProcessingException e) {
+            // Case 3: treat as plain text
+            return textMessage(value, e.getMessage(), stats);
         }
     }
 
-    /** Record all counters based on parsed data (handles transactionamount/amount/TRANSACTIONAMOUNT). */
-    private void recordMetrics(Map<String, Object> data) {
-        successCounter.increment();
+    private TransactionRow textMessage(String value, String reason, BatchStats stats) {
+        if (hotPathLog.isSampled(Category.ERROR)) {
+            hotPathLog.log(Category.ERROR, "Failed to parse as JSON, storing as text: " + reason);
+        }
+        TransactionRow data = new TransactionRow();
+        data.putExtra("message", value);
+
+        // failures are still "processed" from the consumer’s perspective
+        stats.failure++;
+        stats.processed++;
+        return data;
+    }
+
+    /** Tally counters based on parsed data (handles transactionamount/amount/TRANSACTIONAMOUNT). */
+    private void tally(TransactionRow data, BatchStats stats) {
+        stats.success++;
 
         Double amt = extractAmount(data);
         if (amt != null) {
-            amountCounter.increment(amt);
+            stats.amountSum += amt;
             if (amt > 1000.0) {
-                highValueTransactions.increment(); // <-- this is the metric your Grafana panel reads
+                stats.highValue++; // <-- this is the metric your Grafana panel reads
             }
         }
     }
 
+    /** Push the tallied outcome of a record or batch to the Micrometer counters in one go. */
+    private void flushMetrics(BatchStats stats) {
+        if (stats.success > 0) successCounter.increment(stats.success);
+        if (stats.failure > 0) failureCounter.increment(stats.failure);
+        if (stats.amountSum != 0.0) amountCounter.increment(stats.amountSum);
+        if (stats.highValue > 0) highValueTransactions.increment(stats.highValue);
+        if (stats.processed > 0) metricsConfig.incrementMessagesProcessed(stats.processed);
+        if (stats.errors > 0) metricsConfig.incrementErrors(stats.errors);
+    }
+
+    /** Outcome counts for one record or one batch, flushed to the meters by {@link #flushMetrics}. */
+    private static final class BatchStats {
+        int success;
+        int failure;
+        int processed;
+        int errors;
+        int highValue;
+        double amountSum;
+    }
+
     /** Try to get the amount field regardless of casing/key variants. */
-    private Double extractAmount(Map<String, Object> data) {
+    private Double extractAmount(TransactionRow data) {
+        if (data.has(TransactionColumn.TRANSACTIONAMOUNT)) {
+            return data.getDouble(TransactionColumn.TRANSACTIONAMOUNT);
+        }
+
+        Map<String, Object> extras = data.extras();
         Object v = null;
-        if (data.containsKey("transactionamount")) v = data.get("transactionamount");
-        else if (data.containsKey("amount")) v = data.get("amount");
-        else if (data.containsKey("TRANSACTIONAMOUNT")) v = data.get("TRANSACTIONAMOUNT");
+        if (extras != null) {
+            if (extras.containsKey("transactionamount")) v = extras.get("transactionamount");
+            else if (extras.containsKey("amount")) v = extras.get("amount");
+        }
 
         if (v == null) return null;
         try {
@@ -152,103 +311,60 @@ public class MessageConsumer {
     }
 
     /**
-     * Parse the Debezium Struct string and return ONLY the flattened fields inside `after=Struct{...}`.
+     * Parse the Debezium Struct string and return ONLY the fields inside `after=Struct{...}`.
+     * Falls back to the top-level fields if there is no 'after' struct.
      * Example input:
      * Struct{after=Struct{transactionid=...,transactionamount=...},source=Struct{...},op=c,ts_ms=...}
      */
-    private Map<String, Object> parseStructAfterFields(String structMessage) {
-        Map<String, Object> result = new HashMap<>();
+    TransactionRow parseStructAfterFields(String structMessage) {
+        TransactionRow after = new TransactionRow();
+        TransactionRow topLevel = new TransactionRow();
+        long committedAt = 0;
+        long processedAt = 0;
         try {
-            int afterStart = structMessage.indexOf("after=Struct{");
-            if (afterStart == -1) {
-                // Fallback: parse top-level (older behavior)
-                return parseStructKeyValues(structMessage);
-            }
-            int start = afterStart + "after=Struct{".length();
-
-            // Try to find the end of the 'after' struct.
-            int end = structMessage.indexOf("},source=", start);
-            if (end == -1) {
-                end = structMessage.lastIndexOf('}');
-            }
-            if (end > start) {
-                String inner = structSafeSubstring(structMessage, start, end);
-                result.putAll(parseKeyValues(inner));
+            StructTokenizer tokens = new StructTokenizer(structMessage);
+            while (tokens.next()) {
+                if (tokens.inSection("after")) {
+                    after.set(tokens); // keys normalized to lower-case
+                } else if (tokens.depth() <= 1) {
+                    if (tokens.keyEquals("ts_ms") && tokens.isLong()) {
+                        processedAt = tokens.longValue();
+                    }
+                    topLevel.set(tokens);
+                } else if (tokens.inSection("source") && tokens.keyEquals("ts_ms") && tokens.isLong()) {
+                    committedAt = tokens.longValue();
+                }
             }
         } catch (Exception e) {
-            System.err.println("Error parsing 'after' Struct: " + e.getMessage());
-            metricsConfig.incrementErrors();
-        }
-        return result;
-    }
-
-    /** Fallback: parse a flat Struct{a=b,c=d} into a map (used if there's no 'after=Struct{...}'). */
-    private Map<String, Object> parseStructKeyValues(String structMessage) {
-        Map<String, Object> out = new HashMap<>();
-        try {
-            int l = structMessage.indexOf('{');
-            int r = structMessage.lastIndexOf('}');
-            if (l >= 0 && r > l) {
-                String inner = structSafeSubstring(structMessage, l + 1, r);
-                out.putAll(parseKeyValues(inner));
+            if (hotPathLog.isSampled(Category.ERROR)) {
+                hotPathLog.log(Category.ERROR, "Error parsing 'after' Struct: " + e.getMessage());
             }
-        } catch (Exception e) {
-            System.err.println("Error parsing Struct key/values: " + e.getMessage());
             metricsConfig.incrementErrors();
         }
-        return out;
+        TransactionRow row = after.isEmpty() ? topLevel : after;
+        // Prefer source.ts_ms (commit time); the envelope ts_ms is when the connector processed it
+        row.setPipelineTimes(committedAt != 0 ? committedAt : processedAt, 0);
+        return row;
     }
 
-    /** Parse comma-separated key=value pairs, respecting quoted values. */
-    private Map<String, Object> parseKeyValues(String content) {
-        Map<String, Object> result = new HashMap<>();
-        boolean inQuotes = false;
-        StringBuilder current = new StringBuilder();
-        List<String> parts = new ArrayList<>();
-
-        for (char c : content.toCharArray()) {
-            if (c == '"') inQuotes = !inQuotes;
-            if (c == ',' && !inQuotes) {
-                parts.add(current.toString());
-                current.setLength(0);
-            } else {
-                current.append(c);
-            }
+    /** Copy the fields of a JSON object into a row, keeping numbers and booleans typed. */
+    private TransactionRow jsonNodeToRow(JsonNode jsonNode) {
+        TransactionRow row = new TransactionRow();
+        Iterator<Map.Entry<String, JsonNode>> fields = jsonNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode node = field.getValue();
+
+            Object value;
+            if (node.isNull()) value = null;
+            else if (node.isIntegralNumber()) value = node.longValue();
+            else if (node.isNumber()) value = node.doubleValue();
+            else if (node.isBoolean()) value = node.booleanValue();
+            else if (node.isTextual()) value = node.textValue();
+            else value = objectMapper.convertValue(node, Object.class);
+
+            row.set(field.getKey(), value);
         }
-        if (current.length() > 0) parts.add(current.toString());
-
-        for (String part : parts) {
-            String[] kv = part.split("=", 2);
-            if (kv.length == 2) {
-                String key = kv[0].trim();
-                String val = kv[1].trim();
-                if (val.startsWith("\"") && val.endsWith("\"") && val.length() >= 2) {
-                    val = val.substring(1, val.length() - 1);
-                }
-                result.put(key.toLowerCase(), val); // normalize keys to lower-case
-            }
-        }
-        return result;
-    }
-
-    private String structSafeSubstring(String s, int start, int end) {
-        if (start < 0) start = 0;
-        if (end > s.length()) end = s.length();
-        if (end < start) end = start;
-        return s.substring(start, end);
-    }
-
-    private Map<String, Object> jsonNodeToMap(JsonNode jsonNode) {
-        return objectMapper.convertValue(jsonNode, new TypeReference<>() {});
-    }
-
-    private void trimBuffer() {
-        while (recentMessages.size() > MAX_TRANSACTIONS) {
-            recentMessages.remove(0);
-        }
-    }
-
-    public List<Map<String, Object>> getRecentTransactions() {
-        return new ArrayList<>(recentMessages);
+        return row;
     }
-}
\ No newline at end of file
+}
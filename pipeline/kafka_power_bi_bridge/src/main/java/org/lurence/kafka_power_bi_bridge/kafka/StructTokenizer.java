@@ -0,0 +1,360 @@
+package org.lurence.kafka_power_bi_bridge.kafka;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass, pull-style tokenizer for Kafka Connect {@code Struct.toString()} text, e.g.
+ * <pre>
+ * Struct{after=Struct{transactionid=1,currency=SGD},source=Struct{ts_ms=1726070773120},op=c}
+ * </pre>
+ * Each call to {@link #next()} advances to the next scalar {@code key=value} field. Nested
+ * {@code key=Struct{...}} values are entered rather than returned, so {@link #inSection(String)}
+ * tells which struct the current field belongs to. Keys and values are exposed as offsets into
+ * the source text and are only turned into objects when asked for.
+ * <p>
+ * Instances are not thread-safe but can be reused with {@link #reset(String)}.
+ */
+public final class StructTokenizer {
+    private static final String STRUCT_OPEN = "Struct{";
+    private static final int MAX_DEPTH = 16;
+
+    // Column names we see on every message; returned as shared String instances instead of copies
+    private static final String[] KNOWN_KEYS = {
+            "transactionid", "accountfrom", "accountto", "bankidfrom", "bankidto",
+            "transactionamount", "exchangerate", "transactiondate", "transactiontype",
+            "interimbalance", "accountto_interimbalance", "currency", "quotecurrency",
+            "paymentmode", "overrideflag", "narrative",
+            "before", "after", "source", "op", "ts_ms", "ts_us", "ts_ns", "transaction",
+            "version", "connector", "name", "snapshot", "db", "sequence", "schema", "table",
+            "txid", "lsn", "xmin"
+    };
+    private static final String[] KNOWN_KEYS_UPPER = new String[KNOWN_KEYS.length];
+
+    // Open-addressing table from case-insensitive key hash to KNOWN_KEYS index (-1 = empty)
+    private static final int KEY_TABLE_MASK = 127;
+    private static final int[] KEY_TABLE = new int[KEY_TABLE_MASK + 1];
+
+    static {
+        Arrays.fill(KEY_TABLE, -1);
+        for (int i = 0; i < KNOWN_KEYS.length; i++) {
+            KNOWN_KEYS_UPPER[i] = KNOWN_KEYS[i].toUpperCase();
+            int slot = hashIgnoreCase(KNOWN_KEYS[i], 0, KNOWN_KEYS[i].length()) & KEY_TABLE_MASK;
+            while (KEY_TABLE[slot] >= 0) {
+                slot = (slot + 1) & KEY_TABLE_MASK;
+            }
+            KEY_TABLE[slot] = i;
+        }
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private String text;
+    private int pos;
+    private int end;
+
+    // Key ranges of the structs enclosing the current position; index 0 is the outermost
+    private final int[] sectionKeyStart = new int[MAX_DEPTH];
+    private final int[] sectionKeyEnd = new int[MAX_DEPTH];
+    private int depth;
+
+    private int keyStart;
+    private int keyEnd;
+    private int valueStart;
+    private int valueEnd;
+
+    public StructTokenizer() {
+    }
+
+    public StructTokenizer(String text) {
+        reset(text);
+    }
+
+    /** Start scanning a new message. */
+    public StructTokenizer reset(String text) {
+        this.text = text;
+        this.pos = 0;
+        this.end = text.length();
+        this.depth = 0;
+        this.keyStart = this.keyEnd = this.valueStart = this.valueEnd = 0;
+        return this;
+    }
+
+    /**
+     * Advance to the next scalar field.
+     *
+     * @return false once the end of the text is reached
+     */
+    public boolean next() {
+        while (true) {
+            // Skip separators
+            while (pos < end) {
+                char c = text.charAt(pos);
+                if (c == ',' || Character.isWhitespace(c)) {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (pos >= end) {
+                return false;
+            }
+
+            char c = text.charAt(pos);
+            if (c == '}') {
+                if (depth > 0) depth--;
+                pos++;
+                continue;
+            }
+            if (text.startsWith(STRUCT_OPEN, pos)) {
+                // Anonymous struct, normally the outer envelope
+                push(pos, pos);
+                pos += STRUCT_OPEN.length();
+                continue;
+            }
+
+            // Key runs up to '='; a bare token without '=' is skipped
+            int ks = pos;
+            while (pos < end) {
+                c = text.charAt(pos);
+                if (c == '=' || c == ',' || c == '}') break;
+                pos++;
+            }
+            if (pos >= end || text.charAt(pos) != '=') {
+                continue;
+            }
+            int ke = pos;
+            pos++;
+
+            if (text.startsWith(STRUCT_OPEN, pos)) {
+                push(ks, trimEnd(ks, ke));
+                pos += STRUCT_OPEN.length();
+                continue;
+            }
+
+            // Value runs up to the next ',' or '}' outside quotes and brackets
+            int vs = pos;
+            boolean inQuotes = false;
+            int brackets = 0;
+            while (pos < end) {
+                c = text.charAt(pos);
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if (!inQuotes) {
+                    if (c == '[') {
+                        brackets++;
+                    } else if (c == ']') {
+                        if (brackets > 0) brackets--;
+                    } else if ((c == ',' || c == '}') && brackets == 0) {
+                        break;
+                    }
+                }
+                pos++;
+            }
+
+            keyStart = trimStart(ks, ke);
+            keyEnd = trimEnd(keyStart, ke);
+            valueStart = trimStart(vs, pos);
+            valueEnd = trimEnd(valueStart, pos);
+            return true;
+        }
+    }
+
+    private void push(int start, int stop) {
+        if (depth < MAX_DEPTH) {
+            sectionKeyStart[depth] = trimStart(start, stop);
+            sectionKeyEnd[depth] = stop;
+        }
+        depth++;
+    }
+
+    private int trimStart(int from, int to) {
+        while (from < to && Character.isWhitespace(text.charAt(from))) from++;
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from && Character.isWhitespace(text.charAt(to - 1))) to--;
+        return to;
+    }
+
+    /** Nesting level of the current field: 1 for fields of the outer struct, 2 inside after=Struct{...}, ... */
+    public int depth() {
+        return depth;
+    }
+
+    /** True if the current field sits directly inside the struct stored under {@code name}. */
+    public boolean inSection(String name) {
+        if (depth < 1 || depth > MAX_DEPTH) return false;
+        int start = sectionKeyStart[depth - 1];
+        int len = sectionKeyEnd[depth - 1] - start;
+        return len == name.length() && text.regionMatches(true, start, name, 0, len);
+    }
+
+    /** Case-insensitive comparison of the current key, without copying it. */
+    public boolean keyEquals(String name) {
+        int len = keyEnd - keyStart;
+        return len == name.length() && text.regionMatches(true, keyStart, name, 0, len);
+    }
+
+    /** Current key in lower case. Known column names come back as shared constants. */
+    public String key() {
+        int known = knownKeyIndex();
+        return known >= 0 ? KNOWN_KEYS[known] : text.substring(keyStart, keyEnd).toLowerCase();
+    }
+
+    /** Current key in upper case. Known column names come back as shared constants. */
+    public String keyUpperCase() {
+        int known = knownKeyIndex();
+        return known >= 0 ? KNOWN_KEYS_UPPER[known] : text.substring(keyStart, keyEnd).toUpperCase();
+    }
+
+    private int knownKeyIndex() {
+        int len = keyEnd - keyStart;
+        int slot = hashIgnoreCase(text, keyStart, keyEnd) & KEY_TABLE_MASK;
+        for (int i = KEY_TABLE[slot]; i >= 0; slot = (slot + 1) & KEY_TABLE_MASK, i = KEY_TABLE[slot]) {
+            String k = KNOWN_KEYS[i];
+            if (k.length() == len && text.regionMatches(true, keyStart, k, 0, len)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int hashIgnoreCase(String s, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + Character.toLowerCase(s.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    public boolean isNull() {
+        return valueEnd - valueStart == 4 && text.regionMatches(valueStart, "null", 0, 4);
+    }
+
+    public boolean isBoolean() {
+        int len = valueEnd - valueStart;
+        return (len == 4 && text.regionMatches(true, valueStart, "true", 0, 4))
+                || (len == 5 && text.regionMatches(true, valueStart, "false", 0, 5));
+    }
+
+    /** True for an optionally signed run of digits that fits in a long. */
+    public boolean isLong() {
+        int i = valueStart;
+        if (i < valueEnd && (text.charAt(i) == '-' || text.charAt(i) == '+')) i++;
+        int digits = valueEnd - i;
+        if (digits <= 0 || digits > 18) return false;
+        for (; i < valueEnd; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    /** True for a decimal or scientific-notation number such as {@code 12.5} or {@code 1.7E+12}. */
+    public boolean isDouble() {
+        int i = valueStart;
+        if (i < valueEnd && (text.charAt(i) == '-' || text.charAt(i) == '+')) i++;
+        boolean digits = false;
+        boolean dot = false;
+        for (; i < valueEnd; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else if ((c == 'E' || c == 'e') && digits) {
+                i++;
+                if (i < valueEnd && (text.charAt(i) == '-' || text.charAt(i) == '+')) i++;
+                if (i >= valueEnd) return false;
+                for (; i < valueEnd; i++) {
+                    c = text.charAt(i);
+                    if (c < '0' || c > '9') return false;
+                }
+                return true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    /** Current value as a long; call {@link #isLong()} first. */
+    public long longValue() {
+        int i = valueStart;
+        boolean negative = false;
+        char first = text.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        long result = 0;
+        for (; i < valueEnd; i++) {
+            result = result * 10 + (text.charAt(i) - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Current value as a double; call {@link #isDouble()} first.
+     * Short decimals are computed directly, anything else falls back to {@link Double#parseDouble}.
+     */
+    public double doubleValue() {
+        int i = valueStart;
+        boolean negative = false;
+        char first = text.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        for (; i < valueEnd; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                dot = true;
+            } else if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (dot) scale++;
+            } else {
+                break;
+            }
+        }
+        // Exact when the mantissa fits in 53 bits and the power of ten is exactly representable
+        if (i == valueEnd && digits <= 15 && scale < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(text.substring(valueStart, valueEnd));
+    }
+
+    public boolean booleanValue() {
+        return valueEnd - valueStart == 4 && text.regionMatches(true, valueStart, "true", 0, 4);
+    }
+
+    /** Current value as text, with surrounding double quotes removed. */
+    public String stringValue() {
+        int s = valueStart;
+        int e = valueEnd;
+        if (e - s >= 2 && text.charAt(s) == '"' && text.charAt(e - 1) == '"') {
+            s++;
+            e--;
+        }
+        return text.substring(s, e);
+    }
+
+    /** Current value as Long, Double, Boolean, String, or null for a literal {@code null}. */
+    public Object typedValue() {
+        if (isNull()) return null;
+        if (isLong()) return longValue();
+        if (isDouble()) return doubleValue();
+        if (isBoolean()) return booleanValue();
+        return stringValue();
+    }
+}
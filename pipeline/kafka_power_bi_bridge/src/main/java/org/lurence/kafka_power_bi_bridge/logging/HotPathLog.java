@@ -0,0 +1,254 @@
+package org.lurence.kafka_power_bi_bridge.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logging for the per-message paths of the Kafka listeners, where a println per record used to
+ * cap throughput at what the console could take.
+ * <p>
+ * Each {@link Category} has its own {@link LogSampler}, so the listener only builds the lines it
+ * will keep; callers check {@link #isSampled} first. Kept lines go into a bounded queue and a
+ * daemon thread writes them out in batches with one print per batch. When the queue is full the
+ * line is dropped rather than blocking the consumer, and the writer reports how many went missing.
+ * With bridge.logging.async.enabled=false lines are printed on the calling thread as before.
+ * <p>
+ * Sampling and the on/off switch can be changed at runtime through /actuator/hotpathlogging.
+ */
+@Component
+public class HotPathLog {
+
+    /** Hot-path log categories; the lower-case name is the property and endpoint key. */
+    public enum Category {
+        /** Raw record values as received. */
+        RAW,
+        /** Rows after parsing. */
+        PARSED,
+        /** Per-poll summaries of the batch listener. */
+        BATCH,
+        /** Records that failed to parse or process. */
+        ERROR;
+
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final int WRITE_BATCH = 1024;
+
+    private final boolean async;
+    private volatile boolean enabled;
+    // Indexed by ordinal, replaced whole on change
+    private volatile LogSampler[] samplers = new LogSampler[Category.values().length];
+    private final ArrayBlockingQueue<Line> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final EnumMap<Category, Counter> logged = new EnumMap<>(Category.class);
+    private final EnumMap<Category, Counter> sampledOut = new EnumMap<>(Category.class);
+    private final EnumMap<Category, Counter> droppedLines = new EnumMap<>(Category.class);
+
+    @Autowired
+    public HotPathLog(MeterRegistry registry,
+                      @Value("${bridge.logging.enabled:true}") boolean enabled,
+                      @Value("${bridge.logging.async.enabled:true}") boolean async,
+                      @Value("${bridge.logging.async.queue-size:8192}") int queueSize,
+                      @Value("${bridge.logging.sample.raw:10/s}") String raw,
+                      @Value("${bridge.logging.sample.parsed:10/s}") String parsed,
+                      @Value("${bridge.logging.sample.batch:1/s}") String batch,
+                      @Value("${bridge.logging.sample.error:100/s}") String error) {
+        this.enabled = enabled;
+        this.async = async;
+        samplers[Category.RAW.ordinal()] = LogSampler.parse(raw);
+        samplers[Category.PARSED.ordinal()] = LogSampler.parse(parsed);
+        samplers[Category.BATCH.ordinal()] = LogSampler.parse(batch);
+        samplers[Category.ERROR.ordinal()] = LogSampler.parse(error);
+
+        for (Category category : Category.values()) {
+            logged.put(category, counter(registry, category, "logged"));
+            sampledOut.put(category, counter(registry, category, "sampled_out"));
+            droppedLines.put(category, counter(registry, category, "dropped"));
+        }
+
+        if (async) {
+            queue = new ArrayBlockingQueue<>(queueSize);
+            writer = new Thread(this::writeLoop, "hot-path-log");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            queue = null;
+            writer = null;
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, Category category, String outcome) {
+        return Counter.builder("bridge_log_lines_total")
+                .tag("category", category.key())
+                .tag("outcome", outcome)
+                .description("Hot-path log lines by category: logged, skipped by sampling, or dropped on a full queue")
+                .register(registry);
+    }
+
+    /** Whether this event should be logged; a false answer is counted as sampled out. */
+    public boolean isSampled(Category category) {
+        if (!enabled) {
+            return false;
+        }
+        if (samplers[category.ordinal()].sample()) {
+            return true;
+        }
+        sampledOut.get(category).increment();
+        return false;
+    }
+
+    /** Log a line that passed {@link #isSampled}. */
+    public void log(Category category, String message) {
+        log(category, message, null);
+    }
+
+    public void log(Category category, String message, Throwable error) {
+        Line line = new Line(System.currentTimeMillis(), category, message, error);
+        if (!async) {
+            (category == Category.ERROR ? System.err : System.out).print(line.format());
+            logged.get(category).increment();
+            return;
+        }
+        if (queue.offer(line)) {
+            logged.get(category).increment();
+        } else {
+            dropped.incrementAndGet();
+            droppedLines.get(category).increment();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** Replace a category's sampling; throws IllegalArgumentException for a bad spec. */
+    public void setSample(Category category, String spec) {
+        LogSampler sampler = LogSampler.parse(spec);
+        synchronized (this) {
+            LogSampler[] updated = samplers.clone();
+            updated[category.ordinal()] = sampler;
+            samplers = updated;
+        }
+    }
+
+    /** Current settings, for the actuator endpoint. */
+    public Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("enabled", enabled);
+        settings.put("async", async);
+        Map<String, String> samples = new LinkedHashMap<>();
+        for (Category category : Category.values()) {
+            samples.put(category.key(), samplers[category.ordinal()].toString());
+        }
+        settings.put("sample", samples);
+        if (async) {
+            settings.put("queued", queue.size());
+            settings.put("dropped", dropped.get());
+        }
+        return settings;
+    }
+
+    private void writeLoop() {
+        List<Line> batch = new ArrayList<>(WRITE_BATCH);
+        StringBuilder out = new StringBuilder(64 * 1024);
+        StringBuilder err = new StringBuilder();
+        long reportedDrops = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                Line first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, WRITE_BATCH - 1);
+            } catch (InterruptedException e) {
+                // close() interrupts to flush and stop
+                queue.drainTo(batch);
+                running = false;
+            }
+
+            for (Line line : batch) {
+                (line.category == Category.ERROR ? err : out).append(line.format());
+            }
+            long drops = dropped.get();
+            if (drops > reportedDrops) {
+                err.append(Instant.now()).append(" WARN  [hot-path-log] ").append(drops - reportedDrops)
+                        .append(" log lines dropped, queue full\n");
+                reportedDrops = drops;
+            }
+            // One write per batch instead of one per line
+            if (out.length() > 0) {
+                System.out.print(out);
+                out.setLength(0);
+            }
+            if (err.length() > 0) {
+                System.err.print(err);
+                err.setLength(0);
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            writer.interrupt();
+            writer.join(5000);
+        }
+    }
+
+    /** A line waiting to be written; the timestamp and stack trace are rendered by the writer. */
+    private static final class Line {
+        final long timestamp;
+        final Category category;
+        final String message;
+        final Throwable error;
+
+        Line(long timestamp, Category category, String message, Throwable error) {
+            this.timestamp = timestamp;
+            this.category = category;
+            this.message = message;
+            this.error = error;
+        }
+
+        String format() {
+            StringBuilder sb = new StringBuilder(message.length() + 48)
+                    .append(Instant.ofEpochMilli(timestamp))
+                    .append(category == Category.ERROR ? " ERROR [" : " INFO  [")
+                    .append(category.key()).append("] ").append(message).append('\n');
+            if (error != null) {
+                StringWriter trace = new StringWriter();
+                error.printStackTrace(new PrintWriter(trace));
+                sb.append(trace);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.lurence.kafka_power_bi_bridge.logging;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * /actuator/hotpathlogging: shows the hot-path log settings and changes them without a restart.
+ * <pre>
+ *   curl -X POST localhost:8080/actuator/hotpathlogging -H 'Content-Type: application/json' \
+ *        -d '{"category":"raw","sample":"1/1000"}'
+ *   curl -X POST localhost:8080/actuator/hotpathlogging -H 'Content-Type: application/json' \
+ *        -d '{"enabled":false}'
+ * </pre>
+ */
+@Component
+@Endpoint(id = "hotpathlogging")
+public class HotPathLogEndpoint {
+    private final HotPathLog hotPathLog;
+
+    @Autowired
+    public HotPathLogEndpoint(HotPathLog hotPathLog) {
+        this.hotPathLog = hotPathLog;
+    }
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        return hotPathLog.settings();
+    }
+
+    /** Set the switch, a category's sampling, or both; a bad category or spec is rejected with a 400. */
+    @WriteOperation
+    public Map<String, Object> update(@Nullable Boolean enabled, @Nullable String category, @Nullable String sample) {
+        if (sample != null) {
+            if (category == null) {
+                throw new InvalidEndpointRequestException("sample needs a category", "Missing category");
+            }
+            try {
+                hotPathLog.setSample(HotPathLog.Category.valueOf(category.trim().toUpperCase(Locale.ROOT)), sample);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+            }
+        }
+        if (enabled != null) {
+            hotPathLog.setEnabled(enabled);
+        }
+        return hotPathLog.settings();
+    }
+}
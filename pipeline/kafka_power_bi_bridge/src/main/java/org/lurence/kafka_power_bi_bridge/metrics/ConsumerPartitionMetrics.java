@@ -0,0 +1,215 @@
+package org.lurence.kafka_power_bi_bridge.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-partition consumer metrics for the powerbi-stream listeners, collected by interceptors on
+ * the listener containers, so they see every poll on the consumer thread without the listener
+ * methods changing:
+ * <ul>
+ *   <li>kafka_consumer_partition_lag: end offset minus the consumer's position, from the high
+ *   watermark of the last fetch (Consumer#currentLag), so no extra broker round trip; NaN while
+ *   unknown or after the partition was revoked</li>
+ *   <li>kafka_consumer_partition_records_total / _bytes_total: records and serialized key+value
+ *   bytes handed to the listener; rate() gives records/s and bytes/s</li>
+ *   <li>kafka_consumer_partition_processing_seconds_total: listener time spent on the partition's
+ *   records; divided by the records rate it is the processing time per record</li>
+ *   <li>kafka_consumer_poll_seconds: time a batch consumer thread spends between listener calls,
+ *   which is the poll itself plus any polls that came back empty. The per-record listener is called
+ *   several times per poll, so it does not feed this timer</li>
+ * </ul>
+ * The lag of partitions that receive nothing is refreshed on the containers' idle events.
+ */
+@Component
+public class ConsumerPartitionMetrics {
+    private final MeterRegistry registry;
+    private final Timer pollTimer;
+    private final ConcurrentHashMap<TopicPartition, PartitionMeters> partitions = new ConcurrentHashMap<>();
+
+    // Per consumer thread: when the batch listener last returned, and when the current delivery started
+    private final ThreadLocal<long[]> timing = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final BatchInterceptor<String, Object> batchInterceptor = new BatchInterceptor<String, Object>() {
+        @Override
+        public ConsumerRecords<String, Object> intercept(ConsumerRecords<String, Object> records,
+                                                         Consumer<String, Object> consumer) {
+            started(true);
+            return records;
+        }
+
+        @Override
+        public void success(ConsumerRecords<String, Object> records, Consumer<String, Object> consumer) {
+            finished(records, consumer);
+        }
+
+        @Override
+        public void failure(ConsumerRecords<String, Object> records, Exception exception,
+                            Consumer<String, Object> consumer) {
+            finished(records, consumer);
+        }
+    };
+
+    private final RecordInterceptor<String, Object> recordInterceptor = new RecordInterceptor<String, Object>() {
+        @Override
+        public ConsumerRecord<String, Object> intercept(ConsumerRecord<String, Object> record,
+                                                        Consumer<String, Object> consumer) {
+            started(false);
+            return record;
+        }
+
+        @Override
+        public void success(ConsumerRecord<String, Object> record, Consumer<String, Object> consumer) {
+            finished(record, consumer);
+        }
+
+        @Override
+        public void failure(ConsumerRecord<String, Object> record, Exception exception,
+                            Consumer<String, Object> consumer) {
+            finished(record, consumer);
+        }
+    };
+
+    @Autowired
+    public ConsumerPartitionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.pollTimer = Timer.builder("kafka.consumer.poll")
+                .description("Time between batch listener calls on a consumer thread: the poll, including empty ones")
+                .register(registry);
+    }
+
+    /** Interceptor for the batch listener container factory. */
+    public BatchInterceptor<String, Object> batchInterceptor() {
+        return batchInterceptor;
+    }
+
+    /** Interceptor for the per-record listener container factory. */
+    public RecordInterceptor<String, Object> recordInterceptor() {
+        return recordInterceptor;
+    }
+
+    /** Mark the lag of partitions this consumer no longer owns as unknown; the new owner reports it. */
+    public void revoked(Collection<TopicPartition> revoked) {
+        for (TopicPartition partition : revoked) {
+            PartitionMeters meters = partitions.get(partition);
+            if (meters != null) {
+                meters.lag = -1;
+            }
+        }
+    }
+
+    /** Idle events are published on the consumer thread, so the consumer may be used here. */
+    @EventListener
+    public void handleIdleEvent(ListenerContainerIdleEvent event) {
+        Consumer<?, ?> consumer = event.getConsumer();
+        if (consumer != null) {
+            refreshLag(consumer, event.getTopicPartitions());
+        }
+    }
+
+    private void started(boolean afterPoll) {
+        long now = System.nanoTime();
+        long[] thread = timing.get();
+        if (afterPoll && thread[0] != 0) {
+            pollTimer.record(now - thread[0], TimeUnit.NANOSECONDS);
+        }
+        thread[1] = now;
+    }
+
+    private void finished(ConsumerRecords<String, Object> records, Consumer<String, Object> consumer) {
+        long now = System.nanoTime();
+        long[] thread = timing.get();
+        double seconds = (now - thread[1]) / 1e9;
+        int total = records.count();
+        for (TopicPartition partition : records.partitions()) {
+            PartitionMeters meters = meters(partition);
+            long bytes = 0;
+            int count = 0;
+            for (ConsumerRecord<String, Object> record : records.records(partition)) {
+                bytes += Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+                count++;
+            }
+            meters.records.increment(count);
+            meters.bytes.increment(bytes);
+            // The listener gets the whole poll at once; split its time by record count
+            meters.processing.increment(total == 0 ? 0 : seconds * count / total);
+        }
+        refreshLag(consumer, consumer.assignment());
+        thread[0] = System.nanoTime();
+    }
+
+    private void finished(ConsumerRecord<String, Object> record, Consumer<String, Object> consumer) {
+        long now = System.nanoTime();
+        long[] thread = timing.get();
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        PartitionMeters meters = meters(partition);
+        meters.records.increment();
+        meters.bytes.increment(Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize()));
+        meters.processing.increment((now - thread[1]) / 1e9);
+        updateLag(meters, consumer.currentLag(partition));
+    }
+
+    private void refreshLag(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+        for (TopicPartition partition : assigned) {
+            updateLag(meters(partition), consumer.currentLag(partition));
+        }
+    }
+
+    private static void updateLag(PartitionMeters meters, OptionalLong lag) {
+        if (lag.isPresent()) {
+            meters.lag = lag.getAsLong();
+        }
+    }
+
+    private PartitionMeters meters(TopicPartition partition) {
+        PartitionMeters meters = partitions.get(partition);
+        return meters != null ? meters : partitions.computeIfAbsent(partition, p -> new PartitionMeters(registry, p));
+    }
+
+    /** Meters of one partition. The lag is written by whichever consumer thread owns the partition. */
+    private static final class PartitionMeters {
+        final Counter records;
+        final Counter bytes;
+        final Counter processing;
+        volatile long lag = -1;
+
+        PartitionMeters(MeterRegistry registry, TopicPartition partition) {
+            String topic = partition.topic();
+            String number = String.valueOf(partition.partition());
+            this.records = Counter.builder("kafka.consumer.partition.records")
+                    .tag("topic", topic).tag("partition", number)
+                    .description("Records handed to the listener, per partition")
+                    .register(registry);
+            this.bytes = Counter.builder("kafka.consumer.partition.bytes")
+                    .tag("topic", topic).tag("partition", number)
+                    .description("Serialized key and value bytes handed to the listener, per partition")
+                    .register(registry);
+            this.processing = Counter.builder("kafka.consumer.partition.processing")
+                    .baseUnit("seconds")
+                    .tag("topic", topic).tag("partition", number)
+                    .description("Listener time spent on the partition's records")
+                    .register(registry);
+            Gauge.builder("kafka.consumer.partition.lag", this, m -> m.lag < 0 ? Double.NaN : m.lag)
+                    .tag("topic", topic).tag("partition", number)
+                    .description("Records between the consumer's position and the partition's end offset")
+                    .register(registry);
+        }
+    }
+}
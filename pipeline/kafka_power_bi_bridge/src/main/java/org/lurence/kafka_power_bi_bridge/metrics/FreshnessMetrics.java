@@ -0,0 +1,131 @@
+package org.lurence.kafka_power_bi_bridge.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end freshness of the data the bridge serves, as one {@code pipeline_freshness_seconds}
+ * histogram per stage:
+ * <ul>
+ *   <li>commit_to_jet: Postgres commit (Debezium source.ts_ms) to the Jet source reading the event</li>
+ *   <li>jet_to_bridge: Jet source to this bridge receiving the powerbi-stream record</li>
+ *   <li>commit_to_bridge: commit to ingest, also for messages that carry no Jet time</li>
+ *   <li>bridge_to_served: ingest to the first API response that could include the row</li>
+ *   <li>commit_to_served: commit to that first response, the freshness an API client sees</li>
+ * </ul>
+ * Buckets are the SLO boundaries in bridge.freshness.slo, so Prometheus can compute p99 with
+ * histogram_quantile and the share of rows within each SLO directly from the bucket counts.
+ * <p>
+ * A row counts as served once any polling endpoint answers with a body built from a store sequence
+ * past it. Rows evicted before anyone polled, and rows restored from the transaction log, are never
+ * recorded as served. The timestamps come from different hosts, so clock skew shows up in the
+ * per-stage numbers; negative differences are dropped.
+ */
+@Component
+public class FreshnessMetrics {
+    private final TransactionStore transactionStore;
+    private final boolean enabled;
+
+    private final Timer commitToJet;
+    private final Timer jetToBridge;
+    private final Timer commitToBridge;
+    private final Timer bridgeToServed;
+    private final Timer commitToServed;
+
+    // Every row below this sequence has been through served() already
+    private final AtomicLong servedSequence = new AtomicLong();
+
+    @Autowired
+    public FreshnessMetrics(MeterRegistry registry, TransactionStore transactionStore,
+                            @Value("${bridge.freshness.enabled:true}") boolean enabled,
+                            @Value("${bridge.freshness.slo:100ms,250ms,500ms,1s,2s,5s,10s,30s,60s}") Duration[] slo) {
+        this.transactionStore = transactionStore;
+        this.enabled = enabled;
+
+        this.commitToJet = timer(registry, "commit_to_jet", slo);
+        this.jetToBridge = timer(registry, "jet_to_bridge", slo);
+        this.commitToBridge = timer(registry, "commit_to_bridge", slo);
+        this.bridgeToServed = timer(registry, "bridge_to_served", slo);
+        this.commitToServed = timer(registry, "commit_to_served", slo);
+    }
+
+    private static Timer timer(MeterRegistry registry, String stage, Duration[] slo) {
+        // Prometheus keeps one HELP text per metric name, so the stages share a description
+        return Timer.builder("pipeline_freshness")
+                .tag("stage", stage)
+                .description("Time from a transaction's Postgres commit, or from the previous stage, to each pipeline stage")
+                .serviceLevelObjectives(slo)
+                .register(registry);
+    }
+
+    /** Stamp {@code row} with its ingest time and record the commit-to-Jet, Jet-to-bridge and commit-to-bridge stages. */
+    public void ingested(TransactionRow row, long receivedAt) {
+        row.setIngestedAt(receivedAt);
+        if (!enabled) {
+            return;
+        }
+        long committedAt = row.committedAt();
+        long jetAt = row.jetAt();
+        if (jetAt > 0) {
+            if (committedAt > 0) {
+                record(commitToJet, jetAt - committedAt);
+            }
+            record(jetToBridge, receivedAt - jetAt);
+        }
+        if (committedAt > 0) {
+            record(commitToBridge, receivedAt - committedAt);
+        }
+    }
+
+    /** {@link #ingested(TransactionRow, long)} for every row of a batch received at once. */
+    public void ingested(List<TransactionRow> rows, long receivedAt) {
+        for (TransactionRow row : rows) {
+            ingested(row, receivedAt);
+        }
+    }
+
+    /**
+     * Note that a response covering every row below {@code endSequence} is going out. Rows not seen
+     * by an earlier response get their bridge-to-served and commit-to-served times recorded, once.
+     */
+    public void served(long endSequence) {
+        if (!enabled) {
+            return;
+        }
+        long from;
+        do {
+            from = servedSequence.get();
+            if (endSequence <= from) {
+                return;
+            }
+        } while (!servedSequence.compareAndSet(from, endSequence));
+
+        long now = System.currentTimeMillis();
+        for (long seq = Math.max(from, transactionStore.oldestSequence()); seq < endSequence; seq++) {
+            long ingestedAt = transactionStore.ingestedAt(seq);
+            if (ingestedAt > 0) {
+                record(bridgeToServed, now - ingestedAt);
+            }
+            long committedAt = transactionStore.committedAt(seq);
+            if (committedAt > 0) {
+                record(commitToServed, now - committedAt);
+            }
+        }
+    }
+
+    private static void record(Timer timer, long millis) {
+        if (millis >= 0) {
+            timer.record(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
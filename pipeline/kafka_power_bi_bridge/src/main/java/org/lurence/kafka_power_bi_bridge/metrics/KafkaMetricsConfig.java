@@ -42,6 +42,13 @@ public class KafkaMetricsConfig {
         messagesProcessedCounter.increment();
     }
 
+    /**
+     * Method to add a whole batch to the messages processed counter
+     */
+    public void incrementMessagesProcessed(int count) {
+        messagesProcessedCounter.increment(count);
+    }
+
     /**
      * Method to increment the error counter
      */
@@ -49,6 +56,13 @@ public class KafkaMetricsConfig {
         kafkaErrorCounter.increment();
     }
 
+    /**
+     * Method to add a whole batch to the error counter
+     */
+    public void incrementErrors(int count) {
+        kafkaErrorCounter.increment(count);
+    }
+
     /**
      * Event listener for Kafka consumer idle events
      */
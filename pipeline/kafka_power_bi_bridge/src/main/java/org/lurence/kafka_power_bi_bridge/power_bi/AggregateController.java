@@ -0,0 +1,66 @@
+package org.lurence.kafka_power_bi_bridge.power_bi;
+
+import org.lurence.kafka_power_bi_bridge.aggregate.AggregateWindow;
+import org.lurence.kafka_power_bi_bridge.aggregate.WindowedAggregator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/aggregates")
+public class AggregateController {
+    private final WindowedAggregator aggregator;
+
+    @Autowired
+    public AggregateController(WindowedAggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    /**
+     * Windowed TRANSACTIONAMOUNT statistics (count, sum, min, max, mean).
+     * window: 1m, 5m or 1h; mode: tumbling (last completed window) or sliding (window ending now);
+     * groupBy: currency, paymentmode, bankidfrom or transactiontype, or all four when omitted.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getAggregates(
+            @RequestParam(defaultValue = "1m") String window,
+            @RequestParam(defaultValue = "sliding") String mode,
+            @RequestParam(required = false) String groupBy) {
+        AggregateWindow aggregateWindow = AggregateWindow.forLabel(window);
+        boolean sliding = "sliding".equalsIgnoreCase(mode);
+        if (aggregateWindow == null || (!sliding && !"tumbling".equalsIgnoreCase(mode))) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        WindowedAggregator.Dimension[] dimensions = WindowedAggregator.Dimension.values();
+        if (groupBy != null) {
+            WindowedAggregator.Dimension dimension = WindowedAggregator.Dimension.forKey(groupBy);
+            if (dimension == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            dimensions = new WindowedAggregator.Dimension[]{dimension};
+        }
+
+        long now = System.currentTimeMillis();
+        Map<String, Object> groups = new HashMap<>();
+        for (WindowedAggregator.Dimension dimension : dimensions) {
+            groups.put(dimension.key(), aggregator.query(dimension, aggregateWindow, sliding, now));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("window", aggregateWindow.label());
+        response.put("mode", sliding ? "sliding" : "tumbling");
+        response.put("from", WindowedAggregator.windowStart(aggregateWindow, sliding, now));
+        response.put("to", WindowedAggregator.windowEnd(aggregateWindow, sliding, now));
+        response.put("enabled", aggregator.isEnabled());
+        response.put("groups", groups);
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,83 @@
+package org.lurence.kafka_power_bi_bridge.power_bi;
+
+import com.hazelcast.client.HazelcastClientOfflineException;
+import com.hazelcast.sql.HazelcastSqlException;
+import org.lurence.kafka_power_bi_bridge.hazelcast.ClusterTransactionQuery;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactions from the Jet cluster's transactions IMap rather than this instance's local store,
+ * so every bridge replica sees the same, cluster-sized dataset.
+ * Answers 503 when the query layer is disabled (bridge.hazelcast.enabled) or the cluster is down.
+ */
+@RestController
+@RequestMapping("/api/v1/cluster/transactions")
+public class ClusterTransactionController {
+    private final ObjectProvider<ClusterTransactionQuery> queryProvider;
+
+    @Autowired
+    public ClusterTransactionController(ObjectProvider<ClusterTransactionQuery> queryProvider) {
+        this.queryProvider = queryProvider;
+    }
+
+    /**
+     * Newest first. from/to: TRANSACTIONDATE range in epoch millis (to exclusive);
+     * accountFrom and currency: exact matches; limit: 1 to 10000.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getTransactions(
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(required = false) Long accountFrom,
+            @RequestParam(required = false) String currency,
+            @RequestParam(defaultValue = "1000") int limit) {
+        ClusterTransactionQuery query = queryProvider.getIfAvailable();
+        if (query == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (limit < 1 || limit > ClusterTransactionQuery.MAX_LIMIT || (from != null && to != null && from >= to)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Map<String, Object>> rows;
+        try {
+            rows = query.find(from, to, accountFrom, currency, limit);
+        } catch (HazelcastClientOfflineException | HazelcastSqlException e) {
+            System.err.println("Cluster transaction query failed: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", rows);
+        response.put("count", rows.size());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> getTransaction(@PathVariable long id) {
+        ClusterTransactionQuery query = queryProvider.getIfAvailable();
+        if (query == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        Map<String, Object> transaction;
+        try {
+            transaction = query.get(id);
+        } catch (HazelcastClientOfflineException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return transaction == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(transaction);
+    }
+}
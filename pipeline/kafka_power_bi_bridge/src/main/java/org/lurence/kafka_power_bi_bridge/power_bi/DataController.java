@@ -116,225 +116,180 @@
 
 package org.lurence.kafka_power_bi_bridge.power_bi;
 
-import org.lurence.kafka_power_bi_bridge.kafka.MessageConsumer;
+import org.lurence.kafka_power_bi_bridge.metrics.FreshnessMetrics;
+import org.lurence.kafka_power_bi_bridge.store.TransactionFilter;
+import org.lurence.kafka_power_bi_bridge.store.TransactionIndex;
+import org.lurence.kafka_power_bi_bridge.store.TransactionPage;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.text.SimpleDateFormat;
-import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/data")
 public class DataController {
-    private final MessageConsumer messageConsumer;
+    private final ResponseCache responseCache;
+    private final TransactionStore transactionStore;
+    private final TransactionExporter exporter;
+    private final TransactionIndex transactionIndex;
+    private final FreshnessMetrics freshness;
 
     @Autowired
-    public DataController(MessageConsumer messageConsumer) {
-        this.messageConsumer = messageConsumer;
-    }
-
-    @GetMapping("/transactions")
-    public ResponseEntity<List<Map<String, Object>>> getTransactions() {
-        return ResponseEntity.ok(messageConsumer.getRecentTransactions());
+    public DataController(ResponseCache responseCache, TransactionStore transactionStore,
+                          TransactionExporter exporter, TransactionIndex transactionIndex,
+                          FreshnessMetrics freshness) {
+        this.responseCache = responseCache;
+        this.transactionStore = transactionStore;
+        this.exporter = exporter;
+        this.transactionIndex = transactionIndex;
+        this.freshness = freshness;
     }
 
     /**
-     * Enhanced endpoint for Power BI that properly handles Struct format messages
+     * The whole buffer, as before, written row by row straight from the store.
      */
-    @GetMapping("/powerbi")
-    public ResponseEntity<List<Map<String, Object>>> getPowerBITransactions() {
-        // Get the original transaction data
-        List<Map<String, Object>> transactions = messageConsumer.getRecentTransactions();
-
-        // Process each transaction, especially Struct formats
-        List<Map<String, Object>> processedTransactions = new ArrayList<>();
-
-        for (Map<String, Object> transaction : transactions) {
-            Map<String, Object> processedTransaction = new HashMap<>();
-
-            // Process each field in the transaction
-            for (Map.Entry<String, Object> entry : transaction.entrySet()) {
-                String key = entry.getKey();
-                Object value = entry.getValue();
-
-                // Handle Struct format
-                if (value instanceof String && ((String) value).startsWith("Struct{")) {
-                    String structString = (String) value;
-
-                    // Extract transactionid
-                    Pattern transactionIdPattern = Pattern.compile("transactionid=(\\d+)");
-                    Matcher matcher = transactionIdPattern.matcher(structString);
-                    if (matcher.find()) {
-                        processedTransaction.put("TRANSACTIONID", matcher.group(1));
-                    }
-
-                    // Extract and format transactiondate if present
-                    Pattern datePattern = Pattern.compile("transactiondate=([\\d\\.E\\+]+)");
-                    matcher = datePattern.matcher(structString);
-                    if (matcher.find()) {
-                        try {
-                            String dateStr = matcher.group(1);
-                            double timestamp = Double.parseDouble(dateStr);
-                            Date date = new Date((long)timestamp);
-                            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                            processedTransaction.put("TRANSACTIONDATE", sdf.format(date));
-                        } catch (Exception e) {
-                            processedTransaction.put("TRANSACTIONDATE", matcher.group(1));
-                        }
-                    }
-
-                    // Extract other common fields
-                    extractField(structString, "accountfrom", processedTransaction);
-                    extractField(structString, "accountto", processedTransaction);
-                    extractField(structString, "bankidfrom", processedTransaction);
-                    extractField(structString, "bankidto", processedTransaction);
-                    extractField(structString, "currency", processedTransaction);
-                    extractField(structString, "narrative", processedTransaction);
-                    extractField(structString, "paymentmode", processedTransaction);
-                    extractField(structString, "transactionamount", processedTransaction);
-                } else if (value instanceof String && ((String) value).matches("\\d+\\.\\d+E\\+\\d+")) {
-                    // Handle scientific notation for dates
-                    try {
-                        String dateStr = (String) value;
-                        double timestamp = Double.parseDouble(dateStr);
-                        Date date = new Date((long)timestamp);
-                        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                        processedTransaction.put(key.toUpperCase(), sdf.format(date));
-                    } catch (Exception e) {
-                        processedTransaction.put(key.toUpperCase(), value);
-                    }
-                } else {
-                    // Just standardize the key to uppercase
-                    processedTransaction.put(key.toUpperCase(), value);
-                }
-            }
-
-            // Only add if we have data
-            if (!processedTransaction.isEmpty()) {
-                processedTransactions.add(processedTransaction);
-            }
-        }
-
-        return ResponseEntity.ok(processedTransactions);
+    @GetMapping(value = "/transactions", params = "!since")
+    public ResponseEntity<StreamingResponseBody> getTransactions() {
+        long sequence = transactionStore.writeSequence();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> {
+                    exporter.writeJsonArray(out);
+                    freshness.served(sequence);
+                });
     }
 
     /**
-     * The original powerbi endpoint that wasn't working well
-     * Left for backward compatibility but marked as deprecated
+     * Only rows with a sequence >= since (at most {@code limit}), each tagged with
+     * _seq/_partition/_offset, plus the {@code next} cursor to pass on the following call.
      */
-    @Deprecated
-    @GetMapping("/transactions/powerbi")
-    public ResponseEntity<List<Map<String, Object>>> getTransactionsForPowerBI() {
-        List<Map<String, Object>> transactions = messageConsumer.getRecentTransactions();
+    @GetMapping(value = "/transactions", params = "since")
+    public ResponseEntity<Map<String, Object>> getTransactions(@RequestParam long since,
+                                                               @RequestParam(defaultValue = "1000") int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, transactionStore.capacity()));
+        TransactionPage page = transactionStore.readPage(since, boundedLimit, true);
+        freshness.served(page.getNextSequence());
 
-        // Standardize the keys across all records
-        // This ensures all records have the same fields, making it look like a CSV table
-        Set<String> allKeys = new HashSet<>();
-        for (Map<String, Object> transaction : transactions) {
-            allKeys.addAll(transaction.keySet());
-        }
-
-        // Create a standardized list of records with consistent fields
-        List<Map<String, Object>> standardizedTransactions = new ArrayList<>();
-        for (Map<String, Object> transaction : transactions) {
-            Map<String, Object> standardizedTransaction = new HashMap<>();
-
-            // Make sure each record has all fields, even if null
-            for (String key : allKeys) {
-                // Convert keys to uppercase to match the format in the screenshot
-                String upperCaseKey = key.toUpperCase();
-                standardizedTransaction.put(upperCaseKey, transaction.getOrDefault(key, null));
-            }
-
-            standardizedTransactions.add(standardizedTransaction);
-        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", page.getRows());
+        response.put("count", page.getRows().size());
+        response.put("next", page.getNextSequence());
+        response.put("missed", page.getMissed());
 
-        return ResponseEntity.ok(standardizedTransactions);
+        return ResponseEntity.ok(response);
     }
 
     /**
-     * Alternate format with a tabular structure
+     * Server-side filtering over the buffer, answered from the secondary indexes.
+     * Every parameter is optional and they combine with AND: accountFrom, accountTo, bankIdFrom,
+     * bankIdTo, currency and paymentMode are exact matches, minAmount/maxAmount an inclusive
+     * TRANSACTIONAMOUNT range, from/to a TRANSACTIONDATE range in epoch millis (to exclusive).
+     * Rows come oldest first with _seq/_partition/_offset; pass {@code next} as {@code cursor} to
+     * get the following page, or to poll for new matches once the last page has been read.
      */
-    @GetMapping("/transactions/table")
-    public ResponseEntity<Map<String, Object>> getTransactionsTable() {
-        List<Map<String, Object>> transactions = messageConsumer.getRecentTransactions();
+    @GetMapping("/transactions/query")
+    public ResponseEntity<Map<String, Object>> queryTransactions(
+            @RequestParam(required = false) Long accountFrom,
+            @RequestParam(required = false) Long accountTo,
+            @RequestParam(required = false) Long bankIdFrom,
+            @RequestParam(required = false) Long bankIdTo,
+            @RequestParam(required = false) String currency,
+            @RequestParam(required = false) String paymentMode,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(required = false) Double maxAmount,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "0") long cursor,
+            @RequestParam(defaultValue = "1000") int limit) {
+        TransactionFilter filter = new TransactionFilter()
+                .setAccountFrom(accountFrom)
+                .setAccountTo(accountTo)
+                .setBankIdFrom(bankIdFrom)
+                .setBankIdTo(bankIdTo)
+                .setCurrency(currency)
+                .setPaymentMode(paymentMode)
+                .setMinAmount(minAmount)
+                .setMaxAmount(maxAmount)
+                .setFrom(from)
+                .setTo(to);
+        if (cursor < 0 || !filter.isSatisfiable()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int boundedLimit = Math.max(1, Math.min(limit, transactionStore.capacity()));
+        TransactionPage page = transactionIndex.query(filter, cursor, boundedLimit);
+        freshness.served(page.getNextSequence());
 
-        // Return in a structured format better for Power BI
         Map<String, Object> response = new HashMap<>();
-        response.put("data", transactions);
-        response.put("count", transactions.size());
-        response.put("columns", getColumnInfo(transactions));
+        response.put("data", page.getRows());
+        response.put("count", page.getRows().size());
+        response.put("next", page.getNextSequence());
+        response.put("missed", page.getMissed());
 
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Helper method to get column information
+     * Streaming export of the buffer (or of rows since a cursor) as NDJSON or CSV.
+     * Rows are written as they are read from the store instead of being collected first.
      */
-    private List<Map<String, String>> getColumnInfo(List<Map<String, Object>> transactions) {
-        Set<String> uniqueKeys = new HashSet<>();
-
-        // Collect all unique keys
-        for (Map<String, Object> transaction : transactions) {
-            uniqueKeys.addAll(transaction.keySet());
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "" + Long.MAX_VALUE) long limit) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header("Content-Disposition", "attachment; filename=\"transactions.csv\"")
+                    .body(out -> exporter.writeCsv(out, since, limit));
         }
-
-        // Create column info
-        List<Map<String, String>> columns = new ArrayList<>();
-        for (String key : uniqueKeys) {
-            Map<String, String> column = new HashMap<>();
-            column.put("name", key);
-            column.put("type", guessType(transactions, key));
-            columns.add(column);
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> exporter.writeNdjson(out, since, limit));
         }
-
-        return columns;
+        return ResponseEntity.badRequest().build();
     }
 
     /**
-     * Helper method to guess data types
+     * Enhanced endpoint for Power BI that properly handles Struct format messages
      */
-    private String guessType(List<Map<String, Object>> transactions, String key) {
-        for (Map<String, Object> transaction : transactions) {
-            if (transaction.containsKey(key) && transaction.get(key) != null) {
-                Object value = transaction.get(key);
-                if (value instanceof Number) return "number";
-                if (value instanceof Boolean) return "boolean";
-                if (value instanceof Date) return "datetime";
-                return "string";
-            }
-        }
-        return "string"; // default
+    @GetMapping("/powerbi")
+    public ResponseEntity<byte[]> getPowerBITransactions(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return responseCache.respond("data/powerbi", ifNoneMatch, exporter::writePowerBIArray);
     }
 
     /**
-     * Helper method to extract a field from a Struct string
+     * The original powerbi endpoint that wasn't working well
+     * Left for backward compatibility but marked as deprecated
      */
-    private void extractField(String structString, String fieldName, Map<String, Object> result) {
-        Pattern pattern = Pattern.compile(fieldName + "=([^,}]+)");
-        Matcher matcher = pattern.matcher(structString.toLowerCase());
-        if (matcher.find()) {
-            String value = matcher.group(1).trim();
-            // Remove quotes if present
-            if (value.startsWith("\"") && value.endsWith("\"")) {
-                value = value.substring(1, value.length() - 1);
-            }
+    @Deprecated
+    @GetMapping("/transactions/powerbi")
+    public ResponseEntity<StreamingResponseBody> getTransactionsForPowerBI() {
+        // Every record gets the same (upper-case) fields, making it look like a CSV table
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(exporter::writeStandardized);
+    }
 
-            // Try to convert to number if possible
-            try {
-                if (value.contains(".")) {
-                    result.put(fieldName.toUpperCase(), Double.parseDouble(value));
-                } else {
-                    result.put(fieldName.toUpperCase(), Long.parseLong(value));
-                }
-            } catch (NumberFormatException e) {
-                result.put(fieldName.toUpperCase(), value);
-            }
-        }
+    /**
+     * Alternate format with a tabular structure
+     */
+    @GetMapping("/transactions/table")
+    public ResponseEntity<byte[]> getTransactionsTable(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return responseCache.respond("data/transactions/table", ifNoneMatch, exporter::writeTable);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,285 @@
+package org.lurence.kafka_power_bi_bridge.power_bi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.lurence.kafka_power_bi_bridge.kafka.StructTokenizer;
+import org.lurence.kafka_power_bi_bridge.store.TransactionColumn;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns buffered transactions into flat, upper-case Power BI rows.
+ * <p>
+ * The tbank_cleaned column schema is compiled once. Each distinct source key is resolved to its
+ * output column a single time and cached, so formatting a row does no regex work, no case
+ * conversion and no formatter construction.
+ */
+@Component
+public class PowerBIRowFormatter {
+    /** Shared, thread-safe replacement for the per-row SimpleDateFormat. */
+    public static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    // Epoch values above this are Debezium MicroTimestamps rather than millis (year 5138 in millis)
+    private static final long MICROS_THRESHOLD = 100_000_000_000_000L;
+
+    // Stop caching keys beyond this, in case a producer sends unbounded key names
+    private static final int MAX_CACHED_KEYS = 1024;
+
+    private enum ColumnType { NUMBER, TIMESTAMP, TEXT, OTHER }
+
+    private static final class Column {
+        final String name;
+        final ColumnType type;
+
+        Column(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private static final Map<String, Column> SCHEMA = new HashMap<>();
+    private static final TransactionColumn[] COLUMNS = TransactionColumn.values();
+
+    static {
+        for (String name : new String[]{"transactionid", "accountfrom", "accountto", "bankidfrom", "bankidto",
+                "transactionamount", "exchangerate", "transactiontype", "interimbalance", "accountto_interimbalance"}) {
+            SCHEMA.put(name, new Column(name.toUpperCase(), ColumnType.NUMBER));
+        }
+        for (String name : new String[]{"currency", "quotecurrency", "paymentmode", "overrideflag", "narrative"}) {
+            SCHEMA.put(name, new Column(name.toUpperCase(), ColumnType.TEXT));
+        }
+        SCHEMA.put("transactiondate", new Column("TRANSACTIONDATE", ColumnType.TIMESTAMP));
+    }
+
+    private final ConcurrentHashMap<String, Column> columnsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Format one buffered transaction. Struct-valued fields are expanded into their schema columns;
+     * the transaction date and scientific-notation timestamps are rendered as {@link #DATE_FORMAT}.
+     */
+    public Map<String, Object> toPowerBIRow(Map<String, Object> transaction) {
+        Map<String, Object> row = new HashMap<>(transaction.size() * 2);
+
+        for (Map.Entry<String, Object> entry : transaction.entrySet()) {
+            Object value = entry.getValue();
+
+            if (value instanceof String && ((String) value).startsWith("Struct{")) {
+                extractStruct((String) value, row);
+                continue;
+            }
+
+            Column column = column(entry.getKey());
+            if (column.type == ColumnType.TIMESTAMP || (value instanceof String && isScientific((String) value))) {
+                row.put(column.name, formatTimestamp(value));
+            } else {
+                row.put(column.name, value);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Write one store row as the object {@link #toPowerBIRow} would make of its map, straight from
+     * the row's fields. Rows still holding an unparsed Struct string go through the map instead.
+     *
+     * @return false, having written nothing, if the row has no fields
+     */
+    public boolean writePowerBIRow(JsonGenerator generator, TransactionRow row) throws IOException {
+        if (row.isEmpty()) {
+            return false;
+        }
+        if (hasStruct(row)) {
+            Map<String, Object> formatted = toPowerBIRow(toMap(row));
+            if (formatted.isEmpty()) {
+                return false;
+            }
+            generator.writeObject(formatted);
+            return true;
+        }
+
+        generator.writeStartObject();
+        for (TransactionColumn column : COLUMNS) {
+            if (!row.has(column)) {
+                continue;
+            }
+            generator.writeFieldName(column.name());
+            switch (column.type()) {
+                case TIMESTAMP:
+                    generator.writeString(formatEpoch(row.getLong(column)));
+                    break;
+                case DOUBLE:
+                    generator.writeNumber(row.getDouble(column));
+                    break;
+                case BOOLEAN:
+                    generator.writeBoolean(row.getLong(column) != 0);
+                    break;
+                case DICTIONARY:
+                case TEXT:
+                    String value = row.getString(column);
+                    if (value != null && isScientific(value)) {
+                        generator.writeObject(formatTimestamp(value));
+                    } else {
+                        generator.writeString(value);
+                    }
+                    break;
+                default:
+                    generator.writeNumber(row.getLong(column));
+            }
+        }
+        Map<String, Object> extras = row.extras();
+        if (extras != null) {
+            for (Map.Entry<String, Object> entry : extras.entrySet()) {
+                TransactionColumn schema = TransactionColumn.forKey(entry.getKey());
+                if (schema != null && row.has(schema)) {
+                    continue; // already written from the column
+                }
+                Object value = entry.getValue();
+                Column column = column(entry.getKey());
+                if (column.type == ColumnType.TIMESTAMP || (value instanceof String && isScientific((String) value))) {
+                    generator.writeObjectField(column.name, formatTimestamp(value));
+                } else {
+                    generator.writeObjectField(column.name, value);
+                }
+            }
+        }
+        generator.writeEndObject();
+        return true;
+    }
+
+    private static boolean hasStruct(TransactionRow row) {
+        for (TransactionColumn column : COLUMNS) {
+            if (row.has(column) && isStruct(row.getString(column))) {
+                return true;
+            }
+        }
+        if (row.extras() != null) {
+            for (Object value : row.extras().values()) {
+                if (value instanceof String && isStruct((String) value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isStruct(String value) {
+        return value != null && value.startsWith("Struct{");
+    }
+
+    /** The row as the store's maps have it: lower-case schema keys, then the extras. */
+    private static Map<String, Object> toMap(TransactionRow row) {
+        Map<String, Object> map = new HashMap<>(32);
+        for (TransactionColumn column : COLUMNS) {
+            if (!row.has(column)) {
+                continue;
+            }
+            switch (column.type()) {
+                case DOUBLE:
+                    map.put(column.key(), row.getDouble(column));
+                    break;
+                case BOOLEAN:
+                    map.put(column.key(), row.getLong(column) != 0);
+                    break;
+                case DICTIONARY:
+                case TEXT:
+                    map.put(column.key(), row.getString(column));
+                    break;
+                default:
+                    map.put(column.key(), row.getLong(column));
+            }
+        }
+        if (row.extras() != null) {
+            map.putAll(row.extras());
+        }
+        return map;
+    }
+
+    /** Copy the schema columns of a Struct string into the row in one tokenizer pass. */
+    private void extractStruct(String structString, Map<String, Object> row) {
+        StructTokenizer tokens = new StructTokenizer(structString);
+        while (tokens.next()) {
+            // Only row fields: the 'after' struct or a flat top-level struct
+            if (!tokens.inSection("after") && tokens.depth() > 1) {
+                continue;
+            }
+
+            Column column = SCHEMA.get(tokens.key());
+            if (column == null || tokens.isNull()) {
+                continue;
+            }
+
+            if (column.type == ColumnType.TIMESTAMP) {
+                if (tokens.isLong()) {
+                    row.put(column.name, formatEpoch(tokens.longValue()));
+                } else if (tokens.isDouble()) {
+                    row.put(column.name, formatEpoch((long) tokens.doubleValue()));
+                } else {
+                    row.put(column.name, tokens.stringValue());
+                }
+            } else if (column.type == ColumnType.NUMBER && tokens.isLong()) {
+                row.put(column.name, tokens.longValue());
+            } else if (column.type == ColumnType.NUMBER && tokens.isDouble()) {
+                row.put(column.name, tokens.doubleValue());
+            } else {
+                row.put(column.name, tokens.stringValue());
+            }
+        }
+    }
+
+    private Column column(String key) {
+        Column column = columnsByKey.get(key);
+        if (column == null) {
+            // Single lower-case pass per distinct key, then cached
+            column = SCHEMA.get(key.toLowerCase());
+            if (column == null) {
+                column = new Column(key.toUpperCase(), ColumnType.OTHER);
+            }
+            if (columnsByKey.size() < MAX_CACHED_KEYS) {
+                columnsByKey.putIfAbsent(key, column);
+            }
+        }
+        return column;
+    }
+
+    private static Object formatTimestamp(Object value) {
+        if (value instanceof Number) {
+            return formatEpoch(((Number) value).longValue());
+        }
+        if (value instanceof String) {
+            try {
+                return formatEpoch((long) Double.parseDouble((String) value));
+            } catch (NumberFormatException e) {
+                return value;
+            }
+        }
+        return value;
+    }
+
+    static String formatEpoch(long epoch) {
+        long millis = Math.abs(epoch) >= MICROS_THRESHOLD ? epoch / 1000 : epoch;
+        return DATE_FORMAT.format(Instant.ofEpochMilli(millis));
+    }
+
+    /** Matches digits '.' digits 'E+' digits, e.g. 1.7260707E+12, without a regex. */
+    static boolean isScientific(String s) {
+        int i = 0;
+        int n = s.length();
+        int start = i;
+        while (i < n && Character.isDigit(s.charAt(i))) i++;
+        if (i == start || i >= n || s.charAt(i) != '.') return false;
+        start = ++i;
+        while (i < n && Character.isDigit(s.charAt(i))) i++;
+        if (i == start || i + 1 >= n || s.charAt(i) != 'E' || s.charAt(i + 1) != '+') return false;
+        start = i += 2;
+        while (i < n && Character.isDigit(s.charAt(i))) i++;
+        return i > start && i == n;
+    }
+}
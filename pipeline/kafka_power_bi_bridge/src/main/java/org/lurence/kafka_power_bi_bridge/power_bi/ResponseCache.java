@@ -0,0 +1,157 @@
+package org.lurence.kafka_power_bi_bridge.power_bi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.lurence.kafka_power_bi_bridge.metrics.FreshnessMetrics;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serialized JSON bodies of the polling endpoints, versioned by the store's write sequence.
+ * <p>
+ * Power BI and Grafana poll the same URLs over and over while the topic is often idle. A body is
+ * rendered and serialized once per endpoint and per write sequence; until a new message is buffered
+ * every request is served from the cached bytes, and a matching If-None-Match gets a 304.
+ */
+@Component
+public class ResponseCache {
+    /** Writes one response body as a single JSON value. */
+    public interface BodyWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static final class Entry {
+        final long sequence;
+        final String etag;
+        final byte[] body;
+
+        Entry(long sequence, String etag, byte[] body) {
+            this.sequence = sequence;
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+
+    private final TransactionStore transactionStore;
+    private final ObjectMapper objectMapper;
+    private final FreshnessMetrics freshness;
+    private final boolean enabled;
+
+    // Sequences restart at 0 with the process, so ETags also carry the start time
+    private final String etagPrefix = Long.toHexString(System.currentTimeMillis()) + "-";
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ReentrantLock> renderLocks = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter notModified;
+
+    @Autowired
+    public ResponseCache(TransactionStore transactionStore, ObjectMapper objectMapper, MeterRegistry registry,
+                         FreshnessMetrics freshness, @Value("${bridge.response-cache.enabled:true}") boolean enabled) {
+        this.transactionStore = transactionStore;
+        this.objectMapper = objectMapper;
+        this.freshness = freshness;
+        this.enabled = enabled;
+
+        this.hits = Counter.builder("powerbi_response_cache_total")
+                .tag("result", "hit")
+                .description("Responses served from the serialized response cache")
+                .register(registry);
+
+        this.misses = Counter.builder("powerbi_response_cache_total")
+                .tag("result", "miss")
+                .description("Responses rendered and serialized because new transactions arrived")
+                .register(registry);
+
+        this.notModified = Counter.builder("powerbi_response_cache_total")
+                .tag("result", "not_modified")
+                .description("Conditional requests answered with 304 Not Modified")
+                .register(registry);
+    }
+
+    /**
+     * JSON response for {@code endpoint}. {@code renderer} only runs when the store has changed
+     * since the cached body was built.
+     */
+    public ResponseEntity<byte[]> respond(String endpoint, String ifNoneMatch, BodyWriter renderer) {
+        if (!enabled) {
+            long sequence = transactionStore.writeSequence();
+            byte[] body = serialize(renderer);
+            freshness.served(sequence);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+
+        // Read before rendering: if rows arrive meanwhile the entry is just refreshed one request early
+        long sequence = transactionStore.writeSequence();
+        Entry entry = entries.get(endpoint);
+        if (entry == null || entry.sequence < sequence) {
+            // Render under a per-endpoint lock rather than inside ConcurrentHashMap.compute, whose bin
+            // lock is a monitor and would pin a virtual thread for the whole render
+            ReentrantLock lock = renderLocks.computeIfAbsent(endpoint, key -> new ReentrantLock());
+            lock.lock();
+            try {
+                entry = entries.get(endpoint);
+                if (entry == null || entry.sequence < sequence) {
+                    misses.increment();
+                    entry = new Entry(sequence, "\"" + etagPrefix + sequence + "\"", serialize(renderer));
+                    entries.put(endpoint, entry);
+                } else {
+                    hits.increment(); // another request rendered it first
+                }
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            hits.increment();
+        }
+        freshness.served(entry.sequence);
+
+        if (ifNoneMatch != null && matches(ifNoneMatch, entry.etag)) {
+            notModified.increment();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(entry.etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(entry.body.length)
+                .body(entry.body);
+    }
+
+    private byte[] serialize(BodyWriter renderer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 * 1024);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(bytes)) {
+            renderer.write(generator);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not serialize response: " + e.getMessage(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** If-None-Match may list several tags, weak or strong, or be '*'. */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
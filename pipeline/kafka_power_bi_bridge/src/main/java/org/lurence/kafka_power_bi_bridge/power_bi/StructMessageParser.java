@@ -1,105 +1,56 @@
 package org.lurence.kafka_power_bi_bridge.kafka;
 
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Enhanced utilities for parsing Struct messages from Kafka
  */
 public class StructMessageParser {
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
 
     /**
-     * Parse a Struct message into a well-formatted Map
+     * Parse a Struct message into a well-formatted Map.
+     * Uses the fields of {@code after=Struct{...}} when present, otherwise the top-level fields.
      */
     public static Map<String, Object> parseStructMessage(String structMessage) {
-        Map<String, Object> result = new HashMap<>();
+        Map<String, Object> after = new HashMap<>();
+        Map<String, Object> topLevel = new HashMap<>();
 
-        // Extract transaction ID using regex
-        Pattern transactionIdPattern = Pattern.compile("Struct\\{transactionid=(\\d+)");
-        Matcher matcher = transactionIdPattern.matcher(structMessage);
-        if (matcher.find()) {
-            result.put("TRANSACTIONID", matcher.group(1));
-        }
-
-        // Parse other fields
         try {
-            // Extract content between Struct{ and }
-            int startIndex = structMessage.indexOf("{");
-            int endIndex = structMessage.lastIndexOf("}");
-
-            if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
-                String content = structMessage.substring(startIndex + 1, endIndex);
-
-                // Split by commas, but be careful about commas inside quotes
-                boolean inQuotes = false;
-                StringBuilder currentPart = new StringBuilder();
-                List<String> parts = new ArrayList<>();
-
-                for (char c : content.toCharArray()) {
-                    if (c == '"') {
-                        inQuotes = !inQuotes;
-                    }
-
-                    if (c == ',' && !inQuotes) {
-                        parts.add(currentPart.toString());
-                        currentPart = new StringBuilder();
-                    } else {
-                        currentPart.append(c);
-                    }
-                }
-
-                // Add the last part
-                if (currentPart.length() > 0) {
-                    parts.add(currentPart.toString());
+            StructTokenizer tokens = new StructTokenizer(structMessage);
+            while (tokens.next()) {
+                Map<String, Object> target;
+                if (tokens.inSection("after")) {
+                    target = after;
+                } else if (tokens.depth() <= 1) {
+                    target = topLevel;
+                } else {
+                    continue;
                 }
 
-                // Parse each field=value pair
-                for (String part : parts) {
-                    String[] keyValue = part.split("=", 2);
-                    if (keyValue.length == 2) {
-                        String key = keyValue[0].trim().toUpperCase(); // Convert to uppercase
-                        String value = keyValue[1].trim();
-
-                        // Handle specific field types
-                        if (key.equals("TRANSACTIONDATE")) {
-                            // Try to parse the timestamp and format it nicely
-                            try {
-                                long timestamp = Long.parseLong(value);
-                                Date date = new Date(timestamp);
-                                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                                result.put(key, sdf.format(date));
-                            } catch (NumberFormatException e) {
-                                // If parsing fails, just use the original value
-                                result.put(key, value);
-                            }
-                        } else {
-                            // Remove quotes from value if present
-                            if (value.startsWith("\"") && value.endsWith("\"")) {
-                                value = value.substring(1, value.length() - 1);
-                            }
-
-                            // Try to parse numeric values
-                            try {
-                                if (value.contains(".")) {
-                                    result.put(key, Double.parseDouble(value));
-                                } else {
-                                    result.put(key, Long.parseLong(value));
-                                }
-                            } catch (NumberFormatException e) {
-                                result.put(key, value);
-                            }
-                        }
-                    }
+                String key = tokens.keyUpperCase(); // Convert to uppercase
+                if (key.equals("TRANSACTIONDATE") && tokens.isLong()) {
+                    // Format the timestamp nicely
+                    target.put(key, DATE_FORMAT.format(Instant.ofEpochMilli(tokens.longValue())));
+                } else if (tokens.isLong()) {
+                    target.put(key, tokens.longValue());
+                } else if (tokens.isDouble()) {
+                    target.put(key, tokens.doubleValue());
+                } else {
+                    target.put(key, tokens.stringValue());
                 }
             }
         } catch (Exception e) {
             // Fallback - store the raw message
-            result.put("RAW_MESSAGE", structMessage);
+            topLevel.put("RAW_MESSAGE", structMessage);
+            return topLevel;
         }
 
-        return result;
+        return after.isEmpty() ? topLevel : after;
     }
 
     /**
@@ -0,0 +1,396 @@
+package org.lurence.kafka_power_bi_bridge.power_bi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.lurence.kafka_power_bi_bridge.store.TransactionColumn;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+import org.lurence.kafka_power_bi_bridge.store.TransactionStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes store rows straight to a response stream as NDJSON or CSV, and renders the whole-buffer
+ * JSON endpoints the same way.
+ * <p>
+ * Rows are read one at a time from the columns into a reused row and written through one
+ * generator/writer per request, so memory stays flat however large the export is. The output is
+ * flushed every {@code bridge.export.flush-rows} rows; a slow client blocks the write, which in
+ * turn holds back the scan (back-pressure through the servlet stream).
+ */
+@Component
+public class TransactionExporter {
+    private static final TransactionColumn[] COLUMNS = TransactionColumn.values();
+
+    private final TransactionStore transactionStore;
+    private final ObjectMapper objectMapper;
+    private final PowerBIRowFormatter rowFormatter;
+    private final int flushRows;
+
+    private final Counter ndjsonRows;
+    private final Counter csvRows;
+
+    @Autowired
+    public TransactionExporter(TransactionStore transactionStore, ObjectMapper objectMapper,
+                               PowerBIRowFormatter rowFormatter, MeterRegistry registry,
+                               @Value("${bridge.export.flush-rows:500}") int flushRows) {
+        this.transactionStore = transactionStore;
+        this.objectMapper = objectMapper;
+        this.rowFormatter = rowFormatter;
+        this.flushRows = Math.max(1, flushRows);
+
+        this.ndjsonRows = Counter.builder("powerbi_export_rows_total")
+                .tag("format", "ndjson")
+                .description("Rows written by the streaming export")
+                .register(registry);
+
+        this.csvRows = Counter.builder("powerbi_export_rows_total")
+                .tag("format", "csv")
+                .description("Rows written by the streaming export")
+                .register(registry);
+    }
+
+    /** One JSON object per line, same keys as /api/v1/data/transactions?since=... */
+    public void writeNdjson(OutputStream out, long since, long limit) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+        final long[] written = {0};
+        try {
+            transactionStore.scan(since, limit, (seq, row) -> {
+                writeJsonRow(generator, seq, row, true);
+                if (++written[0] % flushRows == 0) {
+                    generator.flush();
+                }
+            });
+            if (written[0] > 0) {
+                generator.writeRaw('\n');
+            }
+        } finally {
+            generator.close();
+            ndjsonRows.increment(written[0]);
+        }
+    }
+
+    /** Every buffered row as one JSON array, oldest first, with the keys of /api/v1/data/transactions. */
+    public void writeJsonArray(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            generator.writeStartArray();
+            long[] written = {0};
+            transactionStore.scan(0, Long.MAX_VALUE, (seq, row) -> {
+                writeJsonRow(generator, seq, row, false);
+                if (++written[0] % flushRows == 0) {
+                    generator.flush();
+                }
+            });
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+        }
+    }
+
+    /** Every buffered row formatted by {@link PowerBIRowFormatter}, as one JSON array. */
+    public void writePowerBIArray(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        transactionStore.scan(0, Long.MAX_VALUE, (seq, row) -> rowFormatter.writePowerBIRow(generator, row));
+        generator.writeEndArray();
+    }
+
+    /**
+     * {@code data}, {@code count} and {@code columns} of /api/v1/data/transactions/table. Schema
+     * columns take their type from the store; other fields from their first non-null value.
+     */
+    public void writeTable(JsonGenerator generator) throws IOException {
+        int[] seen = {0};
+        long[] count = {0};
+        Map<String, String> extraTypes = new LinkedHashMap<>();
+
+        generator.writeStartObject();
+        generator.writeFieldName("data");
+        generator.writeStartArray();
+        transactionStore.scan(0, Long.MAX_VALUE, (seq, row) -> {
+            writeJsonRow(generator, seq, row, false);
+            count[0]++;
+            seen[0] |= presentMask(row);
+            if (row.extras() != null) {
+                for (Map.Entry<String, Object> entry : row.extras().entrySet()) {
+                    if (extraTypes.get(entry.getKey()) == null) {
+                        extraTypes.put(entry.getKey(), entry.getValue() == null ? null : jsonType(entry.getValue()));
+                    }
+                }
+            }
+        });
+        generator.writeEndArray();
+        generator.writeNumberField("count", count[0]);
+
+        generator.writeFieldName("columns");
+        generator.writeStartArray();
+        for (TransactionColumn column : COLUMNS) {
+            if ((seen[0] & column.bit()) != 0) {
+                writeColumnInfo(generator, column.key(), columnType(column));
+            }
+        }
+        for (Map.Entry<String, String> entry : extraTypes.entrySet()) {
+            writeColumnInfo(generator, entry.getKey(), entry.getValue() == null ? "string" : entry.getValue());
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * The deprecated /api/v1/data/transactions/powerbi body: every row with the upper-cased keys of
+     * all rows, null where a row lacks one. Takes two passes over the buffer, one for the key set
+     * and one for the rows; rows appended in between are left for the next request.
+     */
+    public void writeStandardized(OutputStream out) throws IOException {
+        long start = transactionStore.oldestSequence();
+        int[] seen = {0};
+        Map<String, Integer> extraKeys = new HashMap<>();
+        Map<String, Integer> upperKeys = new LinkedHashMap<>();
+        long end = transactionStore.scan(start, Long.MAX_VALUE, (seq, row) -> {
+            seen[0] |= presentMask(row);
+            if (row.extras() != null) {
+                for (String key : row.extras().keySet()) {
+                    if (!extraKeys.containsKey(key)) {
+                        String upper = key.toUpperCase();
+                        Integer index = upperKeys.get(upper);
+                        if (index == null) {
+                            index = upperKeys.size();
+                            upperKeys.put(upper, index);
+                        }
+                        extraKeys.put(key, index);
+                    }
+                }
+            }
+        });
+        String[] extraNames = upperKeys.keySet().toArray(new String[0]);
+        boolean[] written = new boolean[extraNames.length];
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try {
+            generator.writeStartArray();
+            long[] rows = {0};
+            transactionStore.scan(start, end - start, (seq, row) -> {
+                generator.writeStartObject();
+                for (TransactionColumn column : COLUMNS) {
+                    if ((seen[0] & column.bit()) == 0) {
+                        continue;
+                    }
+                    generator.writeFieldName(column.name());
+                    if (row.has(column)) {
+                        writeJsonValue(generator, column, row);
+                    } else {
+                        generator.writeNull();
+                    }
+                }
+                Arrays.fill(written, false);
+                if (row.extras() != null) {
+                    for (Map.Entry<String, Object> entry : row.extras().entrySet()) {
+                        Integer index = extraKeys.get(entry.getKey());
+                        if (index != null && !written[index]) {
+                            written[index] = true;
+                            generator.writeObjectField(extraNames[index], entry.getValue());
+                        }
+                    }
+                }
+                for (int i = 0; i < extraNames.length; i++) {
+                    if (!written[i]) {
+                        generator.writeNullField(extraNames[i]);
+                    }
+                }
+                generator.writeEndObject();
+                if (++rows[0] % flushRows == 0) {
+                    generator.flush();
+                }
+            });
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+        }
+    }
+
+    private static int presentMask(TransactionRow row) {
+        int mask = 0;
+        for (TransactionColumn column : COLUMNS) {
+            if (row.has(column)) {
+                mask |= column.bit();
+            }
+        }
+        return mask;
+    }
+
+    private static void writeColumnInfo(JsonGenerator generator, String name, String type) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("name", name);
+        generator.writeStringField("type", type);
+        generator.writeEndObject();
+    }
+
+    private static String columnType(TransactionColumn column) {
+        switch (column.type()) {
+            case BOOLEAN:
+                return "boolean";
+            case DICTIONARY:
+            case TEXT:
+                return "string";
+            default:
+                return "number";
+        }
+    }
+
+    private static String jsonType(Object value) {
+        if (value instanceof Number) return "number";
+        if (value instanceof Boolean) return "boolean";
+        if (value instanceof Date) return "datetime";
+        return "string";
+    }
+
+    private void writeJsonRow(JsonGenerator generator, long seq, TransactionRow row, boolean withPosition)
+            throws IOException {
+        generator.writeStartObject();
+        if (withPosition) {
+            generator.writeNumberField(TransactionStore.SEQ, seq);
+            if (row.partition() >= 0) {
+                generator.writeNumberField(TransactionStore.PARTITION, row.partition());
+                generator.writeNumberField(TransactionStore.OFFSET, row.offset());
+            }
+        }
+        for (TransactionColumn column : COLUMNS) {
+            if (!row.has(column)) {
+                continue;
+            }
+            generator.writeFieldName(column.key());
+            writeJsonValue(generator, column, row);
+        }
+        Map<String, Object> extras = row.extras();
+        if (extras != null) {
+            for (Map.Entry<String, Object> entry : extras.entrySet()) {
+                generator.writeObjectField(entry.getKey(), entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeJsonValue(JsonGenerator generator, TransactionColumn column, TransactionRow row)
+            throws IOException {
+        switch (column.type()) {
+            case DOUBLE:
+                generator.writeNumber(row.getDouble(column));
+                break;
+            case BOOLEAN:
+                generator.writeBoolean(row.getLong(column) != 0);
+                break;
+            case DICTIONARY:
+            case TEXT:
+                generator.writeString(row.getString(column));
+                break;
+            default:
+                generator.writeNumber(row.getLong(column));
+        }
+    }
+
+    /**
+     * Fixed-column CSV with a header row: position columns, then the tbank_cleaned columns in
+     * upper case as Power BI expects. TRANSACTIONDATE is rendered as yyyy-MM-dd HH:mm:ss and
+     * non-schema fields are left out.
+     */
+    public void writeCsv(OutputStream out, long since, long limit) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        StringBuilder line = new StringBuilder(256);
+
+        line.append("_SEQ,_PARTITION,_OFFSET");
+        for (TransactionColumn column : COLUMNS) {
+            line.append(',').append(column.name());
+        }
+        writer.append(line).append('\n');
+
+        final long[] written = {0};
+        try {
+            transactionStore.scan(since, limit, (seq, row) -> {
+                line.setLength(0);
+                appendCsvRow(line, seq, row);
+                writer.append(line).append('\n');
+                if (++written[0] % flushRows == 0) {
+                    writer.flush();
+                }
+            });
+        } finally {
+            writer.flush();
+            csvRows.increment(written[0]);
+        }
+    }
+
+    private static void appendCsvRow(StringBuilder line, long seq, TransactionRow row) {
+        line.append(seq).append(',');
+        if (row.partition() >= 0) {
+            line.append(row.partition()).append(',').append(row.offset());
+        } else {
+            line.append(',');
+        }
+        for (TransactionColumn column : COLUMNS) {
+            line.append(',');
+            if (!row.has(column)) {
+                continue;
+            }
+            switch (column.type()) {
+                case DOUBLE:
+                    line.append(row.getDouble(column));
+                    break;
+                case BOOLEAN:
+                    line.append(row.getLong(column) != 0);
+                    break;
+                case TIMESTAMP:
+                    PowerBIRowFormatter.DATE_FORMAT.formatTo(Instant.ofEpochMilli(row.getLong(column)), line);
+                    break;
+                case DICTIONARY:
+                case TEXT:
+                    appendCsvText(line, row.getString(column));
+                    break;
+                default:
+                    line.append(row.getLong(column));
+            }
+        }
+    }
+
+    private static void appendCsvText(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') line.append('"');
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,54 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * String dictionary for low-cardinality columns such as CURRENCY and PAYMENTMODE.
+ * Codes are assigned by the store's writers; readers decode codes they saw in a published row.
+ */
+final class DictionaryColumn {
+    static final int MAX_ENTRIES = 1 << 16;
+
+    // Lock-free lookups for values already coded; new values are added under the lock
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // Replaced (never mutated in place for existing codes) when it grows, so readers always see a full prefix
+    private volatile String[] values = new String[16];
+    private volatile int size;
+
+    /**
+     * Code for a value, adding it if needed. Returns -1 once the dictionary is full.
+     */
+    int encode(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size >= MAX_ENTRIES) {
+            return -1;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[size] = value;
+        values = current;
+        // Publish the code only after its value is readable through the volatile array
+        codes.put(value, size);
+        return size++;
+    }
+
+    String decode(int code) {
+        return values[code];
+    }
+
+    int size() {
+        return size;
+    }
+}
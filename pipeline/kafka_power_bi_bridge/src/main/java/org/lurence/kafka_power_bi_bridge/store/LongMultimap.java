@@ -0,0 +1,87 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+/**
+ * Open-addressing hash map from a primitive long column value to the {@link SequenceList} of rows
+ * holding it, so indexing an account or bank id boxes nothing.
+ */
+final class LongMultimap {
+    private long[] keys = new long[64];
+    private SequenceList[] lists = new SequenceList[64];
+    private int size;
+
+    void put(long key, long sequence) {
+        int slot = find(key);
+        SequenceList list = lists[slot];
+        if (list == null) {
+            list = new SequenceList();
+            keys[slot] = key;
+            lists[slot] = list;
+            if (++size > keys.length / 2) {
+                rehash(keys.length * 2, false);
+            }
+        }
+        list.add(sequence);
+    }
+
+    /** Rows for {@code key}, or null. */
+    SequenceList get(long key) {
+        return lists[find(key)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Trim every list to {@code oldest} and drop keys with no rows left, shrinking the table if
+     * most keys are gone.
+     */
+    void sweep(long oldest) {
+        int live = 0;
+        for (SequenceList list : lists) {
+            if (list != null) {
+                list.trim(oldest);
+                if (!list.isEmpty()) {
+                    live++;
+                }
+            }
+        }
+        int capacity = 64;
+        while (capacity / 2 < live) {
+            capacity *= 2;
+        }
+        rehash(capacity, true);
+    }
+
+    private void rehash(int capacity, boolean dropEmpty) {
+        long[] oldKeys = keys;
+        SequenceList[] oldLists = lists;
+        keys = new long[capacity];
+        lists = new SequenceList[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            SequenceList list = oldLists[i];
+            if (list != null && (!dropEmpty || !list.isEmpty())) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                lists[slot] = list;
+                size++;
+            }
+        }
+    }
+
+    /** Slot holding {@code key}, or the empty slot where it would go (linear probing). */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (lists[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
@@ -0,0 +1,66 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import java.util.Arrays;
+
+/**
+ * Ascending store sequences for one index key. Appends go at the tail; sequences the ring has
+ * evicted are dropped from the head.
+ */
+final class SequenceList {
+    private long[] sequences = new long[2];
+    private int head;
+    private int tail;
+
+    void add(long sequence) {
+        if (tail == sequences.length) {
+            if (head >= sequences.length / 2) {
+                // Mostly evicted: slide the live part down instead of growing
+                System.arraycopy(sequences, head, sequences, 0, tail - head);
+                tail -= head;
+                head = 0;
+            } else {
+                sequences = Arrays.copyOf(sequences, sequences.length * 2);
+            }
+        }
+        sequences[tail++] = sequence;
+    }
+
+    /** Drop sequences below {@code oldest}. */
+    void trim(long oldest) {
+        while (head < tail && sequences[head] < oldest) {
+            head++;
+        }
+    }
+
+    boolean isEmpty() {
+        return head == tail;
+    }
+
+    /** Entries, including any not trimmed yet. */
+    int size() {
+        return tail - head;
+    }
+
+    /** Position of the first sequence >= {@code from}; {@link #end()} if there is none. */
+    int search(long from) {
+        int lo = head;
+        int hi = tail;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sequences[mid] < from) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    int end() {
+        return tail;
+    }
+
+    long get(int position) {
+        return sequences[position];
+    }
+}
@@ -0,0 +1,147 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import java.util.Arrays;
+
+/**
+ * (value, sequence) pairs of one numeric column in value order, for range lookups.
+ * <p>
+ * Two sorted runs in parallel primitive arrays: a large main run and a small buffer that new
+ * entries are inserted into. When the buffer fills it is merged into the main run, dropping
+ * entries the ring has evicted on the way, so an insert costs O(buffer) plus an amortized share
+ * of the merge, and a range lookup is two binary searches per run plus the matches.
+ */
+final class SortedIndex {
+    private static final int BUFFER = 1024;
+
+    private double[] values = new double[BUFFER];
+    private long[] sequences = new long[BUFFER];
+    private int size;
+
+    private final double[] bufferValues = new double[BUFFER];
+    private final long[] bufferSequences = new long[BUFFER];
+    private int bufferSize;
+
+    // Merge target, swapped with the main run after each merge
+    private double[] spareValues = new double[BUFFER];
+    private long[] spareSequences = new long[BUFFER];
+
+    void add(double value, long sequence, long oldest) {
+        if (bufferSize == BUFFER) {
+            merge(oldest);
+        }
+        // Sequences only grow, so equal values stay in sequence order by inserting after them
+        int at = upperBound(bufferValues, bufferSize, value);
+        System.arraycopy(bufferValues, at, bufferValues, at + 1, bufferSize - at);
+        System.arraycopy(bufferSequences, at, bufferSequences, at + 1, bufferSize - at);
+        bufferValues[at] = value;
+        bufferSequences[at] = sequence;
+        bufferSize++;
+    }
+
+    /** Entries with a value in [{@code min}, {@code max}], including any not evicted yet. */
+    int count(double min, double max) {
+        return Math.max(0, upperBound(values, size, max) - lowerBound(values, size, min))
+                + Math.max(0, upperBound(bufferValues, bufferSize, max) - lowerBound(bufferValues, bufferSize, min));
+    }
+
+    /** Append the sequences >= {@code from} with a value in [{@code min}, {@code max}] to {@code out}, unordered. */
+    void collect(double min, double max, long from, LongBuffer out) {
+        collect(values, sequences, size, min, max, from, out);
+        collect(bufferValues, bufferSequences, bufferSize, min, max, from, out);
+    }
+
+    private static void collect(double[] values, long[] sequences, int size, double min, double max, long from,
+                                LongBuffer out) {
+        int end = upperBound(values, size, max);
+        for (int i = lowerBound(values, size, min); i < end; i++) {
+            if (sequences[i] >= from) {
+                out.add(sequences[i]);
+            }
+        }
+    }
+
+    private void merge(long oldest) {
+        int needed = size + bufferSize;
+        if (spareValues.length < needed) {
+            int length = Math.max(needed, spareValues.length * 2);
+            spareValues = new double[length];
+            spareSequences = new long[length];
+        }
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < size || j < bufferSize) {
+            boolean fromMain = j == bufferSize || (i < size && values[i] <= bufferValues[j]);
+            double value = fromMain ? values[i] : bufferValues[j];
+            long sequence = fromMain ? sequences[i++] : bufferSequences[j++];
+            if (sequence >= oldest) {
+                spareValues[n] = value;
+                spareSequences[n] = sequence;
+                n++;
+            }
+        }
+        double[] mergedValues = spareValues;
+        long[] mergedSequences = spareSequences;
+        spareValues = values;
+        spareSequences = sequences;
+        values = mergedValues;
+        sequences = mergedSequences;
+        size = n;
+        bufferSize = 0;
+    }
+
+    /** First position with a value >= {@code value}. */
+    private static int lowerBound(double[] values, int size, double value) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** First position with a value > {@code value}. */
+    private static int upperBound(double[] values, int size, double value) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Growable long[] for collected sequences. */
+    static final class LongBuffer {
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void sort() {
+            Arrays.sort(values, 0, size);
+        }
+
+        int size() {
+            return size;
+        }
+
+        long get(int i) {
+            return values[i];
+        }
+    }
+}
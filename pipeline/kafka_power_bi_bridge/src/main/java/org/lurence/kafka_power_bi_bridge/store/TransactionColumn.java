@@ -0,0 +1,87 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Columns of the tbank_cleaned table (databases/transactions/03-schema.sql) and how the
+ * {@link TransactionStore} keeps each of them in memory.
+ */
+public enum TransactionColumn {
+    TRANSACTIONID(Type.LONG),
+    ACCOUNTFROM(Type.LONG),
+    ACCOUNTTO(Type.LONG),
+    BANKIDFROM(Type.LONG),
+    BANKIDTO(Type.LONG),
+    TRANSACTIONAMOUNT(Type.DOUBLE),
+    EXCHANGERATE(Type.DOUBLE),
+    TRANSACTIONDATE(Type.TIMESTAMP),
+    TRANSACTIONTYPE(Type.INT),
+    INTERIMBALANCE(Type.DOUBLE),
+    ACCOUNTTO_INTERIMBALANCE(Type.DOUBLE),
+    CURRENCY(Type.DICTIONARY),
+    QUOTECURRENCY(Type.DICTIONARY),
+    PAYMENTMODE(Type.DICTIONARY),
+    OVERRIDEFLAG(Type.BOOLEAN),
+    NARRATIVE(Type.TEXT);
+
+    /** Physical representation of a column. */
+    public enum Type {
+        /** long[] */
+        LONG,
+        /** double[] */
+        DOUBLE,
+        /** int[] */
+        INT,
+        /** long[] of epoch millis */
+        TIMESTAMP,
+        /** int[] of codes into a per-column dictionary */
+        DICTIONARY,
+        /** boolean[] */
+        BOOLEAN,
+        /** String[] */
+        TEXT
+    }
+
+    private static final TransactionColumn[] VALUES = values();
+    private static final Map<String, TransactionColumn> BY_KEY = new HashMap<>();
+
+    static {
+        for (TransactionColumn column : VALUES) {
+            BY_KEY.put(column.key, column);
+            BY_KEY.put(column.name(), column);
+        }
+    }
+
+    private final Type type;
+    private final String key;
+
+    TransactionColumn(Type type) {
+        this.type = type;
+        this.key = name().toLowerCase();
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    /** Lower-case field name, as used in the buffered transaction maps. */
+    public String key() {
+        return key;
+    }
+
+    /** Bit of this column in a row's presence mask. */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /** Column for a field name in any case, or null if it is not part of the schema. */
+    public static TransactionColumn forKey(String key) {
+        TransactionColumn column = BY_KEY.get(key);
+        return column != null ? column : BY_KEY.get(key.toLowerCase());
+    }
+
+    static TransactionColumn[] all() {
+        return VALUES;
+    }
+}
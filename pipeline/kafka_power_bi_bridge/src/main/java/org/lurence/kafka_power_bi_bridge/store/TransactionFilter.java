@@ -0,0 +1,171 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+/**
+ * Conditions for {@link TransactionIndex#query}. Unset (null) conditions match every row; set ones
+ * must all hold. Amounts are inclusive on both ends, dates (epoch millis) are from inclusive, to
+ * exclusive.
+ */
+public final class TransactionFilter {
+    private Long accountFrom;
+    private Long accountTo;
+    private Long bankIdFrom;
+    private Long bankIdTo;
+    private String currency;
+    private String paymentMode;
+    private Double minAmount;
+    private Double maxAmount;
+    private Long from;
+    private Long to;
+
+    public Long getAccountFrom() {
+        return accountFrom;
+    }
+
+    public TransactionFilter setAccountFrom(Long accountFrom) {
+        this.accountFrom = accountFrom;
+        return this;
+    }
+
+    public Long getAccountTo() {
+        return accountTo;
+    }
+
+    public TransactionFilter setAccountTo(Long accountTo) {
+        this.accountTo = accountTo;
+        return this;
+    }
+
+    public Long getBankIdFrom() {
+        return bankIdFrom;
+    }
+
+    public TransactionFilter setBankIdFrom(Long bankIdFrom) {
+        this.bankIdFrom = bankIdFrom;
+        return this;
+    }
+
+    public Long getBankIdTo() {
+        return bankIdTo;
+    }
+
+    public TransactionFilter setBankIdTo(Long bankIdTo) {
+        this.bankIdTo = bankIdTo;
+        return this;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public TransactionFilter setCurrency(String currency) {
+        this.currency = currency;
+        return this;
+    }
+
+    public String getPaymentMode() {
+        return paymentMode;
+    }
+
+    public TransactionFilter setPaymentMode(String paymentMode) {
+        this.paymentMode = paymentMode;
+        return this;
+    }
+
+    public Double getMinAmount() {
+        return minAmount;
+    }
+
+    public TransactionFilter setMinAmount(Double minAmount) {
+        this.minAmount = minAmount;
+        return this;
+    }
+
+    public Double getMaxAmount() {
+        return maxAmount;
+    }
+
+    public TransactionFilter setMaxAmount(Double maxAmount) {
+        this.maxAmount = maxAmount;
+        return this;
+    }
+
+    public Long getFrom() {
+        return from;
+    }
+
+    public TransactionFilter setFrom(Long from) {
+        this.from = from;
+        return this;
+    }
+
+    public Long getTo() {
+        return to;
+    }
+
+    public TransactionFilter setTo(Long to) {
+        this.to = to;
+        return this;
+    }
+
+    /** True if no condition is set. */
+    public boolean isEmpty() {
+        return accountFrom == null && accountTo == null && bankIdFrom == null && bankIdTo == null
+                && currency == null && paymentMode == null && minAmount == null && maxAmount == null
+                && from == null && to == null;
+    }
+
+    /** True if the ranges can match anything at all. */
+    public boolean isSatisfiable() {
+        return (minAmount == null || maxAmount == null || minAmount <= maxAmount)
+                && (from == null || to == null || from < to);
+    }
+
+    public boolean matches(TransactionRow row) {
+        return matches(row, TransactionColumn.ACCOUNTFROM, accountFrom)
+                && matches(row, TransactionColumn.ACCOUNTTO, accountTo)
+                && matches(row, TransactionColumn.BANKIDFROM, bankIdFrom)
+                && matches(row, TransactionColumn.BANKIDTO, bankIdTo)
+                && matches(row, TransactionColumn.CURRENCY, currency)
+                && matches(row, TransactionColumn.PAYMENTMODE, paymentMode)
+                && matchesAmount(row)
+                && matchesDate(row);
+    }
+
+    private static boolean matches(TransactionRow row, TransactionColumn column, Long value) {
+        return value == null || (row.has(column) && row.getLong(column) == value);
+    }
+
+    private static boolean matches(TransactionRow row, TransactionColumn column, String value) {
+        return value == null || (row.has(column) && value.equals(row.getString(column)));
+    }
+
+    private boolean matchesAmount(TransactionRow row) {
+        if (minAmount == null && maxAmount == null) {
+            return true;
+        }
+        if (!row.has(TransactionColumn.TRANSACTIONAMOUNT)) {
+            return false;
+        }
+        double amount = row.getDouble(TransactionColumn.TRANSACTIONAMOUNT);
+        return (minAmount == null || amount >= minAmount) && (maxAmount == null || amount <= maxAmount);
+    }
+
+    private boolean matchesDate(TransactionRow row) {
+        if (from == null && to == null) {
+            return true;
+        }
+        if (!row.has(TransactionColumn.TRANSACTIONDATE)) {
+            return false;
+        }
+        long date = row.getLong(TransactionColumn.TRANSACTIONDATE);
+        return (from == null || date >= from) && (to == null || date < to);
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionFilter{accountFrom=" + accountFrom + ", accountTo=" + accountTo
+                + ", bankIdFrom=" + bankIdFrom + ", bankIdTo=" + bankIdTo + ", currency=" + currency
+                + ", paymentMode=" + paymentMode + ", amount=[" + minAmount + ", " + maxAmount + "]"
+                + ", date=[" + from + ", " + to + ")}";
+    }
+}
@@ -0,0 +1,370 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Secondary indexes over the {@link TransactionStore}, so filtered queries touch only the rows
+ * that can match instead of scanning the whole ring.
+ * <p>
+ * ACCOUNTFROM, ACCOUNTTO, BANKIDFROM and BANKIDTO map each value to the ascending sequences of its
+ * rows (primitive multimaps), CURRENCY and PAYMENTMODE do the same per string, and
+ * TRANSACTIONAMOUNT and TRANSACTIONDATE are kept in value order for range lookups. The store feeds
+ * every batch the Kafka listeners append from its queue of published batches, so entries arrive in
+ * sequence order whichever listener thread wrote them, slightly behind the store; queries check the
+ * rows past the indexed ones directly. Evicted rows are dropped lazily: on reads, on each
+ * sorted-index merge, and in a sweep once per ring's worth of appends.
+ * <p>
+ * A query estimates each set condition's match count from its index, walks the smallest
+ * candidate set in sequence order and checks the remaining conditions against the row, so a
+ * selective query costs O(log n + k) for k candidates.
+ */
+@Component
+public class TransactionIndex implements TransactionStore.Journal {
+    // Candidates copied out per lock acquisition when walking a multimap
+    private static final int CHUNK = 256;
+
+    private final TransactionStore store;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongMultimap accountFrom = new LongMultimap();
+    private final LongMultimap accountTo = new LongMultimap();
+    private final LongMultimap bankIdFrom = new LongMultimap();
+    private final LongMultimap bankIdTo = new LongMultimap();
+    private final Map<String, SequenceList> currency = new HashMap<>();
+    private final Map<String, SequenceList> paymentMode = new HashMap<>();
+    private final SortedIndex amount = new SortedIndex();
+    private final SortedIndex date = new SortedIndex();
+
+    private long appendsSinceSweep;
+    // End of the rows indexed so far
+    private volatile long indexedSequence;
+
+    private final Map<String, Counter> queriesByPlan = new HashMap<>();
+
+    @Autowired
+    public TransactionIndex(TransactionStore store, MeterRegistry meterRegistry,
+                            @Value("${bridge.index.enabled:true}") boolean enabled) {
+        this.store = store;
+        this.enabled = enabled;
+
+        for (String plan : new String[]{"accountfrom", "accountto", "bankidfrom", "bankidto", "currency",
+                "paymentmode", "transactionamount", "transactiondate", "scan"}) {
+            queriesByPlan.put(plan, Counter.builder("transactions_index_queries_total")
+                    .description("Filtered transaction queries, by the index that drove them")
+                    .tag("plan", plan)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("transactions_index_keys", this, TransactionIndex::keyCount)
+                .description("Distinct account and bank ids held in the secondary indexes")
+                .register(meterRegistry);
+
+        if (enabled) {
+            // Holding the write lock while attaching, rows the store hands over meanwhile wait for
+            // the backfill instead of being indexed twice or skipped
+            lock.writeLock().lock();
+            try {
+                long from = store.setIndex(this);
+                store.scan(0, from, this::index);
+                indexedSequence = from;
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // the visitor does no I/O
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void append(long firstSequence, List<TransactionRow> rows) {
+        lock.writeLock().lock();
+        try {
+            long oldest = firstSequence + rows.size() - store.capacity();
+            for (int i = 0; i < rows.size(); i++) {
+                index(firstSequence + i, rows.get(i), oldest);
+            }
+            appendsSinceSweep += rows.size();
+            if (appendsSinceSweep >= store.capacity()) {
+                sweep(oldest);
+                appendsSinceSweep = 0;
+            }
+            indexedSequence = firstSequence + rows.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(long seq, TransactionRow row) {
+        index(seq, row, store.oldestSequence());
+    }
+
+    private void index(long seq, TransactionRow row, long oldest) {
+        if (row.has(TransactionColumn.ACCOUNTFROM)) {
+            accountFrom.put(row.getLong(TransactionColumn.ACCOUNTFROM), seq);
+        }
+        if (row.has(TransactionColumn.ACCOUNTTO)) {
+            accountTo.put(row.getLong(TransactionColumn.ACCOUNTTO), seq);
+        }
+        if (row.has(TransactionColumn.BANKIDFROM)) {
+            bankIdFrom.put(row.getLong(TransactionColumn.BANKIDFROM), seq);
+        }
+        if (row.has(TransactionColumn.BANKIDTO)) {
+            bankIdTo.put(row.getLong(TransactionColumn.BANKIDTO), seq);
+        }
+        if (row.has(TransactionColumn.CURRENCY) && row.getString(TransactionColumn.CURRENCY) != null) {
+            currency.computeIfAbsent(row.getString(TransactionColumn.CURRENCY), k -> new SequenceList()).add(seq);
+        }
+        if (row.has(TransactionColumn.PAYMENTMODE) && row.getString(TransactionColumn.PAYMENTMODE) != null) {
+            paymentMode.computeIfAbsent(row.getString(TransactionColumn.PAYMENTMODE), k -> new SequenceList()).add(seq);
+        }
+        if (row.has(TransactionColumn.TRANSACTIONAMOUNT)) {
+            double value = row.getDouble(TransactionColumn.TRANSACTIONAMOUNT);
+            if (!Double.isNaN(value)) {
+                amount.add(value, seq, oldest);
+            }
+        }
+        if (row.has(TransactionColumn.TRANSACTIONDATE)) {
+            date.add(row.getLong(TransactionColumn.TRANSACTIONDATE), seq, oldest);
+        }
+    }
+
+    private void sweep(long oldest) {
+        accountFrom.sweep(oldest);
+        accountTo.sweep(oldest);
+        bankIdFrom.sweep(oldest);
+        bankIdTo.sweep(oldest);
+        sweep(currency, oldest);
+        sweep(paymentMode, oldest);
+    }
+
+    private static void sweep(Map<String, SequenceList> index, long oldest) {
+        Iterator<SequenceList> lists = index.values().iterator();
+        while (lists.hasNext()) {
+            SequenceList list = lists.next();
+            list.trim(oldest);
+            if (list.isEmpty()) {
+                lists.remove();
+            }
+        }
+    }
+
+    /**
+     * Rows matching {@code filter} with sequence >= {@code fromSequence}, oldest first, at most
+     * {@code limit} of them, each tagged with its position like {@link TransactionStore#readPage}.
+     * The page's cursor continues after the last row returned, or at the end of the store once
+     * every match has been returned, so polling with it picks up new matches only.
+     */
+    public TransactionPage query(TransactionFilter filter, long fromSequence, int limit) {
+        long indexed = indexedSequence;
+        long end = store.writeSequence();
+        long oldest = store.oldestSequence();
+        long start = Math.max(fromSequence, oldest);
+        long missed = Math.max(0, oldest - Math.max(0, fromSequence));
+        int boundedLimit = Math.max(1, limit);
+
+        if (filter.isEmpty() || !enabled) {
+            queriesByPlan.get("scan").increment();
+            return scan(filter, start, end, boundedLimit, missed, new ArrayList<>(Math.min(boundedLimit, 1024)));
+        }
+        if (!filter.isSatisfiable()) {
+            return new TransactionPage(new ArrayList<>(), Math.max(start, end), missed);
+        }
+
+        String plan;
+        lock.readLock().lock();
+        try {
+            plan = plan(filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+        queriesByPlan.get(plan).increment();
+
+        List<Map<String, Object>> out = new ArrayList<>(Math.min(boundedLimit, 1024));
+        TransactionRow scratch = new TransactionRow();
+        long next = start;
+        while (true) {
+            SortedIndex.LongBuffer batch = new SortedIndex.LongBuffer();
+            boolean exhausted;
+            lock.readLock().lock();
+            try {
+                exhausted = fetch(plan, filter, next, indexed, batch);
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                long seq = batch.get(i);
+                if (seq >= indexed || !store.read(seq, scratch) || !filter.matches(scratch)) {
+                    continue;
+                }
+                Map<String, Object> row = store.get(seq, true);
+                if (row == null) {
+                    continue; // overwritten between the two reads
+                }
+                out.add(row);
+                if (out.size() == boundedLimit) {
+                    return new TransactionPage(out, seq + 1, missed);
+                }
+            }
+            if (exhausted || batch.size() == 0) {
+                // Rows published since the index last caught up are checked one by one
+                return scan(filter, Math.max(start, indexed), end, boundedLimit, missed, out);
+            }
+            next = batch.get(batch.size() - 1) + 1;
+        }
+    }
+
+    /** Name of the index with the fewest candidates for {@code filter}. Call under the read lock. */
+    private String plan(TransactionFilter filter) {
+        String best = null;
+        long bestCount = Long.MAX_VALUE;
+        long count;
+        if (filter.getAccountFrom() != null
+                && (count = size(accountFrom.get(filter.getAccountFrom()))) < bestCount) {
+            best = "accountfrom";
+            bestCount = count;
+        }
+        if (filter.getAccountTo() != null && (count = size(accountTo.get(filter.getAccountTo()))) < bestCount) {
+            best = "accountto";
+            bestCount = count;
+        }
+        if (filter.getBankIdFrom() != null && (count = size(bankIdFrom.get(filter.getBankIdFrom()))) < bestCount) {
+            best = "bankidfrom";
+            bestCount = count;
+        }
+        if (filter.getBankIdTo() != null && (count = size(bankIdTo.get(filter.getBankIdTo()))) < bestCount) {
+            best = "bankidto";
+            bestCount = count;
+        }
+        if (filter.getCurrency() != null && (count = size(currency.get(filter.getCurrency()))) < bestCount) {
+            best = "currency";
+            bestCount = count;
+        }
+        if (filter.getPaymentMode() != null && (count = size(paymentMode.get(filter.getPaymentMode()))) < bestCount) {
+            best = "paymentmode";
+            bestCount = count;
+        }
+        if ((filter.getMinAmount() != null || filter.getMaxAmount() != null)
+                && (count = amount.count(minAmount(filter), maxAmount(filter))) < bestCount) {
+            best = "transactionamount";
+            bestCount = count;
+        }
+        if ((filter.getFrom() != null || filter.getTo() != null)
+                && date.count(minDate(filter), maxDate(filter)) < bestCount) {
+            best = "transactiondate";
+        }
+        return best;
+    }
+
+    /**
+     * Copy candidate sequences in [{@code from}, {@code end}) from the chosen index into
+     * {@code out}, ascending. Multimaps hand over at most {@link #CHUNK} per call; range indexes
+     * hand over everything in range at once. Call under the read lock.
+     *
+     * @return true if no candidates are left after these
+     */
+    private boolean fetch(String plan, TransactionFilter filter, long from, long end, SortedIndex.LongBuffer out) {
+        SequenceList list;
+        switch (plan) {
+            case "accountfrom":
+                list = accountFrom.get(filter.getAccountFrom());
+                break;
+            case "accountto":
+                list = accountTo.get(filter.getAccountTo());
+                break;
+            case "bankidfrom":
+                list = bankIdFrom.get(filter.getBankIdFrom());
+                break;
+            case "bankidto":
+                list = bankIdTo.get(filter.getBankIdTo());
+                break;
+            case "currency":
+                list = currency.get(filter.getCurrency());
+                break;
+            case "paymentmode":
+                list = paymentMode.get(filter.getPaymentMode());
+                break;
+            case "transactionamount":
+                amount.collect(minAmount(filter), maxAmount(filter), from, out);
+                out.sort();
+                return true;
+            default:
+                date.collect(minDate(filter), maxDate(filter), from, out);
+                out.sort();
+                return true;
+        }
+        if (list == null) {
+            return true;
+        }
+        int i = list.search(from);
+        int stop = Math.min(list.end(), i + CHUNK);
+        for (; i < stop && list.get(i) < end; i++) {
+            out.add(list.get(i));
+        }
+        return i == list.end() || list.get(i) >= end;
+    }
+
+    /**
+     * Scan [{@code start}, {@code end}) for rows matching {@code filter}, adding them to the matches
+     * already in {@code out}. Serves queries no index can narrow down and the unindexed tail.
+     */
+    private TransactionPage scan(TransactionFilter filter, long start, long end, int limit, long missed,
+                                 List<Map<String, Object>> out) {
+        TransactionRow scratch = new TransactionRow();
+        for (long seq = start; seq < end; seq++) {
+            if (!store.read(seq, scratch) || !filter.matches(scratch)) {
+                continue;
+            }
+            Map<String, Object> row = store.get(seq, true);
+            if (row != null) {
+                out.add(row);
+                if (out.size() == limit) {
+                    return new TransactionPage(out, seq + 1, missed);
+                }
+            }
+        }
+        return new TransactionPage(out, Math.max(start, end), missed);
+    }
+
+    private static int size(SequenceList list) {
+        return list == null ? 0 : list.size();
+    }
+
+    private static double minAmount(TransactionFilter filter) {
+        return filter.getMinAmount() != null ? filter.getMinAmount() : Double.NEGATIVE_INFINITY;
+    }
+
+    private static double maxAmount(TransactionFilter filter) {
+        return filter.getMaxAmount() != null ? filter.getMaxAmount() : Double.POSITIVE_INFINITY;
+    }
+
+    private static double minDate(TransactionFilter filter) {
+        return filter.getFrom() != null ? filter.getFrom() : Double.NEGATIVE_INFINITY;
+    }
+
+    /** Dates are whole millis, so "before to" is "at most to - 1". */
+    private static double maxDate(TransactionFilter filter) {
+        return filter.getTo() != null ? filter.getTo() - 1 : Double.POSITIVE_INFINITY;
+    }
+
+    private double keyCount() {
+        return accountFrom.size() + accountTo.size() + bankIdFrom.size() + bankIdTo.size();
+    }
+}
@@ -0,0 +1,662 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped log of every row the {@link TransactionStore} accepts, so a restart
+ * rebuilds the recent window from local disk instead of replaying powerbi-stream.
+ * <p>
+ * The log is a directory of fixed-size segments named after their first sequence number. Each
+ * record is {@code [int length][body][int crc32c]}, the body holding the sequence, the ingest time,
+ * the Kafka partition and offset, and the row's present columns. Every segment has a sparse index
+ * (sequence, file position) with one entry per 4 KB of records, and a shared offsets file holds the
+ * next Kafka offset per partition.
+ * <p>
+ * On startup the last store-capacity rows are loaded back into the store under their original
+ * sequence numbers; {@link #nextOffset} then lets the Kafka listeners resume where they stopped.
+ * The first torn or corrupt record ends recovery: it and everything logged after it are dropped
+ * and consumed from Kafka again.
+ * Writes go through the page cache, so they survive a process crash but not necessarily a power
+ * loss; segments are forced to disk on shutdown.
+ */
+@Component
+public class TransactionLog implements TransactionStore.Journal {
+    // Partitions whose offsets are tracked; powerbi-stream has 3
+    static final int MAX_PARTITIONS = 1024;
+
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".index";
+    // Sparse indexes that also held ingest times; rebuilt from the log on recovery
+    private static final String OLD_INDEX_SUFFIX = ".idx";
+    private static final String OFFSETS_FILE = "offsets";
+    private static final int INDEX_INTERVAL_BYTES = 4096;
+    private static final int INDEX_ENTRY_BYTES = 12;
+    // Length prefix and CRC around each record body
+    private static final int RECORD_OVERHEAD = 8;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_LONG = 1;
+    private static final byte TAG_DOUBLE = 2;
+    private static final byte TAG_BOOLEAN = 3;
+    private static final byte TAG_STRING = 4;
+
+    private static final TransactionColumn[] COLUMNS = TransactionColumn.all();
+
+    private final TransactionStore store;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    // Oldest first; the last one takes appends
+    private final List<Segment> segments = new ArrayList<>();
+    private MappedByteBuffer offsets;
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private final CRC32C crc = new CRC32C();
+
+    private volatile boolean enabled;
+    private long recoveredRows;
+    private double recoverySeconds;
+
+    @Autowired
+    public TransactionLog(TransactionStore store, MeterRegistry registry,
+                          @Value("${bridge.log.enabled:true}") boolean enabled,
+                          @Value("${bridge.log.dir:data/transaction-log}") String dir,
+                          @Value("${bridge.log.segment-bytes:67108864}") int segmentBytes,
+                          @Value("${bridge.log.max-segments:4}") int maxSegments) {
+        this.store = store;
+        this.dir = Paths.get(dir);
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(2, maxSegments);
+        this.enabled = enabled;
+
+        Gauge.builder("transactions_log_bytes", this, TransactionLog::bytes)
+                .description("Bytes of records held in the transaction log segments")
+                .register(registry);
+
+        Gauge.builder("transactions_log_recovered_rows", this, log -> log.recoveredRows)
+                .description("Rows loaded back into the store from the transaction log at startup")
+                .register(registry);
+
+        Gauge.builder("transactions_log_recovery_seconds", this, log -> log.recoverySeconds)
+                .description("Time taken to rebuild the store from the transaction log at startup")
+                .register(registry);
+
+        if (enabled) {
+            try {
+                recover();
+                store.setJournal(this);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Transaction log disabled, could not open " + this.dir.toAbsolutePath() + ": "
+                        + e.getMessage());
+                this.enabled = false;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ---------------------------------------------------------------- recovery
+
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        Files.createDirectories(dir);
+
+        List<Long> bases = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + LOG_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    bases.add(Long.parseLong(name.substring(0, name.length() - LOG_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring unexpected file in transaction log: " + file);
+                }
+            }
+        }
+        bases.sort(null);
+        for (long base : bases) {
+            Files.deleteIfExists(dir.resolve(String.format("%020d", base) + OLD_INDEX_SUFFIX));
+            Segment segment = Segment.open(dir, base, 0, indexBytes(0));
+            findEnd(segment);
+            if (segment.lastSequence < 0) {
+                // Rolled but never written to; the next append recreates it
+                Files.deleteIfExists(segment.logPath);
+                Files.deleteIfExists(segment.indexPath);
+                continue;
+            }
+            segments.add(segment);
+        }
+        offsets = map(dir.resolve(OFFSETS_FILE), MAX_PARTITIONS * Long.BYTES);
+
+        long next = nextSequence();
+        long from = Math.max(firstSequence(), next - store.capacity());
+        List<TransactionRow> rows = new ArrayList<>((int) Math.max(0, next - from));
+        long[] first = {-1};
+        read(from, Long.MAX_VALUE, (seq, row) -> {
+            if (first[0] < 0) {
+                first[0] = seq;
+            }
+            // Records past a corrupt one cannot be restored under their own sequence numbers
+            if (seq == first[0] + rows.size()) {
+                rows.add(row);
+            }
+        });
+        long end = rows.isEmpty() ? from : first[0] + rows.size();
+        if (end < next) {
+            System.err.println("Transaction log " + dir.toAbsolutePath() + ": record " + end
+                    + " is corrupt, dropping it and the " + (next - end - 1) + " record(s) after it");
+            truncate(end);
+            next = end;
+        }
+        if (!rows.isEmpty()) {
+            store.restore(first[0], rows);
+        }
+        resetOffsets(rows);
+
+        recoveredRows = rows.size();
+        recoverySeconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("Transaction log %s: %d segment(s), restored %d rows up to sequence %d in %.1f ms%n",
+                dir.toAbsolutePath(), segments.size(), rows.size(), next - 1, recoverySeconds * 1000);
+    }
+
+    /**
+     * Find the end of a segment by scanning from its last index entry, re-indexing records written
+     * after it. Stops at the first record that is missing, torn or fails its CRC.
+     */
+    private void findEnd(Segment segment) {
+        // An entry whose record did not make it to disk is dropped, falling back to the one before
+        while (segment.indexEntries > 0 && recordEnd(segment.log, segment.indexPosition(segment.indexEntries - 1)) < 0) {
+            segment.dropLastIndexEntry();
+        }
+        int position = 0;
+        if (segment.indexEntries > 0) {
+            position = segment.indexPosition(segment.indexEntries - 1);
+            segment.lastIndexedPosition = position;
+        }
+        int end;
+        while ((end = recordEnd(segment.log, position)) > 0) {
+            long seq = segment.log.getLong(position + 4);
+            if (position - segment.lastIndexedPosition >= INDEX_INTERVAL_BYTES) {
+                segment.addIndexEntry(seq, position);
+            }
+            segment.lastSequence = seq;
+            position = end;
+        }
+        segment.size = position;
+    }
+
+    /** Drop every record from {@code sequence} on, so appends continue right after the last readable one. */
+    private void truncate(long sequence) throws IOException {
+        while (!segments.isEmpty() && segments.get(segments.size() - 1).baseSequence >= sequence) {
+            Segment dropped = segments.remove(segments.size() - 1);
+            Files.deleteIfExists(dropped.logPath);
+            Files.deleteIfExists(dropped.indexPath);
+        }
+        if (segments.isEmpty()) {
+            return;
+        }
+        Segment segment = segments.get(segments.size() - 1);
+        while (segment.indexEntries > 0 && segment.indexSequence(segment.indexEntries - 1) >= sequence) {
+            segment.dropLastIndexEntry();
+        }
+        int position = segment.indexEntries > 0 ? segment.indexPosition(segment.indexEntries - 1) : 0;
+        int end;
+        while ((end = recordEnd(segment.log, position)) > 0 && segment.log.getLong(position + 4) < sequence) {
+            position = end;
+        }
+        // Zeroed, so records written after the cut can never be read back as if they followed it
+        byte[] zeros = new byte[4096];
+        for (int at = position; at < segment.log.capacity(); at += zeros.length) {
+            segment.log.put(at, zeros, 0, Math.min(zeros.length, segment.log.capacity() - at));
+        }
+        segment.size = position;
+        segment.lastSequence = sequence - 1;
+        segment.lastIndexedPosition = segment.indexEntries > 0
+                ? segment.indexPosition(segment.indexEntries - 1) : -INDEX_INTERVAL_BYTES;
+    }
+
+    // ---------------------------------------------------------------- writes
+
+    /** Journal callback from the store: log each row and advance the partition offsets. */
+    @Override
+    public synchronized void append(long firstSequence, List<TransactionRow> rows) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < rows.size(); i++) {
+                TransactionRow row = rows.get(i);
+                long seq = firstSequence + i;
+                encode(seq, now, row);
+                write(seq);
+                recordOffset(row);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keep serving from memory; the log resumes on the next restart
+            System.err.println("Transaction log write failed, disabling it: " + e.getMessage());
+            enabled = false;
+            store.setJournal(null);
+        }
+    }
+
+    private void write(long seq) throws IOException {
+        int recordBytes = scratch.remaining();
+        Segment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (active == null || active.size + recordBytes > active.log.capacity()) {
+            active = roll(seq, recordBytes);
+        }
+        int position = active.size;
+        active.log.put(position, scratch, 0, recordBytes);
+        // Indexed after the record is in place, so an index entry never points past the data
+        if (position - active.lastIndexedPosition >= INDEX_INTERVAL_BYTES) {
+            active.addIndexEntry(seq, position);
+        }
+        active.size = position + recordBytes;
+        active.lastSequence = seq;
+    }
+
+    /** Start a new segment at {@code seq}, dropping the oldest ones beyond max-segments. */
+    private Segment roll(long seq, int recordBytes) throws IOException {
+        while (segments.size() >= maxSegments) {
+            Segment oldest = segments.remove(0);
+            oldest.force();
+            Files.deleteIfExists(oldest.logPath);
+            Files.deleteIfExists(oldest.indexPath);
+        }
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).force();
+        }
+        int size = Math.max(segmentBytes, recordBytes);
+        Segment segment = Segment.open(dir, seq, size, indexBytes(size));
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * The offsets file is written after the records, but pages reach disk in any order. For every
+     * partition in the restored rows, trust the newest intact record over the file, so a torn tail
+     * is consumed again rather than skipped.
+     */
+    private void resetOffsets(List<TransactionRow> rows) {
+        long[] newest = new long[MAX_PARTITIONS];
+        Arrays.fill(newest, -1L);
+        for (TransactionRow row : rows) {
+            if (row.partition >= 0 && row.partition < MAX_PARTITIONS && row.offset > newest[row.partition]) {
+                newest[row.partition] = row.offset;
+            }
+        }
+        for (int partition = 0; partition < MAX_PARTITIONS; partition++) {
+            if (newest[partition] >= 0) {
+                offsets.putLong(partition * Long.BYTES, newest[partition] + 1);
+            }
+        }
+    }
+
+    private void recordOffset(TransactionRow row) {
+        if (row.partition < 0 || row.partition >= MAX_PARTITIONS || row.offset < 0) {
+            return;
+        }
+        int at = row.partition * Long.BYTES;
+        // Stored as offset + 1 so that zero means "nothing logged"
+        if (row.offset + 1 > offsets.getLong(at)) {
+            offsets.putLong(at, row.offset + 1);
+        }
+    }
+
+    /** Serialize one record into {@link #scratch}, ready to be copied into a segment. */
+    private void encode(long seq, long millis, TransactionRow row) {
+        scratch.clear();
+        ensure(40);
+        scratch.putInt(0); // length, filled in below
+        scratch.putLong(seq).putLong(millis).putInt(row.partition).putLong(row.offset).putInt(row.present);
+        for (TransactionColumn column : COLUMNS) {
+            if (!row.has(column)) {
+                continue;
+            }
+            int i = column.ordinal();
+            switch (column.type()) {
+                case DICTIONARY:
+                case TEXT:
+                    putString(row.strings[i]);
+                    break;
+                default:
+                    ensure(Long.BYTES);
+                    scratch.putLong(row.numbers[i]);
+            }
+        }
+
+        Map<String, Object> extras = row.extras;
+        ensure(Integer.BYTES);
+        scratch.putInt(extras == null ? 0 : extras.size());
+        if (extras != null) {
+            for (Map.Entry<String, Object> entry : extras.entrySet()) {
+                putString(entry.getKey());
+                putTagged(entry.getValue());
+            }
+        }
+
+        int bodyLength = scratch.position() - 4;
+        crc.reset();
+        crc.update(scratch.array(), 4, bodyLength);
+        ensure(Integer.BYTES);
+        scratch.putInt((int) crc.getValue());
+        scratch.putInt(0, bodyLength);
+        scratch.flip();
+    }
+
+    private void putTagged(Object value) {
+        ensure(1 + Long.BYTES);
+        if (value == null) {
+            scratch.put(TAG_NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            scratch.put(TAG_LONG).putLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            scratch.put(TAG_DOUBLE).putDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            scratch.put(TAG_BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+        } else {
+            scratch.put(TAG_STRING);
+            putString(value.toString());
+        }
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            ensure(Integer.BYTES);
+            scratch.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(Integer.BYTES + bytes.length);
+        scratch.putInt(bytes.length).put(bytes);
+    }
+
+    private void ensure(int bytes) {
+        if (scratch.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + bytes + 64));
+            scratch.flip();
+            larger.put(scratch);
+            scratch = larger;
+        }
+    }
+
+    // ---------------------------------------------------------------- reads
+
+    /**
+     * Read logged rows with sequence >= {@code fromSequence}, oldest first, at most {@code limit}.
+     * Each row is a fresh instance the visitor may keep.
+     *
+     * @return the sequence to resume from
+     */
+    public synchronized long read(long fromSequence, long limit, TransactionStore.RowVisitor visitor)
+            throws IOException {
+        long next = Math.max(fromSequence, firstSequence());
+        long remaining = limit;
+        for (int s = segmentFor(fromSequence); s < segments.size() && remaining > 0; s++) {
+            Segment segment = segments.get(s);
+            int position = 0;
+            for (int e = segment.indexEntries - 1; e >= 0; e--) {
+                if (segment.indexSequence(e) <= fromSequence) {
+                    position = segment.indexPosition(e);
+                    break;
+                }
+            }
+            while (position < segment.size && remaining > 0) {
+                int end = recordEnd(segment.log, position);
+                if (end < 0) {
+                    break;
+                }
+                long seq = segment.log.getLong(position + 4);
+                if (seq >= fromSequence) {
+                    TransactionRow row = new TransactionRow();
+                    decode(segment.log, position, row);
+                    visitor.visit(seq, row);
+                    next = seq + 1;
+                    remaining--;
+                }
+                position = end;
+            }
+        }
+        return next;
+    }
+
+    /** Next Kafka offset to consume for a powerbi-stream partition, or -1 if the log has none. */
+    public synchronized long nextOffset(int partition) {
+        if (!enabled || offsets == null || partition < 0 || partition >= MAX_PARTITIONS) {
+            return -1;
+        }
+        long stored = offsets.getLong(partition * Long.BYTES);
+        return stored > 0 ? stored : -1;
+    }
+
+    private int segmentFor(long sequence) {
+        int found = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            if (segments.get(s).baseSequence <= sequence) {
+                found = s;
+            }
+        }
+        return found;
+    }
+
+    private long firstSequence() {
+        return segments.isEmpty() ? 0 : segments.get(0).baseSequence;
+    }
+
+    private long nextSequence() {
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            if (segments.get(s).lastSequence >= 0) {
+                return segments.get(s).lastSequence + 1;
+            }
+        }
+        return firstSequence();
+    }
+
+    /** End of the record at {@code position}, or -1 if there is no intact record there. */
+    private int recordEnd(MappedByteBuffer log, int position) {
+        if (position + RECORD_OVERHEAD > log.capacity()) {
+            return -1;
+        }
+        int length = log.getInt(position);
+        if (length <= 0 || position + RECORD_OVERHEAD + (long) length > log.capacity()) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(log.slice(position + 4, length));
+        if ((int) crc.getValue() != log.getInt(position + 4 + length)) {
+            return -1;
+        }
+        return position + RECORD_OVERHEAD + length;
+    }
+
+    private static void decode(ByteBuffer log, int position, TransactionRow row) {
+        int at = position + 4 + 16; // length, sequence, ingest time
+        row.partition = log.getInt(at);
+        row.offset = log.getLong(at + 4);
+        row.present = log.getInt(at + 12);
+        at += 16;
+        for (TransactionColumn column : COLUMNS) {
+            if (!row.has(column)) {
+                continue;
+            }
+            int i = column.ordinal();
+            switch (column.type()) {
+                case DICTIONARY:
+                case TEXT:
+                    int length = log.getInt(at);
+                    at += 4;
+                    row.strings[i] = length < 0 ? null : string(log, at, length);
+                    at += Math.max(0, length);
+                    break;
+                default:
+                    row.numbers[i] = log.getLong(at);
+                    at += Long.BYTES;
+            }
+        }
+
+        int extraCount = log.getInt(at);
+        at += 4;
+        for (int e = 0; e < extraCount; e++) {
+            int keyLength = log.getInt(at);
+            String key = string(log, at + 4, keyLength);
+            at += 4 + keyLength;
+            byte tag = log.get(at++);
+            Object value;
+            switch (tag) {
+                case TAG_LONG:
+                    value = log.getLong(at);
+                    at += Long.BYTES;
+                    break;
+                case TAG_DOUBLE:
+                    value = log.getDouble(at);
+                    at += Double.BYTES;
+                    break;
+                case TAG_BOOLEAN:
+                    value = log.get(at++) != 0;
+                    break;
+                case TAG_STRING:
+                    int length = log.getInt(at);
+                    value = length < 0 ? null : string(log, at + 4, length);
+                    at += 4 + Math.max(0, length);
+                    break;
+                default:
+                    value = null;
+            }
+            row.putExtra(key, value);
+        }
+    }
+
+    private static String string(ByteBuffer log, int at, int length) {
+        byte[] bytes = new byte[length];
+        log.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---------------------------------------------------------------- files
+
+    private static int indexBytes(int segmentBytes) {
+        return (segmentBytes / INDEX_INTERVAL_BYTES + 1) * INDEX_ENTRY_BYTES;
+    }
+
+    /** Map a file read-write, growing it to at least {@code minBytes}. */
+    private static MappedByteBuffer map(Path path, long minBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(minBytes, channel.size()));
+        }
+    }
+
+    private synchronized double bytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.size;
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (!enabled) {
+            return;
+        }
+        store.setJournal(null);
+        enabled = false;
+        for (Segment segment : segments) {
+            segment.force();
+        }
+        if (offsets != null) {
+            offsets.force();
+        }
+    }
+
+    /** One log file and its sparse index. */
+    private static final class Segment {
+        final long baseSequence;
+        final Path logPath;
+        final Path indexPath;
+        final MappedByteBuffer log;
+        final MappedByteBuffer index;
+        int indexEntries;
+        int size;
+        long lastSequence = -1;
+        int lastIndexedPosition = -INDEX_INTERVAL_BYTES;
+
+        private Segment(long baseSequence, Path logPath, Path indexPath, MappedByteBuffer log, MappedByteBuffer index) {
+            this.baseSequence = baseSequence;
+            this.logPath = logPath;
+            this.indexPath = indexPath;
+            this.log = log;
+            this.index = index;
+        }
+
+        /** Open or create a segment. Existing files keep their size; new ones are sized as given. */
+        static Segment open(Path dir, long baseSequence, int logBytes, int indexBytes) throws IOException {
+            String name = String.format("%020d", baseSequence);
+            Path logPath = dir.resolve(name + LOG_SUFFIX);
+            Path indexPath = dir.resolve(name + INDEX_SUFFIX);
+            MappedByteBuffer log = map(logPath, logBytes);
+            MappedByteBuffer index = map(indexPath, Math.max(indexBytes, TransactionLog.indexBytes(log.capacity())));
+            Segment segment = new Segment(baseSequence, logPath, indexPath, log, index);
+
+            // Entries are written in order; the first unused slot has no position
+            int capacity = index.capacity() / INDEX_ENTRY_BYTES;
+            while (segment.indexEntries < capacity && segment.indexPosition(segment.indexEntries) >= 0) {
+                segment.indexEntries++;
+            }
+            return segment;
+        }
+
+        void addIndexEntry(long seq, int position) {
+            int at = indexEntries * INDEX_ENTRY_BYTES;
+            if (at + INDEX_ENTRY_BYTES > index.capacity()) {
+                return;
+            }
+            index.putLong(at, seq);
+            // Written last and stored as position + 1: non-zero marks the entry as complete
+            index.putInt(at + 8, position + 1);
+            indexEntries++;
+            lastIndexedPosition = position;
+        }
+
+        void dropLastIndexEntry() {
+            indexEntries--;
+            index.putInt(indexEntries * INDEX_ENTRY_BYTES + 8, 0);
+        }
+
+        long indexSequence(int entry) {
+            return index.getLong(entry * INDEX_ENTRY_BYTES);
+        }
+
+        int indexPosition(int entry) {
+            return index.getInt(entry * INDEX_ENTRY_BYTES + 8) - 1;
+        }
+
+        void force() {
+            log.force();
+            index.force();
+        }
+    }
+}
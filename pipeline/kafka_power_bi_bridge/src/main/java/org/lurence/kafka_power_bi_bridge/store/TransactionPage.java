@@ -0,0 +1,33 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One slice of the {@link TransactionStore} plus the cursor for the next read.
+ */
+public final class TransactionPage {
+    private final List<Map<String, Object>> rows;
+    private final long nextSequence;
+    private final long missed;
+
+    TransactionPage(List<Map<String, Object>> rows, long nextSequence, long missed) {
+        this.rows = rows;
+        this.nextSequence = nextSequence;
+        this.missed = missed;
+    }
+
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+
+    /** Pass this as the next {@code since} to continue where this page ended. */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    /** Rows that were evicted from the store before the caller got to read them. */
+    public long getMissed() {
+        return missed;
+    }
+}
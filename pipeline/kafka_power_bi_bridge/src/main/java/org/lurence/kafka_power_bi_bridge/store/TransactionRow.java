@@ -0,0 +1,300 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import org.lurence.kafka_power_bi_bridge.kafka.StructTokenizer;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One parsed transaction on its way into the {@link TransactionStore}.
+ * Schema fields are held unboxed; anything else (non-schema keys, values that do not fit
+ * the column type, plain-text messages) goes into a small extras map.
+ */
+public final class TransactionRow {
+    // Epoch values at or above this are Debezium MicroTimestamps rather than millis
+    private static final long MICROS_THRESHOLD = 100_000_000_000_000L;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd[ ]['T']HH:mm:ss[.SSSSSS][.SSS]");
+
+    // Numeric values by column ordinal; doubles as raw bits, ints and booleans widened
+    final long[] numbers = new long[TransactionColumn.all().length];
+    final String[] strings = new String[TransactionColumn.all().length];
+    int present;
+    Map<String, Object> extras;
+
+    // Where the row was read from; -1 when it did not come off a Kafka record
+    int partition = -1;
+    long offset = -1;
+
+    // Epoch millis along the pipeline, 0 when unknown: the Debezium source.ts_ms (commit), when the
+    // Jet job read the change event, and when this bridge received the record
+    long committedAt;
+    long jetAt;
+    long ingestedAt;
+
+    public boolean has(TransactionColumn column) {
+        return (present & column.bit()) != 0;
+    }
+
+    public boolean isEmpty() {
+        return present == 0 && (extras == null || extras.isEmpty());
+    }
+
+    public long getLong(TransactionColumn column) {
+        return numbers[column.ordinal()];
+    }
+
+    public double getDouble(TransactionColumn column) {
+        return Double.longBitsToDouble(numbers[column.ordinal()]);
+    }
+
+    public String getString(TransactionColumn column) {
+        return strings[column.ordinal()];
+    }
+
+    /** Reset for reuse. Strings and extras are dropped, not cleared, since they may be shared. */
+    public void clear() {
+        present = 0;
+        extras = null;
+        partition = -1;
+        offset = -1;
+        committedAt = 0;
+        jetAt = 0;
+        ingestedAt = 0;
+        Arrays.fill(strings, null);
+    }
+
+    /** Record the Kafka partition and offset this row was consumed from. */
+    public void setPosition(int partition, long offset) {
+        this.partition = partition;
+        this.offset = offset;
+    }
+
+    public int partition() {
+        return partition;
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    /** Record the commit time and Jet processing time carried by the message, 0 where it has none. */
+    public void setPipelineTimes(long committedAt, long jetAt) {
+        this.committedAt = committedAt;
+        this.jetAt = jetAt;
+    }
+
+    /** Record when the bridge received the Kafka record this row came from. */
+    public void setIngestedAt(long ingestedAt) {
+        this.ingestedAt = ingestedAt;
+    }
+
+    public long committedAt() {
+        return committedAt;
+    }
+
+    public long jetAt() {
+        return jetAt;
+    }
+
+    public long ingestedAt() {
+        return ingestedAt;
+    }
+
+    /** Fields that are not part of the schema, or null. */
+    public Map<String, Object> extras() {
+        return extras;
+    }
+
+    public void setLong(TransactionColumn column, long value) {
+        numbers[column.ordinal()] = value;
+        present |= column.bit();
+    }
+
+    public void setDouble(TransactionColumn column, double value) {
+        numbers[column.ordinal()] = Double.doubleToRawLongBits(value);
+        present |= column.bit();
+    }
+
+    public void setString(TransactionColumn column, String value) {
+        strings[column.ordinal()] = value;
+        present |= column.bit();
+    }
+
+    public void putExtra(String key, Object value) {
+        if (extras == null) {
+            extras = new HashMap<>(4);
+        }
+        extras.put(key, value);
+    }
+
+    /** Set a field from a decoded JSON/map value. Keys are matched to the schema in any case. */
+    public void set(String key, Object value) {
+        TransactionColumn column = TransactionColumn.forKey(key);
+        if (column == null || !setConverted(column, value)) {
+            putExtra(column != null ? column.key() : key, value);
+        }
+    }
+
+    /** Set the tokenizer's current field without boxing the value. */
+    public void set(StructTokenizer tokens) {
+        String key = tokens.key();
+        TransactionColumn column = TransactionColumn.forKey(key);
+        if (column == null) {
+            putExtra(key, tokens.typedValue());
+            return;
+        }
+        if (tokens.isNull()) {
+            return;
+        }
+
+        switch (column.type()) {
+            case LONG:
+            case INT:
+                if (tokens.isLong()) {
+                    setLong(column, tokens.longValue());
+                    return;
+                }
+                break;
+            case TIMESTAMP:
+                if (tokens.isLong()) {
+                    setLong(column, toEpochMillis(tokens.longValue()));
+                    return;
+                }
+                break;
+            case DOUBLE:
+                if (tokens.isDouble()) {
+                    setDouble(column, tokens.doubleValue());
+                    return;
+                }
+                break;
+            case BOOLEAN:
+                if (tokens.isBoolean()) {
+                    setLong(column, tokens.booleanValue() ? 1 : 0);
+                    return;
+                }
+                break;
+            default:
+                setString(column, tokens.stringValue());
+                return;
+        }
+        // Unusual representation (e.g. scientific notation timestamp): take the generic path
+        if (!setConverted(column, tokens.typedValue())) {
+            putExtra(column.key(), tokens.stringValue());
+        }
+    }
+
+    private boolean setConverted(TransactionColumn column, Object value) {
+        if (value == null) {
+            return true;
+        }
+        try {
+            switch (column.type()) {
+                case LONG:
+                case INT:
+                    if (value instanceof Number && ((Number) value).doubleValue() == ((Number) value).longValue()) {
+                        setLong(column, ((Number) value).longValue());
+                    } else if (value instanceof String) {
+                        setLong(column, Long.parseLong(((String) value).trim()));
+                    } else {
+                        return false;
+                    }
+                    return true;
+                case DOUBLE:
+                    if (value instanceof Number) {
+                        setDouble(column, ((Number) value).doubleValue());
+                    } else if (value instanceof String) {
+                        setDouble(column, Double.parseDouble(((String) value).trim()));
+                    } else {
+                        return false;
+                    }
+                    return true;
+                case TIMESTAMP:
+                    Long millis = timestampMillis(value);
+                    if (millis == null) {
+                        return false;
+                    }
+                    setLong(column, millis);
+                    return true;
+                case BOOLEAN:
+                    if (value instanceof Boolean) {
+                        setLong(column, (Boolean) value ? 1 : 0);
+                    } else if ("true".equalsIgnoreCase(value.toString()) || "false".equalsIgnoreCase(value.toString())) {
+                        setLong(column, Boolean.parseBoolean(value.toString()) ? 1 : 0);
+                    } else {
+                        return false;
+                    }
+                    return true;
+                default:
+                    setString(column, value.toString());
+                    return true;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static Long timestampMillis(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return toEpochMillis((long) ((Number) value).doubleValue());
+        }
+        if (value instanceof Number) {
+            return toEpochMillis(((Number) value).longValue());
+        }
+        if (value instanceof String) {
+            String s = (String) value;
+            try {
+                return toEpochMillis((long) Double.parseDouble(s));
+            } catch (NumberFormatException e) {
+                try {
+                    return LocalDateTime.parse(s, DATE_TIME).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                } catch (DateTimeParseException ignored) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (TransactionColumn column : TransactionColumn.all()) {
+            if (!has(column)) {
+                continue;
+            }
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(column.key()).append('=');
+            switch (column.type()) {
+                case DOUBLE:
+                    sb.append(getDouble(column));
+                    break;
+                case BOOLEAN:
+                    sb.append(getLong(column) != 0);
+                    break;
+                case DICTIONARY:
+                case TEXT:
+                    sb.append(getString(column));
+                    break;
+                default:
+                    sb.append(getLong(column));
+            }
+        }
+        if (extras != null) {
+            for (Map.Entry<String, Object> entry : extras.entrySet()) {
+                if (sb.length() > 1) sb.append(", ");
+                sb.append(entry.getKey()).append('=').append(entry.getValue());
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /** Normalize an epoch value to millis; Debezium sends TIMESTAMP columns as microseconds. */
+    public static long toEpochMillis(long epoch) {
+        return Math.abs(epoch) >= MICROS_THRESHOLD ? epoch / 1000 : epoch;
+    }
+}
@@ -0,0 +1,652 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Columnar, fixed-capacity ring of the most recent transactions.
+ * <p>
+ * Every tbank_cleaned column lives in its own primitive array (long[]/double[]/int[]/boolean[]),
+ * CURRENCY, QUOTECURRENCY and PAYMENTMODE are dictionary-encoded (values past a full dictionary
+ * fall back to text), and a per-row bit mask records
+ * which columns were present. A row costs roughly 110 bytes instead of a 1-2 KB HashMap, so the
+ * same heap holds orders of magnitude more history.
+ * <p>
+ * Any number of writers (one Kafka listener thread per partition group) may append at once;
+ * readers copy rows out without locking. Each write claims its sequence range atomically, fills its
+ * slots in parallel with the other writers, and publishes in claim order, so everything below
+ * {@link #writeSequence()} is complete and a reader can detect and discard rows that were
+ * overwritten while it was copying them. Publishing only moves the write sequence; the journal and
+ * the secondary indexes are fed afterwards from a queue of published batches, by whichever writer
+ * holds the drain lock, so writers do not wait on each other's disk writes or index updates.
+ */
+@Component
+public class TransactionStore {
+    private static final TransactionColumn[] COLUMNS = TransactionColumn.all();
+
+    /** Row keys added by {@link #readPage} when positions are requested. */
+    public static final String SEQ = "_seq";
+    public static final String PARTITION = "_partition";
+    public static final String OFFSET = "_offset";
+
+    /** Supported range of bridge.buffer.capacity; a row costs about 110 bytes of heap. */
+    public static final int MIN_CAPACITY = 10_000;
+    public static final int MAX_CAPACITY = 1_000_000;
+
+    private final int capacity;
+
+    private final long[][] longs = new long[COLUMNS.length][];
+    private final double[][] doubles = new double[COLUMNS.length][];
+    private final int[][] ints = new int[COLUMNS.length][];
+    private final boolean[][] booleans = new boolean[COLUMNS.length][];
+    private final String[][] texts = new String[COLUMNS.length][];
+    private final DictionaryColumn[] dictionaries = new DictionaryColumn[COLUMNS.length];
+    private final int[] present;
+    private final Object[] extras;
+    private final int[] partitions;
+    private final long[] offsets;
+    private final long[] committedAt;
+    private final long[] ingestedAt;
+
+    // Sequence up to which slots may be in the middle of being overwritten
+    private final AtomicLong claimedSequence = new AtomicLong();
+    // Number of rows ever appended and visible to readers
+    private volatile long writeSequence;
+    // First sequence this process holds; above zero after a restore
+    private volatile long baseSequence;
+
+    private final LongAdder snapshotDrops = new LongAdder();
+
+    // Durable copy of every append, or null
+    private volatile Journal journal;
+    // Secondary indexes, fed like the journal but also with restored rows; or null
+    private volatile Journal index;
+
+    // Published batches not yet handed to the journal and index, in sequence order
+    private final ConcurrentLinkedQueue<Batch> published = new ConcurrentLinkedQueue<>();
+    // Held by the one writer currently feeding published batches to the journal and index
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // End of the batches handed to the journal and index so far
+    private volatile long drainedSequence;
+
+    /** Receives rows from {@link #scan}. The row instance is reused and must not be kept or modified. */
+    public interface RowVisitor {
+        void visit(long sequence, TransactionRow row) throws IOException;
+    }
+
+    /**
+     * Sees every appended batch exactly once, in sequence order, shortly after readers can see it.
+     * Calls never overlap, so an implementation needs no locking of its own. Batches published but
+     * not yet handed over when the process dies are lost to the journal; their Kafka offsets were
+     * never journaled either, so they are consumed again.
+     */
+    public interface Journal {
+        void append(long firstSequence, List<TransactionRow> rows);
+    }
+
+    /** The bridge's store, sized by bridge.buffer.capacity; fails startup outside the supported range. */
+    @Autowired
+    public TransactionStore(@Value("${bridge.buffer.capacity:10000}") int capacity) {
+        this(capacity, true);
+    }
+
+    /**
+     * A store of any positive capacity, for benchmarks and tools that want a ring smaller than the
+     * bridge allows.
+     */
+    public static TransactionStore ofCapacity(int capacity) {
+        return new TransactionStore(capacity, false);
+    }
+
+    private TransactionStore(int capacity, boolean configured) {
+        if (configured && (capacity < MIN_CAPACITY || capacity > MAX_CAPACITY)) {
+            throw new IllegalArgumentException("bridge.buffer.capacity must be between " + MIN_CAPACITY
+                    + " and " + MAX_CAPACITY + " rows, got " + capacity);
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Store capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.present = new int[capacity];
+        this.extras = new Object[capacity];
+        this.partitions = new int[capacity];
+        this.offsets = new long[capacity];
+        this.committedAt = new long[capacity];
+        this.ingestedAt = new long[capacity];
+
+        for (TransactionColumn column : COLUMNS) {
+            int i = column.ordinal();
+            switch (column.type()) {
+                case LONG:
+                case TIMESTAMP:
+                    longs[i] = new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles[i] = new double[capacity];
+                    break;
+                case INT:
+                    ints[i] = new int[capacity];
+                    break;
+                case DICTIONARY:
+                    ints[i] = new int[capacity];
+                    dictionaries[i] = new DictionaryColumn();
+                    break;
+                case BOOLEAN:
+                    booleans[i] = new boolean[capacity];
+                    break;
+                case TEXT:
+                    texts[i] = new String[capacity];
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Append one row. Safe to call from several writer threads.
+     */
+    public void append(TransactionRow row) {
+        long seq = claim(1);
+        try {
+            write(slot(seq), row);
+        } finally {
+            publish(seq, Collections.singletonList(row), true);
+        }
+        drain();
+    }
+
+    /**
+     * Append a batch of rows and publish them to readers in one step.
+     * Safe to call from several writer threads; each batch stays contiguous.
+     */
+    public void appendAll(List<TransactionRow> rows) {
+        appendAll(rows, true);
+    }
+
+    private void appendAll(List<TransactionRow> rows, boolean journaled) {
+        int n = rows.size();
+        if (n == 0) {
+            return;
+        }
+        long seq = claim(n);
+        try {
+            // Rows that would be overwritten by the same batch are never written
+            for (int i = Math.max(0, n - capacity); i < n; i++) {
+                write(slot(seq + i), rows.get(i));
+            }
+        } finally {
+            publish(seq, rows, journaled);
+        }
+        drain();
+    }
+
+    /**
+     * Reserve {@code n} sequence numbers. The claim is a full fence, so readers see it before any
+     * slot is touched.
+     */
+    private long claim(int n) {
+        long seq = claimedSequence.getAndAdd(n);
+        // The slots we are about to fill may still be being written by whoever claimed them one lap
+        // earlier; only possible when writers are more than a whole ring apart, so this rarely spins
+        long lapStart = Math.min(seq, seq + n - capacity);
+        while (writeSequence < lapStart) {
+            Thread.onSpinWait();
+        }
+        return seq;
+    }
+
+    /** Make {@code rows} visible once every earlier claim has been published. */
+    private void publish(long seq, List<TransactionRow> rows, boolean journaled) {
+        while (writeSequence != seq) {
+            Thread.onSpinWait();
+        }
+        // Queued before the rows become visible, so the queue stays in sequence order
+        published.add(new Batch(seq, rows, journaled));
+        writeSequence = seq + rows.size();
+    }
+
+    /**
+     * Hand published batches to the journal and index, in order. Whichever writer gets the lock
+     * drains for everyone and the others return at once, unless the backlog has grown past a whole
+     * ring; then they wait their turn, which keeps the queue bounded when the journal falls behind.
+     */
+    private void drain() {
+        boolean behind = writeSequence - drainedSequence > capacity;
+        while (!published.isEmpty()) {
+            if (behind) {
+                drainLock.lock();
+                behind = false;
+            } else if (!drainLock.tryLock()) {
+                return; // the holder re-checks the queue after unlocking
+            }
+            try {
+                Batch batch;
+                while ((batch = published.poll()) != null) {
+                    feed(batch);
+                }
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    private void feed(Batch batch) {
+        try {
+            Journal current = batch.journaled ? journal : null;
+            if (current != null) {
+                current.append(batch.firstSequence, batch.rows);
+            }
+            Journal currentIndex = index;
+            if (currentIndex != null) {
+                currentIndex.append(batch.firstSequence, batch.rows);
+            }
+        } finally {
+            drainedSequence = batch.firstSequence + batch.rows.size();
+        }
+    }
+
+    /** Start journaling appends. */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Start feeding published rows, including restored ones, to the secondary indexes.
+     *
+     * @return the sequence from which on the index is handed every row; rows below it that are
+     * still held must be read with {@link #scan} instead
+     */
+    public long setIndex(Journal index) {
+        drainLock.lock();
+        try {
+            this.index = index;
+            return drainedSequence;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Refill an empty store with rows recovered from disk, numbered from {@code firstSequence} on,
+     * so cursors handed out before a restart stay valid. Rows are not journaled again.
+     */
+    public void restore(long firstSequence, List<TransactionRow> rows) {
+        if (writeSequence != 0 || claimedSequence.get() != 0) {
+            throw new IllegalStateException("Store already holds rows");
+        }
+        baseSequence = firstSequence;
+        claimedSequence.set(firstSequence);
+        drainedSequence = firstSequence;
+        writeSequence = firstSequence;
+        appendAll(rows, false);
+    }
+
+    private void write(int slot, TransactionRow row) {
+        int mask = row.present;
+        for (TransactionColumn column : COLUMNS) {
+            int i = column.ordinal();
+            if ((mask & column.bit()) == 0) {
+                if (texts[i] != null) {
+                    texts[i][slot] = null; // don't retain the previous row's string
+                }
+                continue;
+            }
+            switch (column.type()) {
+                case LONG:
+                case TIMESTAMP:
+                    longs[i][slot] = row.numbers[i];
+                    break;
+                case DOUBLE:
+                    doubles[i][slot] = Double.longBitsToDouble(row.numbers[i]);
+                    break;
+                case INT:
+                    ints[i][slot] = (int) row.numbers[i];
+                    break;
+                case BOOLEAN:
+                    booleans[i][slot] = row.numbers[i] != 0;
+                    break;
+                case DICTIONARY:
+                    int code = dictionaries[i].encode(row.strings[i]);
+                    if (code < 0) {
+                        // Dictionary full: keep the value as plain text in the same column
+                        overflow(i)[slot] = row.strings[i];
+                    } else if (texts[i] != null) {
+                        texts[i][slot] = null;
+                    }
+                    ints[i][slot] = code;
+                    break;
+                case TEXT:
+                    texts[i][slot] = row.strings[i];
+                    break;
+            }
+        }
+        present[slot] = mask;
+        extras[slot] = row.extras;
+        partitions[slot] = row.partition;
+        offsets[slot] = row.offset;
+        committedAt[slot] = row.committedAt;
+        ingestedAt[slot] = row.ingestedAt;
+    }
+
+    /**
+     * Text storage for a dictionary column whose dictionary is full, allocated the first time a
+     * value does not fit. Rows holding code -1 read their value from it.
+     */
+    private synchronized String[] overflow(int column) {
+        if (texts[column] == null) {
+            texts[column] = new String[capacity];
+        }
+        return texts[column];
+    }
+
+    private String dictionaryValue(int column, int slot) {
+        int code = ints[column][slot];
+        return code < 0 ? texts[column][slot] : dictionaries[column].decode(code);
+    }
+
+    /**
+     * Rows with sequence >= {@code fromSequence}, oldest first, at most {@code limit} of them.
+     * Rows overwritten while they were being copied are left out and counted as snapshot drops.
+     */
+    public List<Map<String, Object>> readSince(long fromSequence, int limit) {
+        return readPage(fromSequence, limit, false).getRows();
+    }
+
+    /**
+     * Like {@link #readSince}, but also reports the cursor to resume from. With {@code withPosition}
+     * each row carries its {@link #SEQ}, {@link #PARTITION} and {@link #OFFSET}.
+     */
+    public TransactionPage readPage(long fromSequence, int limit, boolean withPosition) {
+        long end = writeSequence;
+        long start = Math.max(fromSequence, oldestSequence(end));
+        long stop = Math.min(end, start + Math.max(0, limit));
+
+        List<Map<String, Object>> out = new ArrayList<>((int) Math.max(0, stop - start));
+        for (long seq = start; seq < stop; seq++) {
+            Map<String, Object> row;
+            try {
+                row = materialize(seq, withPosition);
+            } catch (RuntimeException e) {
+                row = null; // torn read of a row being overwritten; discarded below
+            }
+            out.add(row);
+        }
+
+        // Order the copies above before re-reading the claim (seqlock-style validation)
+        VarHandle.acquireFence();
+        long firstValid = claimedSequence.get() - capacity;
+        if (firstValid > start) {
+            int stale = (int) Math.min(firstValid - start, out.size());
+            out.subList(0, stale).clear();
+            snapshotDrops.add(stale);
+        }
+        out.removeIf(row -> row == null);
+
+        // Rows between fromSequence and start were evicted before the caller asked for them
+        long missed = Math.max(0, oldestSequence(end) - Math.max(0, fromSequence));
+        return new TransactionPage(out, Math.max(stop, Math.min(fromSequence, end)), missed);
+    }
+
+    /**
+     * Stream rows with sequence >= {@code fromSequence} (at most {@code limit}) to {@code visitor}
+     * one at a time, through a single reused row, so memory does not grow with the number of rows.
+     * Rows overwritten before they could be read are skipped and counted as snapshot drops.
+     *
+     * @return the sequence to resume from
+     */
+    public long scan(long fromSequence, long limit, RowVisitor visitor) throws IOException {
+        long end = writeSequence;
+        long start = Math.max(fromSequence, oldestSequence(end));
+        long stop = Math.min(end, start + Math.max(0, Math.min(limit, capacity)));
+
+        TransactionRow scratch = new TransactionRow();
+        for (long seq = start; seq < stop; seq++) {
+            boolean valid;
+            try {
+                valid = readInto(seq, scratch);
+            } catch (RuntimeException e) {
+                valid = false; // torn read of a row being overwritten
+            }
+            if (valid) {
+                visitor.visit(seq, scratch);
+            } else {
+                snapshotDrops.increment();
+            }
+        }
+        return Math.max(stop, Math.min(fromSequence, end));
+    }
+
+    /**
+     * Copy the row with sequence {@code seq} into {@code row}.
+     *
+     * @return false if the row is not held (evicted or not published yet) or was overwritten during the copy
+     */
+    public boolean read(long seq, TransactionRow row) {
+        if (seq < oldestSequence(writeSequence) || seq >= writeSequence) {
+            return false;
+        }
+        try {
+            return readInto(seq, row);
+        } catch (RuntimeException e) {
+            return false; // torn read of a row being overwritten
+        }
+    }
+
+    /**
+     * The row with sequence {@code seq} as a map, as {@link #readPage} returns it, or null if it is
+     * not held (evicted, overwritten during the copy, or not published yet).
+     */
+    public Map<String, Object> get(long seq, boolean withPosition) {
+        if (seq < oldestSequence(writeSequence) || seq >= writeSequence) {
+            return null;
+        }
+        Map<String, Object> row;
+        try {
+            row = materialize(seq, withPosition);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        VarHandle.acquireFence();
+        return claimedSequence.get() - capacity <= seq ? row : null;
+    }
+
+    /** Commit time (Debezium source.ts_ms) of the row with sequence {@code seq}; 0 if unknown or not held. */
+    public long committedAt(long seq) {
+        return timestamp(committedAt, seq);
+    }
+
+    /** When the bridge received the row with sequence {@code seq}; 0 if unknown or not held. */
+    public long ingestedAt(long seq) {
+        return timestamp(ingestedAt, seq);
+    }
+
+    private long timestamp(long[] column, long seq) {
+        if (seq < oldestSequence(writeSequence) || seq >= writeSequence) {
+            return 0;
+        }
+        long value = column[slot(seq)];
+        VarHandle.acquireFence();
+        return claimedSequence.get() - capacity <= seq ? value : 0;
+    }
+
+    /** Copy one slot into {@code row}; false if the slot was overwritten during the copy. */
+    private boolean readInto(long seq, TransactionRow row) {
+        int slot = slot(seq);
+        row.clear();
+        int mask = present[slot];
+        for (TransactionColumn column : COLUMNS) {
+            if ((mask & column.bit()) == 0) {
+                continue;
+            }
+            int i = column.ordinal();
+            switch (column.type()) {
+                case LONG:
+                case TIMESTAMP:
+                    row.numbers[i] = longs[i][slot];
+                    break;
+                case DOUBLE:
+                    row.numbers[i] = Double.doubleToRawLongBits(doubles[i][slot]);
+                    break;
+                case INT:
+                    row.numbers[i] = ints[i][slot];
+                    break;
+                case BOOLEAN:
+                    row.numbers[i] = booleans[i][slot] ? 1 : 0;
+                    break;
+                case DICTIONARY:
+                    row.strings[i] = dictionaryValue(i, slot);
+                    break;
+                case TEXT:
+                    row.strings[i] = texts[i][slot];
+                    break;
+            }
+        }
+        row.present = mask;
+        @SuppressWarnings("unchecked")
+        Map<String, Object> extraFields = (Map<String, Object>) extras[slot];
+        row.extras = extraFields;
+        row.partition = partitions[slot];
+        row.offset = offsets[slot];
+        row.committedAt = committedAt[slot];
+        row.ingestedAt = ingestedAt[slot];
+
+        VarHandle.acquireFence();
+        return claimedSequence.get() - capacity <= seq;
+    }
+
+    private Map<String, Object> materialize(long seq, boolean withPosition) {
+        int slot = slot(seq);
+        int mask = present[slot];
+        Object extra = extras[slot];
+
+        Map<String, Object> row = new HashMap<>(32);
+        for (TransactionColumn column : COLUMNS) {
+            if ((mask & column.bit()) != 0) {
+                row.put(column.key(), value(column, slot));
+            }
+        }
+        if (extra != null) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> extraFields = (Map<String, Object>) extra;
+            row.putAll(extraFields);
+        }
+        if (withPosition) {
+            row.put(SEQ, seq);
+            if (partitions[slot] >= 0) {
+                row.put(PARTITION, partitions[slot]);
+                row.put(OFFSET, offsets[slot]);
+            }
+        }
+        return row;
+    }
+
+    private Object value(TransactionColumn column, int slot) {
+        int i = column.ordinal();
+        switch (column.type()) {
+            case LONG:
+            case TIMESTAMP:
+                return longs[i][slot];
+            case DOUBLE:
+                return doubles[i][slot];
+            case INT:
+                return ints[i][slot];
+            case BOOLEAN:
+                return booleans[i][slot];
+            case DICTIONARY:
+                return dictionaryValue(i, slot);
+            default:
+                return texts[i][slot];
+        }
+    }
+
+    /** Oldest sequence still held when {@code end} rows have been written. */
+    private long oldestSequence(long end) {
+        return Math.max(baseSequence, end - capacity);
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    /** Oldest sequence still held. */
+    public long oldestSequence() {
+        return oldestSequence(writeSequence);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return (int) Math.min(writeSequence - baseSequence, capacity);
+    }
+
+    /** Total number of rows ever appended; the next row gets this sequence number. */
+    public long writeSequence() {
+        return writeSequence;
+    }
+
+    /** Number of rows evicted because the ring wrapped around. */
+    public long overwrites() {
+        return Math.max(0, writeSequence - baseSequence - capacity);
+    }
+
+    /** Number of rows readers missed because they were overwritten while being copied. */
+    public long snapshotDrops() {
+        return snapshotDrops.sum();
+    }
+
+    /** Approximate heap held by the column arrays (excluding dictionary, text and extras contents). */
+    public long estimatedBytes() {
+        // presence mask, extras, partition, offset, commit and ingest times
+        long perRow = Integer.BYTES + 4 + Integer.BYTES + Long.BYTES + 2 * Long.BYTES;
+        for (TransactionColumn column : COLUMNS) {
+            switch (column.type()) {
+                case LONG:
+                case TIMESTAMP:
+                    perRow += Long.BYTES;
+                    break;
+                case DOUBLE:
+                    perRow += Double.BYTES;
+                    break;
+                case INT:
+                case DICTIONARY:
+                    perRow += Integer.BYTES;
+                    break;
+                case BOOLEAN:
+                    perRow += 1;
+                    break;
+                case TEXT:
+                    perRow += 4;
+                    break;
+            }
+        }
+        return perRow * capacity;
+    }
+
+    /** Rows published by one append, waiting for the journal and index. */
+    private static final class Batch {
+        final long firstSequence;
+        final List<TransactionRow> rows;
+        // False for restored rows, which are already on disk
+        final boolean journaled;
+
+        Batch(long firstSequence, List<TransactionRow> rows, boolean journaled) {
+            this.firstSequence = firstSequence;
+            this.rows = rows;
+            this.journaled = journaled;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.lurence.kafka_power_bi_bridge.aggregate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.lurence.kafka_power_bi_bridge.store.TransactionColumn;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WindowedAggregatorTest {
+    private static final long NOW = 1_726_070_730_000L;
+    // More partitions than the aggregator has shards, so some shards take two writers
+    private static final int PARTITIONS = 12;
+    private static final int VALUES = 20;
+    private static final int ROUNDS = 50;
+
+    @Test
+    void shardsMergeIntoOneResultPerValue() throws Exception {
+        WindowedAggregator aggregator = new WindowedAggregator(new SimpleMeterRegistry(), true, 1000);
+
+        recordConcurrently(aggregator, NOW, 0);
+
+        Map<String, Map<String, Object>> byKey = byKey(aggregator.query(
+                WindowedAggregator.Dimension.BANKIDFROM, AggregateWindow.ONE_MINUTE, true, NOW));
+        assertEquals(VALUES, byKey.size());
+        for (int value = 0; value < VALUES; value++) {
+            Map<String, Object> group = byKey.get(String.valueOf(value));
+            assertEquals((long) PARTITIONS * ROUNDS, group.get("count"));
+            assertEquals((double) value * PARTITIONS * ROUNDS, (Double) group.get("sum"), 1e-6);
+            assertEquals((double) value, group.get("min"));
+            assertEquals((double) value, group.get("max"));
+        }
+    }
+
+    @Test
+    void maxGroupsHoldsAcrossShards() throws Exception {
+        int maxGroups = 4;
+        WindowedAggregator aggregator = new WindowedAggregator(new SimpleMeterRegistry(), true, maxGroups);
+
+        recordConcurrently(aggregator, NOW, 0);
+
+        Map<String, Map<String, Object>> byKey = byKey(aggregator.query(
+                WindowedAggregator.Dimension.BANKIDFROM, AggregateWindow.ONE_MINUTE, true, NOW));
+        Map<String, Object> other = byKey.remove(WindowedAggregator.OTHER);
+        assertEquals(maxGroups, byKey.size(), () -> "groups: " + byKey.keySet());
+
+        // A value that got a group got it in every shard, so none of its rows went to OTHER
+        long grouped = 0;
+        for (Map<String, Object> group : byKey.values()) {
+            assertEquals((long) PARTITIONS * ROUNDS, group.get("count"), () -> "split group " + group);
+            grouped += (Long) group.get("count");
+        }
+        assertTrue(other != null);
+        assertEquals((long) PARTITIONS * ROUNDS * VALUES - grouped, other.get("count"));
+    }
+
+    @Test
+    void maxGroupsHoldsWhileSweeping() throws Exception {
+        int maxGroups = 4;
+        WindowedAggregator aggregator = new WindowedAggregator(new SimpleMeterRegistry(), true, maxGroups);
+        // Every round is a sweep interval later, so writers sweep while others admit values
+        long first = System.currentTimeMillis();
+        long step = WindowedAggregator.SWEEP_INTERVAL_MILLIS + 1_000;
+
+        recordConcurrently(aggregator, first, step);
+
+        Map<String, Map<String, Object>> byKey = byKey(aggregator.query(WindowedAggregator.Dimension.BANKIDFROM,
+                AggregateWindow.ONE_HOUR, true, first + (ROUNDS - 1) * step));
+        Map<String, Object> other = byKey.remove(WindowedAggregator.OTHER);
+        assertEquals(maxGroups, byKey.size(), () -> "groups: " + byKey.keySet());
+        long grouped = 0;
+        for (Map<String, Object> group : byKey.values()) {
+            assertEquals((long) PARTITIONS * ROUNDS, group.get("count"), () -> "split group " + group);
+            grouped += (Long) group.get("count");
+        }
+        assertTrue(other != null);
+        assertEquals((long) PARTITIONS * ROUNDS * VALUES - grouped, other.get("count"));
+    }
+
+    @Test
+    void rowsWithoutAnAmountAreIgnored() {
+        WindowedAggregator aggregator = new WindowedAggregator(new SimpleMeterRegistry(), true, 1000);
+        TransactionRow row = new TransactionRow();
+        row.setLong(TransactionColumn.BANKIDFROM, 7);
+        aggregator.record(row, NOW);
+
+        assertTrue(aggregator.query(WindowedAggregator.Dimension.BANKIDFROM, AggregateWindow.ONE_MINUTE, true, NOW)
+                .isEmpty());
+    }
+
+    /**
+     * One writer per partition; each records every BANKIDFROM value ROUNDS times, amount = value,
+     * round r at {@code firstMillis + r * stepMillis}.
+     */
+    private static void recordConcurrently(WindowedAggregator aggregator, long firstMillis, long stepMillis)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(PARTITIONS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int p = 0; p < PARTITIONS; p++) {
+                int partition = p;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int v = 0; v < VALUES; v++) {
+                            // Each partition walks the values from a different starting point
+                            int value = (v + partition * 7) % VALUES;
+                            TransactionRow row = new TransactionRow();
+                            row.setLong(TransactionColumn.BANKIDFROM, value);
+                            row.setDouble(TransactionColumn.TRANSACTIONAMOUNT, value);
+                            row.setPosition(partition, round * VALUES + v);
+                            aggregator.record(row, firstMillis + round * stepMillis);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static Map<String, Map<String, Object>> byKey(List<Map<String, Object>> rows) {
+        Map<String, Map<String, Object>> byKey = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            byKey.put((String) row.get("key"), row);
+        }
+        return byKey;
+    }
+}
@@ -0,0 +1,122 @@
+package org.lurence.kafka_power_bi_bridge.kafka;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.message.BinaryMessageEncoder;
+import org.junit.jupiter.api.Test;
+import org.lurence.kafka_power_bi_bridge.store.TransactionColumn;
+import org.lurence.kafka_power_bi_bridge.store.TransactionRow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvroTransactionCodecTest {
+
+    @Test
+    void decodesCurrentSchemaByPosition() throws IOException {
+        TransactionRow row = AvroTransactionCodec.decode(encode(AvroTransactionCodec.SCHEMA, true));
+
+        assertRow(row);
+        assertEquals(1_726_070_700_123L, row.jetAt());
+    }
+
+    @Test
+    void resolvesRecordsWrittenWithAnEarlierSchema() throws IOException {
+        Schema v1 = schema("/avro/history/transaction-v1.avsc");
+        byte[] message = encode(v1, false);
+
+        TransactionRow row = AvroTransactionCodec.decode(message);
+
+        assertRow(row);
+        assertEquals(0, row.jetAt(), "jet_ts_ms did not exist in v1 and takes its default");
+    }
+
+    @Test
+    void currentAndResolvedDecodingAgree() throws IOException {
+        TransactionRow positional = AvroTransactionCodec.decode(encode(AvroTransactionCodec.SCHEMA, false));
+        TransactionRow resolved = AvroTransactionCodec.decode(encode(schema("/avro/history/transaction-v1.avsc"), false));
+
+        assertEquals(positional.toString(), resolved.toString());
+        assertEquals(positional.committedAt(), resolved.committedAt());
+    }
+
+    @Test
+    void rejectsUnknownSchemas() throws IOException {
+        Schema unknown = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Other\",\"fields\":"
+                + "[{\"name\":\"transactionid\",\"type\":\"long\"}]}");
+        GenericRecord record = new GenericData.Record(unknown);
+        record.put("transactionid", 1L);
+        byte[] message = bytes(new BinaryMessageEncoder<GenericRecord>(GenericData.get(), unknown).encode(record));
+
+        assertTrue(AvroTransactionCodec.isAvro(message));
+        assertThrows(IllegalArgumentException.class, () -> AvroTransactionCodec.decode(message));
+    }
+
+    @Test
+    void recognisesTheSingleObjectMarker() throws IOException {
+        assertTrue(AvroTransactionCodec.isAvro(encode(AvroTransactionCodec.SCHEMA, true)));
+        assertFalse(AvroTransactionCodec.isAvro("Struct{after=Struct{}}".getBytes()));
+        assertFalse(AvroTransactionCodec.isAvro(new byte[]{(byte) 0xC3, 0x01}));
+    }
+
+    private static void assertRow(TransactionRow row) {
+        assertEquals(42L, row.getLong(TransactionColumn.TRANSACTIONID));
+        assertEquals(1001L, row.getLong(TransactionColumn.ACCOUNTFROM));
+        assertEquals(2002L, row.getLong(TransactionColumn.ACCOUNTTO));
+        assertEquals(125.5, row.getDouble(TransactionColumn.TRANSACTIONAMOUNT));
+        assertEquals(1_726_070_700_000L, row.getLong(TransactionColumn.TRANSACTIONDATE));
+        assertEquals(3L, row.getLong(TransactionColumn.TRANSACTIONTYPE));
+        assertEquals("SGD", row.getString(TransactionColumn.CURRENCY));
+        assertFalse(row.has(TransactionColumn.QUOTECURRENCY));
+        assertEquals("FAST", row.getString(TransactionColumn.PAYMENTMODE));
+        assertEquals(1L, row.getLong(TransactionColumn.OVERRIDEFLAG));
+        assertEquals("rent", row.getString(TransactionColumn.NARRATIVE));
+        assertEquals(1_726_070_699_000L, row.committedAt());
+    }
+
+    private static byte[] encode(Schema schema, boolean withJetTime) throws IOException {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("transactionid", 42L);
+        record.put("accountfrom", 1001L);
+        record.put("accountto", 2002L);
+        record.put("bankidfrom", 7L);
+        record.put("bankidto", 8L);
+        record.put("transactionamount", 125.5);
+        record.put("exchangerate", 1.0);
+        record.put("transactiondate", 1_726_070_700_000L);
+        record.put("transactiontype", 3);
+        record.put("interimbalance", 900.0);
+        record.put("accountto_interimbalance", 1100.0);
+        record.put("currency", "SGD");
+        record.put("quotecurrency", null);
+        record.put("paymentmode", "FAST");
+        record.put("overrideflag", true);
+        record.put("narrative", "rent");
+        record.put("op", "c");
+        record.put("source_ts_ms", 1_726_070_699_000L);
+        record.put("event_time", 1_726_070_700_000L);
+        if (schema.getField("jet_ts_ms") != null) {
+            record.put("jet_ts_ms", withJetTime ? 1_726_070_700_123L : 0L);
+        }
+        return bytes(new BinaryMessageEncoder<GenericRecord>(GenericData.get(), schema).encode(record));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Schema schema(String resource) throws IOException {
+        try (InputStream in = AvroTransactionCodecTest.class.getResourceAsStream(resource)) {
+            return new Schema.Parser().parse(in);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DictionaryColumnTest {
+
+    @Test
+    void concurrentWritersAgreeOnEveryCode() throws Exception {
+        int threads = 8;
+        int values = 5_000;
+        DictionaryColumn dictionary = new DictionaryColumn();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<int[]>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                long seed = t;
+                results.add(pool.submit(() -> {
+                    List<Integer> order = new ArrayList<>();
+                    for (int v = 0; v < values; v++) {
+                        order.add(v);
+                    }
+                    Collections.shuffle(order, new Random(seed));
+                    start.await();
+
+                    int[] codes = new int[values];
+                    for (int v : order) {
+                        codes[v] = dictionary.encode("V" + v);
+                        // A code handed out to anyone decodes straight away
+                        assertEquals("V" + v, dictionary.decode(codes[v]));
+                    }
+                    return codes;
+                }));
+            }
+            start.countDown();
+
+            int[] first = results.get(0).get(1, TimeUnit.MINUTES);
+            for (Future<int[]> result : results) {
+                int[] codes = result.get(1, TimeUnit.MINUTES);
+                for (int v = 0; v < values; v++) {
+                    assertEquals(first[v], codes[v], "V" + v + " got two codes");
+                }
+            }
+            boolean[] used = new boolean[values];
+            for (int code : first) {
+                assertEquals(false, used[code], "code " + code + " given to two values");
+                used[code] = true;
+            }
+            assertEquals(values, dictionary.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void fullDictionaryRejectsNewValuesOnly() {
+        DictionaryColumn dictionary = new DictionaryColumn();
+        for (int v = 0; v < DictionaryColumn.MAX_ENTRIES; v++) {
+            assertEquals(v, dictionary.encode("V" + v));
+        }
+
+        assertEquals(-1, dictionary.encode("one too many"));
+        assertEquals(42, dictionary.encode("V42"));
+        assertEquals(DictionaryColumn.MAX_ENTRIES, dictionary.size());
+    }
+}
@@ -0,0 +1,201 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Compares indexed queries against a brute-force scan of the rows that were appended. */
+class TransactionIndexTest {
+    private static final long DAY = 86_400_000L;
+    private static final long FIRST_DATE = 1_726_000_000_000L;
+    private static final String[] CURRENCIES = {"SGD", "USD", "EUR", "JPY"};
+    private static final String[] PAYMENT_MODES = {"CARD", "CASH", "TRANSFER"};
+
+    private final Random random = new Random(42);
+    private final List<TransactionRow> appended = new ArrayList<>();
+
+    @Test
+    void indexedQueriesMatchAScanWhileTheRingWraps() {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+        TransactionIndex index = new TransactionIndex(store, new SimpleMeterRegistry(), true);
+
+        for (int batch = 0; batch < 40; batch++) {
+            List<TransactionRow> rows = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(200); i++) {
+                rows.add(randomRow());
+            }
+            appended.addAll(rows);
+            store.appendAll(rows);
+
+            for (int q = 0; q < 25; q++) {
+                assertSameAsScan(store, index, randomFilter());
+            }
+        }
+    }
+
+    @Test
+    void rowsAppendedBeforeTheIndexAreBackfilled() {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+        for (int i = 0; i < 1_500; i++) {
+            TransactionRow row = randomRow();
+            appended.add(row);
+            store.append(row);
+        }
+        TransactionIndex index = new TransactionIndex(store, new SimpleMeterRegistry(), true);
+        for (int i = 0; i < 300; i++) {
+            TransactionRow row = randomRow();
+            appended.add(row);
+            store.append(row);
+        }
+
+        for (int q = 0; q < 500; q++) {
+            assertSameAsScan(store, index, randomFilter());
+        }
+    }
+
+    @Test
+    void disabledIndexScans() {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+        TransactionIndex index = new TransactionIndex(store, new SimpleMeterRegistry(), false);
+        for (int i = 0; i < 1_200; i++) {
+            TransactionRow row = randomRow();
+            appended.add(row);
+            store.append(row);
+        }
+
+        for (int q = 0; q < 100; q++) {
+            assertSameAsScan(store, index, randomFilter());
+        }
+    }
+
+    /** Page through the query from a random cursor and compare with the rows a scan would return. */
+    private void assertSameAsScan(TransactionStore store, TransactionIndex index, TransactionFilter filter) {
+        long end = store.writeSequence();
+        long oldest = store.oldestSequence();
+        long from = random.nextInt((int) end + 20) - 10;
+        int limit = 1 + random.nextInt(random.nextBoolean() ? 10 : 500);
+
+        List<Long> expected = new ArrayList<>();
+        for (long seq = Math.max(from, oldest); seq < end; seq++) {
+            if (matches(filter, appended.get((int) seq))) {
+                expected.add(seq);
+            }
+        }
+
+        List<Long> actual = new ArrayList<>();
+        long cursor = from;
+        for (int pages = 0; pages <= end; pages++) {
+            TransactionPage page = index.query(filter, cursor, limit);
+            if (pages == 0) {
+                assertEquals(Math.max(0, oldest - Math.max(0, from)), page.getMissed(), filter::toString);
+            }
+            for (Map<String, Object> row : page.getRows()) {
+                actual.add((Long) row.get(TransactionStore.SEQ));
+            }
+            if (page.getRows().size() < limit) {
+                assertEquals(Math.max(cursor, end), page.getNextSequence(), filter::toString);
+                break;
+            }
+            cursor = page.getNextSequence();
+        }
+        assertEquals(expected, actual, () -> filter + " from " + from + " limit " + limit);
+    }
+
+    /** The filter's conditions, evaluated independently of {@link TransactionFilter#matches}. */
+    private static boolean matches(TransactionFilter filter, TransactionRow row) {
+        return equal(filter.getAccountFrom(), row, TransactionColumn.ACCOUNTFROM)
+                && equal(filter.getAccountTo(), row, TransactionColumn.ACCOUNTTO)
+                && equal(filter.getBankIdFrom(), row, TransactionColumn.BANKIDFROM)
+                && equal(filter.getBankIdTo(), row, TransactionColumn.BANKIDTO)
+                && (filter.getCurrency() == null
+                        || filter.getCurrency().equals(row.has(TransactionColumn.CURRENCY)
+                                ? row.getString(TransactionColumn.CURRENCY) : null))
+                && (filter.getPaymentMode() == null
+                        || filter.getPaymentMode().equals(row.has(TransactionColumn.PAYMENTMODE)
+                                ? row.getString(TransactionColumn.PAYMENTMODE) : null))
+                && ((filter.getMinAmount() == null && filter.getMaxAmount() == null)
+                        || (row.has(TransactionColumn.TRANSACTIONAMOUNT)
+                                && (filter.getMinAmount() == null
+                                        || row.getDouble(TransactionColumn.TRANSACTIONAMOUNT) >= filter.getMinAmount())
+                                && (filter.getMaxAmount() == null
+                                        || row.getDouble(TransactionColumn.TRANSACTIONAMOUNT) <= filter.getMaxAmount())))
+                && ((filter.getFrom() == null && filter.getTo() == null)
+                        || (row.has(TransactionColumn.TRANSACTIONDATE)
+                                && (filter.getFrom() == null || row.getLong(TransactionColumn.TRANSACTIONDATE) >= filter.getFrom())
+                                && (filter.getTo() == null || row.getLong(TransactionColumn.TRANSACTIONDATE) < filter.getTo())));
+    }
+
+    private static boolean equal(Long value, TransactionRow row, TransactionColumn column) {
+        return value == null || (row.has(column) && Objects.equals(value, row.getLong(column)));
+    }
+
+    /** Small value domains, so every condition matches often and combinations overlap. */
+    private TransactionRow randomRow() {
+        TransactionRow row = new TransactionRow();
+        row.setLong(TransactionColumn.ACCOUNTFROM, random.nextInt(40));
+        if (random.nextInt(10) > 0) {
+            row.setLong(TransactionColumn.ACCOUNTTO, random.nextInt(40));
+        }
+        row.setLong(TransactionColumn.BANKIDFROM, random.nextInt(5));
+        row.setLong(TransactionColumn.BANKIDTO, random.nextInt(5));
+        if (random.nextInt(8) > 0) {
+            row.setString(TransactionColumn.CURRENCY, CURRENCIES[random.nextInt(CURRENCIES.length)]);
+        }
+        if (random.nextInt(4) > 0) {
+            row.setString(TransactionColumn.PAYMENTMODE, PAYMENT_MODES[random.nextInt(PAYMENT_MODES.length)]);
+        }
+        if (random.nextInt(10) > 0) {
+            row.setDouble(TransactionColumn.TRANSACTIONAMOUNT, random.nextInt(400) / 2.0);
+        }
+        if (random.nextInt(10) > 0) {
+            row.setLong(TransactionColumn.TRANSACTIONDATE, FIRST_DATE + random.nextInt(30) * DAY + random.nextInt(1000));
+        }
+        return row;
+    }
+
+    /** One to three conditions, sometimes with values no row has or ranges that cannot match. */
+    private TransactionFilter randomFilter() {
+        TransactionFilter filter = new TransactionFilter();
+        int conditions = 1 + random.nextInt(3);
+        for (int c = 0; c < conditions; c++) {
+            switch (random.nextInt(9)) {
+                case 0:
+                    filter.setAccountFrom((long) random.nextInt(45));
+                    break;
+                case 1:
+                    filter.setAccountTo((long) random.nextInt(45));
+                    break;
+                case 2:
+                    filter.setBankIdFrom((long) random.nextInt(6));
+                    break;
+                case 3:
+                    filter.setBankIdTo((long) random.nextInt(6));
+                    break;
+                case 4:
+                    filter.setCurrency(random.nextInt(10) == 0 ? "CHF" : CURRENCIES[random.nextInt(CURRENCIES.length)]);
+                    break;
+                case 5:
+                    filter.setPaymentMode(PAYMENT_MODES[random.nextInt(PAYMENT_MODES.length)]);
+                    break;
+                case 6:
+                    filter.setMinAmount(random.nextInt(420) / 2.0);
+                    break;
+                case 7:
+                    filter.setMaxAmount(random.nextInt(420) / 2.0);
+                    break;
+                default:
+                    long from = FIRST_DATE + random.nextInt(32) * DAY;
+                    filter.setFrom(random.nextBoolean() ? from : null);
+                    filter.setTo(from + random.nextInt(10) * DAY - DAY);
+            }
+        }
+        return filter;
+    }
+}
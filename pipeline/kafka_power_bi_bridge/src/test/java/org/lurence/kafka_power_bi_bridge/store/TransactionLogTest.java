@@ -0,0 +1,211 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionLogTest {
+    private static final int SMALL_SEGMENT = 8 * 1024;
+    private static final int LARGE_SEGMENT = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void restartReplaysEverySegment() throws IOException {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+        TransactionLog log = open(store, SMALL_SEGMENT);
+        store.appendAll(rows(300));
+        log.close();
+        assertTrue(segmentFiles().size() > 2, "rows spread over several segments");
+
+        TransactionStore restored = TransactionStore.ofCapacity(1_000);
+        open(restored, SMALL_SEGMENT);
+
+        assertEquals(300, restored.writeSequence());
+        assertEquals(accounts(store.readSince(0, 1_000)), accounts(restored.readSince(0, 1_000)));
+    }
+
+    @Test
+    void restartKeepsSequenceNumbersWhenOnlyTheNewestRowsFit() throws IOException {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+        TransactionLog log = open(store, SMALL_SEGMENT);
+        store.appendAll(rows(300));
+        log.close();
+
+        TransactionStore restored = TransactionStore.ofCapacity(100);
+        open(restored, SMALL_SEGMENT);
+
+        assertEquals(300, restored.writeSequence());
+        assertEquals(200, restored.oldestSequence());
+        assertEquals(accounts(store.readSince(200, 100)), accounts(restored.readSince(0, 100)));
+    }
+
+    @Test
+    void tornTailIsTruncatedAndConsumedAgain() throws IOException {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+        TransactionLog log = open(store, LARGE_SEGMENT);
+        List<TransactionRow> rows = rows(50);
+        store.appendAll(rows);
+        log.close();
+
+        // The second half of the last record never reached the disk
+        Path segment = segmentFiles().get(0);
+        List<Integer> records = recordPositions(segment);
+        int last = records.get(records.size() - 1);
+        byte[] bytes = Files.readAllBytes(segment);
+        int end = last + 8 + ByteBuffer.wrap(bytes).getInt(last);
+        for (int i = (last + end) / 2; i < end; i++) {
+            bytes[i] = 0;
+        }
+        Files.write(segment, bytes);
+
+        TransactionStore restored = TransactionStore.ofCapacity(1_000);
+        TransactionLog reopened = open(restored, LARGE_SEGMENT);
+        assertEquals(49, restored.writeSequence());
+        TransactionRow torn = rows.get(49);
+        assertEquals(torn.offset(), reopened.nextOffset(torn.partition()), "the torn record is read from Kafka again");
+
+        // Consuming it again lands it at the same sequence
+        restored.append(torn);
+        reopened.close();
+        TransactionStore again = TransactionStore.ofCapacity(1_000);
+        open(again, LARGE_SEGMENT);
+        assertEquals(50, again.writeSequence());
+        assertEquals(accounts(store.readSince(0, 50)), accounts(again.readSince(0, 50)));
+    }
+
+    @Test
+    void recoveryStopsAtARecordFailingItsCrc() throws IOException {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+        TransactionLog log = open(store, LARGE_SEGMENT);
+        store.appendAll(rows(50));
+        log.close();
+
+        Path segment = segmentFiles().get(0);
+        int corrupt = recordPositions(segment).get(20);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[corrupt + 30] ^= 0x5A; // inside the body; length and CRC untouched
+        Files.write(segment, bytes);
+
+        TransactionStore restored = TransactionStore.ofCapacity(1_000);
+        TransactionLog reopened = open(restored, LARGE_SEGMENT);
+
+        assertEquals(20, restored.writeSequence());
+        assertEquals(accounts(store.readSince(0, 20)), accounts(restored.readSince(0, 20)));
+
+        // Rows consumed again after the restart survive the next one, instead of hiding behind the bad record
+        restored.appendAll(rows(50).subList(20, 50));
+        reopened.close();
+        TransactionStore again = TransactionStore.ofCapacity(1_000);
+        open(again, LARGE_SEGMENT);
+        assertEquals(50, again.writeSequence());
+        assertEquals(accounts(store.readSince(0, 50)), accounts(again.readSince(0, 50)));
+    }
+
+    @Test
+    void corruptRecordInAnOlderSegmentDropsEverythingAfterIt() throws IOException {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+        TransactionLog log = open(store, SMALL_SEGMENT);
+        store.appendAll(rows(300));
+        log.close();
+
+        Path segment = segmentFiles().get(1);
+        long base = Long.parseLong(segment.getFileName().toString().replace(".log", ""));
+        int corrupt = recordPositions(segment).get(5);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[corrupt + 30] ^= 0x5A;
+        Files.write(segment, bytes);
+
+        TransactionStore restored = TransactionStore.ofCapacity(1_000);
+        TransactionLog reopened = open(restored, SMALL_SEGMENT);
+        assertEquals(base + 5, restored.writeSequence());
+        assertEquals(2, segmentFiles().size(), "segments after the bad record are gone");
+
+        restored.appendAll(rows(300).subList((int) base + 5, 300));
+        reopened.close();
+        TransactionStore again = TransactionStore.ofCapacity(1_000);
+        open(again, SMALL_SEGMENT);
+        assertEquals(300, again.writeSequence());
+        assertEquals(accounts(store.readSince(0, 300)), accounts(again.readSince(0, 300)));
+    }
+
+    @Test
+    void nextOffsetIsKeptPerPartitionAcrossRestarts() throws IOException {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+        TransactionLog log = open(store, SMALL_SEGMENT);
+        store.appendAll(rows(300));
+        assertEquals(-1, log.nextOffset(0), "nothing logged for partition 0 yet");
+        assertEquals(1_100, log.nextOffset(1));
+        log.close();
+
+        TransactionLog reopened = open(TransactionStore.ofCapacity(1_000), SMALL_SEGMENT);
+
+        assertEquals(-1, reopened.nextOffset(0));
+        assertEquals(1_100, reopened.nextOffset(1));
+        assertEquals(2_100, reopened.nextOffset(2));
+        assertEquals(3_100, reopened.nextOffset(3));
+        assertEquals(-1, reopened.nextOffset(TransactionLog.MAX_PARTITIONS));
+    }
+
+    private TransactionLog open(TransactionStore store, int segmentBytes) {
+        TransactionLog log = new TransactionLog(store, new SimpleMeterRegistry(), true, dir.toString(), segmentBytes, 16);
+        assertTrue(log.isEnabled());
+        return log;
+    }
+
+    /** Partitions 1 to 3 in turn, each with offsets counting up from partition * 1000. */
+    private static List<TransactionRow> rows(int n) {
+        List<TransactionRow> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int partition = 1 + i % 3;
+            TransactionRow row = new TransactionRow();
+            row.setLong(TransactionColumn.ACCOUNTFROM, 10_000 + i);
+            row.setDouble(TransactionColumn.TRANSACTIONAMOUNT, i * 1.5);
+            row.setString(TransactionColumn.CURRENCY, i % 2 == 0 ? "SGD" : "USD");
+            row.putExtra("note", "row " + i);
+            row.setPosition(partition, partition * 1_000L + i / 3);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<String> accounts(List<Map<String, Object>> rows) {
+        List<String> out = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            out.add(row.get("accountfrom") + "/" + row.get("transactionamount") + "/" + row.get("currency")
+                    + "/" + row.get("note"));
+        }
+        return out;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    /** Start of every record in a segment, following the length prefixes. */
+    private static List<Integer> recordPositions(Path segment) throws IOException {
+        List<Integer> positions = new ArrayList<>();
+        int position = 0;
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(segment));
+        while (position + 4 <= log.capacity() && log.getInt(position) > 0) {
+            positions.add(position);
+            position += 8 + log.getInt(position);
+        }
+        return positions;
+    }
+}
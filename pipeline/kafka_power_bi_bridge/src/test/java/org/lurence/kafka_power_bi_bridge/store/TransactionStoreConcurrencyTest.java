@@ -0,0 +1,196 @@
+package org.lurence.kafka_power_bi_bridge.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionStoreConcurrencyTest {
+    private static final int WRITERS = 4;
+    private static final int ROWS_PER_WRITER = 5_000;
+    private static final int TOTAL = WRITERS * ROWS_PER_WRITER;
+
+    @Test
+    void readersSeeEveryRowOnceAndWhole() throws Exception {
+        TransactionStore store = TransactionStore.ofCapacity(TOTAL);
+        RecordingJournal journal = new RecordingJournal();
+        store.setJournal(journal);
+
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + 1);
+        try {
+            AtomicBoolean writing = new AtomicBoolean(true);
+            Future<List<Long>> reader = pool.submit(() -> {
+                List<Long> seen = new ArrayList<>(TOTAL);
+                long cursor = 0;
+                while (writing.get() || cursor < store.writeSequence()) {
+                    TransactionPage page = store.readPage(cursor, 700, true);
+                    for (Map<String, Object> row : page.getRows()) {
+                        long seq = (Long) row.get(TransactionStore.SEQ);
+                        assertEquals(cursor, seq, "rows of a page follow on from the cursor");
+                        assertWhole(row);
+                        seen.add(seq);
+                        cursor = seq + 1;
+                    }
+                    assertEquals(cursor, page.getNextSequence());
+                    assertEquals(0, page.getMissed());
+                }
+                return seen;
+            });
+
+            runWriters(pool, store);
+            writing.set(false);
+
+            List<Long> seen = reader.get(1, TimeUnit.MINUTES);
+            assertEquals(TOTAL, seen.size());
+            assertEquals(TOTAL, store.writeSequence());
+            assertEquals(0, store.snapshotDrops());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(TOTAL, journal.next, "the journal saw every row once, in sequence order");
+        assertTrue(journal.outOfOrder.isEmpty(), () -> "out of order batches: " + journal.outOfOrder);
+    }
+
+    @Test
+    void rowsReadWhileTheRingWrapsAreNeverTorn() throws Exception {
+        TransactionStore store = TransactionStore.ofCapacity(1_000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + 1);
+        try {
+            AtomicBoolean writing = new AtomicBoolean(true);
+            Future<Long> reader = pool.submit(() -> {
+                long cursor = 0;
+                long rows = 0;
+                while (writing.get()) {
+                    TransactionPage page = store.readPage(cursor, 300, true);
+                    long previous = cursor - 1;
+                    for (Map<String, Object> row : page.getRows()) {
+                        long seq = (Long) row.get(TransactionStore.SEQ);
+                        assertTrue(seq > previous, "sequences increase within a page");
+                        assertWhole(row);
+                        previous = seq;
+                        rows++;
+                    }
+                    assertTrue(page.getNextSequence() >= cursor, "the cursor never moves back");
+                    cursor = page.getNextSequence();
+                }
+                return rows;
+            });
+
+            runWriters(pool, store);
+            writing.set(false);
+
+            assertTrue(reader.get(1, TimeUnit.MINUTES) > 0);
+            assertEquals(TOTAL, store.writeSequence());
+            assertEquals(TOTAL - 1_000, store.overwrites());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void batchesStayContiguous() throws Exception {
+        TransactionStore store = TransactionStore.ofCapacity(TOTAL);
+
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        try {
+            runWriters(pool, store);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Each writer appends its offsets in order, so per partition they only ever go up
+        long[] lastOffset = new long[WRITERS];
+        Arrays.fill(lastOffset, -1);
+        for (Map<String, Object> row : store.readSince(0, TOTAL)) {
+            int partition = ((Number) row.get("accountto")).intValue();
+            long offset = (Long) row.get("accountfrom") - partition * 1_000_000L;
+            assertEquals(lastOffset[partition] + 1, offset);
+            lastOffset[partition] = offset;
+        }
+        for (int partition = 0; partition < WRITERS; partition++) {
+            assertEquals(ROWS_PER_WRITER - 1, lastOffset[partition]);
+        }
+    }
+
+    /** Writers on even partitions append row by row, the others in batches of 1 to 61 rows. */
+    private static void runWriters(ExecutorService pool, TransactionStore store) throws Exception {
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int partition = w;
+            writers.add(pool.submit(() -> {
+                int offset = 0;
+                while (offset < ROWS_PER_WRITER) {
+                    if (partition % 2 == 0) {
+                        store.append(row(partition, offset++));
+                        continue;
+                    }
+                    int n = Math.min(ROWS_PER_WRITER - offset, 1 + offset % 61);
+                    List<TransactionRow> batch = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) {
+                        batch.add(row(partition, offset++));
+                    }
+                    store.appendAll(batch);
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /** A row whose columns can all be derived from its partition and offset. */
+    private static TransactionRow row(int partition, long offset) {
+        TransactionRow row = new TransactionRow();
+        row.setLong(TransactionColumn.ACCOUNTFROM, partition * 1_000_000L + offset);
+        row.setLong(TransactionColumn.ACCOUNTTO, partition);
+        row.setDouble(TransactionColumn.TRANSACTIONAMOUNT, offset / 4.0);
+        row.setString(TransactionColumn.CURRENCY, "C" + (offset % 7));
+        if (offset % 3 == 0) {
+            row.setString(TransactionColumn.PAYMENTMODE, "P" + partition);
+        }
+        row.setPosition(partition, offset);
+        return row;
+    }
+
+    private static void assertWhole(Map<String, Object> row) {
+        int partition = (Integer) row.get(TransactionStore.PARTITION);
+        long offset = (Long) row.get(TransactionStore.OFFSET);
+        assertEquals(partition * 1_000_000L + offset, row.get("accountfrom"), () -> "mixed row " + row);
+        assertEquals((long) partition, ((Number) row.get("accountto")).longValue(), () -> "mixed row " + row);
+        assertEquals(offset / 4.0, row.get("transactionamount"), () -> "mixed row " + row);
+        assertEquals("C" + (offset % 7), row.get("currency"), () -> "mixed row " + row);
+        assertEquals(offset % 3 == 0 ? "P" + partition : null, row.get("paymentmode"), () -> "mixed row " + row);
+    }
+
+    /** Checks the journal contract: every batch once, in sequence order, never concurrently. */
+    private static final class RecordingJournal implements TransactionStore.Journal {
+        final List<String> outOfOrder = new ArrayList<>();
+        long next;
+        private final AtomicBoolean inside = new AtomicBoolean();
+
+        @Override
+        public void append(long firstSequence, List<TransactionRow> rows) {
+            if (!inside.compareAndSet(false, true)) {
+                outOfOrder.add("overlapping call at " + firstSequence);
+                return;
+            }
+            if (firstSequence != next) {
+                outOfOrder.add(firstSequence + " while expecting " + next);
+            }
+            next = firstSequence + rows.size();
+            inside.set(false);
+        }
+    }
+}